@@ -0,0 +1,92 @@
+package org.apereo.cas.ticket.registry;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apereo.cas.ticket.Ticket;
+import org.apereo.cas.ticket.TicketDefinition;
+import org.apereo.cas.ticket.TicketGrantingTicket;
+
+import java.util.function.Predicate;
+
+/**
+ * Criteria that tickets streamed from a {@link TicketRegistry} must match, so that registries able to
+ * filter tickets where they are stored only transfer the matching ones. Registries are free to apply any part
+ * of the criteria after the fact, which is why the query is itself a predicate over tickets.
+ *
+ * @author Misagh Moayyed
+ * @since 5.2.0
+ */
+public class TicketQuery implements Predicate<Ticket> {
+    private final Class<? extends Ticket> type;
+    private final String principalId;
+
+    /**
+     * Instantiates a new ticket query.
+     *
+     * @param type        the type tickets must be of, or null for any type
+     * @param principalId the id of the principal tickets must have been issued to, or null for any principal
+     */
+    public TicketQuery(final Class<? extends Ticket> type, final String principalId) {
+        this.type = type;
+        this.principalId = principalId;
+    }
+
+    /**
+     * Query tickets of the given type.
+     *
+     * @param type the type
+     * @return the ticket query
+     */
+    public static TicketQuery forType(final Class<? extends Ticket> type) {
+        return new TicketQuery(type, null);
+    }
+
+    public Class<? extends Ticket> getType() {
+        return this.type;
+    }
+
+    public String getPrincipalId() {
+        return this.principalId;
+    }
+
+    /**
+     * Whether tickets of the given definition may match this query.
+     *
+     * @param definition the ticket definition
+     * @return true if tickets of the definition may match
+     */
+    public boolean matches(final TicketDefinition definition) {
+        return matches(definition.getImplementationClass());
+    }
+
+    /**
+     * Whether tickets of the given type may match this query.
+     *
+     * @param ticketType the ticket type
+     * @return true if tickets of the type may match
+     */
+    public boolean matches(final Class<? extends Ticket> ticketType) {
+        return this.type == null || this.type.isAssignableFrom(ticketType) || ticketType.isAssignableFrom(this.type);
+    }
+
+    @Override
+    public boolean test(final Ticket ticket) {
+        if (this.type != null && !this.type.isInstance(ticket)) {
+            return false;
+        }
+        if (this.principalId == null) {
+            return true;
+        }
+        final TicketGrantingTicket grantingTicket = ticket instanceof TicketGrantingTicket
+                ? (TicketGrantingTicket) ticket : ticket.getGrantingTicket();
+        return grantingTicket != null && grantingTicket.getAuthentication() != null
+                && this.principalId.equals(grantingTicket.getAuthentication().getPrincipal().getId());
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this)
+                .append("type", this.type)
+                .append("principalId", this.principalId)
+                .toString();
+    }
+}
@@ -1,9 +1,13 @@
 package org.apereo.cas.ticket.registry;
 
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import org.apereo.cas.ticket.Ticket;
+import org.apereo.cas.ticket.TicketGrantingTicket;
 
 /**
  * Interface for a registry that stores tickets. The underlying registry can be
@@ -74,6 +78,19 @@ public interface TicketRegistry {
      */
     Ticket updateTicket(Ticket ticket);
 
+    /**
+     * Update the ticket that has granted a new ticket and add the granted ticket to the registry,
+     * for example a ticket-granting ticket along with the service ticket it has just issued.
+     * Registries may override this to store both tickets in a single round-trip.
+     *
+     * @param grantingTicket the granting ticket that is updated
+     * @param grantedTicket  the granted ticket that is added
+     */
+    default void updateAndAddTicket(final Ticket grantingTicket, final Ticket grantedTicket) {
+        updateTicket(grantingTicket);
+        addTicket(grantedTicket);
+    }
+
     /**
      * Computes the number of SSO sessions stored in the ticket registry.
      *
@@ -91,4 +108,52 @@ public interface TicketRegistry {
     default Stream<Ticket> getTicketsStream() {
         return getTickets().stream();
     }
+
+    /**
+     * Stream the tickets that match the query. Registries that can filter tickets where they are stored
+     * should override this, so that only matching tickets are transferred. Close the stream if it is not fully consumed.
+     *
+     * @param query the query
+     * @return the matching tickets. Tickets might or might not be valid i.e. expired.
+     */
+    default Stream<Ticket> getTicketsStream(final TicketQuery query) {
+        return getTicketsStream().filter(query);
+    }
+
+    /**
+     * Retrieve the ticket-granting tickets issued to a principal.
+     * Registries that can look up tickets by principal should override this
+     * rather than scan every ticket in the registry.
+     *
+     * @param principalId the principal id
+     * @return the ticket-granting tickets of the principal. Tickets might or might not be valid i.e. expired.
+     */
+    default Collection<TicketGrantingTicket> getSessionsForPrincipal(final String principalId) {
+        try (Stream<Ticket> tickets = getTicketsStream(new TicketQuery(TicketGrantingTicket.class, principalId))) {
+            return tickets
+                    .map(TicketGrantingTicket.class::cast)
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Retrieve a page of ticket-granting tickets. Tickets are returned in an order that is
+     * specific to the registry but stable, so that all tickets can be visited page after page
+     * by passing the id of the last ticket of a page as the cursor of the next.
+     * Registries that keep tickets ordered should override this rather than sort every ticket in the registry.
+     *
+     * @param cursor the id of the last ticket of the previous page, or null for the first page
+     * @param count  the maximum number of tickets to return
+     * @return the ticket-granting tickets. Tickets might or might not be valid i.e. expired.
+     */
+    default List<TicketGrantingTicket> getSessions(final String cursor, final int count) {
+        try (Stream<Ticket> tickets = getTicketsStream(TicketQuery.forType(TicketGrantingTicket.class))) {
+            return tickets
+                    .map(TicketGrantingTicket.class::cast)
+                    .filter(t -> cursor == null || t.getId().compareTo(cursor) > 0)
+                    .sorted(Comparator.comparing(Ticket::getId))
+                    .limit(count)
+                    .collect(Collectors.toList());
+        }
+    }
 }
@@ -14,8 +14,10 @@ import org.apereo.cas.ticket.proxy.ProxyTicket;
 import org.apereo.cas.validation.Assertion;
 
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
 import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 /**
  * CAS viewed as a set of services to generate and validate Tickets.
@@ -122,6 +124,41 @@ public interface CentralAuthenticationService {
      */
     Collection<Ticket> getTickets(Predicate<Ticket> predicate);
 
+    /**
+     * Retrieve the ticket-granting tickets issued to a principal.
+     *
+     * @param principalId the principal id
+     * @return the ticket-granting tickets. Tickets might or might not be valid i.e. expired.
+     * @since 5.2.0
+     */
+    default Collection<TicketGrantingTicket> getTicketGrantingTickets(final String principalId) {
+        return getTickets(t -> t instanceof TicketGrantingTicket
+                && principalId.equals(((TicketGrantingTicket) t).getAuthentication().getPrincipal().getId()))
+                .stream()
+                .map(TicketGrantingTicket.class::cast)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Retrieve a page of ticket-granting tickets from the underlying ticket registry.
+     * All tickets can be visited page after page by passing the id of the last ticket
+     * of a page as the cursor of the next.
+     *
+     * @param cursor the id of the last ticket of the previous page, or null for the first page
+     * @param count  the maximum number of tickets to return
+     * @return the ticket-granting tickets. Tickets might or might not be valid i.e. expired.
+     * @since 5.2.0
+     */
+    default List<TicketGrantingTicket> getTicketGrantingTickets(final String cursor, final int count) {
+        return getTickets(TicketGrantingTicket.class::isInstance)
+                .stream()
+                .map(TicketGrantingTicket.class::cast)
+                .filter(t -> cursor == null || t.getId().compareTo(cursor) > 0)
+                .sorted(Comparator.comparing(Ticket::getId))
+                .limit(count)
+                .collect(Collectors.toList());
+    }
+
     /**
      * Grant a {@link ServiceTicket} that may be used to access the given service
      * by authenticating the given credentials.
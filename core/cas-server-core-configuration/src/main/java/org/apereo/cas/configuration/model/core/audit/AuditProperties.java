@@ -1,8 +1,11 @@
 package org.apereo.cas.configuration.model.core.audit;
 
 import org.apereo.cas.configuration.model.support.jpa.AbstractJpaProperties;
+import org.apereo.cas.configuration.support.Beans;
 import org.apereo.inspektr.audit.support.AbstractStringAuditTrailManager;
 
+import java.io.Serializable;
+
 /**
  * This is {@link AuditProperties}.
  *
@@ -168,6 +171,11 @@ public class AuditProperties {
          */
         private String propagationBehaviorName = "PROPAGATION_REQUIRED";
 
+        /**
+         * Write audit records in the background, in batches.
+         */
+        private Asynchronous asynchronous = new Asynchronous();
+
         public int getMaxAgeDays() {
             return maxAgeDays;
         }
@@ -191,5 +199,134 @@ public class AuditProperties {
         public void setIsolationLevelName(final String isolationLevelName) {
             this.isolationLevelName = isolationLevelName;
         }
+
+        public Asynchronous getAsynchronous() {
+            return asynchronous;
+        }
+
+        public void setAsynchronous(final Asynchronous asynchronous) {
+            this.asynchronous = asynchronous;
+        }
+    }
+
+    /**
+     * Asynchronous, batched audit records.
+     */
+    public static class Asynchronous implements Serializable {
+        private static final long serialVersionUID = -4170935236540307521L;
+
+        /**
+         * What to do with an audit record when the queue is full.
+         */
+        public enum OverflowPolicies {
+            /**
+             * Wait for room in the queue, up to the block timeout, then drop the record.
+             */
+            BLOCK,
+            /**
+             * Discard the record.
+             */
+            DROP,
+            /**
+             * Append the record to the spill file. Batches that cannot be written are spilled as well.
+             */
+            SPILL
+        }
+
+        /**
+         * Write audit records in the background, in batches, rather than
+         * inserting each record on the thread that produced it.
+         */
+        private boolean enabled;
+
+        /**
+         * Maximum number of audit records waiting to be written in the background.
+         */
+        private int queueCapacity = 10_000;
+
+        /**
+         * Maximum number of audit records written in a single batch.
+         */
+        private int batchSize = 100;
+
+        /**
+         * Maximum time an audit record waits before its batch is written.
+         */
+        private String flushInterval = "PT1S";
+
+        /**
+         * What to do with an audit record when the queue is full.
+         */
+        private OverflowPolicies overflowPolicy = OverflowPolicies.BLOCK;
+
+        /**
+         * Maximum time the caller waits for room in the queue when the overflow policy is {@code BLOCK}.
+         * Records that still do not fit are dropped.
+         */
+        private String blockTimeout = "PT5S";
+
+        /**
+         * Local file to which audit records are spilled when the queue is full or a batch
+         * cannot be written. Spilled records are written to the database later on.
+         * Only used, and then required, when the overflow policy is {@code SPILL}.
+         * The file should be in a directory only writable by CAS, as its contents are inserted into the audit table.
+         */
+        private String spillFile;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(final boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(final int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(final int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public long getFlushInterval() {
+            return Beans.newDuration(flushInterval).toMillis();
+        }
+
+        public void setFlushInterval(final String flushInterval) {
+            this.flushInterval = flushInterval;
+        }
+
+        public OverflowPolicies getOverflowPolicy() {
+            return overflowPolicy;
+        }
+
+        public void setOverflowPolicy(final OverflowPolicies overflowPolicy) {
+            this.overflowPolicy = overflowPolicy;
+        }
+
+        public long getBlockTimeout() {
+            return Beans.newDuration(blockTimeout).toMillis();
+        }
+
+        public void setBlockTimeout(final String blockTimeout) {
+            this.blockTimeout = blockTimeout;
+        }
+
+        public String getSpillFile() {
+            return spillFile;
+        }
+
+        public void setSpillFile(final String spillFile) {
+            this.spillFile = spillFile;
+        }
     }
 }
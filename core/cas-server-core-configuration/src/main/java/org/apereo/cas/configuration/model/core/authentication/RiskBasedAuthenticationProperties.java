@@ -1,6 +1,7 @@
 package org.apereo.cas.configuration.model.core.authentication;
 
 import org.apereo.cas.configuration.model.support.sms.SmsProperties;
+import org.apereo.cas.configuration.support.Beans;
 import org.springframework.boot.context.properties.NestedConfigurationProperty;
 
 /**
@@ -49,6 +50,33 @@ public class RiskBasedAuthenticationProperties {
      */
     private long daysInRecentHistory = 30;
 
+    /**
+     * Control how the recent authentication history of each user is summarized,
+     * so that risk calculations do not have to go through every past authentication event.
+     */
+    private Profile profile = new Profile();
+
+    /**
+     * Control how risk calculators are run when an authentication attempt is evaluated.
+     */
+    private Evaluator evaluator = new Evaluator();
+
+    public Evaluator getEvaluator() {
+        return evaluator;
+    }
+
+    public void setEvaluator(final Evaluator evaluator) {
+        this.evaluator = evaluator;
+    }
+
+    public Profile getProfile() {
+        return profile;
+    }
+
+    public void setProfile(final Profile profile) {
+        this.profile = profile;
+    }
+
     public long getDaysInRecentHistory() {
         return daysInRecentHistory;
     }
@@ -186,6 +214,121 @@ public class RiskBasedAuthenticationProperties {
         }
     }
     
+    public static class Profile {
+
+        /**
+         * Maximum number of user profiles kept in memory. Profiles of users not kept
+         * are built again from the events repository when they next authenticate.
+         */
+        private long maxProfiles = 10_000;
+
+        /**
+         * Maximum number of distinct IP addresses, user agents and locations tracked
+         * per user and per day. Further values are regarded as unfamiliar.
+         */
+        private int maxTrackedValues = 100;
+
+        /**
+         * Time after which a user profile is built again from the events repository,
+         * accounting for events recorded by other CAS nodes.
+         */
+        private String refreshInterval = "PT30M";
+
+        public long getMaxProfiles() {
+            return maxProfiles;
+        }
+
+        public void setMaxProfiles(final long maxProfiles) {
+            this.maxProfiles = maxProfiles;
+        }
+
+        public int getMaxTrackedValues() {
+            return maxTrackedValues;
+        }
+
+        public void setMaxTrackedValues(final int maxTrackedValues) {
+            this.maxTrackedValues = maxTrackedValues;
+        }
+
+        public long getRefreshInterval() {
+            return Beans.newDuration(refreshInterval).toMillis();
+        }
+
+        public void setRefreshInterval(final String refreshInterval) {
+            this.refreshInterval = refreshInterval;
+        }
+    }
+
+    public static class Evaluator {
+
+        /**
+         * Run risk calculators concurrently rather than one after the other,
+         * so that the time taken to evaluate an attempt is that of the slowest calculator.
+         */
+        private boolean parallel;
+
+        /**
+         * Number of threads used to run risk calculators concurrently.
+         */
+        private int poolSize = 8;
+
+        /**
+         * Number of calculations that may wait for a thread before they are run
+         * by the thread evaluating the authentication attempt.
+         */
+        private int queueCapacity = 1000;
+
+        /**
+         * Time given to risk calculators running concurrently to produce a score.
+         */
+        private String timeout = "PT2S";
+
+        /**
+         * Score given by a risk calculator that did not produce a score in time.
+         */
+        private double timeoutScore = 1.0;
+
+        public boolean isParallel() {
+            return parallel;
+        }
+
+        public void setParallel(final boolean parallel) {
+            this.parallel = parallel;
+        }
+
+        public int getPoolSize() {
+            return poolSize;
+        }
+
+        public void setPoolSize(final int poolSize) {
+            this.poolSize = poolSize;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(final int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public long getTimeout() {
+            return Beans.newDuration(timeout).toMillis();
+        }
+
+        public void setTimeout(final String timeout) {
+            this.timeout = timeout;
+        }
+
+        public double getTimeoutScore() {
+            return timeoutScore;
+        }
+
+        public void setTimeoutScore(final double timeoutScore) {
+            this.timeoutScore = timeoutScore;
+        }
+    }
+
     public static class Response {
 
         /**
@@ -2,6 +2,7 @@ package org.apereo.cas.configuration.model.core.events;
 
 import org.apereo.cas.configuration.model.support.jpa.AbstractJpaProperties;
 import org.apereo.cas.configuration.model.support.mongo.AbstractMongoClientProperties;
+import org.apereo.cas.configuration.support.Beans;
 
 /**
  * Configuration properties class for events.
@@ -36,6 +37,11 @@ public class EventsProperties {
      */
     private Mongodb mongodb = new Mongodb();
 
+    /**
+     * Track authentication events in memory.
+     */
+    private Memory memory = new Memory();
+
     public Mongodb getMongodb() {
         return mongodb;
     }
@@ -60,6 +66,14 @@ public class EventsProperties {
         this.trackConfigurationModifications = trackConfigurationModifications;
     }
 
+    public Memory getMemory() {
+        return memory;
+    }
+
+    public void setMemory(final Memory memory) {
+        this.memory = memory;
+    }
+
     public Jpa getJpa() {
         return jpa;
     }
@@ -79,4 +93,45 @@ public class EventsProperties {
             setCollection("MongoDbCasEventRepository");
         }
     }
+
+    public static class Memory {
+        /**
+         * Maximum number of events kept in memory. When exceeded, the oldest events are dropped.
+         */
+        private long maxEvents = 1_000;
+
+        /**
+         * Period of time covered by each group of events. Events are looked up and dropped by group.
+         */
+        private String partitionDuration = "PT5M";
+
+        /**
+         * Time for which events are kept after they are stored.
+         */
+        private String retention = "PT2H";
+
+        public long getMaxEvents() {
+            return maxEvents;
+        }
+
+        public void setMaxEvents(final long maxEvents) {
+            this.maxEvents = maxEvents;
+        }
+
+        public long getPartitionDuration() {
+            return Beans.newDuration(partitionDuration).toMillis();
+        }
+
+        public void setPartitionDuration(final String partitionDuration) {
+            this.partitionDuration = partitionDuration;
+        }
+
+        public long getRetention() {
+            return Beans.newDuration(retention).toMillis();
+        }
+
+        public void setRetention(final String retention) {
+            this.retention = retention;
+        }
+    }
 }
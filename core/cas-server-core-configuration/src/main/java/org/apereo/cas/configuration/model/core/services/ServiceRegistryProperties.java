@@ -21,6 +21,53 @@ public class ServiceRegistryProperties extends AbstractConfigProperties {
 
     private static final long serialVersionUID = -368826011744304210L;
 
+    /**
+     * Types of services managers that look up registered services.
+     */
+    public enum ServicesManagerTypes {
+        /**
+         * Organize services by the domain of their service id.
+         */
+        DOMAIN,
+        /**
+         * Index services by the literal prefix of their service id pattern,
+         * and cache lookup results.
+         */
+        DEFAULT
+    }
+
+    /**
+     * Engines used by the default services manager to find the services that match a service url.
+     */
+    public enum ServiceMatchingEngines {
+        /**
+         * Evaluate the services whose service id pattern starts with a literal prefix of the url.
+         */
+        PREFIX,
+        /**
+         * Compile all service id patterns into a single automaton that finds
+         * the matching services in one pass over the url.
+         */
+        AUTOMATON
+    }
+
+    /**
+     * Type of services manager used to look up registered services.
+     */
+    private ServicesManagerTypes managementType = ServicesManagerTypes.DOMAIN;
+
+    /**
+     * Maximum number of service urls whose matching registered service is cached
+     * by the default services manager. The cache is cleared whenever services are
+     * saved, deleted or reloaded. Set to zero to disable.
+     */
+    private long cacheSize = 10_000;
+
+    /**
+     * Engine used by the default services manager to find the services that match a service url.
+     */
+    private ServiceMatchingEngines matchingEngine = ServiceMatchingEngines.PREFIX;
+
     @NestedConfigurationProperty
     /**
      * Properties pertaining to jpa service registry.
@@ -151,4 +198,28 @@ public class ServiceRegistryProperties extends AbstractConfigProperties {
     public void setDynamoDb(final DynamoDbServiceRegistryProperties dynamoDb) {
         this.dynamoDb = dynamoDb;
     }
+
+    public ServicesManagerTypes getManagementType() {
+        return managementType;
+    }
+
+    public void setManagementType(final ServicesManagerTypes managementType) {
+        this.managementType = managementType;
+    }
+
+    public long getCacheSize() {
+        return cacheSize;
+    }
+
+    public void setCacheSize(final long cacheSize) {
+        this.cacheSize = cacheSize;
+    }
+
+    public ServiceMatchingEngines getMatchingEngine() {
+        return matchingEngine;
+    }
+
+    public void setMatchingEngine(final ServiceMatchingEngines matchingEngine) {
+        this.matchingEngine = matchingEngine;
+    }
 }
@@ -1,5 +1,7 @@
 package org.apereo.cas.configuration.model.core.slo;
 
+import org.apereo.cas.configuration.support.Beans;
+
 /**
  * This is {@link SloProperties}.
  *
@@ -20,6 +22,16 @@ public class SloProperties {
      */
     private boolean disabled;
 
+    /**
+     * Settings that control how back-channel logout messages are delivered.
+     */
+    private Dispatcher dispatcher = new Dispatcher();
+
+    /**
+     * Settings that control the local outbox in which back-channel logout messages are kept until delivered.
+     */
+    private Outbox outbox = new Outbox();
+
     public boolean isAsynchronous() {
         return asynchronous;
     }
@@ -35,4 +47,225 @@ public class SloProperties {
     public void setDisabled(final boolean disabled) {
         this.disabled = disabled;
     }
+
+    public Dispatcher getDispatcher() {
+        return dispatcher;
+    }
+
+    public void setDispatcher(final Dispatcher dispatcher) {
+        this.dispatcher = dispatcher;
+    }
+
+    public Outbox getOutbox() {
+        return outbox;
+    }
+
+    public void setOutbox(final Outbox outbox) {
+        this.outbox = outbox;
+    }
+
+    public static class Dispatcher {
+        /**
+         * Whether back-channel logout messages should be delivered in parallel by a dedicated
+         * pool of threads, with retries. When false, messages are sent one at a time
+         * via the HTTP client.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Number of threads that deliver logout messages.
+         */
+        private int poolSize = 20;
+
+        /**
+         * Maximum number of logout messages waiting for a thread; further messages are rejected.
+         */
+        private int queueCapacity = 5_000;
+
+        /**
+         * Maximum number of concurrent logout messages sent to the same host and port.
+         */
+        private int maxConcurrentRequestsPerHost = 5;
+
+        /**
+         * Maximum number of logout messages waiting for the same host and port; further messages are rejected.
+         */
+        private int maxPendingRequestsPerHost = 1_000;
+
+        /**
+         * Time after which delivery of a logout message is given up, including retries.
+         */
+        private String timeout = "PT10S";
+
+        /**
+         * Number of times delivery of a logout message is attempted.
+         */
+        private int maxAttempts = 3;
+
+        /**
+         * Time to wait before retrying a failed delivery; doubled for every retry.
+         */
+        private String retryBackoff = "PT1S";
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(final boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getPoolSize() {
+            return poolSize;
+        }
+
+        public void setPoolSize(final int poolSize) {
+            this.poolSize = poolSize;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(final int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public int getMaxConcurrentRequestsPerHost() {
+            return maxConcurrentRequestsPerHost;
+        }
+
+        public void setMaxConcurrentRequestsPerHost(final int maxConcurrentRequestsPerHost) {
+            this.maxConcurrentRequestsPerHost = maxConcurrentRequestsPerHost;
+        }
+
+        public int getMaxPendingRequestsPerHost() {
+            return maxPendingRequestsPerHost;
+        }
+
+        public void setMaxPendingRequestsPerHost(final int maxPendingRequestsPerHost) {
+            this.maxPendingRequestsPerHost = maxPendingRequestsPerHost;
+        }
+
+        public long getTimeout() {
+            return Beans.newDuration(timeout).toMillis();
+        }
+
+        public void setTimeout(final String timeout) {
+            this.timeout = timeout;
+        }
+
+        public int getMaxAttempts() {
+            return maxAttempts;
+        }
+
+        public void setMaxAttempts(final int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+        }
+
+        public long getRetryBackoff() {
+            return Beans.newDuration(retryBackoff).toMillis();
+        }
+
+        public void setRetryBackoff(final String retryBackoff) {
+            this.retryBackoff = retryBackoff;
+        }
+    }
+
+    public static class Outbox {
+        /**
+         * Whether asynchronous back-channel logout messages should be written to a local outbox
+         * on disk and delivered from there in the background, so that messages not yet delivered
+         * survive a restart of the server. Messages may then be delivered more than once.
+         * Requires the dispatcher to be enabled.
+         */
+        private boolean enabled;
+
+        /**
+         * Directory that holds the outbox files. Each CAS node needs its own directory.
+         */
+        private String directory = "/etc/cas/slo-outbox";
+
+        /**
+         * Size in bytes of each outbox file.
+         */
+        private int segmentSize = 16 * 1024 * 1024;
+
+        /**
+         * Maximum number of messages from the outbox that are being delivered at once.
+         */
+        private int maxInFlight = 1_000;
+
+        /**
+         * Time after which undelivered messages are discarded.
+         */
+        private String maxAge = "PT1H";
+
+        /**
+         * Time between two recordings of the delivery progress. Messages delivered since the last
+         * recording are delivered again if the server stops.
+         */
+        private String checkpointInterval = "PT1S";
+
+        /**
+         * Time to wait before attempting again a message whose delivery failed.
+         */
+        private String retryDelay = "PT30S";
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(final boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(final String directory) {
+            this.directory = directory;
+        }
+
+        public int getSegmentSize() {
+            return segmentSize;
+        }
+
+        public void setSegmentSize(final int segmentSize) {
+            this.segmentSize = segmentSize;
+        }
+
+        public int getMaxInFlight() {
+            return maxInFlight;
+        }
+
+        public void setMaxInFlight(final int maxInFlight) {
+            this.maxInFlight = maxInFlight;
+        }
+
+        public long getMaxAge() {
+            return Beans.newDuration(maxAge).toMillis();
+        }
+
+        public void setMaxAge(final String maxAge) {
+            this.maxAge = maxAge;
+        }
+
+        public long getCheckpointInterval() {
+            return Beans.newDuration(checkpointInterval).toMillis();
+        }
+
+        public void setCheckpointInterval(final String checkpointInterval) {
+            this.checkpointInterval = checkpointInterval;
+        }
+
+        public long getRetryDelay() {
+            return Beans.newDuration(retryDelay).toMillis();
+        }
+
+        public void setRetryDelay(final String retryDelay) {
+            this.retryDelay = retryDelay;
+        }
+    }
 }
@@ -10,6 +10,7 @@ import org.apereo.cas.configuration.model.support.infinispan.InfinispanPropertie
 import org.apereo.cas.configuration.model.support.jpa.ticketregistry.JpaTicketRegistryProperties;
 import org.apereo.cas.configuration.model.support.memcached.MemcachedTicketRegistryProperties;
 import org.apereo.cas.configuration.model.support.mongo.ticketregistry.MongoTicketRegistryProperties;
+import org.apereo.cas.configuration.model.support.offheap.OffHeapTicketRegistryProperties;
 import org.apereo.cas.configuration.model.support.redis.RedisTicketRegistryProperties;
 import org.apereo.cas.configuration.support.Beans;
 import org.springframework.boot.context.properties.NestedConfigurationProperty;
@@ -22,6 +23,28 @@ import org.springframework.boot.context.properties.NestedConfigurationProperty;
  */
 public class TicketRegistryProperties {
 
+    /**
+     * Codecs that may be used to turn tickets into bytes.
+     */
+    public enum SerializationCodecs {
+        /**
+         * Standard java serialization.
+         */
+        JAVA,
+        /**
+         * Java serialization with compact, registration-based class descriptors.
+         */
+        COMPACT
+    }
+
+    /**
+     * Codec used to serialize tickets before they are encrypted and stored by the registry.
+     * The compact codec produces smaller payloads and is faster to decode, yet requires all
+     * nodes sharing the registry to run the same CAS version. Payloads produced by
+     * the java codec can still be read when the compact codec is used.
+     */
+    private SerializationCodecs serializationCodec = SerializationCodecs.JAVA;
+
     /**
      * DyanmoDb registry settings.
      */
@@ -82,6 +105,12 @@ public class TicketRegistryProperties {
     @NestedConfigurationProperty
     private RedisTicketRegistryProperties redis = new RedisTicketRegistryProperties();
 
+    /**
+     * Off-heap registry settings.
+     */
+    @NestedConfigurationProperty
+    private OffHeapTicketRegistryProperties offHeap = new OffHeapTicketRegistryProperties();
+
     /**
      * Settings relevant for the default in-memory ticket registry.
      */
@@ -179,6 +208,14 @@ public class TicketRegistryProperties {
         this.redis = redis;
     }
 
+    public OffHeapTicketRegistryProperties getOffHeap() {
+        return offHeap;
+    }
+
+    public void setOffHeap(final OffHeapTicketRegistryProperties offHeap) {
+        this.offHeap = offHeap;
+    }
+
     public DynamoDbTicketRegistryProperties getDynamoDb() {
         return dynamoDb;
     }
@@ -187,6 +224,14 @@ public class TicketRegistryProperties {
         this.dynamoDb = dynamoDb;
     }
 
+    public SerializationCodecs getSerializationCodec() {
+        return serializationCodec;
+    }
+
+    public void setSerializationCodec(final SerializationCodecs serializationCodec) {
+        this.serializationCodec = serializationCodec;
+    }
+
     public static class InMemory {
         /**
          * The initial capacity of the underlying memory store.
@@ -244,10 +289,45 @@ public class TicketRegistryProperties {
     }
 
     public static class Cleaner {
+
+        /**
+         * Strategies the cleaner may use to locate expired tickets.
+         */
+        public enum CleanerModes {
+            /**
+             * Scan every ticket in the registry on each run.
+             */
+            SCAN,
+            /**
+             * Only visit tickets whose expiration deadline has passed,
+             * as tracked by an expiration index maintained by the registry.
+             */
+            EXPIRATION_INDEX
+        }
+
         /**
          * Whether the ticket registry cleaner should be enabled.
          */
         private boolean enabled = true;
+
+        /**
+         * Strategy used by the cleaner to locate expired tickets.
+         * The expiration index is only maintained by the default in-memory ticket registry;
+         * other registries fall back to scanning.
+         */
+        private CleanerModes mode = CleanerModes.SCAN;
+
+        /**
+         * Width of the time buckets used by the expiration index.
+         * Tickets whose expiration deadlines fall into the same bucket are visited together.
+         */
+        private String bucketResolution = "PT5S";
+
+        /**
+         * Maximum amount of time a ticket may remain in the expiration index
+         * before the cleaner re-examines it, regardless of its computed deadline.
+         */
+        private String maxRecheckInterval = "PT30M";
         /**
          * Initial delay before the cleaner background job is scheduled to run.
          */
@@ -290,5 +370,29 @@ public class TicketRegistryProperties {
         public void setRepeatInterval(final String repeatInterval) {
             this.repeatInterval = repeatInterval;
         }
+
+        public CleanerModes getMode() {
+            return mode;
+        }
+
+        public void setMode(final CleanerModes mode) {
+            this.mode = mode;
+        }
+
+        public long getBucketResolution() {
+            return Beans.newDuration(bucketResolution).toMillis();
+        }
+
+        public void setBucketResolution(final String bucketResolution) {
+            this.bucketResolution = bucketResolution;
+        }
+
+        public long getMaxRecheckInterval() {
+            return Beans.newDuration(maxRecheckInterval).toMillis();
+        }
+
+        public void setMaxRecheckInterval(final String maxRecheckInterval) {
+            this.maxRecheckInterval = maxRecheckInterval;
+        }
     }
 }
@@ -30,7 +30,10 @@ public class EncryptionRandomizedSigningJwtCryptographyProperties {
 
     /**
      * The signing/encryption algorithm to use.
+     *
+     * @deprecated since 5.2.0; values are always encrypted with AES and this setting has no effect.
      */
+    @Deprecated
     private String alg = "AES";
 
     public EncryptionRandomizedCryptoProperties getEncryption() {
@@ -49,10 +52,12 @@ public class EncryptionRandomizedSigningJwtCryptographyProperties {
         this.signing = signing;
     }
 
+    @Deprecated
     public String getAlg() {
         return alg;
     }
 
+    @Deprecated
     public void setAlg(final String alg) {
         this.alg = alg;
     }
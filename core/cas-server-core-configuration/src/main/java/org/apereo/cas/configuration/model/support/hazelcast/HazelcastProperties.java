@@ -25,11 +25,18 @@ public class HazelcastProperties {
      */
     public static final String MAX_HEARTBEAT_SECONDS_PROP = "hazelcast.max.no.heartbeat.seconds";
 
+    /**
+     * Whether map near-cache invalidations are batched property name.
+     */
+    public static final String MAP_INVALIDATION_BATCH_ENABLED_PROP = "hazelcast.map.invalidation.batch.enabled";
+
     private int pageSize = 500;
     private Resource configLocation;
 
     private Cluster cluster = new Cluster();
 
+    private NearCache nearCache = new NearCache();
+
     /**
      * Crypto settings for the registry.
      */
@@ -68,6 +75,14 @@ public class HazelcastProperties {
         this.cluster = cluster;
     }
 
+    public NearCache getNearCache() {
+        return nearCache;
+    }
+
+    public void setNearCache(final NearCache nearCache) {
+        this.nearCache = nearCache;
+    }
+
     public static class Cluster {
         private String loggingType = "slf4j";
         private int maxNoHeartbeatSeconds = 300;
@@ -253,4 +268,70 @@ public class HazelcastProperties {
             this.ipv4Enabled = ipv4Enabled;
         }
     }
+
+    /**
+     * Settings of the near-cache that keeps tickets read from the cluster on each node.
+     */
+    public static class NearCache {
+        private boolean enabled;
+        private int maxSize = 10_000;
+        private String evictionPolicy = "LRU";
+        private int timeToLiveSeconds;
+        private int maxIdleSeconds;
+
+        /**
+         * Names of the ticket maps that are near-cached. Invalidations reach other nodes asynchronously,
+         * so a near-cached ticket may still be read for a short while after it was changed or removed
+         * on another node. Maps of single-use tickets, such as service tickets, must not be listed.
+         */
+        private List<String> storageNames = Arrays.asList("ticketGrantingTicketsCache");
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(final boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(final int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public String getEvictionPolicy() {
+            return evictionPolicy;
+        }
+
+        public void setEvictionPolicy(final String evictionPolicy) {
+            this.evictionPolicy = evictionPolicy;
+        }
+
+        public int getTimeToLiveSeconds() {
+            return timeToLiveSeconds;
+        }
+
+        public void setTimeToLiveSeconds(final int timeToLiveSeconds) {
+            this.timeToLiveSeconds = timeToLiveSeconds;
+        }
+
+        public int getMaxIdleSeconds() {
+            return maxIdleSeconds;
+        }
+
+        public void setMaxIdleSeconds(final int maxIdleSeconds) {
+            this.maxIdleSeconds = maxIdleSeconds;
+        }
+
+        public List<String> getStorageNames() {
+            return storageNames;
+        }
+
+        public void setStorageNames(final List<String> storageNames) {
+            this.storageNames = storageNames;
+        }
+    }
 }
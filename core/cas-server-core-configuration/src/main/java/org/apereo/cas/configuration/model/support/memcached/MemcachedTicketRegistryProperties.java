@@ -15,6 +15,7 @@ public class MemcachedTicketRegistryProperties {
     private String failureMode = "Redistribute";
     private String locatorType = "ARRAY_MOD";
     private String hashAlgorithm = "FNV1_64_HASH";
+    private int kryoPoolSize = 32;
 
     @NestedConfigurationProperty
     private EncryptionRandomizedSigningJwtCryptographyProperties crypto = new EncryptionRandomizedSigningJwtCryptographyProperties();
@@ -58,7 +59,12 @@ public class MemcachedTicketRegistryProperties {
     public void setHashAlgorithm(final String hashAlgorithm) {
         this.hashAlgorithm = hashAlgorithm;
     }
-}
-
 
+    public int getKryoPoolSize() {
+        return kryoPoolSize;
+    }
 
+    public void setKryoPoolSize(final int kryoPoolSize) {
+        this.kryoPoolSize = kryoPoolSize;
+    }
+}
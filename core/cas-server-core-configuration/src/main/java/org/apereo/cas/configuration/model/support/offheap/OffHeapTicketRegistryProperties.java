@@ -0,0 +1,72 @@
+package org.apereo.cas.configuration.model.support.offheap;
+
+import org.apereo.cas.configuration.model.core.util.EncryptionRandomizedSigningJwtCryptographyProperties;
+import org.springframework.boot.context.properties.NestedConfigurationProperty;
+
+/**
+ * Configuration properties for the off-heap ticket registry.
+ *
+ * @author Misagh Moayyed
+ * @since 5.2.0
+ */
+public class OffHeapTicketRegistryProperties {
+
+    /**
+     * Path to the file that should be memory-mapped to store tickets.
+     * If left blank, tickets are stored in direct memory and are lost on restart.
+     */
+    private String location;
+
+    /**
+     * Whether tickets stored in the memory-mapped file should be recovered on startup.
+     * Only applicable when a location is defined.
+     */
+    private boolean persistent = true;
+
+    /**
+     * Maximum amount of memory, in megabytes, the registry may use to store tickets.
+     */
+    private long capacityInMegabytes = 512;
+
+    /**
+     * Crypto settings for the registry.
+     */
+    @NestedConfigurationProperty
+    private EncryptionRandomizedSigningJwtCryptographyProperties crypto = new EncryptionRandomizedSigningJwtCryptographyProperties();
+
+    public OffHeapTicketRegistryProperties() {
+        this.crypto.setEnabled(false);
+    }
+
+    public String getLocation() {
+        return location;
+    }
+
+    public void setLocation(final String location) {
+        this.location = location;
+    }
+
+    public boolean isPersistent() {
+        return persistent;
+    }
+
+    public void setPersistent(final boolean persistent) {
+        this.persistent = persistent;
+    }
+
+    public long getCapacityInMegabytes() {
+        return capacityInMegabytes;
+    }
+
+    public void setCapacityInMegabytes(final long capacityInMegabytes) {
+        this.capacityInMegabytes = capacityInMegabytes;
+    }
+
+    public EncryptionRandomizedSigningJwtCryptographyProperties getCrypto() {
+        return crypto;
+    }
+
+    public void setCrypto(final EncryptionRandomizedSigningJwtCryptographyProperties crypto) {
+        this.crypto = crypto;
+    }
+}
@@ -36,6 +36,12 @@ public class RedisTicketRegistryProperties {
      */
     private int timeout;
 
+    /**
+     * Number of keys requested per {@code SCAN} iteration when walking all tickets,
+     * which is also the number of tickets fetched or deleted per round-trip.
+     */
+    private int batchSize = 1000;
+
     private Pool pool;
 
     /**
@@ -92,6 +98,14 @@ public class RedisTicketRegistryProperties {
         return this.timeout;
     }
 
+    public int getBatchSize() {
+        return this.batchSize;
+    }
+
+    public void setBatchSize(final int batchSize) {
+        this.batchSize = batchSize;
+    }
+
     public Pool getPool() {
         return this.pool;
     }
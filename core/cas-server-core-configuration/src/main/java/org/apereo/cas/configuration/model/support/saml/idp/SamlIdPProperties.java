@@ -90,6 +90,11 @@ public class SamlIdPProperties {
         private boolean failFast = true;
         private boolean requireValidMetadata = true;
         private long cacheExpirationMinutes = TimeUnit.DAYS.toMinutes(1);
+        private long cacheMaximumSize = 1_000;
+        private boolean cacheRefreshInBackground = true;
+        private int cacheRefreshPoolSize = 2;
+        private boolean snapshotEnabled;
+        private String snapshotSigningKey;
         private Resource location = new FileSystemResource("/etc/cas/saml");
         private String privateKeyAlgName = "RSA";
         private String basicAuthnUsername;
@@ -120,6 +125,46 @@ public class SamlIdPProperties {
             this.cacheExpirationMinutes = cacheExpirationMinutes;
         }
 
+        public long getCacheMaximumSize() {
+            return cacheMaximumSize;
+        }
+
+        public void setCacheMaximumSize(final long cacheMaximumSize) {
+            this.cacheMaximumSize = cacheMaximumSize;
+        }
+
+        public boolean isCacheRefreshInBackground() {
+            return cacheRefreshInBackground;
+        }
+
+        public void setCacheRefreshInBackground(final boolean cacheRefreshInBackground) {
+            this.cacheRefreshInBackground = cacheRefreshInBackground;
+        }
+
+        public int getCacheRefreshPoolSize() {
+            return cacheRefreshPoolSize;
+        }
+
+        public void setCacheRefreshPoolSize(final int cacheRefreshPoolSize) {
+            this.cacheRefreshPoolSize = cacheRefreshPoolSize;
+        }
+
+        public boolean isSnapshotEnabled() {
+            return snapshotEnabled;
+        }
+
+        public void setSnapshotEnabled(final boolean snapshotEnabled) {
+            this.snapshotEnabled = snapshotEnabled;
+        }
+
+        public String getSnapshotSigningKey() {
+            return snapshotSigningKey;
+        }
+
+        public void setSnapshotSigningKey(final String snapshotSigningKey) {
+            this.snapshotSigningKey = snapshotSigningKey;
+        }
+
         public Resource getLocation() {
             return location;
         }
@@ -18,6 +18,7 @@ public class ThrottleProperties {
         
     private Failure failure = new Failure();
     private Jdbc jdbc = new Jdbc();
+    private InMemory inMemory = new InMemory();
     
     private String usernameParameter;
     private String appcode = DEFAULT_APPLICATION_CODE;
@@ -33,6 +34,14 @@ public class ThrottleProperties {
         return jdbc;
     }
 
+    public InMemory getInMemory() {
+        return inMemory;
+    }
+
+    public void setInMemory(final InMemory inMemory) {
+        this.inMemory = inMemory;
+    }
+
     public Failure getFailure() {
         return failure;
     }
@@ -106,6 +115,65 @@ public class ThrottleProperties {
         }
     }
 
+    /**
+     * In-memory throttling.
+     */
+    public static class InMemory {
+        /**
+         * Throttle once the failure threshold is reached within the failure range,
+         * rather than when the rate between the last failure and now exceeds the threshold rate.
+         */
+        private boolean slidingWindow;
+
+        /**
+         * Maximum number of keys, i.e. IP addresses or IP addresses and usernames, with failures being tracked.
+         * When the capacity is reached, the keys with the oldest failures are evicted.
+         */
+        private int capacity = 100_000;
+
+        /**
+         * Number of independently locked shards of the store.
+         */
+        private int concurrencyLevel = 16;
+
+        /**
+         * Number of buckets that divide the failure range when counting failures in the sliding window.
+         */
+        private int buckets = 10;
+
+        public boolean isSlidingWindow() {
+            return slidingWindow;
+        }
+
+        public void setSlidingWindow(final boolean slidingWindow) {
+            this.slidingWindow = slidingWindow;
+        }
+
+        public int getCapacity() {
+            return capacity;
+        }
+
+        public void setCapacity(final int capacity) {
+            this.capacity = capacity;
+        }
+
+        public int getConcurrencyLevel() {
+            return concurrencyLevel;
+        }
+
+        public void setConcurrencyLevel(final int concurrencyLevel) {
+            this.concurrencyLevel = concurrencyLevel;
+        }
+
+        public int getBuckets() {
+            return buckets;
+        }
+
+        public void setBuckets(final int buckets) {
+            this.buckets = buckets;
+        }
+    }
+
     public static class Jdbc extends AbstractJpaProperties {
         private static final String SQL_AUDIT_QUERY = "SELECT AUD_DATE FROM COM_AUDIT_TRAIL WHERE AUD_CLIENT_IP = ? AND AUD_USER = ? "
                 + "AND AUD_ACTION = ? AND APPLIC_CD = ? AND AUD_DATE >= ? ORDER BY AUD_DATE DESC";
@@ -820,7 +820,6 @@ public final class Beans {
             return new DefaultTicketCipherExecutor(
                     registry.getEncryption().getKey(),
                     registry.getSigning().getKey(),
-                    registry.getAlg(),
                     registry.getSigning().getKeySize(),
                     registry.getEncryption().getKeySize());
         }
@@ -1,9 +1,12 @@
 package org.apereo.cas.support.events.config;
 
 import org.apereo.cas.configuration.CasConfigurationProperties;
+import org.apereo.cas.configuration.model.core.authentication.RiskBasedAuthenticationProperties;
 import org.apereo.cas.support.events.CasEventRepository;
+import org.apereo.cas.support.events.dao.CasEventProfileRepository;
 import org.apereo.cas.support.events.dao.NoOpCasEventRepository;
 import org.apereo.cas.support.events.listener.DefaultCasEventListener;
+import org.apereo.cas.support.events.ticket.CasTicketGrantingTicketCreatedEvent;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
@@ -21,11 +24,25 @@ import org.springframework.context.annotation.Configuration;
 @EnableConfigurationProperties(CasConfigurationProperties.class)
 public class CasCoreEventsConfiguration {
 
+    @Autowired
+    private CasConfigurationProperties casProperties;
+
     @Autowired
     @Bean
     public DefaultCasEventListener defaultCasEventListener(@Qualifier("casEventRepository") 
                                                            final CasEventRepository casEventRepository) {
-        return new DefaultCasEventListener(casEventRepository);
+        return new DefaultCasEventListener(casEventRepository, casEventProfileRepository(casEventRepository));
+    }
+
+    @ConditionalOnMissingBean(name = "casEventProfileRepository")
+    @Autowired
+    @Bean
+    public CasEventProfileRepository casEventProfileRepository(@Qualifier("casEventRepository")
+                                                               final CasEventRepository casEventRepository) {
+        final RiskBasedAuthenticationProperties risk = casProperties.getAuthn().getAdaptive().getRisk();
+        return new CasEventProfileRepository(casEventRepository, CasTicketGrantingTicketCreatedEvent.class.getName(),
+                (int) risk.getDaysInRecentHistory(), risk.getProfile().getMaxTrackedValues(),
+                risk.getProfile().getMaxProfiles(), risk.getProfile().getRefreshInterval());
     }
 
     @ConditionalOnMissingBean(name = "casEventRepository")
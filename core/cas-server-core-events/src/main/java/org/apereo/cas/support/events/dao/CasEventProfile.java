@@ -0,0 +1,181 @@
+package org.apereo.cas.support.events.dao;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.tuple.Pair;
+import org.apereo.cas.authentication.adaptive.geo.GeoLocationRequest;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.IntPredicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * This is {@link CasEventProfile}, which summarizes the recent events of a principal
+ * so that they can be examined without going through each event: how many events came
+ * from each client address, user agent and location, and at what hour of the day.
+ * <p>
+ * Events are summarized per day, for as many days as the profile covers, so that counts
+ * can be taken from a given date onwards; the date is rounded down to the start of its day, in UTC.
+ * Each day tracks a limited number of distinct addresses, agents and locations; events with
+ * further values are only counted in the total, which makes them look unfamiliar.
+ *
+ * @author Misagh Moayyed
+ * @since 5.2.0
+ */
+public class CasEventProfile {
+    private static final int HOURS_PER_DAY = 24;
+
+    private final int maxTrackedValues;
+    private final Day[] days;
+
+    /**
+     * Instantiates a new profile.
+     *
+     * @param days             the number of days covered by the profile
+     * @param maxTrackedValues the number of distinct addresses, agents and locations tracked per day
+     */
+    public CasEventProfile(final int days, final int maxTrackedValues) {
+        this.maxTrackedValues = maxTrackedValues;
+        this.days = new Day[days + 1];
+    }
+
+    /**
+     * Add the event to the profile. Events older than the days covered by the profile are ignored.
+     *
+     * @param event the event
+     */
+    public synchronized void add(final CasEvent event) {
+        final ZonedDateTime creationTime = event.getCreationTime();
+        final long epochDay = epochDay(creationTime);
+        final int index = (int) Math.floorMod(epochDay, (long) this.days.length);
+        Day day = this.days[index];
+        if (day == null || day.epochDay < epochDay) {
+            day = new Day(epochDay);
+            this.days[index] = day;
+        } else if (day.epochDay > epochDay) {
+            return;
+        }
+        day.count++;
+        day.hours[creationTime.getHour()]++;
+        increment(day.addresses, lowerCase(event.getClientIpAddress()));
+        increment(day.agents, lowerCase(event.getAgent()));
+        final GeoLocationRequest location = event.getGeoLocation();
+        increment(day.locations, Pair.of(location.getLatitude(), location.getLongitude()));
+    }
+
+    /**
+     * Count the events since the given date.
+     *
+     * @param from the date
+     * @return the count
+     */
+    public long count(final ZonedDateTime from) {
+        return sum(from, day -> day.count);
+    }
+
+    /**
+     * Count the events from the given client address since the given date, ignoring case.
+     *
+     * @param address the address
+     * @param from    the date
+     * @return the count
+     */
+    public long countClientIpAddress(final String address, final ZonedDateTime from) {
+        if (address == null) {
+            return 0;
+        }
+        final String key = lowerCase(address);
+        return sum(from, day -> day.addresses.getOrDefault(key, 0));
+    }
+
+    /**
+     * Count the events from the given user agent since the given date, ignoring case.
+     *
+     * @param agent the agent
+     * @param from  the date
+     * @return the count
+     */
+    public long countAgent(final String agent, final ZonedDateTime from) {
+        if (agent == null) {
+            return 0;
+        }
+        final String key = lowerCase(agent);
+        return sum(from, day -> day.agents.getOrDefault(key, 0));
+    }
+
+    /**
+     * Count the events from the given location since the given date.
+     * Locations match if their latitude and longitude are the same, as with {@link GeoLocationRequest#equals(Object)}.
+     *
+     * @param location the location
+     * @param from     the date
+     * @return the count
+     */
+    public long countGeoLocation(final GeoLocationRequest location, final ZonedDateTime from) {
+        final Pair<String, String> key = Pair.of(location.getLatitude(), location.getLongitude());
+        return sum(from, day -> day.locations.getOrDefault(key, 0));
+    }
+
+    /**
+     * Count the events since the given date created at an hour of the day that matches.
+     *
+     * @param hours the hours of the day to count
+     * @param from  the date
+     * @return the count
+     */
+    public long countHours(final IntPredicate hours, final ZonedDateTime from) {
+        return sum(from, day -> {
+            long count = 0;
+            for (int hour = 0; hour < HOURS_PER_DAY; hour++) {
+                if (hours.test(hour)) {
+                    count += day.hours[hour];
+                }
+            }
+            return count;
+        });
+    }
+
+    private synchronized long sum(final ZonedDateTime from, final ToLongFunction<Day> count) {
+        final long fromDay = epochDay(from);
+        long total = 0;
+        for (final Day day : this.days) {
+            if (day != null && day.epochDay >= fromDay) {
+                total += count.applyAsLong(day);
+            }
+        }
+        return total;
+    }
+
+    private <K> void increment(final Map<K, Integer> counts, final K key) {
+        if (counts.containsKey(key) || counts.size() < this.maxTrackedValues) {
+            counts.merge(key, 1, Integer::sum);
+        }
+    }
+
+    private static long epochDay(final ZonedDateTime dateTime) {
+        return dateTime.withZoneSameInstant(ZoneOffset.UTC).toLocalDate().toEpochDay();
+    }
+
+    private static String lowerCase(final String value) {
+        return StringUtils.defaultString(value).toLowerCase(Locale.ENGLISH);
+    }
+
+    /**
+     * Summary of the events of a single day.
+     */
+    private static class Day {
+        private final long epochDay;
+        private final int[] hours = new int[HOURS_PER_DAY];
+        private final Map<String, Integer> addresses = new HashMap<>();
+        private final Map<String, Integer> agents = new HashMap<>();
+        private final Map<Pair<String, String>, Integer> locations = new HashMap<>();
+        private long count;
+
+        Day(final long epochDay) {
+            this.epochDay = epochDay;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package org.apereo.cas.support.events.dao;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import org.apereo.cas.support.events.CasEventRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This is {@link CasEventProfileRepository}, which keeps the {@link CasEventProfile} of recently
+ * active principals for a given type of event. A profile is built from the event repository the first
+ * time it is requested, then kept up to date as events are recorded by this node. Profiles are built
+ * again from the event repository after the refresh interval, so that events recorded by other nodes
+ * sharing the repository are eventually accounted for.
+ *
+ * @author Misagh Moayyed
+ * @since 5.2.0
+ */
+public class CasEventProfileRepository {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CasEventProfileRepository.class);
+
+    private final CasEventRepository casEventRepository;
+    private final String type;
+    private final int days;
+    private final int maxTrackedValues;
+    private final LoadingCache<String, CasEventProfile> profiles;
+
+    /**
+     * Instantiates a new profile repository.
+     *
+     * @param casEventRepository the event repository profiles are built from
+     * @param type               the type of events profiled
+     * @param days               the number of days covered by profiles
+     * @param maxTrackedValues   the number of distinct addresses, agents and locations tracked per day
+     * @param maxProfiles        the maximum number of profiles kept
+     * @param refreshInterval    the time in milliseconds after which a profile is built again
+     */
+    public CasEventProfileRepository(final CasEventRepository casEventRepository, final String type, final int days,
+                                     final int maxTrackedValues, final long maxProfiles, final long refreshInterval) {
+        this.casEventRepository = casEventRepository;
+        this.type = type;
+        this.days = days;
+        this.maxTrackedValues = maxTrackedValues;
+        this.profiles = CacheBuilder.newBuilder()
+                .maximumSize(maxProfiles)
+                .expireAfterWrite(refreshInterval, TimeUnit.MILLISECONDS)
+                .build(new CacheLoader<String, CasEventProfile>() {
+                    @Override
+                    public CasEventProfile load(final String principal) {
+                        return build(principal);
+                    }
+                });
+    }
+
+    /**
+     * Gets the profile of the principal.
+     *
+     * @param principal the principal
+     * @return the profile
+     */
+    public CasEventProfile getProfile(final String principal) {
+        return this.profiles.getUnchecked(key(principal));
+    }
+
+    /**
+     * Account for an event that was just recorded. Only profiles that are kept are updated;
+     * others are built from the event repository when requested, which includes the event.
+     *
+     * @param event the event
+     */
+    public void update(final CasEvent event) {
+        if (this.type.equals(event.getType()) && event.getPrincipalId() != null) {
+            final CasEventProfile profile = this.profiles.getIfPresent(key(event.getPrincipalId()));
+            if (profile != null) {
+                profile.add(event);
+            }
+        }
+    }
+
+    /**
+     * Discard the profile of the principal, so that it is built again when next requested.
+     *
+     * @param principal the principal
+     */
+    public void invalidate(final String principal) {
+        this.profiles.invalidate(key(principal));
+    }
+
+    public String getType() {
+        return this.type;
+    }
+
+    public int getDays() {
+        return this.days;
+    }
+
+    /**
+     * Principals are matched case-insensitively by event repositories, so profiles are keyed the same way.
+     */
+    private static String key(final String principal) {
+        return principal.toLowerCase(Locale.ENGLISH);
+    }
+
+    private CasEventProfile build(final String principal) {
+        final ZonedDateTime from = ZonedDateTime.now().minusDays(this.days);
+        final Collection<CasEvent> events = this.casEventRepository.getEventsOfTypeForPrincipal(this.type, principal, from);
+        LOGGER.debug("Building profile of [{}] from [{}] event(s) of type [{}]", principal, events.size(), this.type);
+        final CasEventProfile profile = new CasEventProfile(this.days, this.maxTrackedValues);
+        events.forEach(profile::add);
+        return profile;
+    }
+}
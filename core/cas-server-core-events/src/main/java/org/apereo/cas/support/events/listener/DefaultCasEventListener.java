@@ -8,6 +8,7 @@ import org.apereo.cas.support.events.authentication.CasAuthenticationPolicyFailu
 import org.apereo.cas.support.events.authentication.CasAuthenticationTransactionFailureEvent;
 import org.apereo.cas.support.events.authentication.adaptive.CasRiskyAuthenticationDetectedEvent;
 import org.apereo.cas.support.events.dao.CasEvent;
+import org.apereo.cas.support.events.dao.CasEventProfileRepository;
 import org.apereo.cas.support.events.ticket.CasTicketGrantingTicketCreatedEvent;
 import org.apereo.cas.util.AsciiArtUtils;
 import org.apereo.cas.util.DateTimeUtils;
@@ -32,9 +33,16 @@ public class DefaultCasEventListener {
     private static final Logger LOGGER = LoggerFactory.getLogger(DefaultCasEventListener.class);
     
     private final CasEventRepository casEventRepository;
-    
+
+    private final CasEventProfileRepository casEventProfileRepository;
+
     public DefaultCasEventListener(final CasEventRepository casEventRepository) {
+        this(casEventRepository, null);
+    }
+
+    public DefaultCasEventListener(final CasEventRepository casEventRepository, final CasEventProfileRepository casEventProfileRepository) {
         this.casEventRepository = casEventRepository;
+        this.casEventProfileRepository = casEventProfileRepository;
     }
 
     /**
@@ -60,7 +68,7 @@ public class DefaultCasEventListener {
             dto.setCreationTime(event.getTicketGrantingTicket().getCreationTime());
             dto.putId(TicketIdSanitizationUtils.sanitize(event.getTicketGrantingTicket().getId()));
             dto.setPrincipalId(event.getTicketGrantingTicket().getAuthentication().getPrincipal().getId());
-            this.casEventRepository.save(dto);
+            save(dto);
         }
     }
 
@@ -75,7 +83,7 @@ public class DefaultCasEventListener {
             final CasEvent dto = prepareCasEvent(event);
             dto.setPrincipalId(event.getCredential().getId());
             dto.putId(CasAuthenticationPolicyFailureEvent.class.getSimpleName());
-            this.casEventRepository.save(dto);
+            save(dto);
         }
     }
 
@@ -90,7 +98,7 @@ public class DefaultCasEventListener {
             final CasEvent dto = prepareCasEvent(event);
             dto.setPrincipalId(event.getAuthentication().getPrincipal().getId());
             dto.putId(CasAuthenticationPolicyFailureEvent.class.getSimpleName());
-            this.casEventRepository.save(dto);
+            save(dto);
         }
     }
 
@@ -105,7 +113,14 @@ public class DefaultCasEventListener {
             final CasEvent dto = prepareCasEvent(event);
             dto.putId(event.getService().getName());
             dto.setPrincipalId(event.getAuthentication().getPrincipal().getId());
-            this.casEventRepository.save(dto);
+            save(dto);
+        }
+    }
+
+    private void save(final CasEvent dto) {
+        this.casEventRepository.save(dto);
+        if (this.casEventProfileRepository != null) {
+            this.casEventProfileRepository.update(dto);
         }
     }
 
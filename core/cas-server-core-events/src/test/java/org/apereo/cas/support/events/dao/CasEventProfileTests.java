@@ -0,0 +1,116 @@
+package org.apereo.cas.support.events.dao;
+
+import org.apereo.cas.authentication.adaptive.geo.GeoLocationRequest;
+import org.junit.Test;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * This is {@link CasEventProfileTests}.
+ *
+ * @author Misagh Moayyed
+ * @since 5.2.0
+ */
+public class CasEventProfileTests {
+
+    @Test
+    public void verifyEventsAreCountedByValue() {
+        final CasEventProfile profile = new CasEventProfile(30, 100);
+        final ZonedDateTime now = ZonedDateTime.now(ZoneOffset.UTC);
+        profile.add(newEvent(now, "10.0.0.1", "Mozilla/5.0", "40.7128", "-74"));
+        profile.add(newEvent(now.minusDays(1), "10.0.0.1", "MOZILLA/5.0", "40.7128", "-74"));
+        profile.add(newEvent(now.minusDays(2), "10.0.0.2", "Chrome", "51.5074", "0.1278"));
+
+        final ZonedDateTime from = now.minusDays(30);
+        assertEquals(3, profile.count(from));
+        assertEquals(2, profile.countClientIpAddress("10.0.0.1", from));
+        assertEquals(0, profile.countClientIpAddress("10.0.0.3", from));
+        assertEquals(0, profile.countClientIpAddress(null, from));
+        assertEquals(2, profile.countAgent("mozilla/5.0", from));
+        assertEquals(1, profile.countGeoLocation(new GeoLocationRequest(51.5074, 0.1278), from));
+        assertEquals(1, profile.countClientIpAddress("10.0.0.1", now));
+    }
+
+    @Test
+    public void verifyEventsAreCountedByHour() {
+        final CasEventProfile profile = new CasEventProfile(30, 100);
+        final ZonedDateTime now = ZonedDateTime.now(ZoneOffset.UTC).withHour(10);
+        profile.add(newEvent(now, "10.0.0.1", "Chrome", "1", "1"));
+        profile.add(newEvent(now.minusDays(1).withHour(11), "10.0.0.1", "Chrome", "1", "1"));
+        profile.add(newEvent(now.minusDays(2).withHour(20), "10.0.0.1", "Chrome", "1", "1"));
+
+        final ZonedDateTime from = now.minusDays(30);
+        assertEquals(2, profile.countHours(h -> h >= 9 && h <= 11, from));
+        assertEquals(3, profile.countHours(h -> true, from));
+    }
+
+    @Test
+    public void verifyOldEventsAreIgnored() {
+        final CasEventProfile profile = new CasEventProfile(7, 100);
+        final ZonedDateTime now = ZonedDateTime.now(ZoneOffset.UTC);
+        profile.add(newEvent(now, "10.0.0.1", "Chrome", "1", "1"));
+        profile.add(newEvent(now.minusDays(20), "10.0.0.1", "Chrome", "1", "1"));
+        assertEquals(1, profile.count(now.minusDays(7)));
+    }
+
+    @Test
+    public void verifyTrackedValuesAreLimited() {
+        final CasEventProfile profile = new CasEventProfile(30, 2);
+        final ZonedDateTime now = ZonedDateTime.now(ZoneOffset.UTC);
+        profile.add(newEvent(now, "10.0.0.1", "Chrome", "1", "1"));
+        profile.add(newEvent(now, "10.0.0.2", "Chrome", "1", "1"));
+        profile.add(newEvent(now, "10.0.0.3", "Chrome", "1", "1"));
+        profile.add(newEvent(now, "10.0.0.1", "Chrome", "1", "1"));
+
+        final ZonedDateTime from = now.minusDays(30);
+        assertEquals(4, profile.count(from));
+        assertEquals(2, profile.countClientIpAddress("10.0.0.1", from));
+        assertEquals(0, profile.countClientIpAddress("10.0.0.3", from));
+        assertEquals(4, profile.countAgent("Chrome", from));
+    }
+
+    @Test
+    public void verifyProfilesAreKeyedRegardlessOfCase() {
+        final List<CasEvent> events = new ArrayList<>();
+        final CasEventProfileRepository repository = new CasEventProfileRepository(new AbstractCasEventRepository() {
+            @Override
+            public void save(final CasEvent event) {
+                events.add(event);
+            }
+
+            @Override
+            public Collection<CasEvent> load() {
+                return events;
+            }
+        }, "LoginEvent", 30, 100, 10, 60_000);
+
+        final ZonedDateTime now = ZonedDateTime.now(ZoneOffset.UTC);
+        assertEquals(0, repository.getProfile("casuser").count(now.minusDays(30)));
+
+        final CasEvent event = newEvent(now, "10.0.0.1", "Chrome", "1", "1");
+        event.setPrincipalId("CasUser");
+        repository.update(event);
+        assertEquals(1, repository.getProfile("CASUSER").count(now.minusDays(30)));
+    }
+
+    private static CasEvent newEvent(final ZonedDateTime creationTime, final String address, final String agent,
+                                     final String latitude, final String longitude) {
+        final CasEvent event = new CasEvent();
+        event.setType("LoginEvent");
+        event.setPrincipalId("casuser");
+        event.setCreationTime(creationTime);
+        event.putClientIpAddress(address);
+        event.putAgent(agent);
+        final GeoLocationRequest location = new GeoLocationRequest();
+        location.setLatitude(latitude);
+        location.setLongitude(longitude);
+        event.putGeoLocation(location);
+        return event;
+    }
+}
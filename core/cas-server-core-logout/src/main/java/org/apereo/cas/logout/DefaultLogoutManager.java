@@ -11,6 +11,7 @@ import org.slf4j.LoggerFactory;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * This logout manager handles the Single Log Out process.
@@ -58,6 +59,7 @@ public class DefaultLogoutManager implements LogoutManager {
         }
         final List<LogoutRequest> logoutRequests = new ArrayList<>();
         performLogoutForTicket(ticket, logoutRequests);
+        awaitPendingLogoutRequests(logoutRequests);
         this.logoutExecutionPlan.getLogoutHandlers().forEach(h -> {
             LOGGER.debug("Invoking logout handler [{}] to process ticket [{}]", h.getClass().getSimpleName(), ticket.getId());
             h.handle(ticket);
@@ -88,6 +90,24 @@ public class DefaultLogoutManager implements LogoutManager {
         }
     }
 
+    /**
+     * Wait for logout messages that are still being delivered, all of which were dispatched
+     * at once, so that the status of each request is final.
+     *
+     * @param logoutRequests the logout requests
+     */
+    private static void awaitPendingLogoutRequests(final List<LogoutRequest> logoutRequests) {
+        final CompletableFuture[] pending = logoutRequests.stream()
+                .filter(DefaultLogoutRequest.class::isInstance)
+                .map(r -> ((DefaultLogoutRequest) r).getPendingStatus())
+                .filter(f -> !f.isDone())
+                .toArray(CompletableFuture[]::new);
+        if (pending.length > 0) {
+            LOGGER.debug("Waiting for [{}] logout message(s) to be delivered", pending.length);
+            CompletableFuture.allOf(pending).join();
+        }
+    }
+
     /**
      * Create a logout message for front channel logout.
      *
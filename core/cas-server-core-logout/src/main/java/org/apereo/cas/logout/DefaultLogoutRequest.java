@@ -1,6 +1,7 @@
 package org.apereo.cas.logout;
 
 import java.net.URL;
+import java.util.concurrent.CompletableFuture;
 
 import org.apache.commons.lang3.builder.ToStringBuilder;
 import org.apereo.cas.authentication.principal.WebApplicationService;
@@ -27,6 +28,9 @@ public class DefaultLogoutRequest implements LogoutRequest {
 
     private final URL logoutUrl;
 
+    /** Completes once the status of a logout message that is still being delivered is known. */
+    private transient CompletableFuture<Void> pendingStatus;
+
     /**
      * Build a logout request from ticket identifier and service.
      * Default status is {@link LogoutRequestStatus#NOT_ATTEMPTED}.
@@ -51,6 +55,24 @@ public class DefaultLogoutRequest implements LogoutRequest {
         this.status = status;
     }
 
+    /**
+     * Track the delivery of the logout message, updating the status of the request once it completes.
+     *
+     * @param delivery the future outcome of the delivery
+     */
+    public void setPendingDelivery(final CompletableFuture<Boolean> delivery) {
+        this.pendingStatus = delivery.thenAccept(delivered -> setStatus(delivered ? LogoutRequestStatus.SUCCESS : LogoutRequestStatus.FAILURE));
+    }
+
+    /**
+     * Gets the future that completes once the status of the request is final.
+     *
+     * @return the pending status, or a completed future if no delivery is in progress
+     */
+    public CompletableFuture<Void> getPendingStatus() {
+        return this.pendingStatus == null ? CompletableFuture.completedFuture(null) : this.pendingStatus;
+    }
+
     @Override
     public String getTicketId() {
         return this.ticketId;
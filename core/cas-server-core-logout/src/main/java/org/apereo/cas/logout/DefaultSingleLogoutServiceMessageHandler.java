@@ -10,6 +10,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.net.URL;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * This is {@link DefaultSingleLogoutServiceMessageHandler} which handles the processing of logout messages
@@ -28,6 +29,8 @@ public class DefaultSingleLogoutServiceMessageHandler implements SingleLogoutSer
     private final LogoutMessageCreator logoutMessageBuilder;
     private final SingleLogoutServiceLogoutUrlBuilder singleLogoutServiceLogoutUrlBuilder;
     private final AuthenticationServiceSelectionPlan authenticationRequestServiceSelectionStrategies;
+    private final SingleLogoutMessageDispatcher messageDispatcher;
+    private SingleLogoutMessageOutbox messageOutbox;
 
     /**
      * Instantiates a new Single logout service message handler.
@@ -44,12 +47,37 @@ public class DefaultSingleLogoutServiceMessageHandler implements SingleLogoutSer
                                                     final SingleLogoutServiceLogoutUrlBuilder singleLogoutServiceLogoutUrlBuilder,
                                                     final boolean asyncCallbacks,
                                                     final AuthenticationServiceSelectionPlan authenticationRequestServiceSelectionStrategies) {
+        this(httpClient, logoutMessageCreator, servicesManager, singleLogoutServiceLogoutUrlBuilder, asyncCallbacks,
+                authenticationRequestServiceSelectionStrategies, null);
+    }
+
+    /**
+     * Instantiates a new Single logout service message handler that hands back-channel
+     * logout messages over to a dispatcher. Messages are then sent in parallel;
+     * if callbacks are not asynchronous, the status of each logout request is updated
+     * once its message is delivered.
+     *
+     * @param httpClient                                      to send the requests
+     * @param logoutMessageCreator                            creates the message
+     * @param servicesManager                                 finds services to logout from
+     * @param singleLogoutServiceLogoutUrlBuilder             creates the URL
+     * @param asyncCallbacks                                  if messages are sent in an asynchronous fashion.
+     * @param authenticationRequestServiceSelectionStrategies the authentication request service selection strategies
+     * @param messageDispatcher                               the dispatcher that delivers messages, if any
+     */
+    public DefaultSingleLogoutServiceMessageHandler(final HttpClient httpClient, final LogoutMessageCreator logoutMessageCreator,
+                                                    final ServicesManager servicesManager,
+                                                    final SingleLogoutServiceLogoutUrlBuilder singleLogoutServiceLogoutUrlBuilder,
+                                                    final boolean asyncCallbacks,
+                                                    final AuthenticationServiceSelectionPlan authenticationRequestServiceSelectionStrategies,
+                                                    final SingleLogoutMessageDispatcher messageDispatcher) {
         this.httpClient = httpClient;
         this.logoutMessageBuilder = logoutMessageCreator;
         this.servicesManager = servicesManager;
         this.singleLogoutServiceLogoutUrlBuilder = singleLogoutServiceLogoutUrlBuilder;
         this.asynchronous = asyncCallbacks;
         this.authenticationRequestServiceSelectionStrategies = authenticationRequestServiceSelectionStrategies;
+        this.messageDispatcher = messageDispatcher;
     }
 
     /**
@@ -94,7 +122,10 @@ public class DefaultSingleLogoutServiceMessageHandler implements SingleLogoutSer
 
         switch (type) {
             case BACK_CHANNEL:
-                if (performBackChannelLogout(logoutRequest)) {
+                if (this.messageDispatcher != null && !this.asynchronous) {
+                    LOGGER.debug("Dispatching logout message for [{}]; its status is updated once delivered", selectedService);
+                    logoutRequest.setPendingDelivery(this.messageDispatcher.dispatch(createLogoutHttpMessage(logoutRequest)));
+                } else if (performBackChannelLogout(logoutRequest)) {
                     logoutRequest.setStatus(LogoutRequestStatus.SUCCESS);
                 } else {
                     logoutRequest.setStatus(LogoutRequestStatus.FAILURE);
@@ -118,13 +149,17 @@ public class DefaultSingleLogoutServiceMessageHandler implements SingleLogoutSer
      */
     public boolean performBackChannelLogout(final LogoutRequest request) {
         try {
-            LOGGER.debug("Creating back-channel logout request based on [{}]", request);
-            final String logoutRequest = this.logoutMessageBuilder.create(request);
-            final WebApplicationService logoutService = request.getService();
-            logoutService.setLoggedOutAlready(true);
-
-            LOGGER.debug("Preparing logout request for [{}] to [{}]", logoutService.getId(), request.getLogoutUrl());
-            final LogoutHttpMessage msg = new LogoutHttpMessage(request.getLogoutUrl(), logoutRequest, this.asynchronous);
+            final LogoutHttpMessage msg = createLogoutHttpMessage(request);
+            if (this.messageOutbox != null && this.asynchronous) {
+                LOGGER.debug("Prepared logout message to send is [{}]. Adding to the outbox...", msg);
+                this.messageOutbox.append(msg);
+                return true;
+            }
+            if (this.messageDispatcher != null) {
+                LOGGER.debug("Prepared logout message to send is [{}]. Dispatching...", msg);
+                final CompletableFuture<Boolean> delivery = this.messageDispatcher.dispatch(msg);
+                return this.asynchronous || delivery.join();
+            }
             LOGGER.debug("Prepared logout message to send is [{}]. Sending...", msg);
             return this.httpClient.sendMessageToEndPoint(msg);
         } catch (final Exception e) {
@@ -133,6 +168,16 @@ public class DefaultSingleLogoutServiceMessageHandler implements SingleLogoutSer
         return false;
     }
 
+    private LogoutHttpMessage createLogoutHttpMessage(final LogoutRequest request) {
+        LOGGER.debug("Creating back-channel logout request based on [{}]", request);
+        final String logoutRequest = this.logoutMessageBuilder.create(request);
+        final WebApplicationService logoutService = request.getService();
+        logoutService.setLoggedOutAlready(true);
+
+        LOGGER.debug("Preparing logout request for [{}] to [{}]", logoutService.getId(), request.getLogoutUrl());
+        return new LogoutHttpMessage(request.getLogoutUrl(), logoutRequest, this.asynchronous);
+    }
+
     /**
      * Service supports back channel single logout?
      * Service must be found in the registry. enabled and logout type must not be {@link LogoutType#NONE}.
@@ -149,4 +194,14 @@ public class DefaultSingleLogoutServiceMessageHandler implements SingleLogoutSer
     public ServicesManager getServicesManager() {
         return this.servicesManager;
     }
+
+    /**
+     * Sets the outbox to which asynchronous back-channel logout messages are written,
+     * to be delivered in the background.
+     *
+     * @param messageOutbox the message outbox
+     */
+    public void setMessageOutbox(final SingleLogoutMessageOutbox messageOutbox) {
+        this.messageOutbox = messageOutbox;
+    }
 }
@@ -0,0 +1,386 @@
+package org.apereo.cas.logout;
+
+import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apereo.cas.util.http.HttpClient;
+import org.apereo.cas.util.http.HttpMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This is {@link SingleLogoutMessageDispatcher} that delivers back-channel logout messages
+ * to application endpoints in the background, so that a logout with many services is
+ * as fast as the slowest endpoint rather than the sum of all of them.
+ * <ul>
+ * <li>Messages are posted by a fixed number of threads, fed by a bounded queue. Messages
+ * that do not fit in the queue are rejected and reported as failed.</li>
+ * <li>Each endpoint, identified by its host and port, receives at most a configured number
+ * of concurrent requests. Further messages for the endpoint wait in a bounded line, without holding
+ * on to a thread, so that a slow application cannot take over the pool. Messages that do not fit
+ * in the line are rejected, and messages that time out while waiting are taken out of it.
+ * Endpoints are forgotten once they have no message in progress.</li>
+ * <li>Failed deliveries are attempted again with an exponential backoff, until the maximum
+ * number of attempts is reached or the delivery times out.</li>
+ * </ul>
+ * Connections are reused through the connection pool of the wrapped http client.
+ *
+ * @author Misagh Moayyed
+ * @since 5.2.0
+ */
+public class SingleLogoutMessageDispatcher implements DisposableBean {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SingleLogoutMessageDispatcher.class);
+
+    private final HttpClient httpClient;
+    private final int maxConcurrentRequestsPerHost;
+    private final int maxPendingRequestsPerHost;
+    private final long timeout;
+    private final int maxAttempts;
+    private final long retryBackoff;
+
+    private final ThreadPoolExecutor executor;
+    private final ScheduledThreadPoolExecutor scheduler;
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    private final AtomicLong dispatchedMessages = new AtomicLong();
+    private final AtomicLong deliveredMessages = new AtomicLong();
+    private final AtomicLong failedMessages = new AtomicLong();
+    private final AtomicLong retriedMessages = new AtomicLong();
+    private final AtomicLong rejectedMessages = new AtomicLong();
+    private final AtomicLong timedOutMessages = new AtomicLong();
+
+    /**
+     * Instantiates a new dispatcher.
+     *
+     * @param httpClient                   the http client whose connections are used
+     * @param poolSize                     the number of threads posting messages
+     * @param queueCapacity                the number of messages that may wait for a thread
+     * @param maxConcurrentRequestsPerHost the number of concurrent requests allowed per endpoint
+     * @param maxPendingRequestsPerHost    the number of messages that may wait for their endpoint
+     * @param timeout                      the time in milliseconds after which a delivery is given up
+     * @param maxAttempts                  the number of times delivery is attempted
+     * @param retryBackoff                 the time in milliseconds to wait before the first retry, doubled for each retry
+     */
+    public SingleLogoutMessageDispatcher(final HttpClient httpClient, final int poolSize, final int queueCapacity,
+                                         final int maxConcurrentRequestsPerHost, final int maxPendingRequestsPerHost,
+                                         final long timeout, final int maxAttempts, final long retryBackoff) {
+        this.httpClient = httpClient;
+        this.maxConcurrentRequestsPerHost = maxConcurrentRequestsPerHost;
+        this.maxPendingRequestsPerHost = maxPendingRequestsPerHost;
+        this.timeout = timeout;
+        this.maxAttempts = maxAttempts;
+        this.retryBackoff = retryBackoff;
+
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), newThreadFactory("cas-slo-dispatcher-"));
+        this.scheduler = new ScheduledThreadPoolExecutor(1, newThreadFactory("cas-slo-scheduler-"));
+        this.scheduler.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Dispatch the message to its endpoint.
+     *
+     * @param message the message
+     * @return the future outcome of the delivery, which is complete once the message is delivered,
+     * all attempts have failed, the message was rejected or the delivery timed out.
+     */
+    public CompletableFuture<Boolean> dispatch(final HttpMessage message) {
+        final Delivery delivery = new Delivery(message);
+        this.dispatchedMessages.incrementAndGet();
+        try {
+            delivery.timeoutTask = this.scheduler.schedule(() -> {
+                if (complete(delivery, false, true)) {
+                    withdraw(delivery);
+                    LOGGER.warn("Delivery of logout message to [{}] timed out after [{}] attempt(s)", message.getUrl(), delivery.attempts);
+                }
+            }, this.timeout, TimeUnit.MILLISECONDS);
+        } catch (final RejectedExecutionException e) {
+            reject(delivery);
+            return delivery.result;
+        }
+        enqueue(delivery);
+        return delivery.result;
+    }
+
+    /**
+     * Post the message to its endpoint.
+     *
+     * @param message the message
+     * @return true if the endpoint accepted the message
+     */
+    protected boolean send(final HttpMessage message) {
+        try {
+            final HttpPost request = new HttpPost(message.getUrl().toURI());
+            request.setEntity(new StringEntity(message.getMessage(), ContentType.create(message.getContentType())));
+            return this.httpClient.getWrappedHttpClient().execute(request,
+                    response -> response.getStatusLine().getStatusCode() == HttpStatus.SC_OK);
+        } catch (final Exception e) {
+            LOGGER.debug("Unable to send logout message to [{}]: [{}]", message.getUrl(), e.getMessage());
+            return false;
+        }
+    }
+
+    private void enqueue(final Delivery delivery) {
+        if (delivery.completed.get()) {
+            return;
+        }
+        Endpoint endpoint = null;
+        boolean accepted = false;
+        while (endpoint == null) {
+            final Endpoint candidate = this.endpoints.computeIfAbsent(delivery.endpoint, Endpoint::new);
+            synchronized (candidate) {
+                if (candidate.retired) {
+                    continue;
+                }
+                endpoint = candidate;
+                if (candidate.activeRequests < this.maxConcurrentRequestsPerHost) {
+                    candidate.activeRequests++;
+                    accepted = true;
+                } else if (candidate.pending.size() < this.maxPendingRequestsPerHost) {
+                    candidate.pending.add(delivery);
+                    return;
+                }
+            }
+        }
+        if (accepted) {
+            execute(endpoint, delivery);
+        } else {
+            reject(delivery);
+        }
+    }
+
+    /**
+     * Take the delivery out of the line of its endpoint, if it is still waiting there.
+     *
+     * @param delivery the delivery
+     */
+    private void withdraw(final Delivery delivery) {
+        final Endpoint endpoint = this.endpoints.get(delivery.endpoint);
+        if (endpoint != null) {
+            synchronized (endpoint) {
+                endpoint.pending.remove(delivery);
+            }
+        }
+    }
+
+    private void execute(final Endpoint endpoint, final Delivery delivery) {
+        Delivery current = delivery;
+        while (current != null) {
+            final Delivery task = current;
+            try {
+                this.executor.execute(() -> deliver(endpoint, task));
+                return;
+            } catch (final RejectedExecutionException e) {
+                reject(task);
+                current = next(endpoint);
+            }
+        }
+    }
+
+    private void deliver(final Endpoint endpoint, final Delivery delivery) {
+        boolean delivered = false;
+        try {
+            if (!delivery.completed.get()) {
+                delivery.attempts++;
+                LOGGER.debug("Sending logout message to [{}], attempt [{}]", delivery.message.getUrl(), delivery.attempts);
+                delivered = send(delivery.message);
+            }
+        } finally {
+            release(endpoint);
+        }
+        if (delivered) {
+            complete(delivery, true);
+        } else if (!delivery.completed.get()) {
+            retry(delivery);
+        }
+    }
+
+    private void release(final Endpoint endpoint) {
+        final Delivery next = next(endpoint);
+        if (next != null) {
+            execute(endpoint, next);
+        }
+    }
+
+    private Delivery next(final Endpoint endpoint) {
+        synchronized (endpoint) {
+            final Delivery next = endpoint.pending.poll();
+            if (next == null && --endpoint.activeRequests == 0) {
+                endpoint.retired = true;
+                this.endpoints.remove(endpoint.key, endpoint);
+            }
+            return next;
+        }
+    }
+
+    private void retry(final Delivery delivery) {
+        final long backoff = this.retryBackoff << Math.min(delivery.attempts - 1, Long.SIZE - 2);
+        if (delivery.attempts >= this.maxAttempts || backoff >= delivery.deadline - System.currentTimeMillis()) {
+            LOGGER.warn("Logout message could not be delivered to [{}] after [{}] attempt(s)", delivery.message.getUrl(), delivery.attempts);
+            complete(delivery, false);
+            return;
+        }
+        this.retriedMessages.incrementAndGet();
+        LOGGER.debug("Logout message is not delivered to [{}]; Retrying in [{}] ms", delivery.message.getUrl(), backoff);
+        try {
+            this.scheduler.schedule(() -> enqueue(delivery), backoff, TimeUnit.MILLISECONDS);
+        } catch (final RejectedExecutionException e) {
+            complete(delivery, false);
+        }
+    }
+
+    private void reject(final Delivery delivery) {
+        LOGGER.warn("Logout message to [{}] is rejected, as too many messages are waiting to be delivered", delivery.message.getUrl());
+        this.rejectedMessages.incrementAndGet();
+        complete(delivery, false);
+    }
+
+    private void complete(final Delivery delivery, final boolean delivered) {
+        complete(delivery, delivered, false);
+    }
+
+    private boolean complete(final Delivery delivery, final boolean delivered, final boolean timedOut) {
+        if (!delivery.completed.compareAndSet(false, true)) {
+            return false;
+        }
+        if (delivery.timeoutTask != null && !timedOut) {
+            delivery.timeoutTask.cancel(false);
+        }
+        if (delivered) {
+            this.deliveredMessages.incrementAndGet();
+        } else {
+            this.failedMessages.incrementAndGet();
+        }
+        if (timedOut) {
+            this.timedOutMessages.incrementAndGet();
+        }
+        delivery.result.complete(delivered);
+        return true;
+    }
+
+    public long getDispatchedMessages() {
+        return this.dispatchedMessages.get();
+    }
+
+    public long getDeliveredMessages() {
+        return this.deliveredMessages.get();
+    }
+
+    public long getFailedMessages() {
+        return this.failedMessages.get();
+    }
+
+    public long getRetriedMessages() {
+        return this.retriedMessages.get();
+    }
+
+    public long getRejectedMessages() {
+        return this.rejectedMessages.get();
+    }
+
+    public long getTimedOutMessages() {
+        return this.timedOutMessages.get();
+    }
+
+    /**
+     * Gets the number of messages waiting for a thread or for their endpoint to become available.
+     *
+     * @return the number of waiting messages
+     */
+    public int getQueuedMessages() {
+        int count = this.executor.getQueue().size();
+        for (final Endpoint endpoint : this.endpoints.values()) {
+            synchronized (endpoint) {
+                count += endpoint.pending.size();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Gets the number of messages being posted.
+     *
+     * @return the number of active requests
+     */
+    public int getActiveRequests() {
+        return this.executor.getActiveCount();
+    }
+
+    /**
+     * Gets the number of endpoints with messages being posted or waiting.
+     *
+     * @return the number of active endpoints
+     */
+    public int getActiveEndpoints() {
+        return this.endpoints.size();
+    }
+
+    @Override
+    public void destroy() {
+        this.scheduler.shutdownNow();
+        this.executor.shutdown();
+    }
+
+    private static ThreadFactory newThreadFactory(final String prefix) {
+        final AtomicInteger count = new AtomicInteger();
+        return r -> {
+            final Thread thread = new Thread(r, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Deliveries in progress for a single endpoint. An endpoint is retired, and no longer
+     * accepts deliveries, once it is removed for having none in progress.
+     */
+    private static class Endpoint {
+        private final String key;
+        private final Queue<Delivery> pending = new ArrayDeque<>();
+        private int activeRequests;
+        private boolean retired;
+
+        Endpoint(final String key) {
+            this.key = key;
+        }
+    }
+
+    /**
+     * A message on its way to an endpoint.
+     */
+    private class Delivery {
+        private final HttpMessage message;
+        private final String endpoint;
+        private final long deadline;
+        private final CompletableFuture<Boolean> result = new CompletableFuture<>();
+        private final AtomicBoolean completed = new AtomicBoolean();
+        private volatile int attempts;
+        private volatile ScheduledFuture<?> timeoutTask;
+
+        Delivery(final HttpMessage message) {
+            this.message = message;
+            final URL url = message.getUrl();
+            this.endpoint = url.getHost() + ':' + (url.getPort() == -1 ? url.getDefaultPort() : url.getPort());
+            this.deadline = System.currentTimeMillis() + timeout;
+        }
+    }
+}
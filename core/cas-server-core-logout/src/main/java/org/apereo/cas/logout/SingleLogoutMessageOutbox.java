@@ -0,0 +1,523 @@
+package org.apereo.cas.logout;
+
+import com.google.common.base.Throwables;
+import org.apereo.cas.util.http.HttpMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.io.IOException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * This is {@link SingleLogoutMessageOutbox}, a persistent queue of back-channel logout messages
+ * that are waiting to be delivered. Messages are appended to a log on local disk and returned to
+ * the caller right away; a background thread reads them back and hands them over to a
+ * {@link SingleLogoutMessageDispatcher}. Messages that are not yet delivered when the server
+ * stops are delivered once it starts again, which means a message may be delivered more than once.
+ * <p>
+ * The log is made of fixed-size segment files that are mapped into memory, each holding a sequence
+ * of records made of the length and checksum of the message followed by the message itself.
+ * A checkpoint file keeps the position of the first message that is not yet delivered;
+ * segments entirely before that position are deleted. Messages that could not be delivered are
+ * appended to the log again, to be attempted after a delay, until they are older than the configured maximum age.
+ *
+ * @author Misagh Moayyed
+ * @since 5.2.0
+ */
+public class SingleLogoutMessageOutbox implements DisposableBean {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SingleLogoutMessageOutbox.class);
+
+    private static final String SEGMENT_PREFIX = "slo-outbox-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final Pattern SEGMENT_PATTERN = Pattern.compile(SEGMENT_PREFIX + "(\\d+)\\" + SEGMENT_SUFFIX);
+    private static final String CHECKPOINT_FILE = "slo-outbox.checkpoint";
+
+    private static final int RECORD_HEADER_LENGTH = Integer.BYTES * 2;
+    private static final int SEGMENT_ID_SHIFT = 32;
+    private static final long OFFSET_MASK = 0xFFFFFFFFL;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final long maxAge;
+    private final long checkpointInterval;
+    private final long retryDelay;
+    private final SingleLogoutMessageDispatcher dispatcher;
+    private final Semaphore permits;
+    private final ScheduledThreadPoolExecutor scheduler;
+
+    /**
+     * Segments by identifier. Guarded by this outbox, as are the read position and the segments themselves.
+     */
+    private final NavigableMap<Long, Segment> segments = new TreeMap<>();
+
+    /**
+     * Positions of messages handed over to the dispatcher and not yet delivered.
+     */
+    private final ConcurrentSkipListSet<Long> inFlight = new ConcurrentSkipListSet<>();
+
+    private final AtomicLong appendedMessages = new AtomicLong();
+    private final AtomicLong completedMessages = new AtomicLong();
+    private final AtomicLong redeliveredMessages = new AtomicLong();
+    private final AtomicLong expiredMessages = new AtomicLong();
+
+    private final Thread drainer;
+    private volatile boolean running = true;
+
+    private Segment tail;
+    private long readPosition;
+    private long checkpoint = -1;
+
+    /**
+     * Instantiates a new outbox, delivering messages left over from a previous run.
+     *
+     * @param directory          the directory holding the log
+     * @param segmentSize        the size of each segment file in bytes
+     * @param maxInFlight        the maximum number of messages handed over to the dispatcher at once
+     * @param maxAge             the time in milliseconds after which undelivered messages are given up
+     * @param checkpointInterval the time in milliseconds between checkpoints
+     * @param retryDelay         the time in milliseconds to wait before attempting an undelivered message again
+     * @param dispatcher         the dispatcher that delivers messages
+     */
+    public SingleLogoutMessageOutbox(final Path directory, final int segmentSize, final int maxInFlight, final long maxAge,
+                                     final long checkpointInterval, final long retryDelay,
+                                     final SingleLogoutMessageDispatcher dispatcher) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maxAge = maxAge;
+        this.checkpointInterval = checkpointInterval;
+        this.retryDelay = retryDelay;
+        this.dispatcher = dispatcher;
+        this.permits = new Semaphore(maxInFlight);
+        this.scheduler = new ScheduledThreadPoolExecutor(1, r -> {
+            final Thread thread = new Thread(r, "cas-slo-outbox-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            recover();
+        } catch (final IOException e) {
+            throw Throwables.propagate(e);
+        }
+        this.drainer = new Thread(this::drain, "cas-slo-outbox");
+        this.drainer.setDaemon(true);
+        this.drainer.start();
+    }
+
+    /**
+     * Append the message to the outbox, to be delivered in the background.
+     *
+     * @param message the message
+     */
+    public void append(final HttpMessage message) {
+        append(message.getUrl().toExternalForm(), message.getContentType(), message.getMessage(), System.currentTimeMillis(), 0);
+        this.appendedMessages.incrementAndGet();
+    }
+
+    private synchronized void append(final String url, final String contentType, final String body,
+                                     final long createdAt, final long notBefore) {
+        final byte[] record = encode(url, contentType, body, createdAt, notBefore);
+        if (RECORD_HEADER_LENGTH + record.length > this.segmentSize) {
+            throw new IllegalArgumentException("Logout message of " + record.length + " bytes does not fit in an outbox segment");
+        }
+        try {
+            if (this.tail.writePosition + RECORD_HEADER_LENGTH + record.length > this.segmentSize) {
+                this.tail.buffer.force();
+                this.tail = openSegment(this.tail.id + 1);
+            }
+            final CRC32 crc = new CRC32();
+            crc.update(record);
+            final ByteBuffer buffer = this.tail.buffer;
+            buffer.position(this.tail.writePosition + RECORD_HEADER_LENGTH);
+            buffer.put(record);
+            buffer.putInt(this.tail.writePosition + Integer.BYTES, (int) crc.getValue());
+            buffer.putInt(this.tail.writePosition, record.length);
+            this.tail.writePosition += RECORD_HEADER_LENGTH + record.length;
+        } catch (final IOException e) {
+            throw Throwables.propagate(e);
+        }
+        notifyAll();
+    }
+
+    private void drain() {
+        long lastCheckpoint = System.currentTimeMillis();
+        while (this.running) {
+            try {
+                final Record record = next();
+                if (record != null) {
+                    this.permits.acquire();
+                    deliver(record);
+                }
+                final long now = System.currentTimeMillis();
+                if (now - lastCheckpoint >= this.checkpointInterval) {
+                    checkpoint();
+                    lastCheckpoint = now;
+                }
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (final Exception e) {
+                LOGGER.error("Unable to process logout messages in the outbox: [{}]", e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Read the next message, waiting for one to be appended if necessary.
+     * The message is considered in flight from then on, so that checkpoints do not go past it.
+     *
+     * @return the record, or null if none was appended in time
+     * @throws InterruptedException if interrupted while waiting
+     */
+    private synchronized Record next() throws InterruptedException {
+        while (true) {
+            final Segment segment = this.segments.get(segmentId(this.readPosition));
+            if (segment == null) {
+                final Long nextId = this.segments.higherKey(segmentId(this.readPosition));
+                if (nextId == null) {
+                    wait(this.checkpointInterval);
+                    return null;
+                }
+                this.readPosition = position(nextId, 0);
+                continue;
+            }
+            final int offset = offset(this.readPosition);
+            final Record record = read(segment, offset);
+            if (record != null) {
+                this.readPosition = position(segment.id, offset + RECORD_HEADER_LENGTH + record.length);
+                this.inFlight.add(record.position);
+                return record;
+            }
+            if (segment == this.tail) {
+                wait(this.checkpointInterval);
+                return null;
+            }
+            this.readPosition = position(segment.id + 1, 0);
+        }
+    }
+
+    private void deliver(final Record record) {
+        if (System.currentTimeMillis() - record.createdAt > this.maxAge) {
+            LOGGER.warn("Logout message to [{}] is older than [{}] ms and is discarded", record.url, this.maxAge);
+            this.expiredMessages.incrementAndGet();
+            this.inFlight.remove(record.position);
+            this.permits.release();
+            return;
+        }
+        final long delay = record.notBefore - System.currentTimeMillis();
+        if (delay > 0) {
+            try {
+                this.scheduler.schedule(() -> dispatch(record), delay, TimeUnit.MILLISECONDS);
+                return;
+            } catch (final RejectedExecutionException e) {
+                LOGGER.debug("Logout message to [{}] is attempted right away, as the outbox is shutting down", record.url);
+            }
+        }
+        dispatch(record);
+    }
+
+    private void dispatch(final Record record) {
+        this.dispatcher.dispatch(record.toHttpMessage()).whenComplete((delivered, e) -> {
+            try {
+                if (!Boolean.TRUE.equals(delivered)) {
+                    LOGGER.debug("Logout message to [{}] is not delivered and is added back to the outbox", record.url);
+                    this.redeliveredMessages.incrementAndGet();
+                    append(record.url, record.contentType, record.body, record.createdAt, System.currentTimeMillis() + this.retryDelay);
+                } else {
+                    this.completedMessages.incrementAndGet();
+                }
+            } catch (final Exception ex) {
+                LOGGER.error("Unable to add logout message to [{}] back to the outbox: [{}]", record.url, ex.getMessage(), ex);
+            } finally {
+                this.inFlight.remove(record.position);
+                this.permits.release();
+            }
+        });
+    }
+
+    /**
+     * Record the position before which all messages are delivered, flush appended messages to disk
+     * and delete segments that are no longer needed.
+     *
+     * @throws IOException if the checkpoint cannot be written
+     */
+    private synchronized void checkpoint() throws IOException {
+        final Long firstInFlight = this.inFlight.ceiling(0L);
+        final long position = firstInFlight == null ? this.readPosition : Math.min(firstInFlight, this.readPosition);
+        this.tail.buffer.force();
+        if (position == this.checkpoint) {
+            return;
+        }
+        final Path temp = this.directory.resolve(CHECKPOINT_FILE + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            final ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES);
+            buffer.putLong(position).flip();
+            channel.write(buffer);
+            channel.force(true);
+        }
+        Files.move(temp, this.directory.resolve(CHECKPOINT_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        this.checkpoint = position;
+
+        while (this.segments.firstKey() < segmentId(position) && this.segments.firstEntry().getValue() != this.tail) {
+            final Segment segment = this.segments.pollFirstEntry().getValue();
+            segment.channel.close();
+            Files.deleteIfExists(segment.path);
+            LOGGER.debug("Deleted delivered outbox segment [{}]", segment.path);
+        }
+    }
+
+    private synchronized void recover() throws IOException {
+        Files.createDirectories(this.directory);
+        final Path checkpointFile = this.directory.resolve(CHECKPOINT_FILE);
+        long position = 0;
+        if (Files.exists(checkpointFile)) {
+            position = ByteBuffer.wrap(Files.readAllBytes(checkpointFile)).getLong();
+        }
+        final List<Path> files;
+        try (Stream<Path> stream = Files.list(this.directory)) {
+            files = stream.collect(Collectors.toList());
+        }
+        final SortedSet<Long> ids = new TreeSet<>();
+        for (final Path path : files) {
+            final Matcher matcher = SEGMENT_PATTERN.matcher(path.getFileName().toString());
+            if (matcher.matches()) {
+                final long id = Long.parseLong(matcher.group(1));
+                if (id < segmentId(position)) {
+                    Files.deleteIfExists(path);
+                } else {
+                    ids.add(id);
+                }
+            }
+        }
+        for (final Long id : ids) {
+            openSegment(id);
+        }
+        if (this.segments.isEmpty()) {
+            this.tail = openSegment(segmentId(position));
+            position = position(this.tail.id, 0);
+        } else {
+            this.tail = this.segments.lastEntry().getValue();
+        }
+        this.readPosition = position;
+        this.checkpoint = position;
+
+        int pending = 0;
+        for (final Segment segment : this.segments.values()) {
+            int offset = segment.id == segmentId(position) ? offset(position) : 0;
+            Record record = read(segment, offset);
+            while (record != null) {
+                pending++;
+                offset += RECORD_HEADER_LENGTH + record.length;
+                record = read(segment, offset);
+            }
+            segment.writePosition = Math.max(offset, segment.writePosition);
+        }
+        final ByteBuffer buffer = this.tail.buffer;
+        for (int i = this.tail.writePosition; i < this.segmentSize; i++) {
+            buffer.put(i, (byte) 0);
+        }
+        LOGGER.info("Found [{}] logout message(s) in the outbox at [{}] to be delivered", pending, this.directory);
+    }
+
+    private Segment openSegment(final long id) throws IOException {
+        final Path path = this.directory.resolve(SEGMENT_PREFIX + id + SEGMENT_SUFFIX);
+        final FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, this.segmentSize);
+        final Segment segment = new Segment(id, path, channel, buffer);
+        this.segments.put(id, segment);
+        return segment;
+    }
+
+    /**
+     * Read the record at the given offset of the segment.
+     *
+     * @return the record, or null if there is no complete record at the offset
+     */
+    private Record read(final Segment segment, final int offset) {
+        final ByteBuffer buffer = segment.buffer;
+        if (offset + RECORD_HEADER_LENGTH > this.segmentSize) {
+            return null;
+        }
+        final int length = buffer.getInt(offset);
+        if (length <= 0 || offset + RECORD_HEADER_LENGTH + length > this.segmentSize) {
+            return null;
+        }
+        final byte[] bytes = new byte[length];
+        final ByteBuffer view = buffer.duplicate();
+        view.position(offset + RECORD_HEADER_LENGTH);
+        view.get(bytes);
+        final CRC32 crc = new CRC32();
+        crc.update(bytes);
+        if ((int) crc.getValue() != buffer.getInt(offset + Integer.BYTES)) {
+            LOGGER.warn("Outbox record at offset [{}] of [{}] is incomplete and is ignored", offset, segment.path);
+            return null;
+        }
+        return decode(position(segment.id, offset), bytes);
+    }
+
+    private static byte[] encode(final String url, final String contentType, final String body,
+                                 final long createdAt, final long notBefore) {
+        final byte[] urlBytes = url.getBytes(StandardCharsets.UTF_8);
+        final byte[] contentTypeBytes = contentType.getBytes(StandardCharsets.UTF_8);
+        final byte[] bodyBytes = body.getBytes(StandardCharsets.UTF_8);
+        final ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES * 2 + Integer.BYTES * 3 + urlBytes.length + contentTypeBytes.length + bodyBytes.length);
+        buffer.putLong(createdAt);
+        buffer.putLong(notBefore);
+        buffer.putInt(urlBytes.length).put(urlBytes);
+        buffer.putInt(contentTypeBytes.length).put(contentTypeBytes);
+        buffer.putInt(bodyBytes.length).put(bodyBytes);
+        return buffer.array();
+    }
+
+    private static Record decode(final long position, final byte[] bytes) {
+        final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        final long createdAt = buffer.getLong();
+        final long notBefore = buffer.getLong();
+        return new Record(position, bytes.length, createdAt, notBefore, readString(buffer), readString(buffer), readString(buffer));
+    }
+
+    private static String readString(final ByteBuffer buffer) {
+        final byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static long position(final long segmentId, final int offset) {
+        return segmentId << SEGMENT_ID_SHIFT | offset;
+    }
+
+    private static long segmentId(final long position) {
+        return position >>> SEGMENT_ID_SHIFT;
+    }
+
+    private static int offset(final long position) {
+        return (int) (position & OFFSET_MASK);
+    }
+
+    public long getAppendedMessages() {
+        return this.appendedMessages.get();
+    }
+
+    public long getCompletedMessages() {
+        return this.completedMessages.get();
+    }
+
+    public long getRedeliveredMessages() {
+        return this.redeliveredMessages.get();
+    }
+
+    public long getExpiredMessages() {
+        return this.expiredMessages.get();
+    }
+
+    public int getInFlightMessages() {
+        return this.inFlight.size();
+    }
+
+    /**
+     * Gets the number of segment files in use.
+     *
+     * @return the segment count
+     */
+    public synchronized int getSegmentCount() {
+        return this.segments.size();
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        this.running = false;
+        this.drainer.interrupt();
+        this.drainer.join(TimeUnit.SECONDS.toMillis(1));
+        this.scheduler.shutdownNow();
+        synchronized (this) {
+            checkpoint();
+            for (final Segment segment : this.segments.values()) {
+                segment.channel.close();
+            }
+        }
+    }
+
+    /**
+     * A segment file of the log, mapped into memory.
+     */
+    private static class Segment {
+        private final long id;
+        private final Path path;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private int writePosition;
+
+        Segment(final long id, final Path path, final FileChannel channel, final MappedByteBuffer buffer) {
+            this.id = id;
+            this.path = path;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+    }
+
+    /**
+     * A logout message read from the log.
+     */
+    private static class Record {
+        private final long position;
+        private final int length;
+        private final long createdAt;
+        private final long notBefore;
+        private final String url;
+        private final String contentType;
+        private final String body;
+
+        Record(final long position, final int length, final long createdAt, final long notBefore,
+               final String url, final String contentType, final String body) {
+            this.position = position;
+            this.length = length;
+            this.createdAt = createdAt;
+            this.notBefore = notBefore;
+            this.url = url;
+            this.contentType = contentType;
+            this.body = body;
+        }
+
+        HttpMessage toHttpMessage() {
+            try {
+                final HttpMessage message = new HttpMessage(new URL(this.url), this.body, true) {
+                    private static final long serialVersionUID = -3215617387447094427L;
+
+                    @Override
+                    protected String formatOutputMessageInternal(final String message) {
+                        return message;
+                    }
+                };
+                message.setContentType(this.contentType);
+                return message;
+            } catch (final Exception e) {
+                throw Throwables.propagate(e);
+            }
+        }
+    }
+}
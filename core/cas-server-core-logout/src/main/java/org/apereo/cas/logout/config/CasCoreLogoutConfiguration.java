@@ -1,8 +1,11 @@
 package org.apereo.cas.logout.config;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
 import org.apache.commons.lang3.StringUtils;
 import org.apereo.cas.authentication.AuthenticationServiceSelectionPlan;
 import org.apereo.cas.configuration.CasConfigurationProperties;
+import org.apereo.cas.configuration.model.core.slo.SloProperties;
 import org.apereo.cas.logout.DefaultLogoutExecutionPlan;
 import org.apereo.cas.logout.DefaultLogoutManager;
 import org.apereo.cas.logout.DefaultSingleLogoutServiceLogoutUrlBuilder;
@@ -12,6 +15,8 @@ import org.apereo.cas.logout.LogoutExecutionPlanConfigurer;
 import org.apereo.cas.logout.LogoutManager;
 import org.apereo.cas.logout.LogoutMessageCreator;
 import org.apereo.cas.logout.SamlCompliantLogoutMessageCreator;
+import org.apereo.cas.logout.SingleLogoutMessageDispatcher;
+import org.apereo.cas.logout.SingleLogoutMessageOutbox;
 import org.apereo.cas.logout.SingleLogoutServiceLogoutUrlBuilder;
 import org.apereo.cas.logout.SingleLogoutServiceMessageHandler;
 import org.apereo.cas.services.ServicesManager;
@@ -26,7 +31,9 @@ import org.springframework.boot.context.properties.EnableConfigurationProperties
 import org.springframework.cloud.context.config.annotation.RefreshScope;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
 
+import java.nio.file.Paths;
 import java.util.List;
 
 /**
@@ -59,21 +66,88 @@ public class CasCoreLogoutConfiguration implements LogoutExecutionPlanConfigurer
     @Qualifier("authenticationServiceSelectionPlan")
     private AuthenticationServiceSelectionPlan authenticationRequestServiceSelectionStrategies;
 
+    @Autowired(required = false)
+    @Qualifier("metrics")
+    private MetricRegistry metricRegistry;
+
     @ConditionalOnMissingBean(name = "singleLogoutServiceLogoutUrlBuilder")
     @Bean
     public SingleLogoutServiceLogoutUrlBuilder singleLogoutServiceLogoutUrlBuilder() {
         return new DefaultSingleLogoutServiceLogoutUrlBuilder();
     }
 
+    @ConditionalOnMissingBean(name = "singleLogoutMessageDispatcher")
+    @Lazy
+    @Bean
+    public SingleLogoutMessageDispatcher singleLogoutMessageDispatcher() {
+        final SloProperties.Dispatcher dispatcher = casProperties.getSlo().getDispatcher();
+        final SingleLogoutMessageDispatcher d = new SingleLogoutMessageDispatcher(httpClient, dispatcher.getPoolSize(),
+                dispatcher.getQueueCapacity(), dispatcher.getMaxConcurrentRequestsPerHost(),
+                dispatcher.getMaxPendingRequestsPerHost(), dispatcher.getTimeout(),
+                dispatcher.getMaxAttempts(), dispatcher.getRetryBackoff());
+        if (this.metricRegistry != null) {
+            this.metricRegistry.register(MetricRegistry.name(SingleLogoutMessageDispatcher.class, "dispatchedMessages"),
+                    (Gauge<Long>) d::getDispatchedMessages);
+            this.metricRegistry.register(MetricRegistry.name(SingleLogoutMessageDispatcher.class, "deliveredMessages"),
+                    (Gauge<Long>) d::getDeliveredMessages);
+            this.metricRegistry.register(MetricRegistry.name(SingleLogoutMessageDispatcher.class, "failedMessages"),
+                    (Gauge<Long>) d::getFailedMessages);
+            this.metricRegistry.register(MetricRegistry.name(SingleLogoutMessageDispatcher.class, "retriedMessages"),
+                    (Gauge<Long>) d::getRetriedMessages);
+            this.metricRegistry.register(MetricRegistry.name(SingleLogoutMessageDispatcher.class, "rejectedMessages"),
+                    (Gauge<Long>) d::getRejectedMessages);
+            this.metricRegistry.register(MetricRegistry.name(SingleLogoutMessageDispatcher.class, "timedOutMessages"),
+                    (Gauge<Long>) d::getTimedOutMessages);
+            this.metricRegistry.register(MetricRegistry.name(SingleLogoutMessageDispatcher.class, "queuedMessages"),
+                    (Gauge<Integer>) d::getQueuedMessages);
+            this.metricRegistry.register(MetricRegistry.name(SingleLogoutMessageDispatcher.class, "activeRequests"),
+                    (Gauge<Integer>) d::getActiveRequests);
+            this.metricRegistry.register(MetricRegistry.name(SingleLogoutMessageDispatcher.class, "activeEndpoints"),
+                    (Gauge<Integer>) d::getActiveEndpoints);
+        }
+        return d;
+    }
+
+    @ConditionalOnMissingBean(name = "singleLogoutMessageOutbox")
+    @Lazy
+    @Bean
+    public SingleLogoutMessageOutbox singleLogoutMessageOutbox() {
+        final SloProperties.Outbox outbox = casProperties.getSlo().getOutbox();
+        final SingleLogoutMessageOutbox o = new SingleLogoutMessageOutbox(Paths.get(outbox.getDirectory()), outbox.getSegmentSize(),
+                outbox.getMaxInFlight(), outbox.getMaxAge(), outbox.getCheckpointInterval(), outbox.getRetryDelay(),
+                singleLogoutMessageDispatcher());
+        if (this.metricRegistry != null) {
+            this.metricRegistry.register(MetricRegistry.name(SingleLogoutMessageOutbox.class, "appendedMessages"),
+                    (Gauge<Long>) o::getAppendedMessages);
+            this.metricRegistry.register(MetricRegistry.name(SingleLogoutMessageOutbox.class, "completedMessages"),
+                    (Gauge<Long>) o::getCompletedMessages);
+            this.metricRegistry.register(MetricRegistry.name(SingleLogoutMessageOutbox.class, "redeliveredMessages"),
+                    (Gauge<Long>) o::getRedeliveredMessages);
+            this.metricRegistry.register(MetricRegistry.name(SingleLogoutMessageOutbox.class, "expiredMessages"),
+                    (Gauge<Long>) o::getExpiredMessages);
+            this.metricRegistry.register(MetricRegistry.name(SingleLogoutMessageOutbox.class, "inFlightMessages"),
+                    (Gauge<Integer>) o::getInFlightMessages);
+            this.metricRegistry.register(MetricRegistry.name(SingleLogoutMessageOutbox.class, "segmentCount"),
+                    (Gauge<Integer>) o::getSegmentCount);
+        }
+        return o;
+    }
+
     @ConditionalOnMissingBean(name = "defaultSingleLogoutServiceMessageHandler")
     @Bean
     public SingleLogoutServiceMessageHandler defaultSingleLogoutServiceMessageHandler() {
-        return new DefaultSingleLogoutServiceMessageHandler(httpClient,
+        final SloProperties slo = casProperties.getSlo();
+        final DefaultSingleLogoutServiceMessageHandler handler = new DefaultSingleLogoutServiceMessageHandler(httpClient,
                 logoutBuilder(),
                 servicesManager,
                 singleLogoutServiceLogoutUrlBuilder(),
-                casProperties.getSlo().isAsynchronous(),
-                authenticationRequestServiceSelectionStrategies);
+                slo.isAsynchronous(),
+                authenticationRequestServiceSelectionStrategies,
+                slo.getDispatcher().isEnabled() ? singleLogoutMessageDispatcher() : null);
+        if (slo.getDispatcher().isEnabled() && slo.getOutbox().isEnabled()) {
+            handler.setMessageOutbox(singleLogoutMessageOutbox());
+        }
+        return handler;
     }
 
     @ConditionalOnMissingBean(name = "logoutManager")
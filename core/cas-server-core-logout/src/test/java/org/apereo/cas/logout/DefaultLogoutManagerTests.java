@@ -150,6 +150,32 @@ public class DefaultLogoutManagerTests {
         assertEquals(LogoutRequestStatus.NOT_ATTEMPTED, logoutRequest.getStatus());
     }
     
+    @Test
+    public void verifySynchronousLogoutThroughDispatcher() {
+        final SingleLogoutMessageDispatcher dispatcher = new SingleLogoutMessageDispatcher(client, 2, 10, 1, 10, 5_000, 1, 10) {
+            @Override
+            protected boolean send(final HttpMessage message) {
+                return false;
+            }
+        };
+        try {
+            final DefaultSingleLogoutServiceMessageHandler handler = new DefaultSingleLogoutServiceMessageHandler(client,
+                    new SamlCompliantLogoutMessageCreator(), servicesManager,
+                    new DefaultSingleLogoutServiceLogoutUrlBuilder(), false,
+                    new DefaultAuthenticationServiceSelectionPlan(new DefaultAuthenticationServiceSelectionStrategy()), dispatcher);
+            this.logoutManager = new DefaultLogoutManager(new SamlCompliantLogoutMessageCreator(),
+                    handler, false, mock(LogoutExecutionPlan.class));
+            this.registeredService.setLogoutType(LogoutType.BACK_CHANNEL);
+
+            final Collection<LogoutRequest> logoutRequests = this.logoutManager.performLogout(tgt);
+            assertEquals(1, logoutRequests.size());
+            assertEquals(LogoutRequestStatus.FAILURE, logoutRequests.iterator().next().getStatus());
+            assertEquals(1, dispatcher.getFailedMessages());
+        } finally {
+            dispatcher.destroy();
+        }
+    }
+
     @Test
     public void verifyAsynchronousLogout() {
         this.registeredService.setLogoutType(LogoutType.BACK_CHANNEL);
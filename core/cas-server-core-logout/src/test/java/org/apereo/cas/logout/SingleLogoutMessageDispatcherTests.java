@@ -0,0 +1,177 @@
+package org.apereo.cas.logout;
+
+import org.apereo.cas.util.http.HttpMessage;
+import org.junit.After;
+import org.junit.Test;
+
+import java.net.URL;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * This is {@link SingleLogoutMessageDispatcherTests}.
+ *
+ * @author Misagh Moayyed
+ * @since 5.2.0
+ */
+public class SingleLogoutMessageDispatcherTests {
+
+    private SingleLogoutMessageDispatcher dispatcher;
+
+    @After
+    public void tearDown() {
+        if (this.dispatcher != null) {
+            this.dispatcher.destroy();
+        }
+    }
+
+    @Test
+    public void verifyRequestsPerHostAreCapped() throws Exception {
+        final ConcurrentMap<String, AtomicInteger> active = new ConcurrentHashMap<>();
+        final AtomicInteger maxActive = new AtomicInteger();
+        this.dispatcher = newDispatcher(10, 2, 100, 3, message -> {
+            final AtomicInteger count = active.computeIfAbsent(message.getUrl().getHost(), k -> new AtomicInteger());
+            maxActive.accumulateAndGet(count.incrementAndGet(), Math::max);
+            sleep(20);
+            count.decrementAndGet();
+            return true;
+        });
+
+        final List<CompletableFuture<Boolean>> results = IntStream.range(0, 20)
+                .mapToObj(i -> this.dispatcher.dispatch(newMessage("https://app" + (i % 2) + ".example.org/logout")))
+                .collect(Collectors.toList());
+        CompletableFuture.allOf(results.toArray(new CompletableFuture[0])).join();
+
+        assertTrue(results.stream().allMatch(CompletableFuture::join));
+        assertEquals(2, maxActive.get());
+        assertEquals(20, this.dispatcher.getDeliveredMessages());
+        assertEquals(0, this.dispatcher.getQueuedMessages());
+        assertEquals(0, this.dispatcher.getActiveEndpoints());
+    }
+
+    @Test
+    public void verifyMessagesBeyondPendingLimitAreRejected() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        this.dispatcher = newDispatcher(2, 1, 2, 1, message -> {
+            await(release);
+            return true;
+        });
+
+        final List<CompletableFuture<Boolean>> results = IntStream.range(0, 4)
+                .mapToObj(i -> this.dispatcher.dispatch(newMessage("https://app.example.org/logout")))
+                .collect(Collectors.toList());
+        assertFalse(results.get(2).join());
+        assertFalse(results.get(3).join());
+        assertEquals(2, this.dispatcher.getRejectedMessages());
+        assertEquals(1, this.dispatcher.getQueuedMessages());
+
+        release.countDown();
+        assertTrue(results.get(0).join());
+        assertTrue(results.get(1).join());
+    }
+
+    @Test
+    public void verifyTimedOutMessagesLeaveTheLine() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        this.dispatcher = newDispatcher(2, 1, 10, 1, message -> {
+            await(release);
+            return true;
+        });
+
+        final CompletableFuture<Boolean> active = this.dispatcher.dispatch(newMessage("https://app.example.org/logout"));
+        final List<CompletableFuture<Boolean>> waiting = IntStream.range(0, 3)
+                .mapToObj(i -> this.dispatcher.dispatch(newMessage("https://app.example.org/logout")))
+                .collect(Collectors.toList());
+        assertTrue(waiting.stream().noneMatch(CompletableFuture::join));
+        assertFalse(active.join());
+        assertEquals(4, this.dispatcher.getTimedOutMessages());
+        assertEquals(0, this.dispatcher.getQueuedMessages());
+
+        release.countDown();
+        final long deadline = System.currentTimeMillis() + 5_000;
+        while (this.dispatcher.getActiveEndpoints() > 0 && System.currentTimeMillis() < deadline) {
+            sleep(10);
+        }
+        assertEquals(0, this.dispatcher.getActiveEndpoints());
+    }
+
+    @Test
+    public void verifyFailedDeliveryIsRetried() throws Exception {
+        final AtomicInteger attempts = new AtomicInteger();
+        this.dispatcher = newDispatcher(2, 2, 100, 3, message -> attempts.incrementAndGet() == 3);
+
+        assertTrue(this.dispatcher.dispatch(newMessage("https://app.example.org/logout")).join());
+        assertEquals(3, attempts.get());
+        assertEquals(2, this.dispatcher.getRetriedMessages());
+        assertEquals(1, this.dispatcher.getDeliveredMessages());
+    }
+
+    @Test
+    public void verifyDeliveryFailsAfterAllAttempts() throws Exception {
+        final AtomicInteger attempts = new AtomicInteger();
+        this.dispatcher = newDispatcher(2, 2, 100, 2, message -> {
+            attempts.incrementAndGet();
+            return false;
+        });
+
+        assertFalse(this.dispatcher.dispatch(newMessage("https://app.example.org/logout")).join());
+        assertEquals(2, attempts.get());
+        assertEquals(1, this.dispatcher.getFailedMessages());
+    }
+
+    @Test
+    public void verifyDeliveryTimesOut() throws Exception {
+        this.dispatcher = newDispatcher(2, 2, 100, 1, message -> {
+            sleep(2_000);
+            return true;
+        });
+
+        assertFalse(this.dispatcher.dispatch(newMessage("https://app.example.org/logout")).join());
+        assertEquals(1, this.dispatcher.getTimedOutMessages());
+    }
+
+    private static SingleLogoutMessageDispatcher newDispatcher(final int poolSize, final int maxConcurrentRequestsPerHost,
+                                                               final int maxPendingRequestsPerHost, final int maxAttempts,
+                                                               final Predicate<HttpMessage> sender) {
+        return new SingleLogoutMessageDispatcher(null, poolSize, 100, maxConcurrentRequestsPerHost, maxPendingRequestsPerHost,
+                500, maxAttempts, 10) {
+            @Override
+            protected boolean send(final HttpMessage message) {
+                return sender.test(message);
+            }
+        };
+    }
+
+    private static HttpMessage newMessage(final String url) {
+        try {
+            return new LogoutHttpMessage(new URL(url), "message", false);
+        } catch (final Exception e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    private static void await(final CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(final long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package org.apereo.cas.logout;
+
+import org.apereo.cas.util.http.HttpMessage;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.net.URL;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+
+import static org.junit.Assert.*;
+
+/**
+ * This is {@link SingleLogoutMessageOutboxTests}.
+ *
+ * @author Misagh Moayyed
+ * @since 5.2.0
+ */
+public class SingleLogoutMessageOutboxTests {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private SingleLogoutMessageOutbox outbox;
+
+    @After
+    public void tearDown() throws Exception {
+        if (this.outbox != null) {
+            this.outbox.destroy();
+        }
+    }
+
+    @Test
+    public void verifyMessagesAreDelivered() throws Exception {
+        final List<HttpMessage> messages = new CopyOnWriteArrayList<>();
+        this.outbox = newOutbox(this.folder.getRoot().toPath(), 64 * 1024, message -> {
+            messages.add(message);
+            return CompletableFuture.completedFuture(true);
+        });
+
+        final HttpMessage message = newMessage("https://app.example.org/logout");
+        this.outbox.append(message);
+        waitFor(() -> this.outbox.getCompletedMessages() == 1);
+
+        assertEquals(1, messages.size());
+        assertEquals(message.getUrl(), messages.get(0).getUrl());
+        assertEquals(message.getMessage(), messages.get(0).getMessage());
+        assertEquals(message.getContentType(), messages.get(0).getContentType());
+    }
+
+    @Test
+    public void verifyPendingMessagesSurviveRestart() throws Exception {
+        final Path directory = this.folder.getRoot().toPath();
+        this.outbox = newOutbox(directory, 64 * 1024, message -> new CompletableFuture<>());
+        for (int i = 0; i < 5; i++) {
+            this.outbox.append(newMessage("https://app" + i + ".example.org/logout"));
+        }
+        waitFor(() -> this.outbox.getInFlightMessages() == 5);
+        this.outbox.destroy();
+
+        final List<HttpMessage> messages = new CopyOnWriteArrayList<>();
+        this.outbox = newOutbox(directory, 64 * 1024, message -> {
+            messages.add(message);
+            return CompletableFuture.completedFuture(true);
+        });
+        waitFor(() -> this.outbox.getCompletedMessages() == 5);
+        assertEquals("https://app0.example.org/logout", messages.get(0).getUrl().toExternalForm());
+    }
+
+    @Test
+    public void verifyDeliveredMessagesAreNotReplayed() throws Exception {
+        final Path directory = this.folder.getRoot().toPath();
+        this.outbox = newOutbox(directory, 64 * 1024, message -> CompletableFuture.completedFuture(true));
+        for (int i = 0; i < 5; i++) {
+            this.outbox.append(newMessage("https://app" + i + ".example.org/logout"));
+        }
+        waitFor(() -> this.outbox.getCompletedMessages() == 5);
+        this.outbox.destroy();
+
+        final AtomicInteger count = new AtomicInteger();
+        this.outbox = newOutbox(directory, 64 * 1024, message -> {
+            count.incrementAndGet();
+            return CompletableFuture.completedFuture(true);
+        });
+        this.outbox.append(newMessage("https://app.example.org/logout"));
+        waitFor(() -> this.outbox.getCompletedMessages() == 1);
+        assertEquals(1, count.get());
+    }
+
+    @Test
+    public void verifyFailedMessagesAreAttemptedAgain() throws Exception {
+        final AtomicInteger attempts = new AtomicInteger();
+        this.outbox = newOutbox(this.folder.getRoot().toPath(), 64 * 1024,
+                message -> CompletableFuture.completedFuture(attempts.incrementAndGet() > 1));
+
+        this.outbox.append(newMessage("https://app.example.org/logout"));
+        waitFor(() -> this.outbox.getCompletedMessages() == 1);
+        assertEquals(2, attempts.get());
+        assertEquals(1, this.outbox.getRedeliveredMessages());
+    }
+
+    @Test
+    public void verifyDeliveredSegmentsAreDeleted() throws Exception {
+        this.outbox = newOutbox(this.folder.getRoot().toPath(), 1024, message -> CompletableFuture.completedFuture(true));
+        for (int i = 0; i < 50; i++) {
+            this.outbox.append(newMessage("https://app" + i + ".example.org/logout"));
+        }
+        waitFor(() -> this.outbox.getCompletedMessages() == 50);
+        waitFor(() -> this.outbox.getSegmentCount() == 1);
+    }
+
+    private static SingleLogoutMessageOutbox newOutbox(final Path directory, final int segmentSize,
+                                                       final Function<HttpMessage, CompletableFuture<Boolean>> sender) {
+        final SingleLogoutMessageDispatcher dispatcher = new SingleLogoutMessageDispatcher(null, 1, 1, 1, 10, 1_000, 1, 10) {
+            @Override
+            public CompletableFuture<Boolean> dispatch(final HttpMessage message) {
+                return sender.apply(message);
+            }
+        };
+        return new SingleLogoutMessageOutbox(directory, segmentSize, 10, TimeUnit.HOURS.toMillis(1), 20, 10, dispatcher);
+    }
+
+    private static HttpMessage newMessage(final String url) {
+        try {
+            return new LogoutHttpMessage(new URL(url), "<samlp:LogoutRequest ID=\"1\"/>", true);
+        } catch (final Exception e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    private static void waitFor(final BooleanSupplier condition) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue("Condition not met in time", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+}
@@ -15,11 +15,16 @@ import org.apereo.cas.authentication.principal.WebApplicationServiceResponseBuil
 import org.apereo.cas.authentication.support.DefaultCasProtocolAttributeEncoder;
 import org.apereo.cas.authentication.support.NoOpProtocolAttributeEncoder;
 import org.apereo.cas.configuration.CasConfigurationProperties;
+import org.apereo.cas.configuration.model.core.services.ServiceRegistryProperties;
 import org.apereo.cas.services.AbstractResourceBasedServiceRegistryDao;
+import org.apereo.cas.services.DefaultServicesManager;
 import org.apereo.cas.services.DomainServicesManager;
 import org.apereo.cas.services.InMemoryServiceRegistry;
 import org.apereo.cas.services.RegisteredService;
+import org.apereo.cas.services.RegisteredServiceAutomatonIndex;
 import org.apereo.cas.services.RegisteredServiceCipherExecutor;
+import org.apereo.cas.services.RegisteredServiceIndex;
+import org.apereo.cas.services.RegisteredServicePrefixIndex;
 import org.apereo.cas.services.RegisteredServicesEventListener;
 import org.apereo.cas.services.ServiceRegistryDao;
 import org.apereo.cas.services.ServiceRegistryInitializer;
@@ -40,6 +45,7 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.core.io.ClassPathResource;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -116,6 +122,13 @@ public class CasCoreServicesConfiguration {
     @Bean
     @RefreshScope
     public ServicesManager servicesManager(@Qualifier("serviceRegistryDao") final ServiceRegistryDao serviceRegistryDao) {
+        final ServiceRegistryProperties registry = casProperties.getServiceRegistry();
+        if (registry.getManagementType() == ServiceRegistryProperties.ServicesManagerTypes.DEFAULT) {
+            final RegisteredServiceIndex index = registry.getMatchingEngine() == ServiceRegistryProperties.ServiceMatchingEngines.AUTOMATON
+                    ? new RegisteredServiceAutomatonIndex()
+                    : new RegisteredServicePrefixIndex(Collections.emptyList());
+            return new DefaultServicesManager(serviceRegistryDao, registry.getCacheSize(), index);
+        }
         return new DomainServicesManager(serviceRegistryDao);
     }
 
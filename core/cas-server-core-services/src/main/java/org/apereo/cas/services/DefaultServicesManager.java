@@ -1,5 +1,7 @@
 package org.apereo.cas.services;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import org.apereo.cas.authentication.principal.Service;
 import org.apereo.cas.support.events.service.CasRegisteredServiceDeletedEvent;
 import org.apereo.cas.support.events.service.CasRegisteredServicePreDeleteEvent;
@@ -16,9 +18,12 @@ import org.springframework.scheduling.annotation.Scheduled;
 
 import javax.annotation.PostConstruct;
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentSkipListSet;
@@ -28,6 +33,9 @@ import java.util.stream.Collectors;
 
 /**
  * Default implementation of the {@link ServicesManager} interface.
+ * Lookups by service url only evaluate the candidate services returned by a
+ * {@link RegisteredServiceIndex}, by default a {@link RegisteredServicePrefixIndex}, and their results are kept in a bounded
+ * cache that is cleared whenever services are saved, deleted or reloaded.
  *
  * @author Scott Battaglia
  * @since 3.1
@@ -36,6 +44,7 @@ public class DefaultServicesManager implements ServicesManager, Serializable {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(DefaultServicesManager.class);
     private static final long serialVersionUID = -8581398063126547772L;
+    private static final long DEFAULT_CACHE_SIZE = 10_000;
 
     private final ServiceRegistryDao serviceRegistryDao;
 
@@ -45,13 +54,43 @@ public class DefaultServicesManager implements ServicesManager, Serializable {
     private Map<Long, RegisteredService> services = new ConcurrentHashMap<>();
     private Set<RegisteredService> orderedServices = new ConcurrentSkipListSet<>();
 
+    private final long cacheSize;
+    private final transient RegisteredServiceIndex initialServiceIndex;
+    private transient volatile ServiceLookup serviceLookup;
+
     /**
      * Instantiates a new default services manager impl.
      *
      * @param serviceRegistryDao the service registry dao
      */
     public DefaultServicesManager(final ServiceRegistryDao serviceRegistryDao) {
+        this(serviceRegistryDao, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * Instantiates a new default services manager impl.
+     *
+     * @param serviceRegistryDao the service registry dao
+     * @param cacheSize          maximum number of service urls whose matching registered service is cached;
+     *                           zero disables the cache
+     */
+    public DefaultServicesManager(final ServiceRegistryDao serviceRegistryDao, final long cacheSize) {
+        this(serviceRegistryDao, cacheSize, new RegisteredServicePrefixIndex(Collections.emptyList()));
+    }
+
+    /**
+     * Instantiates a new default services manager impl.
+     *
+     * @param serviceRegistryDao  the service registry dao
+     * @param cacheSize           maximum number of service urls whose matching registered service is cached;
+     *                            zero disables the cache
+     * @param initialServiceIndex the empty index from which the index of loaded services is rebuilt
+     */
+    public DefaultServicesManager(final ServiceRegistryDao serviceRegistryDao, final long cacheSize,
+                                  final RegisteredServiceIndex initialServiceIndex) {
         this.serviceRegistryDao = serviceRegistryDao;
+        this.cacheSize = cacheSize;
+        this.initialServiceIndex = initialServiceIndex;
     }
 
     @Audit(action = "DELETE_SERVICE",
@@ -65,6 +104,7 @@ public class DefaultServicesManager implements ServicesManager, Serializable {
             this.serviceRegistryDao.delete(service);
             this.services.remove(id);
             this.orderedServices.remove(service);
+            reindex();
             publishEvent(new CasRegisteredServiceDeletedEvent(this, service));
         }
         return service;
@@ -72,7 +112,18 @@ public class DefaultServicesManager implements ServicesManager, Serializable {
 
     @Override
     public RegisteredService findServiceBy(final Service service) {
-        return orderedServices.stream().filter(r -> r.matches(service)).findFirst().orElse(null);
+        if (service == null || service.getId() == null) {
+            return orderedServices.stream().filter(r -> r.matches(service)).findFirst().orElse(null);
+        }
+        final ServiceLookup lookup = getServiceLookup();
+        if (lookup.isCacheableByServiceId()) {
+            return findServiceBy(service.getId());
+        }
+        return lookup.getIndex().getCandidates(service.getId())
+                .stream()
+                .filter(r -> r.matches(service))
+                .findFirst()
+                .orElse(null);
     }
 
     @Override
@@ -89,7 +140,8 @@ public class DefaultServicesManager implements ServicesManager, Serializable {
 
     @Override
     public <T extends RegisteredService> T findServiceBy(final String serviceId, final Class<T> clazz) {
-        return orderedServices.stream()
+        return getCandidates(serviceId)
+                .stream()
                 .filter(s -> s.getClass().isAssignableFrom(clazz) && s.matches(serviceId))
                 .map(clazz::cast)
                 .findFirst()
@@ -98,7 +150,21 @@ public class DefaultServicesManager implements ServicesManager, Serializable {
 
     @Override
     public RegisteredService findServiceBy(final String serviceId) {
-        return orderedServices.stream().filter(r -> r.matches(serviceId)).findFirst().orElse(null);
+        if (serviceId == null) {
+            return orderedServices.stream().filter(r -> r.matches(serviceId)).findFirst().orElse(null);
+        }
+        final ServiceLookup lookup = getServiceLookup();
+        final Optional<RegisteredService> cached = lookup.getCache().getIfPresent(serviceId);
+        if (cached != null) {
+            return cached.orElse(null);
+        }
+        final RegisteredService result = lookup.getIndex().getCandidates(serviceId)
+                .stream()
+                .filter(r -> r.matches(serviceId))
+                .findFirst()
+                .orElse(null);
+        lookup.getCache().put(serviceId, Optional.ofNullable(result));
+        return result;
     }
 
     @Override
@@ -136,6 +202,7 @@ public class DefaultServicesManager implements ServicesManager, Serializable {
         final RegisteredService r = this.serviceRegistryDao.save(registeredService);
         this.services.put(r.getId(), r);
         this.orderedServices = new ConcurrentSkipListSet<>(this.services.values());
+        reindex();
         publishEvent(new CasRegisteredServiceSavedEvent(this, r));
         return r;
     }
@@ -156,6 +223,7 @@ public class DefaultServicesManager implements ServicesManager, Serializable {
                     return r.getId();
                 }, Function.identity(), (r, s) -> s == null ? r : s));
         this.orderedServices = new ConcurrentSkipListSet<>(this.services.values());
+        reindex();
         publishEvent(new CasRegisteredServicesLoadedEvent(this, this.orderedServices));
         LOGGER.info("Loaded [{}] service(s) from [{}].", this.services.size(), this.serviceRegistryDao);
     }
@@ -165,9 +233,70 @@ public class DefaultServicesManager implements ServicesManager, Serializable {
         return services.size();
     }
 
+    private List<RegisteredService> getCandidates(final String serviceId) {
+        if (serviceId == null) {
+            return new ArrayList<>(this.orderedServices);
+        }
+        return getServiceLookup().getIndex().getCandidates(serviceId);
+    }
+
+    private ServiceLookup getServiceLookup() {
+        final ServiceLookup lookup = this.serviceLookup;
+        return lookup != null ? lookup : reindex();
+    }
+
+    /**
+     * Rebuild the service index from the current set of ordered services along with an empty cache.
+     * Both are swapped in together, so lookups that started against the previous services
+     * cannot leave stale results behind.
+     *
+     * @return the service lookup
+     */
+    private ServiceLookup reindex() {
+        final ServiceLookup current = this.serviceLookup;
+        final RegisteredServiceIndex index = current != null ? current.getIndex() : this.initialServiceIndex;
+        final ServiceLookup lookup = new ServiceLookup(index.rebuild(this.orderedServices),
+                CacheBuilder.newBuilder().maximumSize(this.cacheSize).build(),
+                this.orderedServices.stream().allMatch(RegexRegisteredService.class::isInstance));
+        this.serviceLookup = lookup;
+        return lookup;
+    }
+
     private void publishEvent(final ApplicationEvent event) {
         if (this.eventPublisher != null) {
             this.eventPublisher.publishEvent(event);
         }
     }
+
+    /**
+     * Index of the current services, and the results of lookups against them.
+     * Results may only be cached by service id, and shared between lookups by
+     * service and by service id, if matching depends on nothing else,
+     * which holds for regex-based services.
+     */
+    private static class ServiceLookup {
+        private final RegisteredServiceIndex index;
+        private final Cache<String, Optional<RegisteredService>> cache;
+        private final boolean cacheableByServiceId;
+
+        ServiceLookup(final RegisteredServiceIndex index,
+                      final Cache<String, Optional<RegisteredService>> cache,
+                      final boolean cacheableByServiceId) {
+            this.index = index;
+            this.cache = cache;
+            this.cacheableByServiceId = cacheableByServiceId;
+        }
+
+        RegisteredServiceIndex getIndex() {
+            return index;
+        }
+
+        Cache<String, Optional<RegisteredService>> getCache() {
+            return cache;
+        }
+
+        boolean isCacheableByServiceId() {
+            return cacheableByServiceId;
+        }
+    }
 }
@@ -0,0 +1,121 @@
+package org.apereo.cas.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * This is {@link RegisteredServiceAutomatonIndex}. It compiles the service id patterns of all
+ * {@link RegexRegisteredService} services into a single {@link ServiceIdPatternAutomaton}, which
+ * finds the services matching a service url in one pass over the url, independent of the number
+ * of registered services. Matching services are returned as candidates, in evaluation order.
+ * <p>
+ * Services whose pattern cannot be compiled into the automaton, as well as services of other
+ * types, are returned as candidates for every url, and urls the automaton cannot process
+ * return all services; evaluating the candidates one at a time then yields the same
+ * result as evaluating every service. Parsed patterns are carried over when the index is
+ * rebuilt, so only new or modified patterns are parsed again.
+ *
+ * @author Misagh Moayyed
+ * @since 5.2.0
+ */
+public class RegisteredServiceAutomatonIndex implements RegisteredServiceIndex {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RegisteredServiceAutomatonIndex.class);
+
+    private final List<RegisteredService> services = new ArrayList<>();
+    private final List<Integer> compiledRanks = new ArrayList<>();
+    private final List<Integer> uncompiledRanks = new ArrayList<>();
+    private final Map<String, Optional<ServiceIdPatternAutomaton.Expression>> expressions = new HashMap<>();
+    private final ServiceIdPatternAutomaton automaton;
+
+    /**
+     * Instantiates a new, empty index.
+     */
+    public RegisteredServiceAutomatonIndex() {
+        this(Collections.emptyList());
+    }
+
+    /**
+     * Instantiates a new index.
+     *
+     * @param orderedServices the services, in the order in which they should be evaluated
+     */
+    public RegisteredServiceAutomatonIndex(final Collection<RegisteredService> orderedServices) {
+        this(orderedServices, Collections.emptyMap());
+    }
+
+    private RegisteredServiceAutomatonIndex(final Collection<RegisteredService> orderedServices,
+                                            final Map<String, Optional<ServiceIdPatternAutomaton.Expression>> parsed) {
+        final List<ServiceIdPatternAutomaton.Expression> compiled = new ArrayList<>();
+        for (final RegisteredService service : orderedServices) {
+            final int rank = this.services.size();
+            this.services.add(service);
+            final ServiceIdPatternAutomaton.Expression expression = service instanceof RegexRegisteredService
+                    ? getExpression(service.getServiceId(), parsed) : null;
+            if (expression == null) {
+                LOGGER.trace("Service [{}] cannot be compiled into the automaton and will be evaluated for every request",
+                        service.getServiceId());
+                this.uncompiledRanks.add(rank);
+            } else {
+                compiled.add(expression);
+                this.compiledRanks.add(rank);
+            }
+        }
+        this.automaton = new ServiceIdPatternAutomaton(compiled);
+        LOGGER.debug("Compiled [{}] service(s) into an automaton; [{}] service(s) are evaluated for every request",
+                this.compiledRanks.size(), this.uncompiledRanks.size());
+    }
+
+    @Override
+    public List<RegisteredService> getCandidates(final String serviceId) {
+        final int[] matches = this.automaton.match(serviceId);
+        if (matches == null) {
+            return new ArrayList<>(this.services);
+        }
+        final List<RegisteredService> candidates = new ArrayList<>(matches.length + this.uncompiledRanks.size());
+        int i = 0;
+        int j = 0;
+        while (i < matches.length || j < this.uncompiledRanks.size()) {
+            final int compiled = i < matches.length ? this.compiledRanks.get(matches[i]) : Integer.MAX_VALUE;
+            final int uncompiled = j < this.uncompiledRanks.size() ? this.uncompiledRanks.get(j) : Integer.MAX_VALUE;
+            if (compiled < uncompiled) {
+                candidates.add(this.services.get(compiled));
+                i++;
+            } else {
+                candidates.add(this.services.get(uncompiled));
+                j++;
+            }
+        }
+        return candidates;
+    }
+
+    @Override
+    public int size() {
+        return this.services.size();
+    }
+
+    @Override
+    public RegisteredServiceIndex rebuild(final Collection<RegisteredService> orderedServices) {
+        return new RegisteredServiceAutomatonIndex(orderedServices, this.expressions);
+    }
+
+    private ServiceIdPatternAutomaton.Expression getExpression(final String pattern,
+                                                              final Map<String, Optional<ServiceIdPatternAutomaton.Expression>> parsed) {
+        if (pattern == null) {
+            return null;
+        }
+        Optional<ServiceIdPatternAutomaton.Expression> expression = parsed.get(pattern);
+        if (expression == null) {
+            expression = Optional.ofNullable(ServiceIdPatternAutomaton.parse(pattern));
+        }
+        this.expressions.put(pattern, expression);
+        return expression.orElse(null);
+    }
+}
@@ -0,0 +1,40 @@
+package org.apereo.cas.services;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * This is {@link RegisteredServiceIndex}. It narrows down the registered services
+ * that need to be evaluated against a given service url. Implementations are
+ * immutable, and are rebuilt whenever the set of registered services changes.
+ *
+ * @author Misagh Moayyed
+ * @since 5.2.0
+ */
+public interface RegisteredServiceIndex {
+
+    /**
+     * Gets the registered services that may match the given service url,
+     * in the order in which they should be evaluated.
+     *
+     * @param serviceId the service url
+     * @return the candidate services
+     */
+    List<RegisteredService> getCandidates(String serviceId);
+
+    /**
+     * Number of services in the index.
+     *
+     * @return the size
+     */
+    int size();
+
+    /**
+     * Build a new index of the same kind for the given services. Implementations
+     * may reuse the work done for services that remain unchanged.
+     *
+     * @param orderedServices the services, in the order in which they should be evaluated
+     * @return the index
+     */
+    RegisteredServiceIndex rebuild(Collection<RegisteredService> orderedServices);
+}
@@ -0,0 +1,197 @@
+package org.apereo.cas.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * This is {@link RegisteredServicePrefixIndex}. It narrows down the registered services that
+ * may possibly match a given service url, so that only those need to be evaluated.
+ * <p>
+ * The literal prefix of each {@link RegexRegisteredService} service id pattern, such as
+ * {@code https://app.example.org/} for {@code ^https://app\.example\.org/.*}, is extracted
+ * and placed in a trie. Looking up a url walks the trie along the url and collects every
+ * service whose prefix the url starts with. Services whose pattern has no usable literal
+ * prefix (e.g. top-level alternations, inline flags or leading wildcards), as well as
+ * services of other types, are returned as candidates for every url. Candidates are
+ * returned in the natural order of registered services, i.e. by evaluation order,
+ * which preserves the semantics of evaluating services one at a time.
+ * <p>
+ * Instances are immutable and safe to share across threads; the index is rebuilt
+ * whenever the set of registered services changes.
+ *
+ * @author Misagh Moayyed
+ * @since 5.2.0
+ */
+public class RegisteredServicePrefixIndex implements RegisteredServiceIndex {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RegisteredServicePrefixIndex.class);
+
+    private static final String REGEX_META_CHARACTERS = ".[]{}()*+?^$|\\";
+
+    private final Node root = new Node();
+    private final List<Entry> unindexed = new ArrayList<>();
+    private final int size;
+
+    /**
+     * Instantiates a new index.
+     *
+     * @param orderedServices the services, in the order in which they should be evaluated
+     */
+    public RegisteredServicePrefixIndex(final Collection<RegisteredService> orderedServices) {
+        int rank = 0;
+        for (final RegisteredService service : orderedServices) {
+            final Entry entry = new Entry(rank++, service);
+            final String prefix = service instanceof RegexRegisteredService ? getLiteralPrefix(service.getServiceId()) : null;
+            if (prefix == null || prefix.isEmpty()) {
+                LOGGER.trace("Service [{}] cannot be indexed by prefix and will be evaluated for every request",
+                        service.getServiceId());
+                this.unindexed.add(entry);
+            } else {
+                this.root.insert(prefix, entry);
+            }
+        }
+        this.size = rank;
+        LOGGER.debug("Indexed [{}] service(s) by prefix; [{}] service(s) are evaluated for every request",
+                this.size - this.unindexed.size(), this.unindexed.size());
+    }
+
+    @Override
+    public List<RegisteredService> getCandidates(final String serviceId) {
+        final List<Entry> entries = new ArrayList<>(this.unindexed);
+        Node node = this.root;
+        for (int i = 0; i < serviceId.length() && node != null; i++) {
+            node = node.children.get(toLowerCase(serviceId.charAt(i)));
+            if (node != null) {
+                entries.addAll(node.entries);
+            }
+        }
+        if (entries.isEmpty()) {
+            return Collections.emptyList();
+        }
+        entries.sort(Comparator.comparingInt(e -> e.rank));
+        final List<RegisteredService> candidates = new ArrayList<>(entries.size());
+        entries.forEach(e -> candidates.add(e.service));
+        return candidates;
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public RegisteredServiceIndex rebuild(final Collection<RegisteredService> orderedServices) {
+        return new RegisteredServicePrefixIndex(orderedServices);
+    }
+
+    /**
+     * Extract the literal prefix that every string matched by the given pattern starts with.
+     * The prefix is lower-cased, given service patterns are matched case-insensitively.
+     * Only ASCII characters are considered, to stay consistent with how case-insensitive
+     * matching folds characters.
+     *
+     * @param pattern the pattern
+     * @return the literal prefix, or null if none can be determined safely
+     */
+    static String getLiteralPrefix(final String pattern) {
+        if (pattern == null || hasTopLevelAlternation(pattern)) {
+            return null;
+        }
+        final StringBuilder prefix = new StringBuilder();
+        int i = pattern.startsWith("^") ? 1 : 0;
+        while (i < pattern.length()) {
+            final char c = pattern.charAt(i);
+            final char literal;
+            final int next;
+            if (c == '\\') {
+                if (i + 1 >= pattern.length()) {
+                    break;
+                }
+                final char escaped = pattern.charAt(i + 1);
+                if (Character.isLetterOrDigit(escaped)) {
+                    break;
+                }
+                literal = escaped;
+                next = i + 2;
+            } else if (REGEX_META_CHARACTERS.indexOf(c) >= 0) {
+                break;
+            } else {
+                literal = c;
+                next = i + 1;
+            }
+            if (literal > Byte.MAX_VALUE) {
+                break;
+            }
+            if (next < pattern.length()) {
+                final char quantifier = pattern.charAt(next);
+                if (quantifier == '?' || quantifier == '*' || quantifier == '{') {
+                    break;
+                }
+                if (quantifier == '+') {
+                    prefix.append(literal);
+                    break;
+                }
+            }
+            prefix.append(literal);
+            i = next;
+        }
+        return prefix.toString().toLowerCase(Locale.ROOT);
+    }
+
+    private static char toLowerCase(final char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+
+    private static boolean hasTopLevelAlternation(final String pattern) {
+        int depth = 0;
+        boolean inClass = false;
+        for (int i = 0; i < pattern.length(); i++) {
+            final char c = pattern.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (inClass) {
+                inClass = c != ']';
+            } else if (c == '[') {
+                inClass = true;
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (c == '|' && depth <= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static class Entry {
+        private final int rank;
+        private final RegisteredService service;
+
+        Entry(final int rank, final RegisteredService service) {
+            this.rank = rank;
+            this.service = service;
+        }
+    }
+
+    private static class Node {
+        private final Map<Character, Node> children = new HashMap<>();
+        private final List<Entry> entries = new ArrayList<>(1);
+
+        void insert(final String key, final Entry entry) {
+            Node node = this;
+            for (int i = 0; i < key.length(); i++) {
+                node = node.children.computeIfAbsent(key.charAt(i), k -> new Node());
+            }
+            node.entries.add(entry);
+        }
+    }
+}
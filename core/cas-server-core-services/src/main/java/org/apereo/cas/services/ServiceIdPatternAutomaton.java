@@ -0,0 +1,882 @@
+package org.apereo.cas.services;
+
+import org.apereo.cas.util.RegexUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * This is {@link ServiceIdPatternAutomaton}. It compiles a list of service id patterns into
+ * one automaton that determines which of the patterns match a service url in a single pass
+ * over the url, regardless of the number of patterns.
+ * <p>
+ * Patterns are parsed into a nondeterministic automaton; its deterministic states are built
+ * lazily as urls are matched and cached, so that each character of a url is a table lookup
+ * once the automaton has warmed up. The number of cached states is bounded; when the bound
+ * is reached the cache is discarded and built up again.
+ * <p>
+ * Matching follows {@link java.util.regex.Matcher#matches()} for patterns compiled by
+ * {@link RegexUtils#createPattern(String)}, i.e. the entire url must match and ASCII letters
+ * match case-insensitively. Only a subset of the regular expression syntax is supported:
+ * literals, escapes, character classes, the dot, groups, alternations, greedy or reluctant
+ * quantifiers and anchors at the edges of the pattern. {@link #parse(String)} rejects other
+ * constructs such as back-references, look-arounds and inline flags, and such patterns must be
+ * evaluated on their own.
+ *
+ * @author Misagh Moayyed
+ * @since 5.2.0
+ */
+public class ServiceIdPatternAutomaton {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ServiceIdPatternAutomaton.class);
+
+    private static final int DEFAULT_MAX_CACHED_STATES = 10_000;
+    private static final int MAX_REPETITION = 100;
+    private static final int MAX_STATES_PER_PATTERN = 10_000;
+    private static final int ASCII_SIZE = 128;
+    private static final int CHAR_COUNT = Character.MAX_VALUE + 1;
+    private static final int HEX_RADIX = 16;
+    private static final int HEX_BYTE_DIGITS = 2;
+    private static final int HEX_CHAR_DIGITS = 4;
+    private static final int MAX_REPETITION_DIGITS = 4;
+    private static final char LINE_SEPARATOR = (char) 0x2028;
+    private static final char PARAGRAPH_SEPARATOR = (char) 0x2029;
+
+    private static final int CHARS = 0;
+    private static final int SPLIT = 1;
+    private static final int EPSILON = 2;
+    private static final int MATCH = 3;
+
+    private final State[] states;
+    private final int[] starts;
+    private final int maxCachedStates;
+
+    private volatile StateCache stateCache;
+
+    /**
+     * Instantiates a new automaton.
+     *
+     * @param expressions the parsed patterns; matches are reported by their position in the list
+     */
+    public ServiceIdPatternAutomaton(final List<Expression> expressions) {
+        this(expressions, DEFAULT_MAX_CACHED_STATES);
+    }
+
+    /**
+     * Instantiates a new automaton.
+     *
+     * @param expressions     the parsed patterns; matches are reported by their position in the list
+     * @param maxCachedStates the maximum number of deterministic states to cache
+     */
+    public ServiceIdPatternAutomaton(final List<Expression> expressions, final int maxCachedStates) {
+        final ProgramBuilder builder = new ProgramBuilder();
+        this.starts = new int[expressions.size()];
+        for (int i = 0; i < expressions.size(); i++) {
+            final Fragment fragment = expressions.get(i).compile(builder);
+            final State match = new State(MATCH);
+            match.tag = i;
+            builder.patch(fragment.outs, builder.add(match));
+            this.starts[i] = fragment.start;
+        }
+        this.states = builder.states.toArray(new State[builder.states.size()]);
+        this.maxCachedStates = maxCachedStates;
+        this.stateCache = newStateCache();
+        LOGGER.debug("Compiled [{}] pattern(s) into an automaton of [{}] state(s)", this.starts.length, this.states.length);
+    }
+
+    /**
+     * Parse a service id pattern into an expression that can be compiled into an automaton.
+     *
+     * @param pattern the pattern
+     * @return the expression, or null if the pattern is invalid or uses constructs the automaton does not support
+     */
+    public static Expression parse(final String pattern) {
+        if (!RegexUtils.isValidRegex(pattern)) {
+            return null;
+        }
+        try {
+            final Expression expression = new Parser(pattern).parse();
+            if (expression.size() > MAX_STATES_PER_PATTERN) {
+                throw new UnsupportedPatternException("the pattern expands to too many states");
+            }
+            return expression;
+        } catch (final UnsupportedPatternException e) {
+            LOGGER.trace("Pattern [{}] cannot be compiled into an automaton: [{}]", pattern, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Find the patterns that match the entire input.
+     *
+     * @param input the input
+     * @return the positions of the matching patterns in ascending order, or null if the input
+     * contains surrogate characters, which the automaton does not handle as code points
+     */
+    public int[] match(final CharSequence input) {
+        final StateCache cache = this.stateCache;
+        DeterministicState state = cache.start;
+        for (int i = 0; i < input.length(); i++) {
+            final char c = input.charAt(i);
+            if (Character.isSurrogate(c)) {
+                return null;
+            }
+            state = transition(cache, state, c);
+            if (state.isDead()) {
+                return containsSurrogate(input, i + 1) ? null : state.matches;
+            }
+        }
+        return state.matches;
+    }
+
+    private DeterministicState transition(final StateCache cache, final DeterministicState from, final char c) {
+        if (c >= ASCII_SIZE) {
+            return computeTransition(cache, from, c);
+        }
+        DeterministicState to = from.transitions.get(c);
+        if (to == null) {
+            to = computeTransition(cache, from, c);
+            from.transitions.set(c, to);
+        }
+        return to;
+    }
+
+    private DeterministicState computeTransition(final StateCache cache, final DeterministicState from, final char c) {
+        final BitSet visited = new BitSet(this.states.length);
+        final BitSet next = new BitSet(this.states.length);
+        for (final int s : from.states) {
+            final State state = this.states[s];
+            if (state.type == CHARS && state.chars.contains(c)) {
+                addClosure(state.out1, visited, next);
+            }
+        }
+        return getDeterministicState(cache, next.stream().toArray());
+    }
+
+    private DeterministicState getDeterministicState(final StateCache cache, final int[] nfaStates) {
+        final StateKey key = new StateKey(nfaStates);
+        final DeterministicState existing = cache.states.get(key);
+        if (existing != null) {
+            return existing;
+        }
+        final DeterministicState created = new DeterministicState(nfaStates, getMatches(nfaStates));
+        if (cache.states.size() >= this.maxCachedStates) {
+            LOGGER.debug("Automaton state cache reached [{}] state(s) and is reset", cache.states.size());
+            this.stateCache = newStateCache();
+            return created;
+        }
+        final DeterministicState raced = cache.states.putIfAbsent(key, created);
+        return raced != null ? raced : created;
+    }
+
+    private StateCache newStateCache() {
+        final BitSet visited = new BitSet(this.states.length);
+        final BitSet start = new BitSet(this.states.length);
+        Arrays.stream(this.starts).forEach(s -> addClosure(s, visited, start));
+        final int[] nfaStates = start.stream().toArray();
+        final DeterministicState state = new DeterministicState(nfaStates, getMatches(nfaStates));
+        final StateCache cache = new StateCache(state);
+        cache.states.put(new StateKey(nfaStates), state);
+        return cache;
+    }
+
+    /**
+     * Collect the states that consume characters or accept, reachable from the given state
+     * without consuming any characters.
+     */
+    private void addClosure(final int from, final BitSet visited, final BitSet result) {
+        final Deque<Integer> pending = new ArrayDeque<>();
+        pending.push(from);
+        while (!pending.isEmpty()) {
+            final int s = pending.pop();
+            if (s < 0 || visited.get(s)) {
+                continue;
+            }
+            visited.set(s);
+            final State state = this.states[s];
+            if (state.type == SPLIT) {
+                pending.push(state.out2);
+                pending.push(state.out1);
+            } else if (state.type == EPSILON) {
+                pending.push(state.out1);
+            } else {
+                result.set(s);
+            }
+        }
+    }
+
+    private int[] getMatches(final int[] nfaStates) {
+        return Arrays.stream(nfaStates)
+                .filter(s -> this.states[s].type == MATCH)
+                .map(s -> this.states[s].tag)
+                .sorted()
+                .toArray();
+    }
+
+    private static boolean containsSurrogate(final CharSequence input, final int from) {
+        for (int i = from; i < input.length(); i++) {
+            if (Character.isSurrogate(input.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<Integer> out1(final int state) {
+        return new ArrayList<>(Collections.singletonList(2 * state));
+    }
+
+    private static List<Integer> out2(final int state) {
+        return new ArrayList<>(Collections.singletonList(2 * state + 1));
+    }
+
+    /**
+     * A parsed pattern.
+     */
+    public abstract static class Expression {
+        /**
+         * Emit the states of this expression.
+         *
+         * @param builder the builder
+         * @return the fragment
+         */
+        abstract Fragment compile(ProgramBuilder builder);
+
+        /**
+         * Number of states this expression compiles into, approximately.
+         *
+         * @return the size
+         */
+        abstract long size();
+    }
+
+    private static class CharsExpression extends Expression {
+        private final CharRanges chars;
+
+        CharsExpression(final CharRanges chars) {
+            this.chars = chars;
+        }
+
+        @Override
+        Fragment compile(final ProgramBuilder builder) {
+            final State state = new State(CHARS);
+            state.chars = this.chars;
+            final int s = builder.add(state);
+            return new Fragment(s, out1(s));
+        }
+
+        @Override
+        long size() {
+            return 1;
+        }
+    }
+
+    private static class ConcatExpression extends Expression {
+        private final List<Expression> expressions;
+
+        ConcatExpression(final List<Expression> expressions) {
+            this.expressions = expressions;
+        }
+
+        @Override
+        Fragment compile(final ProgramBuilder builder) {
+            final List<Fragment> fragments = new ArrayList<>(this.expressions.size());
+            this.expressions.forEach(e -> fragments.add(e.compile(builder)));
+            return builder.concat(fragments);
+        }
+
+        @Override
+        long size() {
+            return 1 + this.expressions.stream().mapToLong(Expression::size).sum();
+        }
+    }
+
+    private static class AlternationExpression extends Expression {
+        private final List<Expression> expressions;
+
+        AlternationExpression(final List<Expression> expressions) {
+            this.expressions = expressions;
+        }
+
+        @Override
+        Fragment compile(final ProgramBuilder builder) {
+            Fragment result = this.expressions.get(0).compile(builder);
+            for (int i = 1; i < this.expressions.size(); i++) {
+                final Fragment next = this.expressions.get(i).compile(builder);
+                final State split = new State(SPLIT);
+                split.out1 = result.start;
+                split.out2 = next.start;
+                final List<Integer> outs = new ArrayList<>(result.outs);
+                outs.addAll(next.outs);
+                result = new Fragment(builder.add(split), outs);
+            }
+            return result;
+        }
+
+        @Override
+        long size() {
+            return this.expressions.size() + this.expressions.stream().mapToLong(Expression::size).sum();
+        }
+    }
+
+    private static class RepeatExpression extends Expression {
+        private final Expression expression;
+        private final int min;
+        private final int max;
+
+        RepeatExpression(final Expression expression, final int min, final int max) {
+            this.expression = expression;
+            this.min = min;
+            this.max = max;
+        }
+
+        @Override
+        Fragment compile(final ProgramBuilder builder) {
+            final List<Fragment> fragments = new ArrayList<>();
+            for (int i = 0; i < this.min; i++) {
+                fragments.add(this.expression.compile(builder));
+            }
+            if (this.max < 0) {
+                final Fragment body = this.expression.compile(builder);
+                final State split = new State(SPLIT);
+                split.out1 = body.start;
+                final int s = builder.add(split);
+                builder.patch(body.outs, s);
+                fragments.add(new Fragment(s, out2(s)));
+            } else {
+                for (int i = this.min; i < this.max; i++) {
+                    final Fragment body = this.expression.compile(builder);
+                    final State split = new State(SPLIT);
+                    split.out1 = body.start;
+                    final int s = builder.add(split);
+                    final List<Integer> outs = new ArrayList<>(body.outs);
+                    outs.addAll(out2(s));
+                    fragments.add(new Fragment(s, outs));
+                }
+            }
+            return builder.concat(fragments);
+        }
+
+        @Override
+        long size() {
+            final long copies = this.max < 0 ? this.min + 1 : this.max;
+            return Math.min(Integer.MAX_VALUE, 1 + copies * (this.expression.size() + 1));
+        }
+    }
+
+    /**
+     * Recursive descent parser for the supported subset of {@link java.util.regex.Pattern} syntax.
+     * Parsing only starts once the pattern is known to be valid, so constructs that would be
+     * rejected by {@link java.util.regex.Pattern} need not be diagnosed precisely.
+     */
+    private static class Parser {
+        private static final String QUANTIFIERS = "*+?{";
+
+        private final String pattern;
+        private int pos;
+
+        Parser(final String pattern) {
+            this.pattern = pattern;
+        }
+
+        Expression parse() {
+            final Expression expression = parseAlternation(0);
+            if (this.pos < this.pattern.length()) {
+                throw new UnsupportedPatternException("unexpected character at " + this.pos);
+            }
+            return expression;
+        }
+
+        private Expression parseAlternation(final int depth) {
+            final List<Expression> branches = new ArrayList<>();
+            branches.add(parseSequence(depth));
+            while (peek() == '|') {
+                this.pos++;
+                branches.add(parseSequence(depth));
+            }
+            return branches.size() == 1 ? branches.get(0) : new AlternationExpression(branches);
+        }
+
+        private Expression parseSequence(final int depth) {
+            final List<Expression> items = new ArrayList<>();
+            while (this.pos < this.pattern.length() && peek() != '|' && peek() != ')') {
+                final char c = peek();
+                if (c == '^') {
+                    this.pos++;
+                    if (depth > 0 || !items.isEmpty() || isQuantifier(peek())) {
+                        throw new UnsupportedPatternException("anchor within the pattern");
+                    }
+                } else if (c == '$') {
+                    this.pos++;
+                    if (depth > 0 || this.pos < this.pattern.length() && peek() != '|') {
+                        throw new UnsupportedPatternException("anchor within the pattern");
+                    }
+                } else {
+                    items.add(parseQuantified(parseAtom(depth)));
+                }
+            }
+            return items.size() == 1 ? items.get(0) : new ConcatExpression(items);
+        }
+
+        private Expression parseQuantified(final Expression atom) {
+            final char c = peek();
+            if (!isQuantifier(c)) {
+                return atom;
+            }
+            this.pos++;
+            final int min;
+            final int max;
+            if (c == '*') {
+                min = 0;
+                max = -1;
+            } else if (c == '+') {
+                min = 1;
+                max = -1;
+            } else if (c == '?') {
+                min = 0;
+                max = 1;
+            } else {
+                min = parseNumber();
+                if (peek() == ',') {
+                    this.pos++;
+                    max = peek() == '}' ? -1 : parseNumber();
+                } else {
+                    max = min;
+                }
+                expect('}');
+            }
+            if (min > MAX_REPETITION || max > MAX_REPETITION) {
+                throw new UnsupportedPatternException("repetition is too large");
+            }
+            if (peek() == '?') {
+                this.pos++;
+            } else if (peek() == '+') {
+                throw new UnsupportedPatternException("possessive quantifier");
+            }
+            if (isQuantifier(peek())) {
+                throw new UnsupportedPatternException("repeated quantifier");
+            }
+            return new RepeatExpression(atom, min, max);
+        }
+
+        private Expression parseAtom(final int depth) {
+            final char c = next();
+            switch (c) {
+                case '(':
+                    if (peek() == '?') {
+                        this.pos++;
+                        if (peek() != ':') {
+                            throw new UnsupportedPatternException("special group construct");
+                        }
+                        this.pos++;
+                    }
+                    final Expression group = parseAlternation(depth + 1);
+                    expect(')');
+                    return group;
+                case '[':
+                    return new CharsExpression(parseClass().toRanges());
+                case '.':
+                    final CharSet dot = new CharSet();
+                    dot.addRange(0, Character.MAX_VALUE);
+                    dot.remove('\n', '\r', '\u0085', LINE_SEPARATOR, PARAGRAPH_SEPARATOR);
+                    return new CharsExpression(dot.toRanges());
+                case '\\':
+                    return new CharsExpression(parseEscape().toRanges());
+                case ')':
+                case ']':
+                case '}':
+                case '*':
+                case '+':
+                case '?':
+                case '{':
+                    throw new UnsupportedPatternException("unexpected meta character " + c);
+                default:
+                    return new CharsExpression(CharSet.literal(c).toRanges());
+            }
+        }
+
+        private CharSet parseClass() {
+            final boolean negated = peek() == '^';
+            if (negated) {
+                this.pos++;
+            }
+            if (peek() == ']') {
+                throw new UnsupportedPatternException("leading bracket in character class");
+            }
+            final CharSet result = new CharSet();
+            while (peek() != ']') {
+                final char c = next();
+                if (c == '[' || c == '&' && peek() == '&') {
+                    throw new UnsupportedPatternException("nested character class");
+                }
+                final CharSet item = c == '\\' ? parseEscape() : CharSet.literal(c);
+                if (peek() == '-' && peekAt(1) != ']') {
+                    this.pos++;
+                    final char high = next();
+                    final CharSet upper = high == '\\' ? parseEscape() : CharSet.literal(high);
+                    result.addRange(item.getSingle(), upper.getSingle());
+                } else {
+                    result.addAll(item);
+                }
+            }
+            this.pos++;
+            if (negated) {
+                result.negate();
+            }
+            return result;
+        }
+
+        private CharSet parseEscape() {
+            final char c = next();
+            final CharSet set = new CharSet();
+            switch (c) {
+                case 'd':
+                case 'D':
+                    set.addRange('0', '9');
+                    break;
+                case 'w':
+                case 'W':
+                    set.addRange('a', 'z');
+                    set.addRange('A', 'Z');
+                    set.addRange('0', '9');
+                    set.addRange('_', '_');
+                    break;
+                case 's':
+                case 'S':
+                    set.add(' ', '\t', '\n', '\u000B', '\f', '\r');
+                    break;
+                case 't':
+                    return CharSet.literal('\t');
+                case 'n':
+                    return CharSet.literal('\n');
+                case 'r':
+                    return CharSet.literal('\r');
+                case 'f':
+                    return CharSet.literal('\f');
+                case 'a':
+                    return CharSet.literal('\u0007');
+                case 'e':
+                    return CharSet.literal('\u001B');
+                case 'x':
+                    return CharSet.literal(parseHex(HEX_BYTE_DIGITS));
+                case 'u':
+                    return CharSet.literal(parseHex(HEX_CHAR_DIGITS));
+                default:
+                    if (Character.isLetterOrDigit(c)) {
+                        throw new UnsupportedPatternException("escape sequence \\" + c);
+                    }
+                    return CharSet.literal(c);
+            }
+            if (Character.isUpperCase(c)) {
+                set.negate();
+            }
+            return set;
+        }
+
+        private char parseHex(final int digits) {
+            if (this.pos + digits > this.pattern.length()) {
+                throw new UnsupportedPatternException("hexadecimal escape");
+            }
+            try {
+                final char c = (char) Integer.parseInt(this.pattern.substring(this.pos, this.pos + digits), HEX_RADIX);
+                this.pos += digits;
+                return c;
+            } catch (final NumberFormatException e) {
+                throw new UnsupportedPatternException("hexadecimal escape");
+            }
+        }
+
+        private int parseNumber() {
+            final int start = this.pos;
+            while (Character.isDigit(peek()) && this.pos - start < MAX_REPETITION_DIGITS) {
+                this.pos++;
+            }
+            if (start == this.pos || Character.isDigit(peek())) {
+                throw new UnsupportedPatternException("repetition bound");
+            }
+            return Integer.parseInt(this.pattern.substring(start, this.pos));
+        }
+
+        private void expect(final char c) {
+            if (next() != c) {
+                throw new UnsupportedPatternException("expected " + c);
+            }
+        }
+
+        private char next() {
+            if (this.pos >= this.pattern.length()) {
+                throw new UnsupportedPatternException("unexpected end of pattern");
+            }
+            final char c = this.pattern.charAt(this.pos++);
+            if (Character.isSurrogate(c)) {
+                throw new UnsupportedPatternException("supplementary character");
+            }
+            return c;
+        }
+
+        private char peek() {
+            return peekAt(0);
+        }
+
+        private char peekAt(final int offset) {
+            return this.pos + offset < this.pattern.length() ? this.pattern.charAt(this.pos + offset) : 0;
+        }
+
+        private static boolean isQuantifier(final char c) {
+            return c != 0 && QUANTIFIERS.indexOf(c) >= 0;
+        }
+    }
+
+    /**
+     * Mutable set of characters used while parsing. Literals and ranges fold ASCII letters
+     * to both cases, as done by case-insensitive patterns; predefined classes do not.
+     */
+    private static class CharSet {
+        private final BitSet chars = new BitSet(CHAR_COUNT);
+        private int single = -1;
+
+        static CharSet literal(final char c) {
+            if (Character.isSurrogate(c)) {
+                throw new UnsupportedPatternException("supplementary character");
+            }
+            final CharSet set = new CharSet();
+            set.addRange(c, c);
+            set.single = c;
+            return set;
+        }
+
+        void add(final char... values) {
+            for (final char c : values) {
+                this.chars.set(c);
+            }
+        }
+
+        void remove(final char... values) {
+            for (final char c : values) {
+                this.chars.clear(c);
+            }
+        }
+
+        void addAll(final CharSet other) {
+            this.chars.or(other.chars);
+        }
+
+        void addRange(final int low, final int high) {
+            this.chars.set(low, high + 1);
+            for (int c = Math.max(low, 'A'); c <= Math.min(high, 'Z'); c++) {
+                this.chars.set(c + ('a' - 'A'));
+            }
+            for (int c = Math.max(low, 'a'); c <= Math.min(high, 'z'); c++) {
+                this.chars.set(c - ('a' - 'A'));
+            }
+        }
+
+        void negate() {
+            this.chars.flip(0, CHAR_COUNT);
+        }
+
+        /**
+         * The literal character this set was parsed from, when used as a range bound.
+         */
+        char getSingle() {
+            if (this.single < 0) {
+                throw new UnsupportedPatternException("range bound is not a single character");
+            }
+            return (char) this.single;
+        }
+
+        CharRanges toRanges() {
+            final List<Character> bounds = new ArrayList<>();
+            int low = this.chars.nextSetBit(0);
+            while (low >= 0) {
+                final int high = this.chars.nextClearBit(low) - 1;
+                bounds.add((char) low);
+                bounds.add((char) high);
+                low = high + 1 < CHAR_COUNT ? this.chars.nextSetBit(high + 1) : -1;
+            }
+            final char[] ranges = new char[bounds.size()];
+            for (int i = 0; i < ranges.length; i++) {
+                ranges[i] = bounds.get(i);
+            }
+            long asciiLow = 0;
+            long asciiHigh = 0;
+            for (int c = this.chars.nextSetBit(0); c >= 0 && c < ASCII_SIZE; c = this.chars.nextSetBit(c + 1)) {
+                if (c < Long.SIZE) {
+                    asciiLow |= 1L << c;
+                } else {
+                    asciiHigh |= 1L << (c - Long.SIZE);
+                }
+            }
+            return new CharRanges(ranges, asciiLow, asciiHigh);
+        }
+    }
+
+    /**
+     * Immutable set of characters, stored as sorted inclusive ranges with an ASCII bitmap.
+     */
+    private static class CharRanges {
+        private final char[] ranges;
+        private final long asciiLow;
+        private final long asciiHigh;
+
+        CharRanges(final char[] ranges, final long asciiLow, final long asciiHigh) {
+            this.ranges = ranges;
+            this.asciiLow = asciiLow;
+            this.asciiHigh = asciiHigh;
+        }
+
+        boolean contains(final char c) {
+            if (c < Long.SIZE) {
+                return (this.asciiLow & 1L << c) != 0;
+            }
+            if (c < ASCII_SIZE) {
+                return (this.asciiHigh & 1L << (c - Long.SIZE)) != 0;
+            }
+            int low = 0;
+            int high = this.ranges.length / 2 - 1;
+            while (low <= high) {
+                final int mid = (low + high) >>> 1;
+                if (c < this.ranges[2 * mid]) {
+                    high = mid - 1;
+                } else if (c > this.ranges[2 * mid + 1]) {
+                    low = mid + 1;
+                } else {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * A state of the nondeterministic automaton.
+     */
+    private static class State {
+        private final int type;
+        private CharRanges chars;
+        private int out1 = -1;
+        private int out2 = -1;
+        private int tag = -1;
+
+        State(final int type) {
+            this.type = type;
+        }
+    }
+
+    /**
+     * A partially connected piece of the automaton, with the dangling transitions to patch.
+     * Dangling transitions are encoded as the state index times two, plus one for the second transition.
+     */
+    private static class Fragment {
+        private final int start;
+        private final List<Integer> outs;
+
+        Fragment(final int start, final List<Integer> outs) {
+            this.start = start;
+            this.outs = outs;
+        }
+    }
+
+    /**
+     * Collects the states of the automaton while expressions are compiled.
+     */
+    private static class ProgramBuilder {
+        private final List<State> states = new ArrayList<>();
+
+        int add(final State state) {
+            this.states.add(state);
+            return this.states.size() - 1;
+        }
+
+        void patch(final List<Integer> outs, final int target) {
+            for (final int out : outs) {
+                final State state = this.states.get(out / 2);
+                if (out % 2 == 0) {
+                    state.out1 = target;
+                } else {
+                    state.out2 = target;
+                }
+            }
+        }
+
+        Fragment concat(final List<Fragment> fragments) {
+            if (fragments.isEmpty()) {
+                final int s = add(new State(EPSILON));
+                return new Fragment(s, out1(s));
+            }
+            Fragment result = fragments.get(0);
+            for (int i = 1; i < fragments.size(); i++) {
+                final Fragment next = fragments.get(i);
+                patch(result.outs, next.start);
+                result = new Fragment(result.start, next.outs);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * A state of the deterministic automaton: the set of nondeterministic states that
+     * consume characters or accept, along with the patterns accepted and the transitions
+     * on ASCII characters computed so far.
+     */
+    private static class DeterministicState {
+        private final int[] states;
+        private final int[] matches;
+        private final AtomicReferenceArray<DeterministicState> transitions = new AtomicReferenceArray<>(ASCII_SIZE);
+
+        DeterministicState(final int[] states, final int[] matches) {
+            this.states = states;
+            this.matches = matches;
+        }
+
+        boolean isDead() {
+            return this.states.length == 0;
+        }
+    }
+
+    private static class StateKey {
+        private final int[] states;
+        private final int hash;
+
+        StateKey(final int[] states) {
+            this.states = states;
+            this.hash = Arrays.hashCode(states);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            return o instanceof StateKey && Arrays.equals(this.states, ((StateKey) o).states);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+    }
+
+    private static class StateCache {
+        private final DeterministicState start;
+        private final Map<StateKey, DeterministicState> states = new ConcurrentHashMap<>();
+
+        StateCache(final DeterministicState start) {
+            this.start = start;
+        }
+    }
+
+    private static class UnsupportedPatternException extends RuntimeException {
+        private static final long serialVersionUID = -2398405820365187193L;
+
+        UnsupportedPatternException(final String message) {
+            super(message);
+        }
+    }
+}
@@ -233,6 +233,45 @@ public class DefaultServicesManagerTests {
         assertEquals(description, serviceRetrieved.toArray(new RegisteredService[]{})[0].getDescription());
     }
 
+    @Test
+    public void verifyIndexedServicesPreserveEvaluationOrder() {
+        final RegexRegisteredService catchAll = new RegexRegisteredService();
+        catchAll.setId(3000);
+        catchAll.setName("catchAll");
+        catchAll.setServiceId("^(https|imaps)://.*");
+        catchAll.setEvaluationOrder(1);
+
+        final RegexRegisteredService host = new RegexRegisteredService();
+        host.setId(3001);
+        host.setName("host");
+        host.setServiceId("^https://app\\.example\\.org/.*");
+        host.setEvaluationOrder(2);
+
+        this.defaultServicesManager.save(catchAll);
+        this.defaultServicesManager.save(host);
+        assertEquals(catchAll, this.defaultServicesManager.findServiceBy(new SimpleService("https://app.example.org/page")));
+
+        catchAll.setEvaluationOrder(3);
+        this.defaultServicesManager.save(catchAll);
+        assertEquals(host, this.defaultServicesManager.findServiceBy(new SimpleService("https://app.example.org/page")));
+    }
+
+    @Test
+    public void verifyCachedLookupIsInvalidatedOnChanges() {
+        final SimpleService service = new SimpleService("https://cached.example.org/page");
+        assertNull(this.defaultServicesManager.findServiceBy(service));
+
+        final RegexRegisteredService r = new RegexRegisteredService();
+        r.setId(4000);
+        r.setName("cached");
+        r.setServiceId("^https://cached\\.example\\.org/.*");
+        this.defaultServicesManager.save(r);
+        assertEquals(r, this.defaultServicesManager.findServiceBy(service));
+
+        this.defaultServicesManager.delete(r.getId());
+        assertNull(this.defaultServicesManager.findServiceBy(service));
+    }
+
     private static class SimpleService implements Service {
 
         /**
@@ -0,0 +1,54 @@
+package org.apereo.cas.services;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.TreeSet;
+
+import static org.junit.Assert.*;
+
+/**
+ * This is {@link RegisteredServiceAutomatonIndexTests}.
+ *
+ * @author Misagh Moayyed
+ * @since 5.2.0
+ */
+public class RegisteredServiceAutomatonIndexTests {
+
+    @Test
+    public void verifyCandidatesFollowEvaluationOrder() {
+        final RegexRegisteredService inlineFlags = newService(1, "(?i)https://.*\\.example\\.org/.*", 100);
+        final RegexRegisteredService wildcard = newService(2, "^https://[a-z]+\\.example\\.org/.*", 10);
+        final RegexRegisteredService path = newService(3, "^https://app\\.example\\.org/secure/.*", 1);
+        final RegexRegisteredService other = newService(4, "^https://other\\.example\\.org/.*", 0);
+
+        final RegisteredServiceIndex index = new RegisteredServiceAutomatonIndex(
+                new TreeSet<>(Arrays.asList(inlineFlags, wildcard, path, other)));
+        assertEquals(4, index.size());
+
+        assertEquals(Arrays.asList(path, wildcard, inlineFlags), index.getCandidates("HTTPS://app.example.org/secure/page"));
+        assertEquals(Arrays.asList(wildcard, inlineFlags), index.getCandidates("https://app.example.org/public"));
+        assertEquals(Arrays.asList(inlineFlags), index.getCandidates("https://unknown.example.net"));
+    }
+
+    @Test
+    public void verifyRebuildReflectsChanges() {
+        final RegexRegisteredService host = newService(1, "^https://app\\.example\\.org/.*", 1);
+        final RegisteredServiceIndex index = new RegisteredServiceAutomatonIndex().rebuild(Arrays.asList(host));
+        assertEquals(Arrays.asList(host), index.getCandidates("https://app.example.org/page"));
+
+        final RegexRegisteredService other = newService(2, "^https://other\\.example\\.org/.*", 2);
+        final RegisteredServiceIndex rebuilt = index.rebuild(new TreeSet<>(Arrays.asList(host, other)));
+        assertEquals(2, rebuilt.size());
+        assertEquals(Arrays.asList(other), rebuilt.getCandidates("https://other.example.org/page"));
+    }
+
+    private static RegexRegisteredService newService(final long id, final String serviceId, final int order) {
+        final RegexRegisteredService service = new RegexRegisteredService();
+        service.setId(id);
+        service.setName("service" + id);
+        service.setServiceId(serviceId);
+        service.setEvaluationOrder(order);
+        return service;
+    }
+}
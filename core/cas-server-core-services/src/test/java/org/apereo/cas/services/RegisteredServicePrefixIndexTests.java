@@ -0,0 +1,58 @@
+package org.apereo.cas.services;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+
+import static org.junit.Assert.*;
+
+/**
+ * This is {@link RegisteredServicePrefixIndexTests}.
+ *
+ * @author Misagh Moayyed
+ * @since 5.2.0
+ */
+public class RegisteredServicePrefixIndexTests {
+
+    @Test
+    public void verifyLiteralPrefixes() {
+        assertEquals("https://app.example.org/", RegisteredServicePrefixIndex.getLiteralPrefix("^https://app\\.example\\.org/.*"));
+        assertEquals("http", RegisteredServicePrefixIndex.getLiteralPrefix("^https?://.*"));
+        assertEquals("https://www", RegisteredServicePrefixIndex.getLiteralPrefix("https://www.example.org"));
+        assertEquals("https://a", RegisteredServicePrefixIndex.getLiteralPrefix("https://a+b"));
+        assertEquals("imaps://mail", RegisteredServicePrefixIndex.getLiteralPrefix("IMAPS://MAIL\\d+"));
+        assertEquals("", RegisteredServicePrefixIndex.getLiteralPrefix("^(https|imaps)://.*"));
+        assertEquals("", RegisteredServicePrefixIndex.getLiteralPrefix("(?i)https://.*"));
+        assertNull(RegisteredServicePrefixIndex.getLiteralPrefix("https://a.org|https://b.org"));
+        assertEquals("https://", RegisteredServicePrefixIndex.getLiteralPrefix("https://(a|b)\\.org"));
+        assertNull(RegisteredServicePrefixIndex.getLiteralPrefix(null));
+    }
+
+    @Test
+    public void verifyCandidatesFollowEvaluationOrder() {
+        final RegexRegisteredService catchAll = newService(1, "^(https|imaps)://.*", 100);
+        final RegexRegisteredService host = newService(2, "^https://app\\.example\\.org/.*", 10);
+        final RegexRegisteredService path = newService(3, "^https://app\\.example\\.org/secure/.*", 1);
+        final RegexRegisteredService other = newService(4, "^https://other\\.example\\.org/.*", 0);
+
+        final RegisteredServicePrefixIndex index = new RegisteredServicePrefixIndex(
+                new TreeSet<>(Arrays.asList(catchAll, host, path, other)));
+        assertEquals(4, index.size());
+
+        final List<RegisteredService> candidates = index.getCandidates("HTTPS://app.example.org/secure/page");
+        assertEquals(Arrays.asList(path, host, catchAll), candidates);
+        assertEquals(Arrays.asList(host, catchAll), index.getCandidates("https://app.example.org/public"));
+        assertEquals(Arrays.asList(catchAll), index.getCandidates("https://unknown.example.org"));
+    }
+
+    private static RegexRegisteredService newService(final long id, final String serviceId, final int order) {
+        final RegexRegisteredService service = new RegexRegisteredService();
+        service.setId(id);
+        service.setName("service" + id);
+        service.setServiceId(serviceId);
+        service.setEvaluationOrder(order);
+        return service;
+    }
+}
@@ -0,0 +1,87 @@
+package org.apereo.cas.services;
+
+import org.apereo.cas.util.RegexUtils;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * This is {@link ServiceIdPatternAutomatonTests}.
+ *
+ * @author Misagh Moayyed
+ * @since 5.2.0
+ */
+public class ServiceIdPatternAutomatonTests {
+
+    private static final List<String> PATTERNS = Arrays.asList(
+            "^https://app\\.example\\.org/.*",
+            "^(https|imaps)://.*",
+            "https?://[a-z0-9-]+\\.example\\.(org|com)(:\\d{2,5})?/.*",
+            "HTTPS://CASE\\.org",
+            "^[^/]+//x.*$",
+            "a{2,3}b*",
+            "(?:ab)+c?",
+            "[\\w.-]+@[A-F]",
+            "\\x41\\u0042c",
+            "[^a]+",
+            "x.y",
+            "a|^b|c$",
+            "(a|)b",
+            "[Z-a]+",
+            "a??b",
+            ".*");
+
+    @Test
+    public void verifyUnsupportedPatterns() {
+        assertNull(ServiceIdPatternAutomaton.parse("a\\1"));
+        assertNull(ServiceIdPatternAutomaton.parse("(?i)https://.*"));
+        assertNull(ServiceIdPatternAutomaton.parse("a++"));
+        assertNull(ServiceIdPatternAutomaton.parse("\\Qhttps://\\E.*"));
+        assertNull(ServiceIdPatternAutomaton.parse("[a-c&&b]"));
+        assertNull(ServiceIdPatternAutomaton.parse("https://(?=x).*"));
+        assertNull(ServiceIdPatternAutomaton.parse("https://a$b"));
+        assertNull(ServiceIdPatternAutomaton.parse("[invalid"));
+        assertNull(ServiceIdPatternAutomaton.parse(null));
+    }
+
+    @Test
+    public void verifyMatchesAgreeWithPatterns() {
+        final List<ServiceIdPatternAutomaton.Expression> expressions = PATTERNS.stream()
+                .map(ServiceIdPatternAutomaton::parse)
+                .collect(Collectors.toList());
+        expressions.forEach(e -> assertNotNull(e));
+        final List<Pattern> patterns = PATTERNS.stream().map(RegexUtils::createPattern).collect(Collectors.toList());
+        final ServiceIdPatternAutomaton automaton = new ServiceIdPatternAutomaton(expressions, 16);
+
+        final List<String> inputs = new ArrayList<>(Arrays.asList("https://app.example.org/page", "HTTPS://CASE.ORG",
+                "imaps://mail", "https://www-1.example.com:8443/p", "aaab", "ababc", "x\ny", "", "ab", "c", "ABc", "Za"));
+        final Random random = new Random(1);
+        final String alphabet = "abcABCxyz_-.:/@09 \n\u00e9";
+        IntStream.range(0, 5000).forEach(i -> {
+            final StringBuilder input = new StringBuilder();
+            IntStream.range(0, random.nextInt(8)).forEach(j -> input.append(alphabet.charAt(random.nextInt(alphabet.length()))));
+            inputs.add(input.toString());
+        });
+
+        inputs.forEach(input -> {
+            final int[] expected = IntStream.range(0, patterns.size()).filter(i -> patterns.get(i).matcher(input).matches()).toArray();
+            assertArrayEquals(input, expected, automaton.match(input));
+        });
+    }
+
+    @Test
+    public void verifySurrogatesAreNotMatched() {
+        final ServiceIdPatternAutomaton automaton = new ServiceIdPatternAutomaton(
+                Arrays.asList(ServiceIdPatternAutomaton.parse("x.")));
+        assertNull(automaton.match("x\ud83d\ude00"));
+        assertArrayEquals(new int[]{0}, automaton.match("xy"));
+    }
+}
@@ -29,9 +29,11 @@ import org.apereo.cas.ticket.proxy.support.Cas20ProxyHandler;
 import org.apereo.cas.ticket.registry.DefaultTicketRegistry;
 import org.apereo.cas.ticket.registry.DefaultTicketRegistrySupport;
 import org.apereo.cas.ticket.registry.NoOpLockingStrategy;
+import org.apereo.cas.ticket.registry.TicketExpirationIndex;
 import org.apereo.cas.ticket.registry.TicketRegistry;
 import org.apereo.cas.ticket.registry.TicketRegistrySupport;
 import org.apereo.cas.ticket.registry.support.LockingStrategy;
+import org.apereo.cas.ticket.serialization.TicketSerializationCodecFactory;
 import org.apereo.cas.ticket.support.AlwaysExpiresExpirationPolicy;
 import org.apereo.cas.ticket.support.HardTimeoutExpirationPolicy;
 import org.apereo.cas.ticket.support.MultiTimeUseOrTimeoutExpirationPolicy;
@@ -53,6 +55,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cloud.context.config.annotation.RefreshScope;
 import org.springframework.context.annotation.Bean;
@@ -212,16 +215,32 @@ public class CasCoreTicketsConfiguration implements TransactionManagementConfigu
     }
 
     @ConditionalOnMissingBean(name = "ticketRegistry")
+    @Autowired
     @Bean
-    public TicketRegistry ticketRegistry() {
+    public TicketRegistry ticketRegistry(@Qualifier("ticketCatalog") final TicketCatalog ticketCatalog) {
         LOGGER.warn("Runtime memory is used as the persistence storage for retrieving and managing tickets. "
                 + "Tickets that are issued during runtime will be LOST upon container restarts. This MAY impact SSO functionality.");
         final TicketRegistryProperties.InMemory mem = casProperties.getTicket().getRegistry().getInMemory();
-        return new DefaultTicketRegistry(
+        final DefaultTicketRegistry registry = new DefaultTicketRegistry(
                 mem.getInitialCapacity(),
                 mem.getLoadFactor(),
                 mem.getConcurrency(),
                 Beans.newTicketRegistryCipherExecutor(mem.getCrypto()));
+        registry.setTicketSerializationCodec(TicketSerializationCodecFactory.newTicketSerializationCodec(casProperties.getTicket().getRegistry(), ticketCatalog));
+        final TicketRegistryProperties.Cleaner cleaner = casProperties.getTicket().getRegistry().getCleaner();
+        if (cleaner.getMode() == TicketRegistryProperties.Cleaner.CleanerModes.EXPIRATION_INDEX) {
+            LOGGER.debug("Ticket registry will maintain an expiration index for the ticket registry cleaner");
+            registry.setExpirationIndex(ticketExpirationIndex());
+        }
+        return registry;
+    }
+
+    @ConditionalOnMissingBean(name = "ticketExpirationIndex")
+    @ConditionalOnProperty(prefix = "cas.ticket.registry.cleaner", name = "mode", havingValue = "EXPIRATION_INDEX")
+    @Bean
+    public TicketExpirationIndex ticketExpirationIndex() {
+        final TicketRegistryProperties.Cleaner cleaner = casProperties.getTicket().getRegistry().getCleaner();
+        return new TicketExpirationIndex(cleaner.getBucketResolution(), cleaner.getMaxRecheckInterval());
     }
 
     @ConditionalOnMissingBean(name = "defaultTicketRegistrySupport")
@@ -1,9 +1,12 @@
 package org.apereo.cas.config;
 
 import org.apereo.cas.configuration.CasConfigurationProperties;
+import org.apereo.cas.configuration.model.core.ticket.registry.TicketRegistryProperties;
 import org.apereo.cas.logout.LogoutManager;
 import org.apereo.cas.ticket.registry.DefaultTicketRegistryCleaner;
+import org.apereo.cas.ticket.registry.ExpirationIndexedTicketRegistryCleaner;
 import org.apereo.cas.ticket.registry.NoOpTicketRegistryCleaner;
+import org.apereo.cas.ticket.registry.TicketExpirationIndex;
 import org.apereo.cas.ticket.registry.TicketRegistry;
 import org.apereo.cas.ticket.registry.TicketRegistryCleaner;
 import org.apereo.cas.ticket.registry.support.LockingStrategy;
@@ -42,15 +45,23 @@ public class CasCoreTicketsSchedulingConfiguration {
     @Autowired
     private CasConfigurationProperties casProperties;
 
+    @Autowired(required = false)
+    @Qualifier("ticketExpirationIndex")
+    private TicketExpirationIndex ticketExpirationIndex;
+
     @ConditionalOnMissingBean(name = "ticketRegistryCleaner")
     @Bean
     @Autowired
     public TicketRegistryCleaner ticketRegistryCleaner(@Qualifier("lockingStrategy") final LockingStrategy lockingStrategy,
                                                        @Qualifier("logoutManager") final LogoutManager logoutManager,
                                                        @Qualifier("ticketRegistry") final TicketRegistry ticketRegistry) {
-        final boolean isCleanerEnabled = casProperties.getTicket().getRegistry().getCleaner().isEnabled();
-        if (isCleanerEnabled) {
+        final TicketRegistryProperties.Cleaner cleaner = casProperties.getTicket().getRegistry().getCleaner();
+        if (cleaner.isEnabled()) {
             LOGGER.debug("Ticket registry cleaner is enabled.");
+            if (this.ticketExpirationIndex != null) {
+                LOGGER.debug("Ticket registry cleaner will only visit tickets due for expiration.");
+                return new ExpirationIndexedTicketRegistryCleaner(lockingStrategy, logoutManager, ticketRegistry, this.ticketExpirationIndex);
+            }
             return new DefaultTicketRegistryCleaner(lockingStrategy, logoutManager, ticketRegistry);
         }
         LOGGER.debug("Ticket registry cleaner is not enabled. "
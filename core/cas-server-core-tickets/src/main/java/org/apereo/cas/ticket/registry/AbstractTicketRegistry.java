@@ -1,7 +1,6 @@
 package org.apereo.cas.ticket.registry;
 
 import com.google.common.base.Throwables;
-import com.google.common.io.ByteSource;
 import org.apache.commons.lang3.StringUtils;
 import org.apereo.cas.CipherExecutor;
 import org.apereo.cas.authentication.principal.Service;
@@ -9,8 +8,10 @@ import org.apereo.cas.ticket.ServiceTicket;
 import org.apereo.cas.ticket.Ticket;
 import org.apereo.cas.ticket.TicketGrantingTicket;
 import org.apereo.cas.ticket.proxy.ProxyGrantingTicket;
+import org.apereo.cas.ticket.serialization.JavaTicketSerializationCodec;
+import org.apereo.cas.ticket.serialization.TicketSerializationCodec;
 import org.apereo.cas.util.DigestUtils;
-import org.apereo.cas.util.serialization.SerializationUtils;
+import org.apereo.cas.util.cipher.StreamingCipherExecutor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.util.Assert;
@@ -19,6 +20,7 @@ import java.util.Collection;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * @author Scott Battaglia
@@ -38,6 +40,11 @@ public abstract class AbstractTicketRegistry implements TicketRegistry {
      */
     protected CipherExecutor cipherExecutor;
 
+    /**
+     * The codec that turns ticket objects into bytes prior to encryption.
+     */
+    protected TicketSerializationCodec ticketSerializationCodec = new JavaTicketSerializationCodec();
+
     /**
      * Default constructor.
      */
@@ -74,8 +81,8 @@ public abstract class AbstractTicketRegistry implements TicketRegistry {
 
     @Override
     public long sessionCount() {
-        try {
-            return getTickets().stream().filter(TicketGrantingTicket.class::isInstance).count();
+        try (Stream<Ticket> tickets = getTicketsStream(TicketQuery.forType(TicketGrantingTicket.class))) {
+            return tickets.count();
         } catch (final Exception t) {
             LOGGER.trace("sessionCount() operation is not implemented by the ticket registry instance [{}]. "
                             + "Message is: [{}] Returning unknown as [{}]",
@@ -86,8 +93,8 @@ public abstract class AbstractTicketRegistry implements TicketRegistry {
 
     @Override
     public long serviceTicketCount() {
-        try {
-            return getTickets().stream().filter(ServiceTicket.class::isInstance).count();
+        try (Stream<Ticket> tickets = getTicketsStream(TicketQuery.forType(ServiceTicket.class))) {
+            return tickets.count();
         } catch (final Exception t) {
             LOGGER.trace("serviceTicketCount() operation is not implemented by the ticket registry instance [{}]. "
                             + "Message is: [{}] Returning unknown as [{}]",
@@ -168,6 +175,10 @@ public abstract class AbstractTicketRegistry implements TicketRegistry {
         this.cipherExecutor = cipherExecutor;
     }
 
+    public void setTicketSerializationCodec(final TicketSerializationCodec ticketSerializationCodec) {
+        this.ticketSerializationCodec = ticketSerializationCodec;
+    }
+
     /**
      * Encode ticket id into a SHA-512.
      *
@@ -188,7 +199,8 @@ public abstract class AbstractTicketRegistry implements TicketRegistry {
     }
 
     /**
-     * Encode ticket.
+     * Encode ticket. If the cipher executor is a {@link StreamingCipherExecutor},
+     * the ticket is serialized straight into the cipher rather than into an intermediate array.
      *
      * @param ticket the ticket
      * @return the ticket
@@ -205,9 +217,15 @@ public abstract class AbstractTicketRegistry implements TicketRegistry {
         }
 
         LOGGER.debug("Encoding ticket [{}]", ticket);
-        final byte[] encodedTicketObject = SerializationUtils.serializeAndEncodeObject(this.cipherExecutor, ticket);
+        final byte[] encodedTicketObject;
+        if (this.cipherExecutor instanceof StreamingCipherExecutor) {
+            encodedTicketObject = ((StreamingCipherExecutor) this.cipherExecutor)
+                    .encode(outputStream -> this.ticketSerializationCodec.encode(ticket, outputStream));
+        } else {
+            encodedTicketObject = (byte[]) this.cipherExecutor.encode(this.ticketSerializationCodec.encode(ticket));
+        }
         final String encodedTicketId = encodeTicketId(ticket.getId());
-        final Ticket encodedTicket = new EncodedTicket(ByteSource.wrap(encodedTicketObject), encodedTicketId);
+        final Ticket encodedTicket = new EncodedTicket(encodedTicketObject, encodedTicketId);
         LOGGER.debug("Created encoded ticket [{}]", encodedTicket);
         return encodedTicket;
     }
@@ -238,8 +256,8 @@ public abstract class AbstractTicketRegistry implements TicketRegistry {
             LOGGER.debug("Attempting to decode [{}]", result);
             final EncodedTicket encodedTicket = (EncodedTicket) result;
 
-            final Ticket ticket = SerializationUtils.decodeAndDeserializeObject(
-                    encodedTicket.getEncoded(), this.cipherExecutor, Ticket.class);
+            final byte[] decoded = (byte[]) this.cipherExecutor.decode(encodedTicket.getEncoded());
+            final Ticket ticket = this.ticketSerializationCodec.decode(decoded);
             LOGGER.debug("Decoded ticket to [{}]", ticket);
             return ticket;
         } catch (final Exception e) {
@@ -1,17 +1,32 @@
 package org.apereo.cas.ticket.registry;
 
+import org.apache.commons.lang3.StringUtils;
 import org.apereo.cas.CipherExecutor;
+import org.apereo.cas.ticket.ServiceTicket;
 import org.apereo.cas.ticket.Ticket;
+import org.apereo.cas.ticket.TicketGrantingTicket;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.util.Assert;
 
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Implementation of the TicketRegistry that is backed by a ConcurrentHashMap.
+ * Secondary indexes are updated while the entry of the ticket in the map is locked,
+ * so that concurrent adds and deletes of the same ticket cannot leave them out of step with the map.
  *
  * @author Scott Battaglia
  * @since 3.0.0
@@ -24,6 +39,43 @@ public class DefaultTicketRegistry extends AbstractTicketRegistry {
      */
     private final Map<String, Ticket> cache;
 
+    /**
+     * Secondary index of (encoded) parent ticket ids to the (encoded) ids of tickets they granted.
+     * Allows cascading deletes to remove an entire session tree without decoding children.
+     */
+    private final Map<String, Set<String>> descendants = new ConcurrentHashMap<>();
+
+    /**
+     * Reverse lookup of (encoded) child ticket ids to their (encoded) parent id.
+     */
+    private final Map<String, String> parents = new ConcurrentHashMap<>();
+
+    /**
+     * Index of (encoded) ticket-granting ticket ids to the id of their principal, ordered by ticket id
+     * so that sessions can be paged through without visiting every ticket.
+     */
+    private final ConcurrentNavigableMap<String, String> sessions = new ConcurrentSkipListMap<>();
+
+    /**
+     * Index of principal ids to the (encoded) ids of their ticket-granting tickets.
+     */
+    private final Map<String, Set<String>> principalSessions = new ConcurrentHashMap<>();
+
+    /**
+     * Live count of the entries in the sessions index, since sizing a skip list means walking it.
+     */
+    private final LongAdder sessionCount = new LongAdder();
+
+    /**
+     * (Encoded) ids of the service tickets in the registry, so they can be counted without decoding tickets.
+     */
+    private final Set<String> serviceTickets = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Optional index of tickets ordered by expiration deadline, used by the registry cleaner.
+     */
+    private TicketExpirationIndex expirationIndex;
+
     /**
      * Instantiates a new default ticket registry.
      */
@@ -57,7 +109,13 @@ public class DefaultTicketRegistry extends AbstractTicketRegistry {
         Assert.notNull(ticket, "ticket cannot be null");
         final Ticket encTicket = encodeTicket(ticket);
         LOGGER.debug("Added ticket [{}] to registry.", ticket.getId());
-        this.cache.put(encTicket.getId(), encTicket);
+        this.cache.compute(encTicket.getId(), (encTicketId, previous) -> {
+            indexTicket(ticket, encTicketId);
+            return encTicket;
+        });
+        if (this.expirationIndex != null) {
+            this.expirationIndex.track(ticket);
+        }
     }
 
     @Override
@@ -69,19 +127,47 @@ public class DefaultTicketRegistry extends AbstractTicketRegistry {
         return decodeTicket(this.cache.get(encTicketId));
     }
 
+    @Override
+    public int deleteTicket(final String ticketId) {
+        if (StringUtils.isBlank(ticketId)) {
+            return 0;
+        }
+        final String encTicketId = encodeTicketId(ticketId);
+        if (!this.cache.containsKey(encTicketId)) {
+            return 0;
+        }
+        LOGGER.debug("Removing ticket [{}] and its descendants from the registry.", ticketId);
+        if (this.expirationIndex != null) {
+            this.expirationIndex.untrack(ticketId);
+        }
+        return deleteTicketTree(encTicketId);
+    }
+
     @Override
     public boolean deleteSingleTicket(final String ticketId) {
         final String encTicketId = encodeTicketId(ticketId);
         if (encTicketId == null) {
             return false;
         }
-        return this.cache.remove(encTicketId) != null;
+        if (this.expirationIndex != null) {
+            this.expirationIndex.untrack(ticketId);
+        }
+        return removeTicket(encTicketId);
     }
 
     @Override
     public long deleteAll() {
         final int size = this.cache.size();
         this.cache.clear();
+        this.descendants.clear();
+        this.parents.clear();
+        this.sessions.clear();
+        this.principalSessions.clear();
+        this.sessionCount.reset();
+        this.serviceTickets.clear();
+        if (this.expirationIndex != null) {
+            this.expirationIndex.clear();
+        }
         return size;
     }
 
@@ -95,4 +181,155 @@ public class DefaultTicketRegistry extends AbstractTicketRegistry {
         addTicket(ticket);
         return ticket;
     }
+
+    @Override
+    public long sessionCount() {
+        return this.sessionCount.sum();
+    }
+
+    @Override
+    public long serviceTicketCount() {
+        return this.serviceTickets.size();
+    }
+
+    @Override
+    public Collection<TicketGrantingTicket> getSessionsForPrincipal(final String principalId) {
+        final Set<String> ids = this.principalSessions.get(principalId);
+        if (ids == null) {
+            return Collections.emptyList();
+        }
+        return decodeSessions(ids.stream()).collect(Collectors.toList());
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Tickets are ordered by their encoded id.
+     */
+    @Override
+    public List<TicketGrantingTicket> getSessions(final String cursor, final int count) {
+        final Map<String, String> page = cursor == null ? this.sessions : this.sessions.tailMap(encodeTicketId(cursor), false);
+        return decodeSessions(page.keySet().stream()).limit(count).collect(Collectors.toList());
+    }
+
+    /**
+     * Sets the expiration index this registry should keep up to date as tickets are
+     * added, updated and removed. Tickets already in the registry are tracked immediately.
+     * Descendant tickets removed as part of a cascading delete are not untracked eagerly;
+     * the cleaner discards their ids once they come due.
+     *
+     * @param expirationIndex the expiration index
+     */
+    public void setExpirationIndex(final TicketExpirationIndex expirationIndex) {
+        this.expirationIndex = expirationIndex;
+        if (expirationIndex != null) {
+            getTickets().forEach(expirationIndex::track);
+            expirationIndex.startTracking();
+        }
+    }
+
+    /**
+     * Remove the ticket identified by the encoded id along with every
+     * ticket it granted, walking the descendants index rather than decoding tickets.
+     * The ticket is removed before its descendants are collected, and they are collected
+     * until none are left, so that tickets it grants concurrently are removed along with it.
+     *
+     * @param encTicketId the encoded ticket id
+     * @return the number of tickets removed
+     */
+    private int deleteTicketTree(final String encTicketId) {
+        int count = removeTicket(encTicketId) ? 1 : 0;
+        Set<String> children = this.descendants.remove(encTicketId);
+        while (children != null) {
+            for (final String child : children) {
+                count += deleteTicketTree(child);
+            }
+            children = this.descendants.remove(encTicketId);
+        }
+        return count;
+    }
+
+    /**
+     * Remove the ticket identified by the encoded id from the map and from the indexes.
+     *
+     * @param encTicketId the encoded ticket id
+     * @return true if the ticket was in the registry
+     */
+    private boolean removeTicket(final String encTicketId) {
+        final AtomicBoolean removed = new AtomicBoolean();
+        this.cache.computeIfPresent(encTicketId, (id, encTicket) -> {
+            unindexTicket(id);
+            removed.set(true);
+            return null;
+        });
+        return removed.get();
+    }
+
+    private Stream<TicketGrantingTicket> decodeSessions(final Stream<String> encTicketIds) {
+        return encTicketIds
+                .map(this.cache::get)
+                .filter(Objects::nonNull)
+                .map(this::decodeTicket)
+                .filter(TicketGrantingTicket.class::isInstance)
+                .map(TicketGrantingTicket.class::cast);
+    }
+
+    private void indexTicket(final Ticket ticket, final String encTicketId) {
+        if (ticket instanceof TicketGrantingTicket) {
+            indexSession((TicketGrantingTicket) ticket, encTicketId);
+        } else if (ticket instanceof ServiceTicket) {
+            this.serviceTickets.add(encTicketId);
+        }
+        final TicketGrantingTicket grantingTicket = ticket.getGrantingTicket();
+        if (grantingTicket == null) {
+            return;
+        }
+        final String encParentId = encodeTicketId(grantingTicket.getId());
+        this.parents.put(encTicketId, encParentId);
+        this.descendants.computeIfAbsent(encParentId, k -> ConcurrentHashMap.newKeySet()).add(encTicketId);
+    }
+
+    private void unindexTicket(final String encTicketId) {
+        final String encParentId = this.parents.remove(encTicketId);
+        if (encParentId != null) {
+            this.descendants.computeIfPresent(encParentId, (k, children) -> {
+                children.remove(encTicketId);
+                return children.isEmpty() ? null : children;
+            });
+        }
+        final String principalId = this.sessions.remove(encTicketId);
+        if (principalId != null) {
+            this.sessionCount.decrement();
+            unindexSession(principalId, encTicketId);
+        } else {
+            this.serviceTickets.remove(encTicketId);
+        }
+    }
+
+    private void indexSession(final TicketGrantingTicket ticket, final String encTicketId) {
+        final String principalId = ticket.getAuthentication() == null ? StringUtils.EMPTY
+                : StringUtils.defaultString(ticket.getAuthentication().getPrincipal().getId());
+        final String previousPrincipalId = this.sessions.put(encTicketId, principalId);
+        if (previousPrincipalId == null) {
+            this.sessionCount.increment();
+        }
+        if (principalId.equals(previousPrincipalId)) {
+            return;
+        }
+        if (previousPrincipalId != null) {
+            unindexSession(previousPrincipalId, encTicketId);
+        }
+        this.principalSessions.compute(principalId, (k, ids) -> {
+            final Set<String> sessionIds = ids == null ? ConcurrentHashMap.newKeySet() : ids;
+            sessionIds.add(encTicketId);
+            return sessionIds;
+        });
+    }
+
+    private void unindexSession(final String principalId, final String encTicketId) {
+        this.principalSessions.computeIfPresent(principalId, (k, ids) -> {
+            ids.remove(encTicketId);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
 }
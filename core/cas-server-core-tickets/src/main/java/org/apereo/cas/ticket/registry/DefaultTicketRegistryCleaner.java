@@ -65,24 +65,32 @@ public class DefaultTicketRegistryCleaner implements TicketRegistryCleaner, Seri
     protected void cleanInternal() {
         final int ticketsDeleted = ticketRegistry.getTicketsStream()
                 .filter(Ticket::isExpired)
-                .mapToInt(ticket -> {
-                    if (ticket instanceof TicketGrantingTicket) {
-                        LOGGER.debug("Cleaning up expired ticket-granting ticket [{}]", ticket.getId());
-                        logoutManager.performLogout((TicketGrantingTicket) ticket);
-                        return ticketRegistry.deleteTicket(ticket.getId());
-                    } else if (ticket instanceof ServiceTicket) {
-                        LOGGER.debug("Cleaning up expired service ticket [{}]", ticket.getId());
-                        return ticketRegistry.deleteTicket(ticket.getId());
-                    } else {
-                        LOGGER.warn("Unknown ticket type [{}] found to clean", ticket.getClass().getSimpleName());
-                        return 0;
-                    }
-                })
+                .mapToInt(this::cleanTicket)
                 .sum();
 
         LOGGER.info("[{}] expired tickets removed.", ticketsDeleted);
     }
 
+    /**
+     * Clean an expired ticket, performing logout for ticket-granting tickets.
+     *
+     * @param ticket the ticket
+     * @return the number of tickets removed
+     */
+    protected int cleanTicket(final Ticket ticket) {
+        if (ticket instanceof TicketGrantingTicket) {
+            LOGGER.debug("Cleaning up expired ticket-granting ticket [{}]", ticket.getId());
+            logoutManager.performLogout((TicketGrantingTicket) ticket);
+            return ticketRegistry.deleteTicket(ticket.getId());
+        }
+        if (ticket instanceof ServiceTicket) {
+            LOGGER.debug("Cleaning up expired service ticket [{}]", ticket.getId());
+            return ticketRegistry.deleteTicket(ticket.getId());
+        }
+        LOGGER.warn("Unknown ticket type [{}] found to clean", ticket.getClass().getSimpleName());
+        return 0;
+    }
+
     /**
      * Indicates whether the registry supports automatic ticket cleanup.
      * Generally, a registry that is able to return a collection of available
@@ -57,6 +57,18 @@ public class EncodedTicket implements Ticket {
         }
     }
 
+    /**
+     * Creates a new encoded ticket that takes ownership of the given encoded bytes,
+     * which are not copied and must not be modified afterwards.
+     *
+     * @param encodedTicket   the encoded ticket
+     * @param encodedTicketId the encoded ticket id
+     */
+    public EncodedTicket(final byte[] encodedTicket, final String encodedTicketId) {
+        this.id = encodedTicketId;
+        this.encodedTicket = encodedTicket;
+    }
+
     /**
      * Instantiates a new Encoded ticket.
      *
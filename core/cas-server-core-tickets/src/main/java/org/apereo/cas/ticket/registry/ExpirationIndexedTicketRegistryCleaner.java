@@ -0,0 +1,69 @@
+package org.apereo.cas.ticket.registry;
+
+import org.apereo.cas.logout.LogoutManager;
+import org.apereo.cas.ticket.Ticket;
+import org.apereo.cas.ticket.registry.support.LockingStrategy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Set;
+
+/**
+ * This is {@link ExpirationIndexedTicketRegistryCleaner}. Rather than scanning the entire
+ * registry, this cleaner only visits tickets whose expiration deadlines have passed
+ * according to the {@link TicketExpirationIndex} maintained by the ticket registry.
+ * Tickets that turn out to be still valid are re-bucketed. If no registry is feeding
+ * the index, the cleaner falls back to a full scan.
+ *
+ * @author Misagh Moayyed
+ * @since 5.2.0
+ */
+@Transactional(transactionManager = "ticketTransactionManager", readOnly = false)
+public class ExpirationIndexedTicketRegistryCleaner extends DefaultTicketRegistryCleaner {
+    private static final long serialVersionUID = 2409837405722637553L;
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExpirationIndexedTicketRegistryCleaner.class);
+
+    private final TicketRegistry ticketRegistry;
+    private final TicketExpirationIndex expirationIndex;
+
+    public ExpirationIndexedTicketRegistryCleaner(final LockingStrategy lockingStrategy,
+                                                  final LogoutManager logoutManager,
+                                                  final TicketRegistry ticketRegistry,
+                                                  final TicketExpirationIndex expirationIndex) {
+        super(lockingStrategy, logoutManager, ticketRegistry);
+        this.ticketRegistry = ticketRegistry;
+        this.expirationIndex = expirationIndex;
+    }
+
+    @Override
+    protected void cleanInternal() {
+        if (!this.expirationIndex.isTracking()) {
+            LOGGER.debug("Ticket registry [{}] does not maintain an expiration index; scanning all tickets instead",
+                    this.ticketRegistry.getClass().getSimpleName());
+            super.cleanInternal();
+            return;
+        }
+
+        final Set<String> candidates = this.expirationIndex.pollDue(System.currentTimeMillis());
+        LOGGER.debug("[{}] tickets are due for expiration", candidates.size());
+
+        final int ticketsDeleted = candidates.stream()
+                .mapToInt(ticketId -> {
+                    final Ticket ticket = this.ticketRegistry.getTicket(ticketId);
+                    if (ticket == null) {
+                        LOGGER.trace("Ticket [{}] is no longer found in the registry", ticketId);
+                        return 0;
+                    }
+                    if (ticket.isExpired()) {
+                        return cleanTicket(ticket);
+                    }
+                    LOGGER.trace("Ticket [{}] is not yet expired and will be re-examined later", ticketId);
+                    this.expirationIndex.track(ticket);
+                    return 0;
+                })
+                .sum();
+
+        LOGGER.info("[{}] expired tickets removed out of [{}] due for expiration.", ticketsDeleted, candidates.size());
+    }
+}
@@ -0,0 +1,248 @@
+package org.apereo.cas.ticket.registry;
+
+import org.apereo.cas.ticket.ExpirationPolicy;
+import org.apereo.cas.ticket.Ticket;
+import org.apereo.cas.ticket.TicketState;
+import org.apereo.cas.ticket.support.MultiTimeUseOrTimeoutExpirationPolicy;
+import org.apereo.cas.ticket.support.RememberMeDelegatingExpirationPolicy;
+import org.apereo.cas.ticket.support.ThrottledUseAndTimeoutExpirationPolicy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.ZonedDateTime;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * This is {@link TicketExpirationIndex}. It keeps ticket ids in time buckets
+ * ordered by the deadline at which each ticket is expected to expire, computed
+ * from the ticket's {@link ExpirationPolicy}. The ticket registry feeds the index
+ * as tickets are added and updated, allowing the cleaner to only visit tickets
+ * that are due instead of scanning the entire registry.
+ * <p>
+ * Deadlines are an estimate; a ticket that is visited and found to be still valid
+ * is simply re-bucketed. Every ticket is re-examined at least once per
+ * {@code maxRecheckIntervalMillis} to account for policies whose expiration
+ * cannot be described by their time-to-live and time-to-idle values. A ticket that is
+ * still valid past its estimated deadline is not re-examined before that interval.
+ *
+ * @author Misagh Moayyed
+ * @since 5.2.0
+ */
+public class TicketExpirationIndex {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TicketExpirationIndex.class);
+
+    private static final long MILLIS_PER_SECOND = 1000L;
+
+    private final ConcurrentNavigableMap<Long, Set<String>> buckets = new ConcurrentSkipListMap<>();
+    private final Map<String, Long> ticketBuckets = new ConcurrentHashMap<>();
+
+    private final long bucketResolutionMillis;
+    private final long maxRecheckIntervalMillis;
+
+    private volatile boolean tracking;
+
+    public TicketExpirationIndex(final long bucketResolutionMillis, final long maxRecheckIntervalMillis) {
+        this.bucketResolutionMillis = Math.max(1, bucketResolutionMillis);
+        this.maxRecheckIntervalMillis = Math.max(this.bucketResolutionMillis, maxRecheckIntervalMillis);
+    }
+
+    /**
+     * Indicates whether a ticket registry is feeding this index.
+     * Cleaners should not rely on the index unless this is true.
+     *
+     * @return true/false
+     */
+    public boolean isTracking() {
+        return this.tracking;
+    }
+
+    /**
+     * Mark the index as being fed by a ticket registry.
+     */
+    public void startTracking() {
+        this.tracking = true;
+    }
+
+    /**
+     * Track (or re-bucket) the ticket based on its current expiration deadline.
+     *
+     * @param ticket the ticket
+     */
+    public void track(final Ticket ticket) {
+        if (ticket == null) {
+            return;
+        }
+        final String ticketId = ticket.getId();
+        final long now = System.currentTimeMillis();
+        final long recheck = now + this.maxRecheckIntervalMillis;
+        final long estimate = getExpirationDeadline(ticket, now);
+        final long deadline = estimate <= now && !ticket.isExpired() ? recheck : Math.min(estimate, recheck);
+        final long bucket = toBucket(deadline);
+
+        final Long previous = this.ticketBuckets.put(ticketId, bucket);
+        if (previous != null && previous != bucket) {
+            removeFromBucket(previous, ticketId);
+        }
+        this.buckets.compute(bucket, (k, ids) -> {
+            final Set<String> results = ids == null ? ConcurrentHashMap.newKeySet() : ids;
+            results.add(ticketId);
+            return results;
+        });
+        LOGGER.trace("Tracking ticket [{}] for expiration at [{}]", ticketId, bucket);
+    }
+
+    /**
+     * Stop tracking the ticket.
+     *
+     * @param ticketId the ticket id
+     */
+    public void untrack(final String ticketId) {
+        if (ticketId == null) {
+            return;
+        }
+        final Long previous = this.ticketBuckets.remove(ticketId);
+        if (previous != null) {
+            removeFromBucket(previous, ticketId);
+        }
+    }
+
+    /**
+     * Remove and return the ids of all tickets whose buckets are due at the given time.
+     * Callers are expected to {@link #track(Ticket)} tickets that turn out to be still valid.
+     * A ticket id may occasionally be returned more than once across calls when it is
+     * re-bucketed concurrently; callers should tolerate tickets that no longer exist.
+     *
+     * @param now the current time in milliseconds
+     * @return the ticket ids due for expiration
+     */
+    public Set<String> pollDue(final long now) {
+        final Set<String> results = new LinkedHashSet<>();
+        Map.Entry<Long, Set<String>> entry = this.buckets.firstEntry();
+        while (entry != null && entry.getKey() <= now) {
+            final Long bucket = entry.getKey();
+            final Set<String> ids = this.buckets.remove(bucket);
+            if (ids != null) {
+                ids.forEach(id -> {
+                    this.ticketBuckets.remove(id, bucket);
+                    results.add(id);
+                });
+            }
+            entry = this.buckets.firstEntry();
+        }
+        return results;
+    }
+
+    /**
+     * Number of tickets currently tracked.
+     *
+     * @return the count
+     */
+    public int size() {
+        return this.ticketBuckets.size();
+    }
+
+    /**
+     * Remove all tracked tickets.
+     */
+    public void clear() {
+        this.buckets.clear();
+        this.ticketBuckets.clear();
+    }
+
+    /**
+     * Compute the earliest point in time, in milliseconds, at which the ticket
+     * may expire according to the time-to-live and time-to-idle values of the expiration policy
+     * that applies to it. Tickets whose policy does not describe either value are considered due immediately.
+     *
+     * @param ticket the ticket
+     * @param now    the current time in milliseconds
+     * @return the deadline in milliseconds
+     */
+    protected long getExpirationDeadline(final Ticket ticket, final long now) {
+        final ExpirationPolicy policy = getApplicableExpirationPolicy(ticket);
+        if (policy == null) {
+            return now;
+        }
+        long deadline = Long.MAX_VALUE;
+        final ZonedDateTime creationTime = ticket.getCreationTime();
+        final ZonedDateTime lastTimeUsed = ticket instanceof TicketState ? ((TicketState) ticket).getLastTimeUsed() : creationTime;
+        final Long timeToLive = policy.getTimeToLive();
+        final ZonedDateTime liveSince = isTimeToLiveSinceLastUse(policy) ? lastTimeUsed : creationTime;
+        if (timeToLive != null && timeToLive > 0 && liveSince != null) {
+            deadline = Math.min(deadline, plusSeconds(toMillis(liveSince), timeToLive));
+        }
+        final Long timeToIdle = policy.getTimeToIdle();
+        if (timeToIdle != null && timeToIdle > 0 && lastTimeUsed != null && isTimeToIdleExpiring(policy)) {
+            deadline = Math.min(deadline, plusSeconds(toMillis(lastTimeUsed), timeToIdle));
+        }
+        return deadline == Long.MAX_VALUE ? now : deadline;
+    }
+
+    /**
+     * Gets the expiration policy that actually decides whether the ticket is expired,
+     * looking through policies that delegate to others.
+     *
+     * @param ticket the ticket
+     * @return the expiration policy, or null if there is none
+     */
+    protected ExpirationPolicy getApplicableExpirationPolicy(final Ticket ticket) {
+        final ExpirationPolicy policy = ticket.getExpirationPolicy();
+        if (policy instanceof RememberMeDelegatingExpirationPolicy && ticket instanceof TicketState) {
+            return ((RememberMeDelegatingExpirationPolicy) policy).getExpirationPolicyFor((TicketState) ticket);
+        }
+        return policy;
+    }
+
+    /**
+     * Whether the time-to-live of the policy is measured from the last time the ticket was used, rather than its creation.
+     *
+     * @param policy the policy
+     * @return true/false
+     */
+    protected boolean isTimeToLiveSinceLastUse(final ExpirationPolicy policy) {
+        return policy instanceof ThrottledUseAndTimeoutExpirationPolicy || policy instanceof MultiTimeUseOrTimeoutExpirationPolicy;
+    }
+
+    /**
+     * Whether the time-to-idle of the policy expires tickets left unused. The throttling policy uses it
+     * as the minimum time between uses instead.
+     *
+     * @param policy the policy
+     * @return true/false
+     */
+    protected boolean isTimeToIdleExpiring(final ExpirationPolicy policy) {
+        return !(policy instanceof ThrottledUseAndTimeoutExpirationPolicy);
+    }
+
+    private long toBucket(final long deadline) {
+        final long remainder = deadline % this.bucketResolutionMillis;
+        if (remainder == 0) {
+            return deadline;
+        }
+        final long bucket = deadline - remainder;
+        return bucket > Long.MAX_VALUE - this.bucketResolutionMillis ? bucket : bucket + this.bucketResolutionMillis;
+    }
+
+    private void removeFromBucket(final Long bucket, final String ticketId) {
+        this.buckets.computeIfPresent(bucket, (k, ids) -> {
+            ids.remove(ticketId);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    private static long toMillis(final ZonedDateTime time) {
+        return time.toInstant().toEpochMilli();
+    }
+
+    private static long plusSeconds(final long millis, final long seconds) {
+        if (seconds >= (Long.MAX_VALUE - millis) / MILLIS_PER_SECOND) {
+            return Long.MAX_VALUE;
+        }
+        return millis + seconds * MILLIS_PER_SECOND;
+    }
+}
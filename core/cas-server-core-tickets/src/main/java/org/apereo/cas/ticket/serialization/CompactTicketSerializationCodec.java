@@ -0,0 +1,262 @@
+package org.apereo.cas.ticket.serialization;
+
+import com.google.common.base.Throwables;
+import org.apereo.cas.authentication.BasicCredentialMetaData;
+import org.apereo.cas.authentication.DefaultAuthentication;
+import org.apereo.cas.authentication.DefaultHandlerResult;
+import org.apereo.cas.authentication.principal.SimplePrincipal;
+import org.apereo.cas.ticket.AbstractTicket;
+import org.apereo.cas.ticket.ProxyGrantingTicketImpl;
+import org.apereo.cas.ticket.ProxyTicketImpl;
+import org.apereo.cas.ticket.ServiceTicketImpl;
+import org.apereo.cas.ticket.Ticket;
+import org.apereo.cas.ticket.TicketCatalog;
+import org.apereo.cas.ticket.TicketGrantingTicketImpl;
+import org.apereo.cas.ticket.support.AbstractCasExpirationPolicy;
+import org.apereo.cas.ticket.support.AlwaysExpiresExpirationPolicy;
+import org.apereo.cas.ticket.support.HardTimeoutExpirationPolicy;
+import org.apereo.cas.ticket.support.MultiTimeUseOrTimeoutExpirationPolicy;
+import org.apereo.cas.ticket.support.NeverExpiresExpirationPolicy;
+import org.apereo.cas.ticket.support.RememberMeDelegatingExpirationPolicy;
+import org.apereo.cas.ticket.support.ThrottledUseAndTimeoutExpirationPolicy;
+import org.apereo.cas.ticket.support.TicketGrantingTicketExpirationPolicy;
+import org.apereo.cas.ticket.support.TimeoutExpirationPolicy;
+import org.apereo.cas.util.serialization.SerializationUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.OutputStream;
+import java.io.StreamCorruptedException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This is {@link CompactTicketSerializationCodec}. It builds on java serialization so that
+ * any serializable ticket, authentication and attribute graph is supported, but replaces
+ * the class descriptors that java serialization writes into every payload (class names,
+ * field names and field types for each class in the hierarchy) with a reference to a class
+ * that is known to both sides:
+ * <ul>
+ * <li>Registered classes are written as a 4-byte identifier derived from the class name.</li>
+ * <li>Other classes are written by name only, without field metadata.</li>
+ * </ul>
+ * The local class definition acts as the schema when reading, which means all nodes sharing
+ * a ticket registry must run the same versions of the ticket classes and register the same
+ * classes. Payloads produced by standard java serialization are still accepted when decoding,
+ * allowing a registry to be migrated from {@link JavaTicketSerializationCodec}.
+ *
+ * @author Misagh Moayyed
+ * @since 5.2.0
+ */
+public class CompactTicketSerializationCodec implements TicketSerializationCodec {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CompactTicketSerializationCodec.class);
+
+    private static final byte FORMAT_MAGIC = (byte) 0xCA;
+    private static final byte FORMAT_VERSION = 1;
+
+    private static final byte JAVA_STREAM_MAGIC_HIGH = (byte) 0xAC;
+    private static final byte JAVA_STREAM_MAGIC_LOW = (byte) 0xED;
+
+    private static final int UNREGISTERED_CLASS = 0;
+    private static final int REGISTERED_CLASS = 1;
+
+    private static final int DEFAULT_BUFFER_SIZE = 512;
+
+    private static final String[] OPTIONAL_DEFAULT_CLASSES = {
+        "java.time.Ser",
+        "org.apereo.cas.authentication.principal.AbstractWebApplicationService",
+        "org.apereo.cas.authentication.principal.SimpleWebApplicationServiceImpl",
+        "org.apereo.cas.authentication.principal.Response$ResponseType",
+    };
+
+    private final Map<Integer, Class<?>> classesById = new ConcurrentHashMap<>();
+    private final Map<Class<?>, Integer> idsByClass = new ConcurrentHashMap<>();
+
+    public CompactTicketSerializationCodec() {
+        Arrays.asList(
+                AbstractTicket.class,
+                TicketGrantingTicketImpl.class,
+                ServiceTicketImpl.class,
+                ProxyGrantingTicketImpl.class,
+                ProxyTicketImpl.class,
+                DefaultAuthentication.class,
+                DefaultHandlerResult.class,
+                BasicCredentialMetaData.class,
+                SimplePrincipal.class,
+                AbstractCasExpirationPolicy.class,
+                AlwaysExpiresExpirationPolicy.class,
+                HardTimeoutExpirationPolicy.class,
+                MultiTimeUseOrTimeoutExpirationPolicy.class,
+                MultiTimeUseOrTimeoutExpirationPolicy.ServiceTicketExpirationPolicy.class,
+                MultiTimeUseOrTimeoutExpirationPolicy.ProxyTicketExpirationPolicy.class,
+                NeverExpiresExpirationPolicy.class,
+                RememberMeDelegatingExpirationPolicy.class,
+                ThrottledUseAndTimeoutExpirationPolicy.class,
+                TicketGrantingTicketExpirationPolicy.class,
+                TimeoutExpirationPolicy.class,
+                ArrayList.class,
+                HashMap.class,
+                LinkedHashMap.class,
+                HashSet.class,
+                LinkedHashSet.class,
+                Boolean.class,
+                Integer.class,
+                Long.class,
+                Number.class)
+                .forEach(this::register);
+
+        Arrays.stream(OPTIONAL_DEFAULT_CLASSES).forEach(this::register);
+    }
+
+    /**
+     * Instantiates a new codec that also registers the implementation class
+     * of every ticket definition known to the catalog.
+     *
+     * @param ticketCatalog the ticket catalog
+     */
+    public CompactTicketSerializationCodec(final TicketCatalog ticketCatalog) {
+        this();
+        ticketCatalog.findAll().forEach(definition -> register(definition.getImplementationClass()));
+    }
+
+    /**
+     * Register a class so that it is referenced by identifier in encoded payloads.
+     *
+     * @param clazz the class
+     */
+    public void register(final Class<?> clazz) {
+        final int id = clazz.getName().hashCode();
+        final Class<?> existing = this.classesById.putIfAbsent(id, clazz);
+        if (existing != null && !existing.equals(clazz)) {
+            throw new IllegalArgumentException("Unable to register " + clazz.getName()
+                    + "; its identifier collides with " + existing.getName());
+        }
+        this.idsByClass.put(clazz, id);
+        LOGGER.trace("Registered class [{}] with identifier [{}]", clazz.getName(), id);
+    }
+
+    /**
+     * Register a class by name, if it is available on the classpath.
+     *
+     * @param className the class name
+     */
+    public void register(final String className) {
+        try {
+            register(Class.forName(className, false, getClass().getClassLoader()));
+        } catch (final ClassNotFoundException e) {
+            LOGGER.trace("Class [{}] is not available and will not be registered", className);
+        }
+    }
+
+    @Override
+    public byte[] encode(final Ticket ticket) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(DEFAULT_BUFFER_SIZE);
+        encode(ticket, bytes);
+        return bytes.toByteArray();
+    }
+
+    @Override
+    public void encode(final Ticket ticket, final OutputStream outputStream) {
+        try {
+            outputStream.write(FORMAT_MAGIC);
+            outputStream.write(FORMAT_VERSION);
+            try (ObjectOutputStream out = new CompactObjectOutputStream(outputStream)) {
+                out.writeObject(ticket);
+            }
+        } catch (final IOException e) {
+            throw Throwables.propagate(e);
+        }
+    }
+
+    @Override
+    public Ticket decode(final byte[] bytes) {
+        if (bytes.length > 1 && bytes[0] == JAVA_STREAM_MAGIC_HIGH && bytes[1] == JAVA_STREAM_MAGIC_LOW) {
+            LOGGER.trace("Payload is encoded using standard java serialization");
+            return SerializationUtils.deserializeAndCheckObject(bytes, Ticket.class);
+        }
+        if (bytes.length < 2 || bytes[0] != FORMAT_MAGIC || bytes[1] != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Payload is not recognized as an encoded ticket");
+        }
+        final ByteArrayInputStream input = new ByteArrayInputStream(bytes, 2, bytes.length - 2);
+        try (ObjectInputStream in = new CompactObjectInputStream(input)) {
+            final Object result = in.readObject();
+            if (!(result instanceof Ticket)) {
+                throw new ClassCastException("Decoded object is of type " + result.getClass() + " when we were expecting a ticket");
+            }
+            return (Ticket) result;
+        } catch (final IOException | ClassNotFoundException e) {
+            throw Throwables.propagate(e);
+        }
+    }
+
+    /**
+     * Object output stream that omits the stream header and writes compact class references.
+     */
+    private class CompactObjectOutputStream extends ObjectOutputStream {
+        CompactObjectOutputStream(final OutputStream out) throws IOException {
+            super(out);
+        }
+
+        @Override
+        protected void writeStreamHeader() {
+        }
+
+        @Override
+        protected void writeClassDescriptor(final ObjectStreamClass desc) throws IOException {
+            final Class<?> clazz = desc.forClass();
+            final Integer id = clazz == null ? null : idsByClass.get(clazz);
+            if (id != null) {
+                writeByte(REGISTERED_CLASS);
+                writeInt(id);
+            } else {
+                writeByte(UNREGISTERED_CLASS);
+                writeUTF(desc.getName());
+            }
+        }
+    }
+
+    /**
+     * Object input stream that resolves compact class references against local class definitions.
+     */
+    private class CompactObjectInputStream extends ObjectInputStream {
+        CompactObjectInputStream(final InputStream in) throws IOException {
+            super(in);
+        }
+
+        @Override
+        protected void readStreamHeader() {
+        }
+
+        @Override
+        protected ObjectStreamClass readClassDescriptor() throws IOException, ClassNotFoundException {
+            final int type = readByte();
+            final Class<?> clazz;
+            if (type == REGISTERED_CLASS) {
+                final int id = readInt();
+                clazz = classesById.get(id);
+                if (clazz == null) {
+                    throw new InvalidClassException("Class identifier " + id + " is not registered with this codec");
+                }
+            } else if (type == UNREGISTERED_CLASS) {
+                clazz = Class.forName(readUTF(), false, CompactTicketSerializationCodec.class.getClassLoader());
+            } else {
+                throw new StreamCorruptedException("Unexpected class descriptor type " + type);
+            }
+            return ObjectStreamClass.lookupAny(clazz);
+        }
+    }
+}
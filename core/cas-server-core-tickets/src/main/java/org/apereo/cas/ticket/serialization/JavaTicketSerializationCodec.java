@@ -0,0 +1,31 @@
+package org.apereo.cas.ticket.serialization;
+
+import org.apereo.cas.ticket.Ticket;
+import org.apereo.cas.util.serialization.SerializationUtils;
+
+import java.io.OutputStream;
+
+/**
+ * This is {@link JavaTicketSerializationCodec} that relies on standard java serialization.
+ * This is the default codec.
+ *
+ * @author Misagh Moayyed
+ * @since 5.2.0
+ */
+public class JavaTicketSerializationCodec implements TicketSerializationCodec {
+
+    @Override
+    public byte[] encode(final Ticket ticket) {
+        return SerializationUtils.serialize(ticket);
+    }
+
+    @Override
+    public void encode(final Ticket ticket, final OutputStream outputStream) {
+        SerializationUtils.serialize(ticket, outputStream);
+    }
+
+    @Override
+    public Ticket decode(final byte[] bytes) {
+        return SerializationUtils.deserializeAndCheckObject(bytes, Ticket.class);
+    }
+}
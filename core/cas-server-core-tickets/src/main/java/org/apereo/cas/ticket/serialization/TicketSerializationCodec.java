@@ -0,0 +1,49 @@
+package org.apereo.cas.ticket.serialization;
+
+import com.google.common.base.Throwables;
+import org.apereo.cas.ticket.Ticket;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * This is {@link TicketSerializationCodec}. Converts tickets to and from their binary
+ * representation before they are encrypted and handed over to a ticket registry.
+ *
+ * @author Misagh Moayyed
+ * @since 5.2.0
+ */
+public interface TicketSerializationCodec {
+
+    /**
+     * Encode the ticket into bytes.
+     *
+     * @param ticket the ticket
+     * @return the encoded bytes
+     */
+    byte[] encode(Ticket ticket);
+
+    /**
+     * Encode the ticket into the given stream, which may be closed once the ticket is written.
+     * Codecs that serialize through a stream should override this to write directly into the
+     * stream, rather than building the encoded bytes first.
+     *
+     * @param ticket       the ticket
+     * @param outputStream the output stream
+     */
+    default void encode(final Ticket ticket, final OutputStream outputStream) {
+        try {
+            outputStream.write(encode(ticket));
+        } catch (final IOException e) {
+            throw Throwables.propagate(e);
+        }
+    }
+
+    /**
+     * Decode the ticket from bytes.
+     *
+     * @param bytes the bytes
+     * @return the ticket
+     */
+    Ticket decode(byte[] bytes);
+}
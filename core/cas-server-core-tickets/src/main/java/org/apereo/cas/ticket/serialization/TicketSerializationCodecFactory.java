@@ -0,0 +1,38 @@
+package org.apereo.cas.ticket.serialization;
+
+import org.apereo.cas.configuration.model.core.ticket.registry.TicketRegistryProperties;
+import org.apereo.cas.ticket.TicketCatalog;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This is {@link TicketSerializationCodecFactory} that builds the ticket serialization codec
+ * configured for ticket registries.
+ *
+ * @author Misagh Moayyed
+ * @since 5.2.0
+ */
+public final class TicketSerializationCodecFactory {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TicketSerializationCodecFactory.class);
+
+    private TicketSerializationCodecFactory() {
+    }
+
+    /**
+     * New ticket serialization codec, registering the ticket types known to the catalog if one is provided.
+     *
+     * @param registry      the registry settings
+     * @param ticketCatalog the ticket catalog, may be null
+     * @return the ticket serialization codec
+     */
+    public static TicketSerializationCodec newTicketSerializationCodec(final TicketRegistryProperties registry,
+                                                                       final TicketCatalog ticketCatalog) {
+        if (registry.getSerializationCodec() == TicketRegistryProperties.SerializationCodecs.COMPACT) {
+            LOGGER.debug("Tickets will be serialized using the compact ticket serialization codec");
+            return ticketCatalog == null
+                    ? new CompactTicketSerializationCodec()
+                    : new CompactTicketSerializationCodec(ticketCatalog);
+        }
+        return new JavaTicketSerializationCodec();
+    }
+}
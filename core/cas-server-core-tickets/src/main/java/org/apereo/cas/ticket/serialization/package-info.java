@@ -0,0 +1,5 @@
+/**
+ * Codecs that turn tickets into bytes for storage and replication by ticket registries.
+ * @since 5.2.0
+ */
+package org.apereo.cas.ticket.serialization;
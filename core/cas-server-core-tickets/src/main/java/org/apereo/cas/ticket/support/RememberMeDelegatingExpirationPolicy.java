@@ -70,23 +70,37 @@ public class RememberMeDelegatingExpirationPolicy extends AbstractCasExpirationP
 
     @Override
     public boolean isExpired(final TicketState ticketState) {
-        if (this.rememberMeExpirationPolicy != null && this.sessionExpirationPolicy != null) {
-
-            final Boolean b = (Boolean) ticketState.getAuthentication().getAttributes().
-                    get(RememberMeCredential.AUTHENTICATION_ATTRIBUTE_REMEMBER_ME);
-
-            if (b == null || b.equals(Boolean.FALSE)) {
-                LOGGER.debug("Ticket is not associated with a remember-me authentication. Invoking [{}]", this.sessionExpirationPolicy);
-                return this.sessionExpirationPolicy.isExpired(ticketState);
-            }
-
-            LOGGER.debug("Ticket is associated with a remember-me authentication. Invoking [{}]", this.rememberMeExpirationPolicy);
-            return this.rememberMeExpirationPolicy.isExpired(ticketState);
+        final ExpirationPolicy policy = getExpirationPolicyFor(ticketState);
+        if (policy != null) {
+            LOGGER.debug("Invoking [{}]", policy);
+            return policy.isExpired(ticketState);
         }
         LOGGER.warn("No expiration policy settings are defined");
         return false;
     }
 
+    /**
+     * Gets the expiration policy that applies to the ticket, depending on whether
+     * the ticket is associated with a remember-me authentication.
+     *
+     * @param ticketState the ticket state
+     * @return the expiration policy, or null if either policy is undefined
+     */
+    public ExpirationPolicy getExpirationPolicyFor(final TicketState ticketState) {
+        if (this.rememberMeExpirationPolicy == null || this.sessionExpirationPolicy == null) {
+            return null;
+        }
+        final Boolean b = (Boolean) ticketState.getAuthentication().getAttributes().
+                get(RememberMeCredential.AUTHENTICATION_ATTRIBUTE_REMEMBER_ME);
+
+        if (b == null || b.equals(Boolean.FALSE)) {
+            LOGGER.debug("Ticket is not associated with a remember-me authentication");
+            return this.sessionExpirationPolicy;
+        }
+        LOGGER.debug("Ticket is associated with a remember-me authentication");
+        return this.rememberMeExpirationPolicy;
+    }
+
     @JsonIgnore
     @Override
     public Long getTimeToLive() {
@@ -23,6 +23,8 @@ import org.springframework.test.util.AopTestUtils;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.Assert.*;
 
@@ -195,6 +197,23 @@ public abstract class AbstractTicketRegistryTests {
         }
     }
 
+    @Test
+    public void verifyUpdateAndAddTicket() {
+        TicketGrantingTicket tgt = new TicketGrantingTicketImpl(
+                TicketGrantingTicket.PREFIX,
+                CoreAuthenticationTestUtils.getAuthentication(),
+                new NeverExpiresExpirationPolicy());
+        this.ticketRegistry.addTicket(tgt);
+
+        final ServiceTicket st = tgt.grantServiceTicket("ST1", RegisteredServiceTestUtils.getService("TGT_UPDATE_ADD_TEST"),
+                new NeverExpiresExpirationPolicy(), false, false);
+        this.ticketRegistry.updateAndAddTicket(tgt, st);
+
+        tgt = this.ticketRegistry.getTicket(tgt.getId(), TicketGrantingTicket.class);
+        assertEquals(Collections.singleton("ST1"), tgt.getServices().keySet());
+        assertNotNull(this.ticketRegistry.getTicket("ST1", ServiceTicket.class));
+    }
+
     @Test
     public void verifyDeleteAllExistingTickets() {
         Assume.assumeTrue(isIterableRegistry());
@@ -286,6 +305,31 @@ public abstract class AbstractTicketRegistryTests {
         }
     }
 
+    @Test
+    public void verifyGetTicketsStreamMatchingQuery() {
+        Assume.assumeTrue(isIterableRegistry());
+        for (int i = 0; i < TICKETS_IN_REGISTRY; i++) {
+            final TicketGrantingTicket ticketGrantingTicket = new TicketGrantingTicketImpl(TicketGrantingTicket.PREFIX + "-QUERY" + i,
+                    CoreAuthenticationTestUtils.getAuthentication(i % 2 == 0 ? "casuser" : "other"), new NeverExpiresExpirationPolicy());
+            final ServiceTicket st = ticketGrantingTicket.grantServiceTicket(ServiceTicket.PREFIX + "-QUERY" + i,
+                    RegisteredServiceTestUtils.getService(), new NeverExpiresExpirationPolicy(), false, true);
+            this.ticketRegistry.addTicket(ticketGrantingTicket);
+            this.ticketRegistry.addTicket(st);
+        }
+
+        try (Stream<Ticket> tickets = this.ticketRegistry.getTicketsStream(TicketQuery.forType(ServiceTicket.class))) {
+            final Collection<Ticket> serviceTickets = tickets.collect(Collectors.toList());
+            assertEquals(TICKETS_IN_REGISTRY, serviceTickets.size());
+            assertTrue(serviceTickets.stream().allMatch(ServiceTicket.class::isInstance));
+        }
+        try (Stream<Ticket> tickets = this.ticketRegistry.getTicketsStream(new TicketQuery(TicketGrantingTicket.class, "casuser"))) {
+            assertEquals(TICKETS_IN_REGISTRY / 2, tickets.count());
+        }
+        try (Stream<Ticket> tickets = this.ticketRegistry.getTicketsStream(new TicketQuery(null, "other"))) {
+            assertEquals(TICKETS_IN_REGISTRY, tickets.count());
+        }
+    }
+
     @Test
     public void verifyDeleteTicketWithChildren() {
         try {
@@ -1,5 +1,15 @@
 package org.apereo.cas.ticket.registry;
 
+import org.apereo.cas.authentication.CoreAuthenticationTestUtils;
+import org.apereo.cas.authentication.principal.Service;
+import org.apereo.cas.services.RegisteredServiceTestUtils;
+import org.apereo.cas.ticket.ServiceTicket;
+import org.apereo.cas.ticket.Ticket;
+import org.apereo.cas.ticket.TicketGrantingTicket;
+import org.apereo.cas.ticket.TicketGrantingTicketImpl;
+import org.apereo.cas.ticket.proxy.ProxyGrantingTicket;
+import org.apereo.cas.ticket.proxy.ProxyTicket;
+import org.apereo.cas.ticket.support.NeverExpiresExpirationPolicy;
 import org.apereo.cas.util.cipher.NoOpCipherExecutor;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -7,8 +17,16 @@ import org.junit.runners.Parameterized;
 
 import static org.junit.Assert.*;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
 
 /**
  * Test case to test the DefaultTicketRegistry based on test cases to test all
@@ -38,4 +56,172 @@ public class DefaultTicketRegistryTests extends AbstractTicketRegistryTests {
     public void verifyOtherConstructor() {
         assertNotNull(new DefaultTicketRegistry(10, 10F, 5, NoOpCipherExecutor.getInstance()));
     }
+
+    @Test
+    public void verifyDeleteTicketWithProxyDescendants() throws Exception {
+        final TicketRegistry registry = getNewTicketRegistry();
+        final TicketGrantingTicket tgt = new TicketGrantingTicketImpl(TicketGrantingTicket.PREFIX + "-PARENT",
+                CoreAuthenticationTestUtils.getAuthentication(), new NeverExpiresExpirationPolicy());
+        registry.addTicket(tgt);
+
+        final Service service = RegisteredServiceTestUtils.getService("TGT_DELETE_TEST");
+        final ServiceTicket st = tgt.grantServiceTicket("ST-PARENT", service, new NeverExpiresExpirationPolicy(), false, false);
+        registry.addTicket(st);
+
+        final ProxyGrantingTicket pgt = st.grantProxyGrantingTicket(ProxyGrantingTicket.PROXY_GRANTING_TICKET_PREFIX + "-CHILD",
+                CoreAuthenticationTestUtils.getAuthentication(), new NeverExpiresExpirationPolicy());
+        registry.addTicket(pgt);
+
+        final ProxyTicket pt = pgt.grantProxyTicket("PT-CHILD", service, new NeverExpiresExpirationPolicy(), false);
+        registry.addTicket(pt);
+        registry.updateTicket(tgt);
+
+        assertEquals(4, registry.deleteTicket(tgt.getId()));
+        assertNull(registry.getTicket(tgt.getId()));
+        assertNull(registry.getTicket(st.getId()));
+        assertNull(registry.getTicket(pgt.getId()));
+        assertNull(registry.getTicket(pt.getId()));
+    }
+
+    @Test
+    public void verifyDeleteSingleChildDetachesFromParent() throws Exception {
+        final TicketRegistry registry = getNewTicketRegistry();
+        final TicketGrantingTicket tgt = new TicketGrantingTicketImpl(TicketGrantingTicket.PREFIX + "-PARENT",
+                CoreAuthenticationTestUtils.getAuthentication(), new NeverExpiresExpirationPolicy());
+        registry.addTicket(tgt);
+
+        final Service service = RegisteredServiceTestUtils.getService("TGT_DELETE_TEST");
+        final ServiceTicket st1 = tgt.grantServiceTicket("ST-1", service, new NeverExpiresExpirationPolicy(), false, false);
+        final ServiceTicket st2 = tgt.grantServiceTicket("ST-2", service, new NeverExpiresExpirationPolicy(), false, false);
+        registry.addTicket(st1);
+        registry.addTicket(st2);
+
+        assertEquals(1, registry.deleteTicket(st1.getId()));
+        assertEquals(2, registry.deleteTicket(tgt.getId()));
+        assertTrue(registry.getTickets().isEmpty());
+    }
+
+    @Test
+    public void verifySessionsAreIndexedByPrincipal() throws Exception {
+        final TicketRegistry registry = getNewTicketRegistry();
+        final TicketGrantingTicket tgt1 = newTicketGrantingTicket("-1", "casuser");
+        final TicketGrantingTicket tgt2 = newTicketGrantingTicket("-2", "casuser");
+        registry.addTicket(tgt1);
+        registry.addTicket(tgt2);
+        registry.addTicket(newTicketGrantingTicket("-3", "other"));
+        registry.addTicket(tgt1.grantServiceTicket("ST-1", RegisteredServiceTestUtils.getService("TGT_INDEX_TEST"),
+                new NeverExpiresExpirationPolicy(), false, false));
+        registry.updateTicket(tgt1);
+
+        assertEquals(2, registry.getSessionsForPrincipal("casuser").size());
+        assertEquals(1, registry.getSessionsForPrincipal("other").size());
+        assertTrue(registry.getSessionsForPrincipal("unknown").isEmpty());
+
+        registry.deleteTicket(tgt1.getId());
+        assertEquals(Collections.singletonList(tgt2.getId()),
+                registry.getSessionsForPrincipal("casuser").stream().map(Ticket::getId).collect(Collectors.toList()));
+
+        registry.deleteAll();
+        assertTrue(registry.getSessionsForPrincipal("casuser").isEmpty());
+    }
+
+    @Test
+    public void verifySessionsArePaged() throws Exception {
+        final TicketRegistry registry = getNewTicketRegistry();
+        for (int i = 0; i < 5; i++) {
+            final TicketGrantingTicket tgt = newTicketGrantingTicket("-" + i, "casuser" + i);
+            registry.addTicket(tgt);
+            registry.addTicket(tgt.grantServiceTicket("ST-" + i, RegisteredServiceTestUtils.getService("TGT_PAGE_TEST"),
+                    new NeverExpiresExpirationPolicy(), false, false));
+        }
+
+        final List<String> ids = new ArrayList<>();
+        String cursor = null;
+        List<TicketGrantingTicket> page;
+        do {
+            page = registry.getSessions(cursor, 2);
+            assertTrue(page.size() <= 2);
+            page.forEach(t -> ids.add(t.getId()));
+            cursor = page.isEmpty() ? null : page.get(page.size() - 1).getId();
+        } while (page.size() == 2);
+
+        assertEquals(5, ids.size());
+        assertEquals(5, new HashSet<>(ids).size());
+    }
+
+    @Test
+    public void verifyTicketCountsAreMaintained() throws Exception {
+        final TicketRegistry registry = getNewTicketRegistry();
+        final TicketGrantingTicket tgt = newTicketGrantingTicket("-COUNT", "casuser");
+        registry.addTicket(tgt);
+        registry.addTicket(newTicketGrantingTicket("-OTHER", "other"));
+
+        final Service service = RegisteredServiceTestUtils.getService("TGT_COUNT_TEST");
+        final ServiceTicket st = tgt.grantServiceTicket("ST-COUNT", service, new NeverExpiresExpirationPolicy(), false, false);
+        registry.addTicket(st);
+        final ProxyGrantingTicket pgt = st.grantProxyGrantingTicket(ProxyGrantingTicket.PROXY_GRANTING_TICKET_PREFIX + "-COUNT",
+                CoreAuthenticationTestUtils.getAuthentication(), new NeverExpiresExpirationPolicy());
+        registry.addTicket(pgt);
+        final ProxyTicket pt = pgt.grantProxyTicket("PT-COUNT", service, new NeverExpiresExpirationPolicy(), false);
+        registry.addTicket(pt);
+        registry.updateTicket(tgt);
+        registry.updateTicket(tgt);
+
+        assertEquals(3, registry.sessionCount());
+        assertEquals(2, registry.serviceTicketCount());
+
+        registry.deleteSingleTicket(pt.getId());
+        assertEquals(1, registry.serviceTicketCount());
+
+        registry.deleteTicket(tgt.getId());
+        assertEquals(1, registry.sessionCount());
+        assertEquals(0, registry.serviceTicketCount());
+
+        registry.deleteAll();
+        assertEquals(0, registry.sessionCount());
+    }
+
+    @Test
+    public void verifyConcurrentAddAndDeleteKeepIndexesInStep() throws Exception {
+        final TicketRegistry registry = getNewTicketRegistry();
+        final List<TicketGrantingTicket> tickets = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            tickets.add(newTicketGrantingTicket("-RACE-" + i, "casuser"));
+        }
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<?>> results = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                final boolean adding = t % 2 == 0;
+                results.add(executor.submit(() -> {
+                    for (int round = 0; round < 200; round++) {
+                        for (final TicketGrantingTicket tgt : tickets) {
+                            if (adding) {
+                                registry.addTicket(tgt);
+                            } else {
+                                registry.deleteSingleTicket(tgt.getId());
+                            }
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (final Future<?> result : results) {
+                result.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(registry.getTickets().size(), registry.sessionCount());
+        assertEquals(registry.getTickets().size(), registry.getSessionsForPrincipal("casuser").size());
+        tickets.forEach(tgt -> registry.deleteSingleTicket(tgt.getId()));
+        assertEquals(0, registry.sessionCount());
+        assertTrue(registry.getSessionsForPrincipal("casuser").isEmpty());
+    }
+
+    private static TicketGrantingTicket newTicketGrantingTicket(final String suffix, final String principal) {
+        return new TicketGrantingTicketImpl(TicketGrantingTicket.PREFIX + suffix,
+                CoreAuthenticationTestUtils.getAuthentication(principal), new NeverExpiresExpirationPolicy());
+    }
 }
@@ -0,0 +1,109 @@
+package org.apereo.cas.ticket.registry;
+
+import org.apereo.cas.CipherExecutor;
+import org.apereo.cas.authentication.CoreAuthenticationTestUtils;
+import org.apereo.cas.services.RegisteredServiceTestUtils;
+import org.apereo.cas.ticket.Ticket;
+import org.apereo.cas.ticket.TicketGrantingTicket;
+import org.apereo.cas.ticket.TicketGrantingTicketImpl;
+import org.apereo.cas.ticket.support.HardTimeoutExpirationPolicy;
+import org.apereo.cas.ticket.support.TicketGrantingTicketExpirationPolicy;
+import org.apereo.cas.util.cipher.DefaultTicketCipherExecutor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of encoding a ticket-granting ticket for storage in a ticket registry,
+ * with the ticket serialized straight into the cipher ({@code STREAMING}) or into an intermediate
+ * array that is then encrypted ({@code ARRAY}). Run via {@link #main(String[])} from the test classpath;
+ * the GC profiler reports the allocation rate of each.
+ *
+ * @author Misagh Moayyed
+ * @since 5.2.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TicketEncodingBenchmark {
+    private static final int SERVICE_TICKET_COUNT = 3;
+
+    @Param({"STREAMING", "ARRAY"})
+    private String encodingType;
+
+    private DefaultTicketRegistry registry;
+    private Ticket ticket;
+
+    @Setup
+    public void setup() {
+        final DefaultTicketCipherExecutor cipher = new DefaultTicketCipherExecutor("Ng8rEpWMgmO4SaU9",
+                "szxK-5_eJjs-aUj-64MpUZ-GPPzGLhYPLGl0wrYjYNVAGva2P0lLe6UGKGM7k8dWxsOVGutZWgvmY3l5oVPO3w", 512, 16);
+        this.registry = new DefaultTicketRegistry();
+        this.registry.setCipherExecutor("STREAMING".equals(encodingType) ? cipher : new ArrayCipherExecutor(cipher));
+
+        final TicketGrantingTicket tgt = new TicketGrantingTicketImpl(TicketGrantingTicket.PREFIX + "-BENCHMARK",
+                CoreAuthenticationTestUtils.getAuthentication(), new TicketGrantingTicketExpirationPolicy(28_800, 7_200));
+        for (int i = 0; i < SERVICE_TICKET_COUNT; i++) {
+            tgt.grantServiceTicket("ST-BENCHMARK-" + i, RegisteredServiceTestUtils.getService("https://app" + i + ".example.org"),
+                    new HardTimeoutExpirationPolicy(10), false, false);
+        }
+        this.ticket = tgt;
+    }
+
+    @Benchmark
+    public Ticket encode() {
+        return this.registry.encodeTicket(this.ticket);
+    }
+
+    public static void main(final String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(TicketEncodingBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class).build()).run();
+    }
+
+    /**
+     * Hides the streaming capability of the wrapped cipher.
+     */
+    private static class ArrayCipherExecutor implements CipherExecutor<byte[], byte[]> {
+        private final CipherExecutor<byte[], byte[]> delegate;
+
+        ArrayCipherExecutor(final CipherExecutor<byte[], byte[]> delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public byte[] encode(final byte[] value) {
+            return this.delegate.encode(value);
+        }
+
+        @Override
+        public byte[] decode(final byte[] value) {
+            return this.delegate.decode(value);
+        }
+
+        @Override
+        public boolean isEnabled() {
+            return this.delegate.isEnabled();
+        }
+
+        @Override
+        public String getName() {
+            return this.delegate.getName();
+        }
+    }
+}
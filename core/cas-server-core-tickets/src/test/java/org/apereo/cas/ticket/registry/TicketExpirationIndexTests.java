@@ -0,0 +1,109 @@
+package org.apereo.cas.ticket.registry;
+
+import org.apereo.cas.authentication.CoreAuthenticationTestUtils;
+import org.apereo.cas.ticket.Ticket;
+import org.apereo.cas.ticket.TicketGrantingTicket;
+import org.apereo.cas.ticket.TicketGrantingTicketImpl;
+import org.apereo.cas.ticket.support.AlwaysExpiresExpirationPolicy;
+import org.apereo.cas.ticket.support.HardTimeoutExpirationPolicy;
+import org.apereo.cas.ticket.support.NeverExpiresExpirationPolicy;
+import org.apereo.cas.ticket.support.RememberMeDelegatingExpirationPolicy;
+import org.junit.Test;
+
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * This is {@link TicketExpirationIndexTests}.
+ *
+ * @author Misagh Moayyed
+ * @since 5.2.0
+ */
+public class TicketExpirationIndexTests {
+    private static final long RESOLUTION = 1000;
+    private static final long MAX_RECHECK = 60_000;
+
+    @Test
+    public void verifyDueTicketsArePolled() {
+        final TicketExpirationIndex index = new TicketExpirationIndex(RESOLUTION, MAX_RECHECK);
+        index.track(new TicketGrantingTicketImpl("TGT-EXPIRED", CoreAuthenticationTestUtils.getAuthentication(),
+                new AlwaysExpiresExpirationPolicy()));
+        index.track(new TicketGrantingTicketImpl("TGT-VALID", CoreAuthenticationTestUtils.getAuthentication(),
+                new HardTimeoutExpirationPolicy(30)));
+        assertEquals(2, index.size());
+
+        final Set<String> due = index.pollDue(System.currentTimeMillis() + RESOLUTION);
+        assertEquals(1, due.size());
+        assertTrue(due.contains("TGT-EXPIRED"));
+        assertEquals(1, index.size());
+
+        assertTrue(index.pollDue(System.currentTimeMillis() + 2 * MAX_RECHECK).contains("TGT-VALID"));
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    public void verifyTicketsAreRecheckedWithinMaxInterval() {
+        final TicketExpirationIndex index = new TicketExpirationIndex(RESOLUTION, MAX_RECHECK);
+        index.track(new TicketGrantingTicketImpl("TGT-NEVER", CoreAuthenticationTestUtils.getAuthentication(),
+                new NeverExpiresExpirationPolicy()));
+        assertTrue(index.pollDue(System.currentTimeMillis()).isEmpty());
+        assertTrue(index.pollDue(System.currentTimeMillis() + MAX_RECHECK + RESOLUTION).contains("TGT-NEVER"));
+    }
+
+    @Test
+    public void verifyRememberMeDelegateDecidesDeadline() {
+        final TicketExpirationIndex index = new TicketExpirationIndex(RESOLUTION, 10 * MAX_RECHECK);
+        final RememberMeDelegatingExpirationPolicy policy = new RememberMeDelegatingExpirationPolicy(
+                new HardTimeoutExpirationPolicy(10 * MAX_RECHECK), new HardTimeoutExpirationPolicy(30));
+        index.track(new TicketGrantingTicketImpl("TGT-SESSION", CoreAuthenticationTestUtils.getAuthentication(), policy));
+        assertTrue(index.pollDue(System.currentTimeMillis()).isEmpty());
+        assertTrue(index.pollDue(System.currentTimeMillis() + 30 * RESOLUTION + RESOLUTION).contains("TGT-SESSION"));
+    }
+
+    @Test
+    public void verifyValidTicketPastDeadlineIsNotRevisitedEveryRun() {
+        final TicketExpirationIndex index = new TicketExpirationIndex(RESOLUTION, MAX_RECHECK) {
+            @Override
+            protected long getExpirationDeadline(final Ticket ticket, final long now) {
+                return now - RESOLUTION;
+            }
+        };
+        index.track(new TicketGrantingTicketImpl("TGT-VALID", CoreAuthenticationTestUtils.getAuthentication(),
+                new NeverExpiresExpirationPolicy()));
+        index.track(new TicketGrantingTicketImpl("TGT-EXPIRED", CoreAuthenticationTestUtils.getAuthentication(),
+                new AlwaysExpiresExpirationPolicy()));
+
+        final Set<String> due = index.pollDue(System.currentTimeMillis());
+        assertEquals(1, due.size());
+        assertTrue(due.contains("TGT-EXPIRED"));
+        assertTrue(index.pollDue(System.currentTimeMillis() + MAX_RECHECK + RESOLUTION).contains("TGT-VALID"));
+    }
+
+    @Test
+    public void verifyRetrackAndUntrack() {
+        final TicketExpirationIndex index = new TicketExpirationIndex(RESOLUTION, MAX_RECHECK);
+        final TicketGrantingTicket tgt = new TicketGrantingTicketImpl("TGT-1", CoreAuthenticationTestUtils.getAuthentication(),
+                new HardTimeoutExpirationPolicy(30));
+        index.track(tgt);
+        index.track(tgt);
+        assertEquals(1, index.size());
+        index.untrack(tgt.getId());
+        assertEquals(0, index.size());
+        assertTrue(index.pollDue(System.currentTimeMillis() + 2 * MAX_RECHECK).isEmpty());
+    }
+
+    @Test
+    public void verifyRegistryFeedsIndex() {
+        final TicketExpirationIndex index = new TicketExpirationIndex(RESOLUTION, MAX_RECHECK);
+        final DefaultTicketRegistry registry = new DefaultTicketRegistry();
+        registry.setExpirationIndex(index);
+        assertTrue(index.isTracking());
+
+        registry.addTicket(new TicketGrantingTicketImpl("TGT-1", CoreAuthenticationTestUtils.getAuthentication(),
+                new HardTimeoutExpirationPolicy(30)));
+        assertEquals(1, index.size());
+        registry.deleteTicket("TGT-1");
+        assertEquals(0, index.size());
+    }
+}
@@ -0,0 +1,65 @@
+package org.apereo.cas.ticket.serialization;
+
+import org.apereo.cas.authentication.CoreAuthenticationTestUtils;
+import org.apereo.cas.services.RegisteredServiceTestUtils;
+import org.apereo.cas.ticket.ServiceTicket;
+import org.apereo.cas.ticket.Ticket;
+import org.apereo.cas.ticket.TicketGrantingTicket;
+import org.apereo.cas.ticket.TicketGrantingTicketImpl;
+import org.apereo.cas.ticket.support.HardTimeoutExpirationPolicy;
+import org.apereo.cas.ticket.support.NeverExpiresExpirationPolicy;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * This is {@link CompactTicketSerializationCodecTests}.
+ *
+ * @author Misagh Moayyed
+ * @since 5.2.0
+ */
+public class CompactTicketSerializationCodecTests {
+    private final TicketSerializationCodec compactCodec = new CompactTicketSerializationCodec();
+    private final TicketSerializationCodec javaCodec = new JavaTicketSerializationCodec();
+
+    @Test
+    public void verifyTicketGrantingTicketRoundTrip() {
+        final TicketGrantingTicket tgt = newTicketGrantingTicket();
+        final ServiceTicket st = tgt.grantServiceTicket("ST-1", RegisteredServiceTestUtils.getService(),
+                new HardTimeoutExpirationPolicy(30), false, true);
+
+        final Ticket decoded = compactCodec.decode(compactCodec.encode(tgt));
+        assertEquals(tgt, decoded);
+        final TicketGrantingTicket result = (TicketGrantingTicket) decoded;
+        assertEquals(tgt.getAuthentication(), result.getAuthentication());
+        assertEquals(tgt.getCountOfUses(), result.getCountOfUses());
+        assertTrue(result.getServices().containsKey(st.getId()));
+
+        final ServiceTicket decodedServiceTicket = (ServiceTicket) compactCodec.decode(compactCodec.encode(st));
+        assertEquals(st, decodedServiceTicket);
+        assertEquals(st.getService(), decodedServiceTicket.getService());
+        assertEquals(tgt, decodedServiceTicket.getGrantingTicket());
+    }
+
+    @Test
+    public void verifyPayloadIsSmallerThanJavaSerialization() {
+        final TicketGrantingTicket tgt = newTicketGrantingTicket();
+        assertTrue(compactCodec.encode(tgt).length < javaCodec.encode(tgt).length);
+    }
+
+    @Test
+    public void verifyJavaSerializedPayloadCanBeDecoded() {
+        final TicketGrantingTicket tgt = newTicketGrantingTicket();
+        assertEquals(tgt, compactCodec.decode(javaCodec.encode(tgt)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void verifyUnknownPayloadIsRejected() {
+        compactCodec.decode(new byte[]{1, 2, 3});
+    }
+
+    private static TicketGrantingTicket newTicketGrantingTicket() {
+        return new TicketGrantingTicketImpl(TicketGrantingTicket.PREFIX + "-1",
+                CoreAuthenticationTestUtils.getAuthentication(), new NeverExpiresExpirationPolicy());
+    }
+}
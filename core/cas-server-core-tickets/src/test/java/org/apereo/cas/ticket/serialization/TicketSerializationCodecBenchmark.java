@@ -0,0 +1,81 @@
+package org.apereo.cas.ticket.serialization;
+
+import org.apereo.cas.authentication.CoreAuthenticationTestUtils;
+import org.apereo.cas.services.RegisteredServiceTestUtils;
+import org.apereo.cas.ticket.Ticket;
+import org.apereo.cas.ticket.TicketGrantingTicket;
+import org.apereo.cas.ticket.TicketGrantingTicketImpl;
+import org.apereo.cas.ticket.support.HardTimeoutExpirationPolicy;
+import org.apereo.cas.ticket.support.TicketGrantingTicketExpirationPolicy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of encoding and decoding a ticket-granting ticket with a few granted service tickets
+ * using each of the available {@link TicketSerializationCodec} implementations. The size of the produced
+ * payload is logged during setup. Run via {@link #main(String[])} from the test classpath.
+ *
+ * @author Misagh Moayyed
+ * @since 5.2.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TicketSerializationCodecBenchmark {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TicketSerializationCodecBenchmark.class);
+    private static final int SERVICE_TICKET_COUNT = 3;
+
+    @Param({"JAVA", "COMPACT"})
+    private String codecType;
+
+    private TicketSerializationCodec codec;
+    private Ticket ticket;
+    private byte[] payload;
+
+    @Setup
+    public void setup() {
+        this.codec = "COMPACT".equals(codecType) ? new CompactTicketSerializationCodec() : new JavaTicketSerializationCodec();
+
+        final TicketGrantingTicket tgt = new TicketGrantingTicketImpl(TicketGrantingTicket.PREFIX + "-BENCHMARK",
+                CoreAuthenticationTestUtils.getAuthentication(), new TicketGrantingTicketExpirationPolicy(28_800, 7_200));
+        for (int i = 0; i < SERVICE_TICKET_COUNT; i++) {
+            tgt.grantServiceTicket("ST-BENCHMARK-" + i, RegisteredServiceTestUtils.getService("https://app" + i + ".example.org"),
+                    new HardTimeoutExpirationPolicy(10), false, false);
+        }
+        this.ticket = tgt;
+        this.payload = this.codec.encode(tgt);
+        LOGGER.info("[{}] codec payload size is [{}] bytes", codecType, this.payload.length);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return this.codec.encode(this.ticket);
+    }
+
+    @Benchmark
+    public Ticket decode() {
+        return this.codec.decode(this.payload);
+    }
+
+    public static void main(final String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(TicketSerializationCodecBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -1,7 +1,6 @@
 package org.apereo.cas.util.cipher;
 
 import org.apereo.cas.CipherExecutor;
-import org.apereo.cas.util.EncodingUtils;
 import org.jose4j.keys.AesKey;
 
 import java.nio.charset.StandardCharsets;
@@ -16,6 +15,8 @@ public abstract class AbstractCipherExecutor<T, R> implements CipherExecutor<T,
 
     private AesKey signingKey;
 
+    private HmacJsonWebSignatureSigner signer = new HmacJsonWebSignatureSigner(null);
+
     /**
      * Instantiates a new cipher executor.
      */
@@ -33,6 +34,7 @@ public abstract class AbstractCipherExecutor<T, R> implements CipherExecutor<T,
 
     public void setSigningKey(final String signingSecretKey) {
         this.signingKey = new AesKey(signingSecretKey.getBytes(StandardCharsets.UTF_8));
+        this.signer = new HmacJsonWebSignatureSigner(this.signingKey);
     }
 
     /**
@@ -42,7 +44,19 @@ public abstract class AbstractCipherExecutor<T, R> implements CipherExecutor<T,
      * @return the byte [ ]
      */
     protected byte[] sign(final byte[] value) {
-        return EncodingUtils.signJws(this.signingKey, value);
+        return this.signer.sign(value);
+    }
+
+    /**
+     * Sign a range of the given array by first turning it into a base64 encoded string.
+     *
+     * @param value  the array holding the value
+     * @param offset the offset of the value
+     * @param length the length of the value
+     * @return the byte [ ]
+     */
+    protected byte[] sign(final byte[] value, final int offset, final int length) {
+        return this.signer.sign(value, offset, length);
     }
 
     /**
@@ -53,7 +67,7 @@ public abstract class AbstractCipherExecutor<T, R> implements CipherExecutor<T,
      * be decoded, or null.
      */
     protected byte[] verifySignature(final byte[] value) {
-        return EncodingUtils.verifyJwsSignature(this.signingKey, value);
+        return this.signer.verify(value);
     }
 
     @Override
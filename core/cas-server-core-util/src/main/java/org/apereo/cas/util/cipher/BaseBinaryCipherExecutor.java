@@ -3,36 +3,61 @@ package org.apereo.cas.util.cipher;
 import com.google.common.base.Throwables;
 import org.apache.commons.lang3.RandomStringUtils;
 import org.apache.commons.lang3.StringUtils;
-import org.apache.shiro.crypto.AesCipherService;
-import org.apache.shiro.crypto.CipherService;
+import org.apereo.cas.util.io.ReusableByteArrayOutputStream;
 import org.jose4j.jwk.JsonWebKey;
 import org.jose4j.jwk.OctJwkGenerator;
 import org.jose4j.jwk.OctetSequenceJsonWebKey;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.security.Key;
+import java.security.SecureRandom;
+import java.util.Arrays;
 import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * A implementation that is based on algorithms
  * provided by the default platform's JCE. By default AES encryption is
- * used.
+ * used, in CBC mode with a random initialization vector that is prepended
+ * to the encrypted value.
  *
  * @author Misagh Moayyed
  * @since 4.2
  */
-public abstract class BaseBinaryCipherExecutor extends AbstractCipherExecutor<byte[], byte[]> {
+public abstract class BaseBinaryCipherExecutor extends AbstractCipherExecutor<byte[], byte[]> implements StreamingCipherExecutor {
     private static final Logger LOGGER = LoggerFactory.getLogger(BaseBinaryCipherExecutor.class);
 
+    private static final String CIPHER_ALGORITHM = "AES";
+    private static final String CIPHER_TRANSFORMATION = "AES/CBC/PKCS5Padding";
+    private static final int IV_LENGTH_IN_BYTES = 16;
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final int INITIAL_BUFFER_SIZE = 4096;
+    private static final int MAX_RETAINED_BUFFER_SIZE = 256 * 1024;
+
+    private final String encryptionSecretKey;
+
+    private final Key encryptionKey;
+
     /**
-     * Secret key IV algorithm. Default is {@code AES}.
+     * Each thread keeps its own cipher, as ciphers are not thread-safe
+     * and looking one up for every call is costly.
      */
-    private String secretKeyAlgorithm = "AES";
+    private final ThreadLocal<Cipher> ciphers = ThreadLocal.withInitial(BaseBinaryCipherExecutor::newCipher);
 
-    private final String encryptionSecretKey;
+    /**
+     * Each thread keeps a buffer for values that are encrypted while being written.
+     * The buffer is taken out while in use, and buffers that grew past
+     * {@link #MAX_RETAINED_BUFFER_SIZE} are not kept.
+     */
+    private final ThreadLocal<ReusableByteArrayOutputStream> buffers = new ThreadLocal<>();
 
     /**
      * Instantiates a new cryptic ticket cipher executor.
@@ -66,24 +91,49 @@ public abstract class BaseBinaryCipherExecutor extends AbstractCipherExecutor<by
         } else {
             this.encryptionSecretKey = encryptionSecretKey;
         }
+        this.encryptionKey = new SecretKeySpec(this.encryptionSecretKey.getBytes(StandardCharsets.UTF_8), CIPHER_ALGORITHM);
     }
 
-
-    public void setSecretKeyAlgorithm(final String secretKeyAlgorithm) {
-        this.secretKeyAlgorithm = secretKeyAlgorithm;
+    @Override
+    public byte[] encode(final byte[] value) {
+        try {
+            final byte[] iv = new byte[IV_LENGTH_IN_BYTES];
+            RANDOM.nextBytes(iv);
+            final Cipher cipher = initCipher(Cipher.ENCRYPT_MODE, new IvParameterSpec(iv));
+            final byte[] result = new byte[IV_LENGTH_IN_BYTES + cipher.getOutputSize(value.length)];
+            System.arraycopy(iv, 0, result, 0, IV_LENGTH_IN_BYTES);
+            final int length = cipher.doFinal(value, 0, value.length, result, IV_LENGTH_IN_BYTES);
+            return sign(length + IV_LENGTH_IN_BYTES == result.length ? result : Arrays.copyOf(result, length + IV_LENGTH_IN_BYTES));
+        } catch (final Exception e) {
+            LOGGER.error(e.getMessage(), e);
+            throw Throwables.propagate(e);
+        }
     }
 
     @Override
-    public byte[] encode(final byte[] value) {
+    public byte[] encode(final Consumer<OutputStream> writer) {
+        ReusableByteArrayOutputStream buffer = this.buffers.get();
+        if (buffer == null) {
+            buffer = new ReusableByteArrayOutputStream(INITIAL_BUFFER_SIZE);
+        } else {
+            this.buffers.remove();
+        }
         try {
-            final Key key = new SecretKeySpec(this.encryptionSecretKey.getBytes(StandardCharsets.UTF_8),
-                    this.secretKeyAlgorithm);
-            final CipherService cipher = new AesCipherService();
-            final byte[] result = cipher.encrypt(value, key.getEncoded()).getBytes();
-            return sign(result);
+            final byte[] iv = new byte[IV_LENGTH_IN_BYTES];
+            RANDOM.nextBytes(iv);
+            buffer.write(iv, 0, IV_LENGTH_IN_BYTES);
+            try (EncryptingOutputStream out = new EncryptingOutputStream(initCipher(Cipher.ENCRYPT_MODE, new IvParameterSpec(iv)), buffer)) {
+                writer.accept(out);
+            }
+            return sign(buffer.getBuffer(), 0, buffer.size());
         } catch (final Exception e) {
             LOGGER.error(e.getMessage(), e);
             throw Throwables.propagate(e);
+        } finally {
+            buffer.reset();
+            if (buffer.capacity() <= MAX_RETAINED_BUFFER_SIZE) {
+                this.buffers.set(buffer);
+            }
         }
     }
 
@@ -91,10 +141,74 @@ public abstract class BaseBinaryCipherExecutor extends AbstractCipherExecutor<by
     public byte[] decode(final byte[] value) {
         try {
             final byte[] verifiedValue = verifySignature(value);
-            final Key key = new SecretKeySpec(this.encryptionSecretKey.getBytes(StandardCharsets.UTF_8),
-                    this.secretKeyAlgorithm);
-            final CipherService cipher = new AesCipherService();
-            return cipher.decrypt(verifiedValue, key.getEncoded()).getBytes();
+            final Cipher cipher = initCipher(Cipher.DECRYPT_MODE, new IvParameterSpec(verifiedValue, 0, IV_LENGTH_IN_BYTES));
+            return cipher.doFinal(verifiedValue, IV_LENGTH_IN_BYTES, verifiedValue.length - IV_LENGTH_IN_BYTES);
+        } catch (final Exception e) {
+            throw Throwables.propagate(e);
+        }
+    }
+
+    private Cipher initCipher(final int mode, final IvParameterSpec iv) {
+        final Cipher cipher = this.ciphers.get();
+        try {
+            cipher.init(mode, this.encryptionKey, iv);
+            return cipher;
+        } catch (final GeneralSecurityException e) {
+            throw new IllegalArgumentException("Unable to init cipher instance.", e);
+        }
+    }
+
+    /**
+     * Output stream that encrypts written bytes straight into the end of a buffer.
+     */
+    private static class EncryptingOutputStream extends OutputStream {
+        private final Cipher cipher;
+        private final ReusableByteArrayOutputStream buffer;
+        private final byte[] single = new byte[1];
+        private boolean closed;
+
+        EncryptingOutputStream(final Cipher cipher, final ReusableByteArrayOutputStream buffer) {
+            this.cipher = cipher;
+            this.buffer = buffer;
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            this.single[0] = (byte) b;
+            write(this.single, 0, 1);
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            if (this.closed) {
+                throw new IOException("Stream is closed");
+            }
+            try {
+                final byte[] target = this.buffer.reserve(this.cipher.getOutputSize(len));
+                this.buffer.advance(this.cipher.update(b, off, len, target, this.buffer.size()));
+            } catch (final GeneralSecurityException e) {
+                throw new IOException(e);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (this.closed) {
+                return;
+            }
+            this.closed = true;
+            try {
+                final byte[] target = this.buffer.reserve(this.cipher.getOutputSize(0));
+                this.buffer.advance(this.cipher.doFinal(target, this.buffer.size()));
+            } catch (final GeneralSecurityException e) {
+                throw new IOException(e);
+            }
+        }
+    }
+
+    private static Cipher newCipher() {
+        try {
+            return Cipher.getInstance(CIPHER_TRANSFORMATION);
         } catch (final Exception e) {
             throw Throwables.propagate(e);
         }
@@ -5,11 +5,10 @@ import org.apache.commons.lang3.StringUtils;
 import org.apereo.cas.CipherExecutor;
 import org.apereo.cas.util.EncodingUtils;
 import org.jose4j.jwe.ContentEncryptionAlgorithmIdentifiers;
-import org.jose4j.jwe.JsonWebEncryption;
-import org.jose4j.jwe.KeyManagementAlgorithmIdentifiers;
 import org.jose4j.jwk.JsonWebKey;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
 
 import java.io.Serializable;
 import java.nio.charset.StandardCharsets;
@@ -25,7 +24,7 @@ import java.util.Map;
  * @author Misagh Moayyed
  * @since 4.1
  */
-public abstract class BaseStringCipherExecutor extends AbstractCipherExecutor<Serializable, String> {
+public abstract class BaseStringCipherExecutor extends AbstractCipherExecutor<Serializable, String> implements DisposableBean {
     private static final Logger LOGGER = LoggerFactory.getLogger(BaseStringCipherExecutor.class);
 
     private static final int ENCRYPTION_KEY_SIZE = 256;
@@ -34,7 +33,7 @@ public abstract class BaseStringCipherExecutor extends AbstractCipherExecutor<Se
 
     private String contentEncryptionAlgorithmIdentifier;
 
-    private Key secretKeyEncryptionKey;
+    private DirectJsonWebEncryptionCipher encryptionCipher;
 
     private BaseStringCipherExecutor() {
     }
@@ -92,8 +91,9 @@ public abstract class BaseStringCipherExecutor extends AbstractCipherExecutor<Se
 
 
         setSigningKey(signingKeyToUse);
-        this.secretKeyEncryptionKey = prepareJsonWebTokenKey(secretKeyToUse);
+        final Key secretKeyEncryptionKey = prepareJsonWebTokenKey(secretKeyToUse);
         this.contentEncryptionAlgorithmIdentifier = contentEncryptionAlgorithmIdentifier;
+        this.encryptionCipher = new DirectJsonWebEncryptionCipher(secretKeyEncryptionKey, contentEncryptionAlgorithmIdentifier);
         LOGGER.debug("Initialized cipher encryption sequence via [{}]", contentEncryptionAlgorithmIdentifier);
 
     }
@@ -117,6 +117,13 @@ public abstract class BaseStringCipherExecutor extends AbstractCipherExecutor<Se
         }
     }
 
+    @Override
+    public void destroy() {
+        if (this.encryptionCipher != null) {
+            this.encryptionCipher.destroy();
+        }
+    }
+
     /**
      * Prepare json web token key.
      *
@@ -144,14 +151,8 @@ public abstract class BaseStringCipherExecutor extends AbstractCipherExecutor<Se
      */
     private String encryptValue(final Serializable value) {
         try {
-            final JsonWebEncryption jwe = new JsonWebEncryption();
-            jwe.setPayload(serializeValue(value));
-            jwe.enableDefaultCompression();
-            jwe.setAlgorithmHeaderValue(KeyManagementAlgorithmIdentifiers.DIRECT);
-            jwe.setEncryptionMethodHeaderParameter(this.contentEncryptionAlgorithmIdentifier);
-            jwe.setKey(this.secretKeyEncryptionKey);
             LOGGER.debug("Encrypting via [{}]", this.contentEncryptionAlgorithmIdentifier);
-            return jwe.getCompactSerialization();
+            return this.encryptionCipher.encrypt(serializeValue(value));
         } catch (final Exception e) {
             throw new IllegalArgumentException("Ensure that you have installed JCE Unlimited Strength Jurisdiction Policy Files. "
                     + e.getMessage(), e);
@@ -176,11 +177,8 @@ public abstract class BaseStringCipherExecutor extends AbstractCipherExecutor<Se
      */
     private String decryptValue(final String value) {
         try {
-            final JsonWebEncryption jwe = new JsonWebEncryption();
-            jwe.setKey(this.secretKeyEncryptionKey);
-            jwe.setCompactSerialization(value);
             LOGGER.debug("Decrypting value...");
-            return jwe.getPayload();
+            return this.encryptionCipher.decrypt(value);
         } catch (final Exception e) {
             throw Throwables.propagate(e);
         }
@@ -11,11 +11,29 @@ public class DefaultTicketCipherExecutor extends BaseBinaryCipherExecutor {
     public DefaultTicketCipherExecutor(
             final String encryptionSecretKey,
             final String signingSecretKey,
-            final String secretKeyAlg,
             final int signingKeySize,
             final int encryptionKeySize) {
         super(encryptionSecretKey, signingSecretKey, signingKeySize, encryptionKeySize);
-        setSecretKeyAlgorithm(secretKeyAlg);
+    }
+
+    /**
+     * Instantiates a new ticket cipher executor.
+     *
+     * @param encryptionSecretKey the encryption secret key
+     * @param signingSecretKey    the signing secret key
+     * @param secretKeyAlg        ignored; tickets are always encrypted with AES
+     * @param signingKeySize      the signing key size
+     * @param encryptionKeySize   the encryption key size
+     * @deprecated since 5.2.0, use {@link #DefaultTicketCipherExecutor(String, String, int, int)} instead.
+     */
+    @Deprecated
+    public DefaultTicketCipherExecutor(
+            final String encryptionSecretKey,
+            final String signingSecretKey,
+            final String secretKeyAlg,
+            final int signingKeySize,
+            final int encryptionKeySize) {
+        this(encryptionSecretKey, signingSecretKey, signingKeySize, encryptionKeySize);
     }
 
     @Override
@@ -0,0 +1,227 @@
+package org.apereo.cas.util.cipher;
+
+import com.google.common.base.Throwables;
+import org.jose4j.jwe.ContentEncryptionAlgorithmIdentifiers;
+import org.jose4j.jwe.JsonWebEncryption;
+import org.jose4j.jwe.KeyManagementAlgorithmIdentifiers;
+
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * This is {@link DirectJsonWebEncryptionCipher}. It encrypts and decrypts compressed, compact JSON web
+ * encryption values whose content is encrypted directly with a shared symmetric key.
+ * <p>
+ * For {@code A128CBC-HS256}, the algorithm used by default, the value is encrypted as defined by
+ * RFC 7518 without building a new {@link JsonWebEncryption} on every call: the encoded header and the
+ * split keys are computed once, and each thread keeps its own {@link Cipher} and {@link Mac}.
+ * {@link Deflater} and {@link Inflater} instances hold native memory until they are ended, so they are
+ * borrowed from small pools instead; instances that do not fit back into a pool are ended right away.
+ * The result can be read by any JSON web encryption library.
+ * Other content encryption algorithms, and values carrying a header other than the one produced here,
+ * are handled by {@link JsonWebEncryption}.
+ *
+ * @author Misagh Moayyed
+ * @since 5.2.0
+ */
+public class DirectJsonWebEncryptionCipher {
+
+    private static final String CIPHER_TRANSFORMATION = "AES/CBC/PKCS5Padding";
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+    private static final int KEY_LENGTH_IN_BYTES = 32;
+    private static final int IV_LENGTH_IN_BYTES = 16;
+    private static final int TAG_LENGTH_IN_BYTES = 16;
+    private static final int BUFFER_SIZE = 1024;
+    private static final int JWE_PART_COUNT = 5;
+    private static final int POOL_SIZE = Runtime.getRuntime().availableProcessors();
+
+    private static final Base64.Encoder BASE64_URL_ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder BASE64_URL_DECODER = Base64.getUrlDecoder();
+
+    private static final String ENCODED_HEADER = BASE64_URL_ENCODER.encodeToString(
+            "{\"zip\":\"DEF\",\"alg\":\"dir\",\"enc\":\"A128CBC-HS256\"}".getBytes(StandardCharsets.UTF_8));
+    private static final byte[] ADDITIONAL_AUTHENTICATED_DATA = ENCODED_HEADER.getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] ADDITIONAL_AUTHENTICATED_DATA_LENGTH = ByteBuffer.allocate(Long.BYTES)
+            .putLong(ADDITIONAL_AUTHENTICATED_DATA.length * (long) Byte.SIZE).array();
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final Key key;
+    private final String contentEncryptionAlgorithmIdentifier;
+    private final SecretKeySpec encryptionKey;
+    private final ThreadLocal<Mac> macs;
+    private final ThreadLocal<Cipher> ciphers;
+    private final BlockingQueue<Deflater> deflaters = new ArrayBlockingQueue<>(POOL_SIZE);
+    private final BlockingQueue<Inflater> inflaters = new ArrayBlockingQueue<>(POOL_SIZE);
+
+    public DirectJsonWebEncryptionCipher(final Key key, final String contentEncryptionAlgorithmIdentifier) {
+        this.key = key;
+        this.contentEncryptionAlgorithmIdentifier = contentEncryptionAlgorithmIdentifier;
+
+        final byte[] encoded = key.getEncoded();
+        if (ContentEncryptionAlgorithmIdentifiers.AES_128_CBC_HMAC_SHA_256.equals(contentEncryptionAlgorithmIdentifier)
+                && encoded != null && encoded.length == KEY_LENGTH_IN_BYTES) {
+            final SecretKeySpec macKey = new SecretKeySpec(encoded, 0, KEY_LENGTH_IN_BYTES / 2, MAC_ALGORITHM);
+            this.encryptionKey = new SecretKeySpec(encoded, KEY_LENGTH_IN_BYTES / 2, KEY_LENGTH_IN_BYTES / 2, "AES");
+            this.macs = ThreadLocal.withInitial(() -> newMac(macKey));
+            this.ciphers = ThreadLocal.withInitial(DirectJsonWebEncryptionCipher::newCipher);
+        } else {
+            this.encryptionKey = null;
+            this.macs = null;
+            this.ciphers = null;
+        }
+    }
+
+    /**
+     * Encrypt the payload.
+     *
+     * @param payload the payload
+     * @return the compact serialization of the encrypted payload
+     * @throws Exception the exception
+     */
+    public String encrypt(final String payload) throws Exception {
+        if (this.encryptionKey == null) {
+            final JsonWebEncryption jwe = new JsonWebEncryption();
+            jwe.setPayload(payload);
+            jwe.enableDefaultCompression();
+            jwe.setAlgorithmHeaderValue(KeyManagementAlgorithmIdentifiers.DIRECT);
+            jwe.setEncryptionMethodHeaderParameter(this.contentEncryptionAlgorithmIdentifier);
+            jwe.setKey(this.key);
+            return jwe.getCompactSerialization();
+        }
+        final byte[] iv = new byte[IV_LENGTH_IN_BYTES];
+        RANDOM.nextBytes(iv);
+        final Cipher cipher = this.ciphers.get();
+        cipher.init(Cipher.ENCRYPT_MODE, this.encryptionKey, new IvParameterSpec(iv));
+        final byte[] ciphertext = cipher.doFinal(deflate(payload.getBytes(StandardCharsets.UTF_8)));
+        return ENCODED_HEADER + ".." + BASE64_URL_ENCODER.encodeToString(iv)
+                + '.' + BASE64_URL_ENCODER.encodeToString(ciphertext)
+                + '.' + BASE64_URL_ENCODER.encodeToString(authenticationTag(iv, ciphertext));
+    }
+
+    /**
+     * Decrypt the value.
+     *
+     * @param value the compact serialization of the encrypted payload
+     * @return the payload
+     * @throws Exception the exception
+     */
+    public String decrypt(final String value) throws Exception {
+        final String[] parts = value.split("\\.", -1);
+        if (this.encryptionKey == null || parts.length != JWE_PART_COUNT
+                || !ENCODED_HEADER.equals(parts[0]) || !parts[1].isEmpty()) {
+            final JsonWebEncryption jwe = new JsonWebEncryption();
+            jwe.setKey(this.key);
+            jwe.setCompactSerialization(value);
+            return jwe.getPayload();
+        }
+        int i = 2;
+        final byte[] iv = BASE64_URL_DECODER.decode(parts[i++]);
+        final byte[] ciphertext = BASE64_URL_DECODER.decode(parts[i++]);
+        final byte[] tag = BASE64_URL_DECODER.decode(parts[i]);
+        if (!MessageDigest.isEqual(authenticationTag(iv, ciphertext), tag)) {
+            throw new IllegalArgumentException("Authentication tag check failed; the value has been tampered with");
+        }
+        final Cipher cipher = this.ciphers.get();
+        cipher.init(Cipher.DECRYPT_MODE, this.encryptionKey, new IvParameterSpec(iv));
+        return new String(inflate(cipher.doFinal(ciphertext)), StandardCharsets.UTF_8);
+    }
+
+    private byte[] authenticationTag(final byte[] iv, final byte[] ciphertext) {
+        final Mac mac = this.macs.get();
+        mac.update(ADDITIONAL_AUTHENTICATED_DATA);
+        mac.update(iv);
+        mac.update(ciphertext);
+        mac.update(ADDITIONAL_AUTHENTICATED_DATA_LENGTH);
+        return Arrays.copyOf(mac.doFinal(), TAG_LENGTH_IN_BYTES);
+    }
+
+    /**
+     * Ends the pooled deflaters and inflaters, releasing their native memory.
+     * The cipher remains usable, and pools again the instances it creates afterwards.
+     */
+    public void destroy() {
+        for (Deflater deflater = this.deflaters.poll(); deflater != null; deflater = this.deflaters.poll()) {
+            deflater.end();
+        }
+        for (Inflater inflater = this.inflaters.poll(); inflater != null; inflater = this.inflaters.poll()) {
+            inflater.end();
+        }
+    }
+
+    private byte[] deflate(final byte[] data) {
+        final Deflater pooled = this.deflaters.poll();
+        final Deflater deflater = pooled == null ? new Deflater(Deflater.DEFAULT_COMPRESSION, true) : pooled;
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            final ByteArrayOutputStream out = new ByteArrayOutputStream(data.length);
+            final byte[] buffer = new byte[BUFFER_SIZE];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.reset();
+            if (!this.deflaters.offer(deflater)) {
+                deflater.end();
+            }
+        }
+    }
+
+    private byte[] inflate(final byte[] data) throws DataFormatException {
+        final Inflater pooled = this.inflaters.poll();
+        final Inflater inflater = pooled == null ? new Inflater(true) : pooled;
+        try {
+            inflater.setInput(data);
+            final ByteArrayOutputStream out = new ByteArrayOutputStream(data.length * 2);
+            final byte[] buffer = new byte[BUFFER_SIZE];
+            while (!inflater.finished()) {
+                final int count = inflater.inflate(buffer);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new DataFormatException("Compressed payload is truncated");
+                }
+                out.write(buffer, 0, count);
+            }
+            return out.toByteArray();
+        } finally {
+            inflater.reset();
+            if (!this.inflaters.offer(inflater)) {
+                inflater.end();
+            }
+        }
+    }
+
+    private static Mac newMac(final Key key) {
+        try {
+            final Mac mac = Mac.getInstance(MAC_ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (final Exception e) {
+            throw Throwables.propagate(e);
+        }
+    }
+
+    private static Cipher newCipher() {
+        try {
+            return Cipher.getInstance(CIPHER_TRANSFORMATION);
+        } catch (final Exception e) {
+            throw Throwables.propagate(e);
+        }
+    }
+}
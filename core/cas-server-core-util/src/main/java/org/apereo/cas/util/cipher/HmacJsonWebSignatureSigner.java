@@ -0,0 +1,135 @@
+package org.apereo.cas.util.cipher;
+
+import com.google.common.base.Throwables;
+import org.apereo.cas.util.EncodingUtils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * This is {@link HmacJsonWebSignatureSigner}. It produces and verifies the same compact
+ * {@code HS512} JSON web signatures as {@link EncodingUtils#signJws(Key, byte[])} and
+ * {@link EncodingUtils#verifyJwsSignature(Key, byte[])}, without building a new signature
+ * object, header and {@link Mac} on every call: the encoded header is computed once and
+ * each thread keeps its own {@link Mac}, initialized with the key.
+ * <p>
+ * Signatures whose header differs from the one produced here, as well as keys too short
+ * for {@code HS512}, are handed to {@link EncodingUtils}, so the outcome is the same as
+ * before for any input.
+ *
+ * @author Misagh Moayyed
+ * @since 5.2.0
+ */
+public class HmacJsonWebSignatureSigner {
+
+    private static final String MAC_ALGORITHM = "HmacSHA512";
+    private static final int MINIMUM_KEY_LENGTH_IN_BYTES = 64;
+
+    private static final Base64.Encoder BASE64_ENCODER = Base64.getEncoder();
+    private static final Base64.Encoder BASE64_URL_ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder BASE64_URL_DECODER = Base64.getUrlDecoder();
+
+    private static final String ENCODED_HEADER = BASE64_URL_ENCODER.encodeToString(
+            "{\"alg\":\"HS512\"}".getBytes(StandardCharsets.UTF_8));
+    private static final byte[] ENCODED_HEADER_BYTES = ENCODED_HEADER.getBytes(StandardCharsets.US_ASCII);
+    private static final int ENCODED_SIGNATURE_LENGTH = 86;
+
+    private final Key key;
+    private final ThreadLocal<Mac> macs;
+
+    public HmacJsonWebSignatureSigner(final Key key) {
+        this.key = key;
+        final byte[] encoded = key == null ? null : key.getEncoded();
+        if (encoded != null && encoded.length >= MINIMUM_KEY_LENGTH_IN_BYTES) {
+            final SecretKeySpec macKey = new SecretKeySpec(encoded, MAC_ALGORITHM);
+            this.macs = ThreadLocal.withInitial(() -> newMac(macKey));
+        } else {
+            this.macs = null;
+        }
+    }
+
+    /**
+     * Sign the value, which is base64-encoded into the payload of the signature.
+     *
+     * @param value the value
+     * @return the compact serialization of the signature
+     */
+    public byte[] sign(final byte[] value) {
+        return sign(value, 0, value.length);
+    }
+
+    /**
+     * Sign a range of the given array, which is base64-encoded into the payload of the signature.
+     * The signature is assembled directly as bytes, without intermediate strings.
+     *
+     * @param value  the array holding the value
+     * @param offset the offset of the value
+     * @param length the length of the value
+     * @return the compact serialization of the signature
+     */
+    public byte[] sign(final byte[] value, final int offset, final int length) {
+        if (this.macs == null) {
+            return EncodingUtils.signJws(this.key, Arrays.copyOfRange(value, offset, offset + length));
+        }
+        final ByteBuffer base64 = BASE64_ENCODER.encode(ByteBuffer.wrap(value, offset, length));
+        final ByteBuffer payload = BASE64_URL_ENCODER.encode(base64);
+        final int signingInputLength = ENCODED_HEADER_BYTES.length + 1 + payload.remaining();
+
+        final byte[] jws = new byte[signingInputLength + 1 + ENCODED_SIGNATURE_LENGTH];
+        System.arraycopy(ENCODED_HEADER_BYTES, 0, jws, 0, ENCODED_HEADER_BYTES.length);
+        jws[ENCODED_HEADER_BYTES.length] = '.';
+        payload.get(jws, ENCODED_HEADER_BYTES.length + 1, payload.remaining());
+
+        final Mac mac = this.macs.get();
+        mac.update(jws, 0, signingInputLength);
+        final byte[] signature = BASE64_URL_ENCODER.encode(mac.doFinal());
+        jws[signingInputLength] = '.';
+        System.arraycopy(signature, 0, jws, signingInputLength + 1, signature.length);
+        return jws;
+    }
+
+    /**
+     * Verify the signature.
+     *
+     * @param value the compact serialization of the signature
+     * @return the decoded payload, or null if the signature does not verify
+     */
+    public byte[] verify(final byte[] value) {
+        if (this.macs == null) {
+            return EncodingUtils.verifyJwsSignature(this.key, value);
+        }
+        final String jws = new String(value, StandardCharsets.UTF_8);
+        final int headerEnd = ENCODED_HEADER.length();
+        final int payloadEnd = jws.lastIndexOf('.');
+        if (!jws.startsWith(ENCODED_HEADER) || jws.length() <= headerEnd || jws.charAt(headerEnd) != '.'
+                || payloadEnd <= headerEnd || jws.indexOf('.', headerEnd + 1) != payloadEnd) {
+            return EncodingUtils.verifyJwsSignature(this.key, value);
+        }
+        final byte[] signature = BASE64_URL_DECODER.decode(jws.substring(payloadEnd + 1));
+        if (!MessageDigest.isEqual(mac(jws.substring(0, payloadEnd)), signature)) {
+            return null;
+        }
+        final String payload = new String(BASE64_URL_DECODER.decode(jws.substring(headerEnd + 1, payloadEnd)), StandardCharsets.UTF_8);
+        return EncodingUtils.decodeBase64(payload);
+    }
+
+    private byte[] mac(final String signingInput) {
+        return this.macs.get().doFinal(signingInput.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static Mac newMac(final Key key) {
+        try {
+            final Mac mac = Mac.getInstance(MAC_ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (final Exception e) {
+            throw Throwables.propagate(e);
+        }
+    }
+}
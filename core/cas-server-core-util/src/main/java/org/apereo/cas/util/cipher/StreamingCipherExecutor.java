@@ -0,0 +1,26 @@
+package org.apereo.cas.util.cipher;
+
+import java.io.OutputStream;
+import java.util.function.Consumer;
+
+/**
+ * This is {@link StreamingCipherExecutor}, implemented by cipher executors that can encrypt and sign
+ * a value while it is being written, rather than taking a fully built array. Callers that serialize
+ * objects before encrypting them can write straight into the stream handed to the writer, so that
+ * the plain value is never held in memory as a whole.
+ *
+ * @author Misagh Moayyed
+ * @since 5.2.0
+ */
+public interface StreamingCipherExecutor {
+
+    /**
+     * Encrypt and sign the value produced by the writer.
+     * The result is the same as that of encoding all bytes written by the writer at once.
+     * The writer may close the stream it is given.
+     *
+     * @param writer the writer that produces the value
+     * @return the encoded value
+     */
+    byte[] encode(Consumer<OutputStream> writer);
+}
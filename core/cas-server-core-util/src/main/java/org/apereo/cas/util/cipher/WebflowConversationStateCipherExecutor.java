@@ -14,17 +14,33 @@ public class WebflowConversationStateCipherExecutor extends BaseBinaryCipherExec
      *
      * @param secretKeyEncryption the secret key encryption
      * @param secretKeySigning    the secret key signing
-     * @param secretKeyAlg        the secret key alg
      * @param signingKeySize      the signing key size
      * @param encryptionKeySize   the encryption key size
      */
     public WebflowConversationStateCipherExecutor(final String secretKeyEncryption,
                                                   final String secretKeySigning,
-                                                  final String secretKeyAlg,
                                                   final int signingKeySize,
                                                   final int encryptionKeySize){
         super(secretKeyEncryption, secretKeySigning, signingKeySize, encryptionKeySize);
-        setSecretKeyAlgorithm(secretKeyAlg);
+    }
+
+    /**
+     * Instantiates a new webflow cipher executor.
+     *
+     * @param secretKeyEncryption the secret key encryption
+     * @param secretKeySigning    the secret key signing
+     * @param secretKeyAlg        ignored; webflow state is always encrypted with AES
+     * @param signingKeySize      the signing key size
+     * @param encryptionKeySize   the encryption key size
+     * @deprecated since 5.2.0, use {@link #WebflowConversationStateCipherExecutor(String, String, int, int)} instead.
+     */
+    @Deprecated
+    public WebflowConversationStateCipherExecutor(final String secretKeyEncryption,
+                                                  final String secretKeySigning,
+                                                  final String secretKeyAlg,
+                                                  final int signingKeySize,
+                                                  final int encryptionKeySize) {
+        this(secretKeyEncryption, secretKeySigning, signingKeySize, encryptionKeySize);
     }
 
     @Override
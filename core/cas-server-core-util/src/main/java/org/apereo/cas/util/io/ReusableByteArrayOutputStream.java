@@ -0,0 +1,86 @@
+package org.apereo.cas.util.io;
+
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Output stream that collects bytes into an array that is kept across uses, so that
+ * writers producing similar amounts of data do not allocate a new buffer every time.
+ * Unlike {@link java.io.ByteArrayOutputStream}, the collected bytes are exposed
+ * directly rather than copied, and room can be reserved at the end of the buffer
+ * for callers that fill it in place. This class is not thread-safe.
+ *
+ * @author Misagh Moayyed
+ * @since 5.2.0
+ */
+public class ReusableByteArrayOutputStream extends OutputStream {
+
+    private byte[] buffer;
+
+    private int count;
+
+    public ReusableByteArrayOutputStream(final int initialCapacity) {
+        this.buffer = new byte[initialCapacity];
+    }
+
+    @Override
+    public void write(final int b) {
+        reserve(1);
+        this.buffer[this.count++] = (byte) b;
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) {
+        reserve(len);
+        System.arraycopy(b, off, this.buffer, this.count, len);
+        this.count += len;
+    }
+
+    /**
+     * Make sure the buffer has room for the given number of bytes past the collected ones.
+     * Callers that fill that room directly must then call {@link #advance(int)}.
+     *
+     * @param length the number of bytes
+     * @return the buffer, whose collected bytes end at {@link #size()}
+     */
+    public byte[] reserve(final int length) {
+        final int required = this.count + length;
+        if (required > this.buffer.length) {
+            this.buffer = Arrays.copyOf(this.buffer, Math.max(required, this.buffer.length << 1));
+        }
+        return this.buffer;
+    }
+
+    /**
+     * Count bytes that were written directly into room obtained via {@link #reserve(int)}.
+     *
+     * @param length the number of bytes
+     */
+    public void advance(final int length) {
+        this.count += length;
+    }
+
+    /**
+     * Discard the collected bytes, keeping the buffer.
+     */
+    public void reset() {
+        this.count = 0;
+    }
+
+    public byte[] getBuffer() {
+        return this.buffer;
+    }
+
+    public int size() {
+        return this.count;
+    }
+
+    /**
+     * Gets the capacity of the buffer.
+     *
+     * @return the capacity
+     */
+    public int capacity() {
+        return this.buffer.length;
+    }
+}
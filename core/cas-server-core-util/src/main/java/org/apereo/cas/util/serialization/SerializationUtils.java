@@ -2,6 +2,7 @@ package org.apereo.cas.util.serialization;
 
 import com.google.common.base.Throwables;
 import org.apereo.cas.CipherExecutor;
+import org.apereo.cas.util.cipher.StreamingCipherExecutor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -97,7 +98,8 @@ public final class SerializationUtils {
     }
 
     /**
-     * Serialize and encode object.
+     * Serialize and encode object. If the cipher is a {@link StreamingCipherExecutor},
+     * the object is serialized straight into the cipher.
      *
      * @param cipher the cipher
      * @param object the object
@@ -106,6 +108,9 @@ public final class SerializationUtils {
      */
     public static byte[] serializeAndEncodeObject(final CipherExecutor cipher,
                                                   final Serializable object) {
+        if (cipher instanceof StreamingCipherExecutor) {
+            return ((StreamingCipherExecutor) cipher).encode(outputStream -> serialize(object, outputStream));
+        }
         final byte[] outBytes = serialize(object);
         return (byte[]) cipher.encode(outBytes);
     }
@@ -1,11 +1,15 @@
 package org.apereo.cas.util;
 
+import org.apache.commons.lang3.RandomStringUtils;
 import org.apereo.cas.CipherExecutor;
 import org.apereo.cas.util.cipher.BaseBinaryCipherExecutor;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
 import static org.junit.Assert.*;
 
 /**
@@ -31,6 +35,26 @@ public class BinaryCipherExecutorTests {
         assertEquals(new String(decoded), value);
     }
 
+    @Test
+    public void checkStreamingEncodingDecoding() {
+        final TestBinaryCipherExecutor cc = new TestBinaryCipherExecutor("1234567890123456",
+                "szxK-5_eJjs-aUj-64MpUZ-GPPzGLhYPLGl0wrYjYNVAGva2P0lLe6UGKGM7k8dWxsOVGutZWgvmY3l5oVPO3w",
+                512,
+                16);
+        for (final int size : new int[]{0, 15, 16, 1000, 300_000, 100}) {
+            final byte[] value = RandomStringUtils.randomAlphanumeric(size).getBytes(StandardCharsets.UTF_8);
+            final byte[] bytes = cc.encode(out -> {
+                try {
+                    out.write(value, 0, value.length / 2);
+                    out.write(value, value.length / 2, value.length - value.length / 2);
+                } catch (final IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            assertArrayEquals(value, cc.decode(bytes));
+        }
+    }
+
     @Test
     public void checkEncodingDecodingBadKeys() {
         final String value = "ThisIsATestValueThatIsGoingToBeEncodedAndDecodedAgainAndAgain";
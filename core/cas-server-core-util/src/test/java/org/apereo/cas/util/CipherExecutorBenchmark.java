@@ -0,0 +1,83 @@
+package org.apereo.cas.util;
+
+import org.apereo.cas.CipherExecutor;
+import org.apereo.cas.util.cipher.DefaultTicketCipherExecutor;
+import org.apereo.cas.util.cipher.TicketGrantingCookieCipherExecutor;
+import org.apereo.cas.util.cipher.WebflowConversationStateCipherExecutor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of encoding and decoding a value with the cipher executors used for
+ * ticket replication, ticket-granting cookies and webflow conversation state.
+ * Run via {@link #main(String[])} from the test classpath.
+ *
+ * @author Misagh Moayyed
+ * @since 5.2.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CipherExecutorBenchmark {
+    private static final String SIGNING_KEY = "szxK-5_eJjs-aUj-64MpUZ-GPPzGLhYPLGl0wrYjYNVAGva2P0lLe6UGKGM7k8dWxsOVGutZWgvmY3l5oVPO3w";
+    private static final String BINARY_ENCRYPTION_KEY = "Ng8rEpWMgmO4SaU9";
+    private static final String STRING_ENCRYPTION_KEY = "1PbwSbnHeinpkZOSZjuSJ8yYpUrInm5aaV18J2Ar4rM";
+    private static final String VALUE = "TGT-1-Q8wWWEZ0UzpXr2gBnRsKbSmHHZyvaK6bQEwHLEzH6PNqRPkNTg-cas.example.org";
+
+    @Param({"TICKET", "COOKIE", "WEBFLOW"})
+    private String executorType;
+
+    private CipherExecutor cipherExecutor;
+    private Object value;
+    private Object encoded;
+
+    @Setup
+    public void setup() {
+        switch (executorType) {
+            case "COOKIE":
+                this.cipherExecutor = new TicketGrantingCookieCipherExecutor(STRING_ENCRYPTION_KEY, SIGNING_KEY);
+                this.value = VALUE;
+                break;
+            case "WEBFLOW":
+                this.cipherExecutor = new WebflowConversationStateCipherExecutor(BINARY_ENCRYPTION_KEY, SIGNING_KEY, 512, 16);
+                this.value = VALUE.getBytes(StandardCharsets.UTF_8);
+                break;
+            default:
+                this.cipherExecutor = new DefaultTicketCipherExecutor(BINARY_ENCRYPTION_KEY, SIGNING_KEY, 512, 16);
+                this.value = VALUE.getBytes(StandardCharsets.UTF_8);
+                break;
+        }
+        this.encoded = encode();
+    }
+
+    @Benchmark
+    public Object encode() {
+        return this.cipherExecutor.encode(this.value);
+    }
+
+    @Benchmark
+    public Object decode() {
+        return this.cipherExecutor.decode(this.encoded);
+    }
+
+    public static void main(final String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(CipherExecutorBenchmark.class.getSimpleName()).build()).run();
+    }
+}
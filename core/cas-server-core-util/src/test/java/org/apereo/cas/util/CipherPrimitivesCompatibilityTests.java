@@ -0,0 +1,101 @@
+package org.apereo.cas.util;
+
+import org.apache.shiro.crypto.AesCipherService;
+import org.apereo.cas.util.cipher.BaseBinaryCipherExecutor;
+import org.apereo.cas.util.cipher.DirectJsonWebEncryptionCipher;
+import org.apereo.cas.util.cipher.HmacJsonWebSignatureSigner;
+import org.jose4j.jwe.ContentEncryptionAlgorithmIdentifiers;
+import org.jose4j.jwe.JsonWebEncryption;
+import org.jose4j.jwe.KeyManagementAlgorithmIdentifiers;
+import org.jose4j.keys.AesKey;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+
+import static org.junit.Assert.*;
+
+/**
+ * Verifies that the cached cipher and signature primitives read and produce
+ * the same values as the library-based implementations they replace.
+ *
+ * @author Misagh Moayyed
+ * @since 5.2.0
+ */
+public class CipherPrimitivesCompatibilityTests {
+    private static final String SIGNING_KEY = "szxK-5_eJjs-aUj-64MpUZ-GPPzGLhYPLGl0wrYjYNVAGva2P0lLe6UGKGM7k8dWxsOVGutZWgvmY3l5oVPO3w";
+    private static final String ENCRYPTION_KEY = "1234567890123456";
+    private static final String VALUE = "ThisIsATestValueThatIsGoingToBeEncodedAndDecodedAgainAndAgain";
+
+    private final Key signingKey = new AesKey(SIGNING_KEY.getBytes(StandardCharsets.UTF_8));
+    private final Key encryptionKey = new AesKey(EncodingUtils.decodeBase64("1PbwSbnHeinpkZOSZjuSJ8yYpUrInm5aaV18J2Ar4rM="));
+
+    @Test
+    public void verifySignatureMatchesJose4j() {
+        final HmacJsonWebSignatureSigner signer = new HmacJsonWebSignatureSigner(this.signingKey);
+        final byte[] value = VALUE.getBytes(StandardCharsets.UTF_8);
+
+        final byte[] signed = signer.sign(value);
+        assertArrayEquals(EncodingUtils.signJws(this.signingKey, value), signed);
+        assertArrayEquals(value, EncodingUtils.verifyJwsSignature(this.signingKey, signed));
+        assertArrayEquals(value, signer.verify(EncodingUtils.signJws(this.signingKey, value)));
+
+        signed[signed.length - 2] ^= 1;
+        assertNull(signer.verify(signed));
+    }
+
+    @Test
+    public void verifyEncryptionMatchesJose4j() throws Exception {
+        final DirectJsonWebEncryptionCipher cipher = new DirectJsonWebEncryptionCipher(this.encryptionKey,
+                ContentEncryptionAlgorithmIdentifiers.AES_128_CBC_HMAC_SHA_256);
+
+        final JsonWebEncryption decryption = new JsonWebEncryption();
+        decryption.setKey(this.encryptionKey);
+        decryption.setCompactSerialization(cipher.encrypt(VALUE));
+        assertEquals(VALUE, decryption.getPayload());
+
+        final JsonWebEncryption encryption = new JsonWebEncryption();
+        encryption.setPayload(VALUE);
+        encryption.enableDefaultCompression();
+        encryption.setAlgorithmHeaderValue(KeyManagementAlgorithmIdentifiers.DIRECT);
+        encryption.setEncryptionMethodHeaderParameter(ContentEncryptionAlgorithmIdentifiers.AES_128_CBC_HMAC_SHA_256);
+        encryption.setKey(this.encryptionKey);
+        assertEquals(VALUE, cipher.decrypt(encryption.getCompactSerialization()));
+    }
+
+    @Test
+    public void verifyEncryptionAfterDestroy() throws Exception {
+        final DirectJsonWebEncryptionCipher cipher = new DirectJsonWebEncryptionCipher(this.encryptionKey,
+                ContentEncryptionAlgorithmIdentifiers.AES_128_CBC_HMAC_SHA_256);
+        final String encrypted = cipher.encrypt(VALUE);
+        assertEquals(VALUE, cipher.decrypt(encrypted));
+
+        cipher.destroy();
+        assertEquals(VALUE, cipher.decrypt(cipher.encrypt(VALUE)));
+        assertEquals(VALUE, cipher.decrypt(encrypted));
+    }
+
+    @Test
+    public void verifyBinaryEncryptionMatchesShiro() {
+        final BaseBinaryCipherExecutor executor = new BaseBinaryCipherExecutor(ENCRYPTION_KEY, SIGNING_KEY, 512, 16) {
+            @Override
+            protected String getEncryptionKeySetting() {
+                return "undefined";
+            }
+
+            @Override
+            protected String getSigningKeySetting() {
+                return "undefined";
+            }
+        };
+        final AesCipherService shiro = new AesCipherService();
+        final byte[] key = ENCRYPTION_KEY.getBytes(StandardCharsets.UTF_8);
+        final byte[] value = VALUE.getBytes(StandardCharsets.UTF_8);
+
+        final byte[] legacy = EncodingUtils.signJws(this.signingKey, shiro.encrypt(value, key).getBytes());
+        assertArrayEquals(value, executor.decode(legacy));
+
+        final byte[] encrypted = EncodingUtils.verifyJwsSignature(this.signingKey, executor.encode(value));
+        assertArrayEquals(value, shiro.decrypt(encrypted, key).getBytes());
+    }
+}
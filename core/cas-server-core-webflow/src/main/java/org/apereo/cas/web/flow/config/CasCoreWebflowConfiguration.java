@@ -272,7 +272,6 @@ public class CasCoreWebflowConfiguration {
         return new WebflowConversationStateCipherExecutor(
                 webflow.getCrypto().getEncryption().getKey(),
                 webflow.getCrypto().getSigning().getKey(),
-                webflow.getCrypto().getAlg(),
                 webflow.getCrypto().getSigning().getKeySize(),
                 webflow.getCrypto().getEncryption().getKeySize());
     }
@@ -35,6 +35,7 @@ import org.springframework.util.StringUtils;
 
 import java.io.Serializable;
 import java.util.Collection;
+import java.util.List;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
@@ -189,6 +190,24 @@ public abstract class AbstractCentralAuthenticationService implements CentralAut
                 .collect(Collectors.toSet());
     }
 
+    @Transactional(transactionManager = "ticketTransactionManager")
+    @Timed(name = "GET_TICKET_GRANTING_TICKETS_TIMER")
+    @Metered(name = "GET_TICKET_GRANTING_TICKETS_METER")
+    @Counted(name = "GET_TICKET_GRANTING_TICKETS_COUNTER", monotonic = true)
+    @Override
+    public Collection<TicketGrantingTicket> getTicketGrantingTickets(final String principalId) {
+        return this.ticketRegistry.getSessionsForPrincipal(principalId);
+    }
+
+    @Transactional(transactionManager = "ticketTransactionManager")
+    @Timed(name = "GET_TICKET_GRANTING_TICKETS_TIMER")
+    @Metered(name = "GET_TICKET_GRANTING_TICKETS_METER")
+    @Counted(name = "GET_TICKET_GRANTING_TICKETS_COUNTER", monotonic = true)
+    @Override
+    public List<TicketGrantingTicket> getTicketGrantingTickets(final String cursor, final int count) {
+        return this.ticketRegistry.getSessions(cursor, count);
+    }
+
     @Transactional(transactionManager = "ticketTransactionManager", readOnly = false)
     @Timed(name = "DELETE_TICKET_TIMER")
     @Metered(name = "DELETE_TICKET_METER")
@@ -156,8 +156,7 @@ public class DefaultCentralAuthenticationService extends AbstractCentralAuthenti
         final ServiceTicketFactory factory = this.ticketFactory.get(ServiceTicket.class);
         final ServiceTicket serviceTicket = factory.create(ticketGrantingTicket, service,
                 authenticationResult != null && authenticationResult.isCredentialProvided());
-        this.ticketRegistry.updateTicket(ticketGrantingTicket);
-        this.ticketRegistry.addTicket(serviceTicket);
+        this.ticketRegistry.updateAndAddTicket(ticketGrantingTicket, serviceTicket);
 
         LOGGER.info("Granted ticket [{}] for service [{}] and principal [{}]",
                 serviceTicket.getId(), service.getId(), principal.getId());
@@ -203,8 +202,7 @@ public class DefaultCentralAuthenticationService extends AbstractCentralAuthenti
         final ProxyTicketFactory factory = this.ticketFactory.get(ProxyTicket.class);
         final ProxyTicket proxyTicket = factory.create(proxyGrantingTicketObject, service);
 
-        this.ticketRegistry.updateTicket(proxyGrantingTicketObject);
-        this.ticketRegistry.addTicket(proxyTicket);
+        this.ticketRegistry.updateAndAddTicket(proxyGrantingTicketObject, proxyTicket);
 
         LOGGER.info("Granted ticket [{}] for service [{}] for user [{}]",
                 proxyTicket.getId(), service.getId(), principal.getId());
@@ -1,7 +1,10 @@
 package org.apereo.cas.audit.config;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
 import org.apache.commons.lang3.StringUtils;
 import org.apereo.cas.audit.entity.AuditTrailEntity;
+import org.apereo.cas.audit.spi.AsynchronousJdbcAuditTrailManager;
 import org.apereo.cas.audit.spi.DefaultDelegatingAuditTrailManager;
 import org.apereo.cas.audit.spi.DelegatingAuditTrailManager;
 import org.apereo.cas.configuration.CasConfigurationProperties;
@@ -12,12 +15,14 @@ import org.apereo.inspektr.audit.support.JdbcAuditTrailManager;
 import org.apereo.inspektr.audit.support.MaxAgeWhereClauseMatchCriteria;
 import org.apereo.inspektr.audit.support.WhereClauseMatchCriteria;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cloud.context.config.annotation.RefreshScope;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.EnableAspectJAutoProxy;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.datasource.DataSourceTransactionManager;
 import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
 import org.springframework.transaction.PlatformTransactionManager;
@@ -25,6 +30,7 @@ import org.springframework.transaction.annotation.EnableTransactionManagement;
 import org.springframework.transaction.support.TransactionTemplate;
 
 import javax.sql.DataSource;
+import java.io.File;
 
 /**
  * This is {@link CasSupportJdbcAuditConfiguration}.
@@ -41,25 +47,48 @@ public class CasSupportJdbcAuditConfiguration {
     @Autowired
     private CasConfigurationProperties casProperties;
 
+    @Autowired(required = false)
+    @Qualifier("metrics")
+    private MetricRegistry metricRegistry;
+
     @Bean
     public JdbcAuditTrailManager jdbcAuditTrailManager() {
-        final AuditProperties.Jdbc jdbc = casProperties.getAudit().getJdbc();
         final JdbcAuditTrailManager t = new JdbcAuditTrailManager(inspektrAuditTransactionTemplate());
         t.setCleanupCriteria(auditCleanupCriteria());
         t.setDataSource(inspektrAuditTrailDataSource());
-        String tableName = AuditTrailEntity.AUDIT_TRAIL_TABLE_NAME;
-        if (StringUtils.isNotBlank(jdbc.getDefaultSchema())) {
-            tableName = jdbc.getDefaultSchema() + '.' + tableName;
-        }
-        if (StringUtils.isNotBlank(jdbc.getDefaultCatalog())) {
-            tableName = jdbc.getDefaultCatalog() + '.' + tableName;
+        t.setTableName(getAuditTableName());
+        return t;
+    }
+
+    @Lazy
+    @Bean
+    public AsynchronousJdbcAuditTrailManager asynchronousJdbcAuditTrailManager() {
+        final AuditProperties.Asynchronous async = casProperties.getAudit().getJdbc().getAsynchronous();
+        final File spillFile = async.getOverflowPolicy() == AuditProperties.Asynchronous.OverflowPolicies.SPILL
+                && StringUtils.isNotBlank(async.getSpillFile()) ? new File(async.getSpillFile()) : null;
+        final AsynchronousJdbcAuditTrailManager t = new AsynchronousJdbcAuditTrailManager(inspektrAuditTransactionTemplate(),
+                new JdbcTemplate(inspektrAuditTrailDataSource()), getAuditTableName(), async.getQueueCapacity(), async.getBatchSize(),
+                async.getFlushInterval(), async.getOverflowPolicy(), async.getBlockTimeout(), spillFile);
+        if (this.metricRegistry != null) {
+            this.metricRegistry.register(MetricRegistry.name(AsynchronousJdbcAuditTrailManager.class, "queueDepth"),
+                    (Gauge<Integer>) t::getQueueDepth);
+            this.metricRegistry.register(MetricRegistry.name(AsynchronousJdbcAuditTrailManager.class, "droppedRecords"),
+                    (Gauge<Long>) t::getDroppedRecords);
+            this.metricRegistry.register(MetricRegistry.name(AsynchronousJdbcAuditTrailManager.class, "spilledRecords"),
+                    (Gauge<Long>) t::getSpilledRecords);
+            this.metricRegistry.register(MetricRegistry.name(AsynchronousJdbcAuditTrailManager.class, "lastFlushLatency"),
+                    (Gauge<Double>) t::getLastFlushLatency);
+            this.metricRegistry.register(MetricRegistry.name(AsynchronousJdbcAuditTrailManager.class, "averageFlushLatency"),
+                    (Gauge<Double>) t::getAverageFlushLatency);
         }
-        t.setTableName(tableName);
         return t;
     }
 
     @Bean
     public DelegatingAuditTrailManager auditTrailManager() {
+        if (casProperties.getAudit().getJdbc().getAsynchronous().isEnabled()) {
+            return new DefaultDelegatingAuditTrailManager(asynchronousJdbcAuditTrailManager());
+        }
         return new DefaultDelegatingAuditTrailManager(jdbcAuditTrailManager());
     }
 
@@ -99,4 +128,16 @@ public class CasSupportJdbcAuditConfiguration {
         t.setPropagationBehaviorName(casProperties.getAudit().getJdbc().getPropagationBehaviorName());
         return t;
     }
+
+    private String getAuditTableName() {
+        final AuditProperties.Jdbc jdbc = casProperties.getAudit().getJdbc();
+        String tableName = AuditTrailEntity.AUDIT_TRAIL_TABLE_NAME;
+        if (StringUtils.isNotBlank(jdbc.getDefaultSchema())) {
+            tableName = jdbc.getDefaultSchema() + '.' + tableName;
+        }
+        if (StringUtils.isNotBlank(jdbc.getDefaultCatalog())) {
+            tableName = jdbc.getDefaultCatalog() + '.' + tableName;
+        }
+        return tableName;
+    }
 }
@@ -0,0 +1,399 @@
+package org.apereo.cas.audit.spi;
+
+import org.apache.commons.lang3.StringEscapeUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apereo.cas.configuration.model.core.audit.AuditProperties;
+import org.apereo.inspektr.audit.AuditActionContext;
+import org.apereo.inspektr.audit.AuditTrailManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This is {@link AsynchronousJdbcAuditTrailManager}. It takes audit records off the calling thread:
+ * records are placed in a bounded queue and written by a background thread with JDBC batch inserts,
+ * once a batch is full or the flush interval has elapsed, whichever comes first.
+ * <p>
+ * When the queue is full, the {@link AuditProperties.Asynchronous.OverflowPolicies overflow policy} decides whether the caller waits for room
+ * for a bounded time, the record is dropped, or the record is appended to a local spill file. Records that still
+ * do not fit after waiting, and records received once the manager is destroyed, are spilled when a spill file is
+ * defined and dropped otherwise. Spilled records are written
+ * to the database once the queue has been drained, and so are batches that fail to be written when
+ * spilling is turned on. Queue depth, dropped and spilled records and flush latency are exposed so
+ * they may be reported as metrics.
+ *
+ * @author Misagh Moayyed
+ * @since 5.2.0
+ */
+public class AsynchronousJdbcAuditTrailManager implements AuditTrailManager, DisposableBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AsynchronousJdbcAuditTrailManager.class);
+
+    private static final String INSERT_SQL_TEMPLATE = "INSERT INTO %s "
+            + "(AUD_USER, AUD_CLIENT_IP, AUD_SERVER_IP, AUD_RESOURCE, AUD_ACTION, APPLIC_CD, AUD_DATE) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final int[] INSERT_SQL_TYPES = {Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR,
+        Types.VARCHAR, Types.VARCHAR, Types.TIMESTAMP};
+
+    private static final int DEFAULT_COLUMN_LENGTH = 100;
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 10_000;
+    private static final String SPILL_FIELD_SEPARATOR = "\t";
+    private static final int SPILL_FIELD_COUNT = 7;
+
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final String insertSql;
+    private final BlockingQueue<AuditActionContext> queue;
+    private final int batchSize;
+    private final long flushIntervalInMillis;
+    private final AuditProperties.Asynchronous.OverflowPolicies overflowPolicy;
+    private final long blockTimeoutInMillis;
+    private final File spillFile;
+    private final Thread writer;
+    private final Object spillLock = new Object();
+
+    private final AtomicLong droppedRecords = new AtomicLong();
+    private final AtomicLong spilledRecords = new AtomicLong();
+    private final AtomicLong flushedRecords = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong totalFlushNanos = new AtomicLong();
+    private final AtomicLong lastFlushNanos = new AtomicLong();
+
+    private int columnLength = DEFAULT_COLUMN_LENGTH;
+
+    private volatile boolean running = true;
+
+    /**
+     * Instantiates a new asynchronous JDBC audit trail manager and starts its writer.
+     *
+     * @param transactionTemplate   the transaction template within which batches are written
+     * @param jdbcTemplate          the jdbc template
+     * @param tableName             the audit table name
+     * @param queueCapacity         the maximum number of records waiting to be written
+     * @param batchSize             the maximum number of records written in one batch
+     * @param flushIntervalInMillis the maximum time a record waits before its batch is written
+     * @param overflowPolicy        the overflow policy
+     * @param blockTimeoutInMillis  the maximum time a caller waits for room in the queue when blocking
+     * @param spillFile             the spill file; required when records are spilled
+     */
+    public AsynchronousJdbcAuditTrailManager(final TransactionTemplate transactionTemplate, final JdbcTemplate jdbcTemplate,
+                                             final String tableName, final int queueCapacity, final int batchSize,
+                                             final long flushIntervalInMillis,
+                                             final AuditProperties.Asynchronous.OverflowPolicies overflowPolicy,
+                                             final long blockTimeoutInMillis, final File spillFile) {
+        if (overflowPolicy == AuditProperties.Asynchronous.OverflowPolicies.SPILL && spillFile == null) {
+            throw new IllegalArgumentException("A spill file must be defined to spill audit records");
+        }
+        this.transactionTemplate = transactionTemplate;
+        this.jdbcTemplate = jdbcTemplate;
+        this.insertSql = String.format(INSERT_SQL_TEMPLATE, tableName);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.flushIntervalInMillis = flushIntervalInMillis;
+        this.overflowPolicy = overflowPolicy;
+        this.blockTimeoutInMillis = blockTimeoutInMillis;
+        this.spillFile = spillFile;
+
+        this.writer = new Thread(this::writeRecords, "cas-audit-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    @Override
+    public void record(final AuditActionContext auditActionContext) {
+        if (!this.running) {
+            LOGGER.warn("Audit trail manager is destroyed; audit record for [{}] is not queued", auditActionContext.getActionPerformed());
+            spillOrDrop(Collections.singletonList(auditActionContext));
+            return;
+        }
+        if (this.queue.offer(auditActionContext)) {
+            return;
+        }
+        switch (this.overflowPolicy) {
+            case BLOCK:
+                try {
+                    if (!this.queue.offer(auditActionContext, this.blockTimeoutInMillis, TimeUnit.MILLISECONDS)) {
+                        LOGGER.warn("Audit queue is still full after [{}] ms; audit record for [{}] is not queued",
+                                this.blockTimeoutInMillis, auditActionContext.getActionPerformed());
+                        spillOrDrop(Collections.singletonList(auditActionContext));
+                    }
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    LOGGER.warn("Interrupted while waiting to queue audit record for [{}]", auditActionContext.getActionPerformed());
+                    spillOrDrop(Collections.singletonList(auditActionContext));
+                }
+                break;
+            case SPILL:
+                spill(Collections.singletonList(auditActionContext));
+                break;
+            default:
+                this.droppedRecords.incrementAndGet();
+                LOGGER.warn("Audit queue is full; dropped audit record for [{}]", auditActionContext.getActionPerformed());
+                break;
+        }
+    }
+
+    /**
+     * Stop accepting new records, write the records still queued and stop the writer.
+     * Records queued too late for the writer to pick them up are spilled, if possible.
+     *
+     * @throws Exception the exception
+     */
+    @Override
+    public void destroy() throws Exception {
+        this.running = false;
+        this.writer.join(SHUTDOWN_TIMEOUT_MILLIS);
+        if (!this.writer.isAlive()) {
+            final List<AuditActionContext> remaining = new ArrayList<>();
+            this.queue.drainTo(remaining);
+            if (!remaining.isEmpty()) {
+                LOGGER.warn("[{}] audit record(s) could not be written before shutdown", remaining.size());
+                spillOrDrop(remaining);
+            }
+        } else if (!this.queue.isEmpty()) {
+            LOGGER.warn("[{}] audit record(s) could not be written before shutdown", this.queue.size());
+        }
+    }
+
+    public int getQueueDepth() {
+        return this.queue.size();
+    }
+
+    public long getDroppedRecords() {
+        return this.droppedRecords.get();
+    }
+
+    public long getSpilledRecords() {
+        return this.spilledRecords.get();
+    }
+
+    public long getFlushedRecords() {
+        return this.flushedRecords.get();
+    }
+
+    /**
+     * Gets the time it took to write the last batch.
+     *
+     * @return the latency in milliseconds
+     */
+    public double getLastFlushLatency() {
+        return this.lastFlushNanos.get() / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * Gets the average time it took to write a batch.
+     *
+     * @return the latency in milliseconds
+     */
+    public double getAverageFlushLatency() {
+        final long count = this.flushes.get();
+        return count == 0 ? 0 : this.totalFlushNanos.get() / (double) count / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    public void setColumnLength(final int columnLength) {
+        this.columnLength = columnLength;
+    }
+
+    /**
+     * Loop of the writer thread. Records are collected until the batch is full or the flush
+     * interval elapses; whatever is left in the queue is written when the writer is stopped.
+     */
+    private void writeRecords() {
+        final List<AuditActionContext> batch = new ArrayList<>(this.batchSize);
+        long deadline = System.currentTimeMillis() + this.flushIntervalInMillis;
+        while (this.running) {
+            try {
+                final AuditActionContext record = this.queue.poll(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+                if (record != null) {
+                    batch.add(record);
+                    this.queue.drainTo(batch, this.batchSize - batch.size());
+                }
+            } catch (final InterruptedException e) {
+                LOGGER.debug("Audit writer is interrupted and will stop");
+                this.running = false;
+            }
+            if (batch.size() >= this.batchSize || System.currentTimeMillis() >= deadline) {
+                flush(batch);
+                if (this.spillFile != null && this.queue.isEmpty()) {
+                    replaySpilledRecords();
+                }
+                deadline = System.currentTimeMillis() + this.flushIntervalInMillis;
+            }
+        }
+        this.queue.drainTo(batch);
+        flush(batch);
+    }
+
+    private void flush(final List<AuditActionContext> batch) {
+        if (!batch.isEmpty() && !write(batch)) {
+            spillOrDrop(batch);
+        }
+        batch.clear();
+    }
+
+    private void spillOrDrop(final Collection<AuditActionContext> records) {
+        if (this.spillFile != null) {
+            spill(records);
+        } else {
+            this.droppedRecords.addAndGet(records.size());
+        }
+    }
+
+    private boolean write(final List<AuditActionContext> batch) {
+        try {
+            final long start = System.nanoTime();
+            insert(batch);
+            final long elapsed = System.nanoTime() - start;
+            this.lastFlushNanos.set(elapsed);
+            this.totalFlushNanos.addAndGet(elapsed);
+            this.flushes.incrementAndGet();
+            this.flushedRecords.addAndGet(batch.size());
+            LOGGER.debug("Wrote [{}] audit record(s) in [{}] ms", batch.size(), TimeUnit.NANOSECONDS.toMillis(elapsed));
+            return true;
+        } catch (final Exception e) {
+            LOGGER.error("Failed to write [{}] audit record(s): [{}]", batch.size(), e.getMessage(), e);
+            return false;
+        }
+    }
+
+    private void insert(final Collection<AuditActionContext> records) {
+        final List<Object[]> arguments = new ArrayList<>(records.size());
+        records.forEach(record -> arguments.add(new Object[]{
+            truncate(record.getPrincipal()),
+            record.getClientIpAddress(),
+            record.getServerIpAddress(),
+            truncate(record.getResourceOperatedUpon()),
+            truncate(record.getActionPerformed()),
+            record.getApplicationCode(),
+            new Timestamp(record.getWhenActionWasPerformed().getTime())}));
+        this.transactionTemplate.execute(status -> this.jdbcTemplate.batchUpdate(this.insertSql, arguments, INSERT_SQL_TYPES));
+    }
+
+    private String truncate(final String value) {
+        return StringUtils.abbreviate(value, this.columnLength);
+    }
+
+    private void spill(final Collection<AuditActionContext> records) {
+        synchronized (this.spillLock) {
+            try (BufferedWriter out = Files.newBufferedWriter(this.spillFile.toPath(), StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                for (final AuditActionContext record : records) {
+                    out.write(toSpillLine(record));
+                    out.newLine();
+                }
+                this.spilledRecords.addAndGet(records.size());
+            } catch (final IOException e) {
+                this.droppedRecords.addAndGet(records.size());
+                LOGGER.error("Failed to spill [{}] audit record(s) to [{}]: [{}]", records.size(), this.spillFile, e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Write the spilled records to the database. The spill file is moved aside first so that
+     * records spilled in the meantime are kept for the next replay. If a batch cannot be written,
+     * the records not written yet are kept in the moved file and replayed next time.
+     */
+    private void replaySpilledRecords() {
+        final File replayFile = new File(this.spillFile.getPath() + ".replay");
+        if (!this.spillFile.exists() && !replayFile.exists()) {
+            return;
+        }
+        try {
+            synchronized (this.spillLock) {
+                if (!replayFile.exists()) {
+                    Files.move(this.spillFile.toPath(), replayFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+            final List<AuditActionContext> batch = new ArrayList<>(this.batchSize);
+            final List<String> lines = new ArrayList<>(this.batchSize);
+            boolean written = true;
+            try (BufferedReader in = Files.newBufferedReader(replayFile.toPath(), StandardCharsets.UTF_8)) {
+                String line = in.readLine();
+                while (line != null && written) {
+                    final AuditActionContext record = fromSpillLine(line);
+                    if (record != null) {
+                        batch.add(record);
+                        lines.add(line);
+                    }
+                    line = in.readLine();
+                    if (batch.size() >= this.batchSize || line == null && !batch.isEmpty()) {
+                        written = write(batch);
+                        if (written) {
+                            batch.clear();
+                            lines.clear();
+                        }
+                    }
+                }
+                while (line != null) {
+                    lines.add(line);
+                    line = in.readLine();
+                }
+            }
+            if (written) {
+                Files.delete(replayFile.toPath());
+                LOGGER.info("Replayed spilled audit records from [{}]", this.spillFile);
+            } else {
+                Files.write(replayFile.toPath(), lines, StandardCharsets.UTF_8);
+                LOGGER.warn("[{}] spilled audit record(s) will be replayed later", lines.size());
+            }
+        } catch (final IOException e) {
+            LOGGER.error("Failed to replay spilled audit records from [{}]: [{}]", replayFile, e.getMessage(), e);
+        }
+    }
+
+    private static String toSpillLine(final AuditActionContext record) {
+        return String.join(SPILL_FIELD_SEPARATOR,
+                escape(record.getPrincipal()),
+                escape(record.getResourceOperatedUpon()),
+                escape(record.getActionPerformed()),
+                escape(record.getApplicationCode()),
+                String.valueOf(record.getWhenActionWasPerformed().getTime()),
+                escape(record.getClientIpAddress()),
+                escape(record.getServerIpAddress()));
+    }
+
+    private static AuditActionContext fromSpillLine(final String line) {
+        final String[] fields = line.split(SPILL_FIELD_SEPARATOR, -1);
+        if (fields.length != SPILL_FIELD_COUNT) {
+            LOGGER.warn("Skipping malformed spilled audit record [{}]", line);
+            return null;
+        }
+        int i = 0;
+        final String principal = StringEscapeUtils.unescapeJava(fields[i++]);
+        final String resource = StringEscapeUtils.unescapeJava(fields[i++]);
+        final String action = StringEscapeUtils.unescapeJava(fields[i++]);
+        final String applicationCode = StringEscapeUtils.unescapeJava(fields[i++]);
+        final Date when = new Date(Long.parseLong(fields[i++]));
+        final String clientIpAddress = StringEscapeUtils.unescapeJava(fields[i++]);
+        final String serverIpAddress = StringEscapeUtils.unescapeJava(fields[i]);
+        return new AuditActionContext(principal, resource, action, applicationCode, when, clientIpAddress, serverIpAddress, null);
+    }
+
+    private static String escape(final String value) {
+        return value == null ? StringUtils.EMPTY : StringEscapeUtils.escapeJava(value);
+    }
+}
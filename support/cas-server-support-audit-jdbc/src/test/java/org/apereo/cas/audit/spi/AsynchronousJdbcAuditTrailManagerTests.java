@@ -0,0 +1,147 @@
+package org.apereo.cas.audit.spi;
+
+import org.apereo.cas.configuration.model.core.audit.AuditProperties;
+import org.apereo.inspektr.audit.AuditActionContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.File;
+import java.util.Date;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.BooleanSupplier;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * This is {@link AsynchronousJdbcAuditTrailManagerTests}.
+ *
+ * @author Misagh Moayyed
+ * @since 5.2.0
+ */
+public class AsynchronousJdbcAuditTrailManagerTests {
+    private static final String TABLE_NAME = "COM_AUDIT_TRAIL";
+    private static final String CREATE_TABLE = "CREATE TABLE " + TABLE_NAME + " (AUD_USER VARCHAR(100), AUD_CLIENT_IP VARCHAR(100), "
+            + "AUD_SERVER_IP VARCHAR(100), AUD_RESOURCE VARCHAR(100), AUD_ACTION VARCHAR(100), APPLIC_CD VARCHAR(100), AUD_DATE TIMESTAMP)";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+
+    @Before
+    public void setUp() {
+        final DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:hsqldb:mem:cas-async-audit", "sa", "");
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+
+    @After
+    public void tearDown() {
+        this.jdbcTemplate.execute("DROP TABLE " + TABLE_NAME + " IF EXISTS");
+    }
+
+    @Test
+    public void verifyRecordsAreWrittenInBatches() throws Exception {
+        this.jdbcTemplate.execute(CREATE_TABLE);
+        final AsynchronousJdbcAuditTrailManager manager = new AsynchronousJdbcAuditTrailManager(this.transactionTemplate,
+                this.jdbcTemplate, TABLE_NAME, 100, 10, 50, AuditProperties.Asynchronous.OverflowPolicies.BLOCK, 1_000, null);
+        IntStream.range(0, 25).forEach(i -> manager.record(newAuditActionContext("casuser" + i)));
+        manager.destroy();
+
+        assertEquals(25, countRecords());
+        assertEquals(25, manager.getFlushedRecords());
+        assertEquals(0, manager.getQueueDepth());
+        assertEquals(0, manager.getDroppedRecords());
+    }
+
+    @Test
+    public void verifyFailedBatchesAreSpilledAndReplayed() throws Exception {
+        final File spillFile = new File(this.folder.getRoot(), "audit-spill.log");
+        final AsynchronousJdbcAuditTrailManager manager = new AsynchronousJdbcAuditTrailManager(this.transactionTemplate,
+                this.jdbcTemplate, TABLE_NAME, 100, 10, 50, AuditProperties.Asynchronous.OverflowPolicies.SPILL, 1_000, spillFile);
+        IntStream.range(0, 5).forEach(i -> manager.record(newAuditActionContext("casuser\t" + i)));
+        waitFor(() -> manager.getSpilledRecords() == 5);
+        assertEquals(0, manager.getFlushedRecords());
+
+        this.jdbcTemplate.execute(CREATE_TABLE);
+        waitFor(() -> manager.getFlushedRecords() == 5);
+        manager.destroy();
+
+        assertEquals(5, countRecords());
+        assertEquals(1, (int) this.jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + TABLE_NAME + " WHERE AUD_USER = ?",
+                Integer.class, "casuser\t3"));
+        assertFalse(spillFile.exists());
+    }
+
+    @Test
+    public void verifyRecordsThatCannotBeQueuedInTimeAreSpilled() throws Exception {
+        this.jdbcTemplate.execute(CREATE_TABLE);
+        final CountDownLatch release = new CountDownLatch(1);
+        final TransactionTemplate blockingTemplate = new TransactionTemplate(this.transactionTemplate.getTransactionManager()) {
+            @Override
+            public <T> T execute(final TransactionCallback<T> action) {
+                try {
+                    release.await();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.execute(action);
+            }
+        };
+        final File spillFile = new File(this.folder.getRoot(), "audit-spill.log");
+        final AsynchronousJdbcAuditTrailManager manager = new AsynchronousJdbcAuditTrailManager(blockingTemplate,
+                this.jdbcTemplate, TABLE_NAME, 1, 1, 50, AuditProperties.Asynchronous.OverflowPolicies.BLOCK, 100, spillFile);
+        manager.record(newAuditActionContext("casuser1"));
+        waitFor(() -> manager.getQueueDepth() == 0);
+        manager.record(newAuditActionContext("casuser2"));
+        manager.record(newAuditActionContext("casuser3"));
+        assertEquals(1, manager.getSpilledRecords());
+
+        release.countDown();
+        waitFor(() -> manager.getFlushedRecords() == 3);
+        manager.destroy();
+        assertEquals(3, countRecords());
+    }
+
+    @Test
+    public void verifyRecordsAfterDestroyAreSpilled() throws Exception {
+        this.jdbcTemplate.execute(CREATE_TABLE);
+        final File spillFile = new File(this.folder.getRoot(), "audit-spill.log");
+        final AsynchronousJdbcAuditTrailManager manager = new AsynchronousJdbcAuditTrailManager(this.transactionTemplate,
+                this.jdbcTemplate, TABLE_NAME, 1, 1, 50, AuditProperties.Asynchronous.OverflowPolicies.BLOCK, 1_000, spillFile);
+        manager.destroy();
+        manager.record(newAuditActionContext("casuser1"));
+        manager.record(newAuditActionContext("casuser2"));
+
+        assertEquals(2, manager.getSpilledRecords());
+        assertEquals(0, manager.getQueueDepth());
+        assertTrue(spillFile.exists());
+    }
+
+    private int countRecords() {
+        return this.jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + TABLE_NAME, Integer.class);
+    }
+
+    private static AuditActionContext newAuditActionContext(final String principal) {
+        return new AuditActionContext(principal, "https://example.org", "SERVICE_TICKET_CREATED", "CAS",
+                new Date(), "1.2.3.4", "5.6.7.8", null);
+    }
+
+    private static void waitFor(final BooleanSupplier condition) throws Exception {
+        final long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+}
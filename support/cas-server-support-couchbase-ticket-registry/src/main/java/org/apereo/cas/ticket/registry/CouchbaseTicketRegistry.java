@@ -7,6 +7,8 @@ import com.couchbase.client.java.view.ViewQuery;
 import com.couchbase.client.java.view.ViewResult;
 import com.couchbase.client.java.view.ViewRow;
 import com.google.common.base.Throwables;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.ImmutableMap;
 import org.apereo.cas.couchbase.core.CouchbaseClientFactory;
 import org.apereo.cas.ticket.ServiceTicket;
 import org.apereo.cas.ticket.Ticket;
@@ -20,13 +22,19 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.PreDestroy;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * A Ticket Registry storage backend which uses the memcached protocol.
@@ -66,6 +74,20 @@ public class CouchbaseTicketRegistry extends AbstractTicketRegistry {
 
     private static final long MAX_EXP_TIME_IN_DAYS = 30;
     private static final String END_TOKEN = "\u02ad";
+    private static final int PAGE_SIZE = 500;
+
+    /**
+     * Ticket id prefixes, mapped to the type of tickets whose ids they begin with.
+     */
+    private static final Map<String, Class<? extends Ticket>> TICKET_PREFIXES = ImmutableMap.<String, Class<? extends Ticket>>builder()
+            .put(TicketGrantingTicket.PREFIX, TicketGrantingTicket.class)
+            .put(ServiceTicket.PREFIX, ServiceTicket.class)
+            .put(ProxyTicket.PREFIX, ProxyTicket.class)
+            .put(ProxyGrantingTicket.PREFIX, ProxyGrantingTicket.class)
+            .put(AccessToken.PREFIX, AccessToken.class)
+            .put(OAuthCode.PREFIX, OAuthCode.class)
+            .put(RefreshToken.PREFIX, RefreshToken.class)
+            .build();
 
     private final CouchbaseClientFactory couchbase;
 
@@ -144,8 +166,55 @@ public class CouchbaseTicketRegistry extends AbstractTicketRegistry {
 
     @Override
     public Collection<Ticket> getTickets() {
-        LOGGER.debug("getTickets() isn't supported. Returning empty list");
-        return new ArrayList<>(0);
+        try (Stream<Ticket> tickets = getTicketsStream()) {
+            return tickets.collect(Collectors.toSet());
+        }
+    }
+
+    @Override
+    public Stream<Ticket> getTicketsStream() {
+        return getTicketsStream(new TicketQuery(null, null));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Only the ranges of the tickets view whose id prefix denotes a type that may match the query are read,
+     * one page of documents at a time as the stream is consumed.</p>
+     */
+    @Override
+    public Stream<Ticket> getTicketsStream(final TicketQuery query) {
+        return TICKET_PREFIXES.entrySet().stream()
+                .filter(entry -> query.matches(entry.getValue()))
+                .flatMap(entry -> streamPrefixedTickets(entry.getKey() + '-'))
+                .map(this::decodeTicket)
+                .filter(query);
+    }
+
+    private Stream<Ticket> streamPrefixedTickets(final String prefix) {
+        final Iterator<ViewRow> rows = new AbstractIterator<ViewRow>() {
+            private Iterator<ViewRow> page;
+            private String lastId;
+            private boolean lastPage;
+
+            @Override
+            protected ViewRow computeNext() {
+                while (this.page == null || !this.page.hasNext()) {
+                    if (this.lastPage) {
+                        return endOfData();
+                    }
+                    final List<ViewRow> results = getViewResultPageForPrefixedTickets(prefix, this.lastId).allRows();
+                    this.lastPage = results.size() < PAGE_SIZE;
+                    this.page = results.iterator();
+                }
+                final ViewRow row = this.page.next();
+                this.lastId = row.id();
+                return row;
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(rows, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .map(row -> row.document(SerializableDocument.class))
+                .filter(Objects::nonNull)
+                .map(document -> (Ticket) document.content());
     }
 
     @Override
@@ -227,6 +296,21 @@ public class CouchbaseTicketRegistry extends AbstractTicketRegistry {
                         .reduce());
     }
 
+    private ViewResult getViewResultPageForPrefixedTickets(final String prefix, final String lastId) {
+        LOGGER.debug("Fetching page of [{}] tickets with prefix [{}] after [{}]", PAGE_SIZE, prefix, lastId);
+        final ViewQuery query = ViewQuery.from(UTIL_DOCUMENT, VIEW_NAME_ALL_TICKETS)
+                .reduce(false)
+                .includeDocs(true, SerializableDocument.class)
+                .endKey(prefix + END_TOKEN)
+                .limit(PAGE_SIZE);
+        if (lastId == null) {
+            query.startKey(prefix);
+        } else {
+            query.startKey(lastId).startKeyDocId(lastId).skip(1);
+        }
+        return this.couchbase.getBucket().query(query);
+    }
+
     /**
      * Get the expiration policy value of the ticket in seconds.
      *
@@ -7,6 +7,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Collection;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * This is {@link DynamoDbTicketRegistry}.
@@ -55,7 +57,21 @@ public class DynamoDbTicketRegistry extends AbstractTicketRegistry {
 
     @Override
     public Collection<Ticket> getTickets() {
-        return decodeTickets(this.dbTableService.getAll());
+        try (Stream<Ticket> tickets = getTicketsStream()) {
+            return tickets.collect(Collectors.toSet());
+        }
+    }
+
+    @Override
+    public Stream<Ticket> getTicketsStream() {
+        return getTicketsStream(new TicketQuery(null, null));
+    }
+
+    @Override
+    public Stream<Ticket> getTicketsStream(final TicketQuery query) {
+        return this.dbTableService.stream(query)
+                .map(this::decodeTicket)
+                .filter(query);
     }
 
     @Override
@@ -17,8 +17,10 @@ import com.amazonaws.services.dynamodbv2.model.PutItemResult;
 import com.amazonaws.services.dynamodbv2.model.ScalarAttributeType;
 import com.amazonaws.services.dynamodbv2.model.ScanRequest;
 import com.amazonaws.services.dynamodbv2.model.ScanResult;
+import com.amazonaws.services.dynamodbv2.model.Select;
 import com.amazonaws.services.dynamodbv2.model.TableDescription;
 import com.amazonaws.services.dynamodbv2.util.TableUtils;
+import com.google.common.collect.AbstractIterator;
 import org.apache.commons.lang3.SerializationUtils;
 import org.apereo.cas.configuration.model.support.dynamodb.DynamoDbTicketRegistryProperties;
 import org.apereo.cas.ticket.Ticket;
@@ -30,12 +32,15 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.nio.ByteBuffer;
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * This is {@link DynamoDbTicketRegistryFacilitator}.
@@ -106,15 +111,13 @@ public class DynamoDbTicketRegistryFacilitator {
      * @return the int
      */
     public int deleteAll() {
-        final AtomicInteger count = new AtomicInteger();
-        final Collection<TicketDefinition> metadata = this.ticketCatalog.findAll();
-        metadata.forEach(r -> {
-            final ScanRequest scan = new ScanRequest(r.getProperties().getStorageName());
-            LOGGER.debug("Submitting scan request [{}] to table [{}]", scan, r.getProperties().getStorageName());
-            count.addAndGet(this.amazonDynamoDBClient.scan(scan).getCount());
-        });
+        final int count = this.ticketCatalog.findAll().stream()
+                .map(r -> new ScanRequest(r.getProperties().getStorageName()).withSelect(Select.COUNT))
+                .flatMap(this::scan)
+                .mapToInt(ScanResult::getCount)
+                .sum();
         createTicketTables(true);
-        return count.get();
+        return count;
     }
 
     /**
@@ -123,20 +126,46 @@ public class DynamoDbTicketRegistryFacilitator {
      * @return the all
      */
     public Collection<Ticket> getAll() {
-        final Collection<Ticket> tickets = new ArrayList<>();
-        final Collection<TicketDefinition> metadata = this.ticketCatalog.findAll();
-        metadata.forEach(r -> {
-            final ScanRequest scan = new ScanRequest(r.getProperties().getStorageName());
-            LOGGER.debug("Scanning table with request [{}]", scan);
-            final ScanResult result = this.amazonDynamoDBClient.scan(scan);
-            LOGGER.debug("Scanned table with result [{}]", scan);
-
-            tickets.addAll(result.getItems()
-                    .stream()
-                    .map(DynamoDbTicketRegistryFacilitator::deserializeTicket)
-                    .collect(Collectors.toList()));
-        });
-        return tickets;
+        return stream(new TicketQuery(null, null)).collect(Collectors.toList());
+    }
+
+    /**
+     * Stream the tickets of the tables that may hold tickets matching the query.
+     * Only the encoded tickets are read, one page of items at a time as the stream is consumed.
+     * Tickets are not filtered by the query, since they may have to be decoded first.
+     *
+     * @param query the query
+     * @return the tickets
+     */
+    public Stream<Ticket> stream(final TicketQuery query) {
+        return this.ticketCatalog.findAll().stream()
+                .filter(query::matches)
+                .map(r -> new ScanRequest(r.getProperties().getStorageName()).withProjectionExpression(ColumnNames.ENCODED.getName()))
+                .flatMap(this::scan)
+                .flatMap(result -> result.getItems().stream())
+                .map(DynamoDbTicketRegistryFacilitator::deserializeTicket);
+    }
+
+    private Stream<ScanResult> scan(final ScanRequest request) {
+        final Iterator<ScanResult> pages = new AbstractIterator<ScanResult>() {
+            private Map<String, AttributeValue> lastEvaluatedKey;
+            private boolean started;
+
+            @Override
+            protected ScanResult computeNext() {
+                if (this.started && (this.lastEvaluatedKey == null || this.lastEvaluatedKey.isEmpty())) {
+                    return endOfData();
+                }
+                this.started = true;
+                request.setExclusiveStartKey(this.lastEvaluatedKey);
+                LOGGER.debug("Scanning table with request [{}]", request);
+                final ScanResult result = amazonDynamoDBClient.scan(request);
+                LOGGER.debug("Scanned table with result [{}]", result);
+                this.lastEvaluatedKey = result.getLastEvaluatedKey();
+                return result;
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(pages, Spliterator.ORDERED | Spliterator.NONNULL), false);
     }
 
     /**
@@ -189,7 +218,6 @@ public class DynamoDbTicketRegistryFacilitator {
         LOGGER.debug("Submitting put request [{}] for ticket id [{}]", putItemRequest, encodedTicket.getId());
         final PutItemResult putItemResult = amazonDynamoDBClient.putItem(putItemRequest);
         LOGGER.debug("Ticket added with result [{}]", putItemResult);
-        getAll();
     }
 
     /**
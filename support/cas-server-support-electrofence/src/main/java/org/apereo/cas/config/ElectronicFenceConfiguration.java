@@ -1,5 +1,6 @@
 package org.apereo.cas.config;
 
+import com.codahale.metrics.MetricRegistry;
 import org.apache.commons.lang3.StringUtils;
 import org.apereo.cas.CentralAuthenticationService;
 import org.apereo.cas.api.AuthenticationRequestRiskCalculator;
@@ -25,7 +26,7 @@ import org.apereo.cas.impl.plans.BlockAuthenticationContingencyPlan;
 import org.apereo.cas.impl.plans.MultifactorAuthenticationContingencyPlan;
 import org.apereo.cas.services.MultifactorAuthenticationProviderSelector;
 import org.apereo.cas.services.ServicesManager;
-import org.apereo.cas.support.events.CasEventRepository;
+import org.apereo.cas.support.events.dao.CasEventProfileRepository;
 import org.apereo.cas.ticket.registry.TicketRegistrySupport;
 import org.apereo.cas.util.io.CommunicationsManager;
 import org.apereo.cas.web.flow.CasWebflowConfigurer;
@@ -47,6 +48,7 @@ import org.springframework.web.util.CookieGenerator;
 import org.springframework.webflow.definition.registry.FlowDefinitionRegistry;
 import org.springframework.webflow.engine.builder.support.FlowBuilderServices;
 
+import java.math.BigDecimal;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -95,12 +97,16 @@ public class ElectronicFenceConfiguration {
     private FlowDefinitionRegistry loginFlowDefinitionRegistry;
 
     @Autowired
-    @Qualifier("casEventRepository")
-    private CasEventRepository casEventRepository;
+    @Qualifier("casEventProfileRepository")
+    private CasEventProfileRepository casEventProfileRepository;
 
     @Autowired
     private CasConfigurationProperties casProperties;
 
+    @Autowired(required = false)
+    @Qualifier("metrics")
+    private MetricRegistry metricRegistry;
+
     @Autowired
     @Qualifier("multifactorAuthenticationProviderSelector")
     private MultifactorAuthenticationProviderSelector selector;
@@ -170,21 +176,21 @@ public class ElectronicFenceConfiguration {
     @Bean
     @RefreshScope
     public AuthenticationRequestRiskCalculator ipAddressAuthenticationRequestRiskCalculator() {
-        return new IpAddressAuthenticationRequestRiskCalculator(this.casEventRepository);
+        return new IpAddressAuthenticationRequestRiskCalculator(this.casEventProfileRepository);
     }
 
     @ConditionalOnMissingBean(name = "userAgentAuthenticationRequestRiskCalculator")
     @Bean
     @RefreshScope
     public AuthenticationRequestRiskCalculator userAgentAuthenticationRequestRiskCalculator() {
-        return new UserAgentAuthenticationRequestRiskCalculator(this.casEventRepository);
+        return new UserAgentAuthenticationRequestRiskCalculator(this.casEventProfileRepository);
     }
 
     @ConditionalOnMissingBean(name = "dateTimeAuthenticationRequestRiskCalculator")
     @Bean
     @RefreshScope
     public AuthenticationRequestRiskCalculator dateTimeAuthenticationRequestRiskCalculator() {
-        return new DateTimeAuthenticationRequestRiskCalculator(this.casEventRepository,
+        return new DateTimeAuthenticationRequestRiskCalculator(this.casEventProfileRepository,
                 casProperties.getAuthn().getAdaptive().getRisk().getDateTime().getWindowInHours());
     }
 
@@ -192,7 +198,7 @@ public class ElectronicFenceConfiguration {
     @Bean
     @RefreshScope
     public AuthenticationRequestRiskCalculator geoLocationAuthenticationRequestRiskCalculator() {
-        return new GeoLocationAuthenticationRequestRiskCalculator(this.casEventRepository);
+        return new GeoLocationAuthenticationRequestRiskCalculator(this.casEventProfileRepository);
     }
 
     @ConditionalOnMissingBean(name = "riskAwareAuthenticationWebflowConfigurer")
@@ -226,7 +232,12 @@ public class ElectronicFenceConfiguration {
             LOGGER.warn("No risk calculators are defined to examine authentication requests");
         }
 
-        return new DefaultAuthenticationRiskEvaluator(calculators);
+        final RiskBasedAuthenticationProperties.Evaluator evaluator = risk.getEvaluator();
+        if (evaluator.isParallel()) {
+            return new DefaultAuthenticationRiskEvaluator(calculators, evaluator.getPoolSize(), evaluator.getQueueCapacity(),
+                    evaluator.getTimeout(), BigDecimal.valueOf(evaluator.getTimeoutScore()), this.metricRegistry);
+        }
+        return new DefaultAuthenticationRiskEvaluator(calculators, this.metricRegistry);
     }
 
     private void configureContingencyPlan(final BaseAuthenticationRiskContingencyPlan b) {
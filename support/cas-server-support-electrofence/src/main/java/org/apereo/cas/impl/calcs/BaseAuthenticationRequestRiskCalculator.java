@@ -4,19 +4,15 @@ import org.apereo.cas.api.AuthenticationRequestRiskCalculator;
 import org.apereo.cas.api.AuthenticationRiskScore;
 import org.apereo.cas.authentication.Authentication;
 import org.apereo.cas.authentication.principal.Principal;
-import org.apereo.cas.configuration.CasConfigurationProperties;
 import org.apereo.cas.services.RegisteredService;
-import org.apereo.cas.support.events.ticket.CasTicketGrantingTicketCreatedEvent;
-import org.apereo.cas.support.events.dao.CasEvent;
-import org.apereo.cas.support.events.CasEventRepository;
+import org.apereo.cas.support.events.dao.CasEventProfile;
+import org.apereo.cas.support.events.dao.CasEventProfileRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Autowired;
 
 import javax.servlet.http.HttpServletRequest;
 import java.math.BigDecimal;
 import java.time.ZonedDateTime;
-import java.util.Collection;
 
 /**
  * This is {@link BaseAuthenticationRequestRiskCalculator}.
@@ -28,15 +24,12 @@ public abstract class BaseAuthenticationRequestRiskCalculator implements Authent
     private static final Logger LOGGER = LoggerFactory.getLogger(BaseAuthenticationRequestRiskCalculator.class);
     
     /**
-     * CAS event repository instance.
+     * Profiles of the ticket-granting tickets created for principals.
      */
-    protected CasEventRepository casEventRepository;
-    
-    @Autowired
-    private CasConfigurationProperties casProperties;
-    
-    public BaseAuthenticationRequestRiskCalculator(final CasEventRepository casEventRepository) {
-        this.casEventRepository = casEventRepository;
+    protected CasEventProfileRepository casEventProfileRepository;
+
+    public BaseAuthenticationRequestRiskCalculator(final CasEventProfileRepository casEventProfileRepository) {
+        this.casEventProfileRepository = casEventProfileRepository;
     }
 
     @Override
@@ -44,11 +37,14 @@ public abstract class BaseAuthenticationRequestRiskCalculator implements Authent
                                                    final RegisteredService service,
                                                    final HttpServletRequest request) {
         final Principal principal = authentication.getPrincipal();
-        final Collection<CasEvent> events = getCasTicketGrantingTicketCreatedEventsFor(principal.getId());
-        if (events.isEmpty()) {
+        LOGGER.debug("Retrieving profile of [{}] for events of type [{}]", principal.getId(), this.casEventProfileRepository.getType());
+        final CasEventProfile profile = this.casEventProfileRepository.getProfile(principal.getId());
+        final ZonedDateTime from = ZonedDateTime.now().minusDays(this.casEventProfileRepository.getDays());
+        final long total = profile.count(from);
+        if (total == 0) {
             return new AuthenticationRiskScore(HIGHEST_RISK_SCORE);
         }
-        final AuthenticationRiskScore score = new AuthenticationRiskScore(calculateScore(request, authentication, service, events));
+        final AuthenticationRiskScore score = new AuthenticationRiskScore(calculateScore(request, authentication, service, profile, from, total));
         LOGGER.debug("Calculated authentication risk score by [{}] is [{}]", getClass().getSimpleName(), score);
         return score;
     }
@@ -59,31 +55,20 @@ public abstract class BaseAuthenticationRequestRiskCalculator implements Authent
      * @param request        the request
      * @param authentication the authentication
      * @param service        the service
-     * @param events         the events
+     * @param profile        the profile of the principal
+     * @param from           the date from which events are examined
+     * @param total          the number of events since that date
      * @return the authentication risk score
      */
     protected BigDecimal calculateScore(final HttpServletRequest request,
-                                    final Authentication authentication,
-                                    final RegisteredService service,
-                                    final Collection<CasEvent> events) {
+                                        final Authentication authentication,
+                                        final RegisteredService service,
+                                        final CasEventProfile profile,
+                                        final ZonedDateTime from,
+                                        final long total) {
         return HIGHEST_RISK_SCORE;
     }
 
-    /**
-     * Gets cas ticket granting ticket created events.
-     *
-     * @param principal the principal
-     * @return the cas ticket granting ticket created events for
-     */
-    protected Collection<CasEvent> getCasTicketGrantingTicketCreatedEventsFor(final String principal) {
-        final String type = CasTicketGrantingTicketCreatedEvent.class.getName();
-        LOGGER.debug("Retrieving events of type [{}] for [{}]", type, principal);
-        
-        final ZonedDateTime date = ZonedDateTime.now()
-                .minusDays(casProperties.getAuthn().getAdaptive().getRisk().getDaysInRecentHistory());
-        return casEventRepository.getEventsOfTypeForPrincipal(type, principal, date);
-    }
-
     /**
      * Gets final averaged score.
      *
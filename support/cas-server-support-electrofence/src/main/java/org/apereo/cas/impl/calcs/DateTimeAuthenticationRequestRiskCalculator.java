@@ -2,15 +2,14 @@ package org.apereo.cas.impl.calcs;
 
 import org.apereo.cas.authentication.Authentication;
 import org.apereo.cas.services.RegisteredService;
-import org.apereo.cas.support.events.dao.CasEvent;
-import org.apereo.cas.support.events.CasEventRepository;
+import org.apereo.cas.support.events.dao.CasEventProfile;
+import org.apereo.cas.support.events.dao.CasEventProfileRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.servlet.http.HttpServletRequest;
 import java.math.BigDecimal;
 import java.time.ZonedDateTime;
-import java.util.Collection;
 
 /**
  * This is {@link DateTimeAuthenticationRequestRiskCalculator}.
@@ -20,32 +19,33 @@ import java.util.Collection;
  */
 public class DateTimeAuthenticationRequestRiskCalculator extends BaseAuthenticationRequestRiskCalculator {
     private static final Logger LOGGER = LoggerFactory.getLogger(DateTimeAuthenticationRequestRiskCalculator.class);
+    private static final int HOURS_PER_DAY = 24;
     
     private final int windowInHours;
 
-    public DateTimeAuthenticationRequestRiskCalculator(final CasEventRepository casEventRepository, final int windowInHours) {
-        super(casEventRepository);
+    public DateTimeAuthenticationRequestRiskCalculator(final CasEventProfileRepository casEventProfileRepository, final int windowInHours) {
+        super(casEventProfileRepository);
         this.windowInHours = windowInHours;
     }
 
     @Override
     protected BigDecimal calculateScore(final HttpServletRequest request, final Authentication authentication,
-                                        final RegisteredService service, final Collection<CasEvent> events) {
+                                        final RegisteredService service, final CasEventProfile profile,
+                                        final ZonedDateTime from, final long total) {
         final ZonedDateTime timestamp = ZonedDateTime.now();
-        LOGGER.debug("Filtering authentication events for timestamp [{}]", timestamp);
+        LOGGER.debug("Counting authentication events for timestamp [{}]", timestamp);
+
+        final int hour = timestamp.getHour();
+        final int window = Math.floorMod(windowInHours, HOURS_PER_DAY);
+        final long count = profile.countHours(h -> h == hour
+                || (h + window) % HOURS_PER_DAY == hour
+                || (h - window + HOURS_PER_DAY) % HOURS_PER_DAY == hour, from);
 
-        final long count = events.stream().filter(e -> {
-            final int hour = timestamp.getHour();
-            return e.getCreationTime().getHour() == hour
-                    || e.getCreationTime().plusHours(windowInHours).getHour() == hour
-                    || e.getCreationTime().minusHours(windowInHours).getHour() == hour;
-        }).count();
-        
         LOGGER.debug("Total authentication events found for [{}]: [{}]", timestamp, count);
-        if (count == events.size()) {
+        if (count == total) {
             LOGGER.debug("Principal [{}] has always authenticated from [{}]", authentication.getPrincipal(), timestamp);
             return LOWEST_RISK_SCORE;
         }
-        return getFinalAveragedScore(count, events.size());
+        return getFinalAveragedScore(count, total);
     }
 }
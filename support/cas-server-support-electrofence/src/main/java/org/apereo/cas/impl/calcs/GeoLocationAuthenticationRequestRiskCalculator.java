@@ -5,8 +5,8 @@ import org.apereo.cas.authentication.adaptive.geo.GeoLocationRequest;
 import org.apereo.cas.authentication.adaptive.geo.GeoLocationResponse;
 import org.apereo.cas.authentication.adaptive.geo.GeoLocationService;
 import org.apereo.cas.services.RegisteredService;
-import org.apereo.cas.support.events.dao.CasEvent;
-import org.apereo.cas.support.events.CasEventRepository;
+import org.apereo.cas.support.events.dao.CasEventProfile;
+import org.apereo.cas.support.events.dao.CasEventProfileRepository;
 import org.apereo.cas.web.support.WebUtils;
 import org.apereo.inspektr.common.web.ClientInfoHolder;
 import org.slf4j.Logger;
@@ -16,7 +16,7 @@ import org.springframework.beans.factory.annotation.Qualifier;
 
 import javax.servlet.http.HttpServletRequest;
 import java.math.BigDecimal;
-import java.util.Collection;
+import java.time.ZonedDateTime;
 
 /**
  * This is {@link GeoLocationAuthenticationRequestRiskCalculator}.
@@ -34,37 +34,37 @@ public class GeoLocationAuthenticationRequestRiskCalculator extends BaseAuthenti
     @Qualifier("geoLocationService")
     protected GeoLocationService geoLocationService;
 
-    public GeoLocationAuthenticationRequestRiskCalculator(final CasEventRepository casEventRepository) {
-        super(casEventRepository);
+    public GeoLocationAuthenticationRequestRiskCalculator(final CasEventProfileRepository casEventProfileRepository) {
+        super(casEventProfileRepository);
     }
 
     @Override
     protected BigDecimal calculateScore(final HttpServletRequest request, final Authentication authentication,
-                                        final RegisteredService service, final Collection<CasEvent> events) {
+                                        final RegisteredService service, final CasEventProfile profile,
+                                        final ZonedDateTime from, final long total) {
 
-        final GeoLocationRequest loc = WebUtils.getHttpServletRequestGeoLocation();
+        final GeoLocationRequest loc = WebUtils.getHttpServletRequestGeoLocation(request);
         if (loc.isValid()) {
-            LOGGER.debug("Filtering authentication events for geolocation [{}]", loc);
-            final long count = events.stream().filter(e -> e.getGeoLocation().equals(loc)).count();
+            LOGGER.debug("Counting authentication events for geolocation [{}]", loc);
+            final long count = profile.countGeoLocation(loc, from);
             LOGGER.debug("Total authentication events found for [{}]: [{}]", loc, count);
-            if (count == events.size()) {
+            if (count == total) {
                 LOGGER.debug("Principal [{}] has always authenticated from [{}]", authentication.getPrincipal(), loc);
                 return LOWEST_RISK_SCORE;
             }
-            return getFinalAveragedScore(count, events.size());
+            return getFinalAveragedScore(count, total);
         }
         final String remoteAddr = ClientInfoHolder.getClientInfo().getClientIpAddress();
-        LOGGER.debug("Filtering authentication events for location based on ip [{}]", remoteAddr);
+        LOGGER.debug("Counting authentication events for location based on ip [{}]", remoteAddr);
         final GeoLocationResponse response = this.geoLocationService.locate(remoteAddr);
         if (response != null) {
-            final long count = events.stream().filter(e -> e.getGeoLocation().equals(
-                    new GeoLocationRequest(response.getLatitude(), response.getLongitude()))).count();
+            final long count = profile.countGeoLocation(new GeoLocationRequest(response.getLatitude(), response.getLongitude()), from);
             LOGGER.debug("Total authentication events found for location of [{}]: [{}]", remoteAddr, count);
-            if (count == events.size()) {
+            if (count == total) {
                 LOGGER.debug("Principal [{}] has always authenticated from [{}]", authentication.getPrincipal(), loc);
                 return LOWEST_RISK_SCORE;
             }
-            return getFinalAveragedScore(count, events.size());
+            return getFinalAveragedScore(count, total);
         }
         LOGGER.debug("Request does not contain enough geolocation data");
         return HIGHEST_RISK_SCORE;
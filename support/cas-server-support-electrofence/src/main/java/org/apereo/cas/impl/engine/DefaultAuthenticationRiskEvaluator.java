@@ -1,29 +1,88 @@
 package org.apereo.cas.impl.engine;
 
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
 import org.apereo.cas.api.AuthenticationRequestRiskCalculator;
 import org.apereo.cas.api.AuthenticationRiskEvaluator;
 import org.apereo.cas.api.AuthenticationRiskScore;
 import org.apereo.cas.authentication.Authentication;
 import org.apereo.cas.services.RegisteredService;
 import org.apereo.inspektr.audit.annotation.Audit;
+import org.apereo.inspektr.common.web.ClientInfo;
+import org.apereo.inspektr.common.web.ClientInfoHolder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
 
 import javax.servlet.http.HttpServletRequest;
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * This is {@link DefaultAuthenticationRiskEvaluator}.
+ * <p>
+ * Calculators are run one after the other by default. When given a thread pool, calculators
+ * are run concurrently instead and each one is given until the same deadline to produce a score;
+ * a calculator that does not is given the timeout score. Calculations that cannot be queued
+ * are run by the thread evaluating the request.
  *
  * @author Misagh Moayyed
  * @since 5.1.0
  */
-public class DefaultAuthenticationRiskEvaluator implements AuthenticationRiskEvaluator {
+public class DefaultAuthenticationRiskEvaluator implements AuthenticationRiskEvaluator, DisposableBean {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DefaultAuthenticationRiskEvaluator.class);
+
     private final Set<AuthenticationRequestRiskCalculator> calculators;
+    private final ThreadPoolExecutor executor;
+    private final long timeout;
+    private final BigDecimal timeoutScore;
+    private final MetricRegistry metricRegistry;
 
     public DefaultAuthenticationRiskEvaluator(final Set<AuthenticationRequestRiskCalculator> calculators) {
+        this(calculators, null);
+    }
+
+    public DefaultAuthenticationRiskEvaluator(final Set<AuthenticationRequestRiskCalculator> calculators,
+                                              final MetricRegistry metricRegistry) {
+        this.calculators = calculators;
+        this.executor = null;
+        this.timeout = 0;
+        this.timeoutScore = AuthenticationRequestRiskCalculator.HIGHEST_RISK_SCORE;
+        this.metricRegistry = metricRegistry;
+    }
+
+    /**
+     * Instantiates a new evaluator that runs calculators concurrently.
+     *
+     * @param calculators    the calculators
+     * @param poolSize       the number of threads running calculators
+     * @param queueCapacity  the number of calculations that may wait for a thread
+     * @param timeout        the time in milliseconds given to calculators to produce a score
+     * @param timeoutScore   the score of calculators that did not produce a score in time
+     * @param metricRegistry the metric registry recording calculation times, if any
+     */
+    public DefaultAuthenticationRiskEvaluator(final Set<AuthenticationRequestRiskCalculator> calculators,
+                                              final int poolSize, final int queueCapacity,
+                                              final long timeout, final BigDecimal timeoutScore,
+                                              final MetricRegistry metricRegistry) {
         this.calculators = calculators;
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), newThreadFactory(), new ThreadPoolExecutor.CallerRunsPolicy());
+        this.timeout = timeout;
+        this.timeoutScore = timeoutScore;
+        this.metricRegistry = metricRegistry;
     }
 
     @Override
@@ -41,10 +100,93 @@ public class DefaultAuthenticationRiskEvaluator implements AuthenticationRiskEva
             return new AuthenticationRiskScore(AuthenticationRequestRiskCalculator.HIGHEST_RISK_SCORE);
         }
 
-        final List<AuthenticationRiskScore> scores = new ArrayList<>();
-        this.calculators.stream().forEach(r -> scores.add(r.calculate(authentication, service, request)));
+        final List<AuthenticationRiskScore> scores = this.executor == null
+                ? calculateSequentially(authentication, service, request)
+                : calculateConcurrently(authentication, service, request);
         final BigDecimal sum = scores.stream().map(AuthenticationRiskScore::getScore).reduce(BigDecimal.ZERO, BigDecimal::add);
         final BigDecimal score = sum.divide(BigDecimal.valueOf(this.calculators.size()), 2, BigDecimal.ROUND_UP);
         return new AuthenticationRiskScore(score);
     }
+
+    @Override
+    public void destroy() {
+        if (this.executor != null) {
+            this.executor.shutdownNow();
+        }
+    }
+
+    private List<AuthenticationRiskScore> calculateSequentially(final Authentication authentication,
+                                                                final RegisteredService service,
+                                                                final HttpServletRequest request) {
+        final List<AuthenticationRiskScore> scores = new ArrayList<>();
+        this.calculators.forEach(r -> scores.add(calculate(r, authentication, service, request)));
+        return scores;
+    }
+
+    private List<AuthenticationRiskScore> calculateConcurrently(final Authentication authentication,
+                                                                final RegisteredService service,
+                                                                final HttpServletRequest request) {
+        final ClientInfo clientInfo = ClientInfoHolder.getClientInfo();
+        final Map<AuthenticationRequestRiskCalculator, Future<AuthenticationRiskScore>> futures = new LinkedHashMap<>();
+        this.calculators.forEach(r -> futures.put(r, this.executor.submit(() -> {
+            final ClientInfo previous = ClientInfoHolder.getClientInfo();
+            ClientInfoHolder.setClientInfo(clientInfo);
+            try {
+                return calculate(r, authentication, service, request);
+            } finally {
+                ClientInfoHolder.setClientInfo(previous);
+            }
+        })));
+
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(this.timeout);
+        final List<AuthenticationRiskScore> scores = new ArrayList<>();
+        futures.forEach((calculator, future) -> {
+            try {
+                scores.add(future.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS));
+            } catch (final TimeoutException e) {
+                future.cancel(true);
+                LOGGER.warn("Risk calculator [{}] did not produce a score within [{}] ms; score [{}] is assumed",
+                        calculator.getClass().getSimpleName(), this.timeout, this.timeoutScore);
+                if (this.metricRegistry != null) {
+                    this.metricRegistry.meter(MetricRegistry.name(calculator.getClass(), "timeouts")).mark();
+                }
+                scores.add(new AuthenticationRiskScore(this.timeoutScore));
+            } catch (final InterruptedException e) {
+                futures.values().forEach(f -> f.cancel(true));
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while evaluating authentication risk", e);
+            } catch (final ExecutionException e) {
+                futures.values().forEach(f -> f.cancel(true));
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new IllegalStateException(e.getCause());
+            }
+        });
+        return scores;
+    }
+
+    private AuthenticationRiskScore calculate(final AuthenticationRequestRiskCalculator calculator,
+                                              final Authentication authentication,
+                                              final RegisteredService service,
+                                              final HttpServletRequest request) {
+        if (this.metricRegistry == null) {
+            return calculator.calculate(authentication, service, request);
+        }
+        final Timer.Context context = this.metricRegistry.timer(MetricRegistry.name(calculator.getClass(), "calculate")).time();
+        try {
+            return calculator.calculate(authentication, service, request);
+        } finally {
+            context.stop();
+        }
+    }
+
+    private static ThreadFactory newThreadFactory() {
+        final AtomicInteger count = new AtomicInteger();
+        return r -> {
+            final Thread thread = new Thread(r, "cas-risk-calculator-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
 }
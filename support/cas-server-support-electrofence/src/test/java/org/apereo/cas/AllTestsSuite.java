@@ -4,6 +4,7 @@ import org.apereo.cas.impl.calcs.DateTimeAuthenticationRequestRiskCalculatorTest
 import org.apereo.cas.impl.calcs.GeoLocationAuthenticationRequestRiskCalculatorTests;
 import org.apereo.cas.impl.calcs.IpAddressAuthenticationRequestRiskCalculatorTests;
 import org.apereo.cas.impl.calcs.UserAgentAuthenticationRequestRiskCalculatorTests;
+import org.apereo.cas.impl.engine.DefaultAuthenticationRiskEvaluatorTests;
 import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 
@@ -16,6 +17,7 @@ import org.junit.runners.Suite;
 @Suite.SuiteClasses({DateTimeAuthenticationRequestRiskCalculatorTests.class,
         GeoLocationAuthenticationRequestRiskCalculatorTests.class,
         IpAddressAuthenticationRequestRiskCalculatorTests.class,
-        UserAgentAuthenticationRequestRiskCalculatorTests.class})
+        UserAgentAuthenticationRequestRiskCalculatorTests.class,
+        DefaultAuthenticationRiskEvaluatorTests.class})
 public class AllTestsSuite {
 }
@@ -0,0 +1,92 @@
+package org.apereo.cas.impl.engine;
+
+import com.codahale.metrics.MetricRegistry;
+import org.apereo.cas.api.AuthenticationRequestRiskCalculator;
+import org.apereo.cas.api.AuthenticationRiskScore;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * This is {@link DefaultAuthenticationRiskEvaluatorTests}.
+ *
+ * @author Misagh Moayyed
+ * @since 5.2.0
+ */
+public class DefaultAuthenticationRiskEvaluatorTests {
+
+    private DefaultAuthenticationRiskEvaluator evaluator;
+
+    @After
+    public void tearDown() {
+        if (this.evaluator != null) {
+            this.evaluator.destroy();
+        }
+    }
+
+    @Test
+    public void verifyScoresAreAveraged() {
+        this.evaluator = new DefaultAuthenticationRiskEvaluator(calculators(
+                (a, s, r) -> new AuthenticationRiskScore(BigDecimal.ONE),
+                (a, s, r) -> new AuthenticationRiskScore(BigDecimal.ZERO)));
+        final AuthenticationRiskScore score = this.evaluator.eval(null, null, new MockHttpServletRequest());
+        assertEquals(0, new BigDecimal("0.50").compareTo(score.getScore()));
+    }
+
+    @Test
+    public void verifyCalculatorsRunConcurrently() {
+        final CountDownLatch latch = new CountDownLatch(2);
+        final AuthenticationRequestRiskCalculator calculator = (a, s, r) -> {
+            latch.countDown();
+            try {
+                assertTrue(latch.await(5, TimeUnit.SECONDS));
+            } catch (final InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            return new AuthenticationRiskScore(BigDecimal.ZERO);
+        };
+        this.evaluator = new DefaultAuthenticationRiskEvaluator(calculators(calculator, (a, s, r) -> calculator.calculate(a, s, r)),
+                2, 10, TimeUnit.SECONDS.toMillis(10), BigDecimal.ONE, null);
+        assertTrue(this.evaluator.eval(null, null, new MockHttpServletRequest()).isLowestRisk());
+    }
+
+    @Test
+    public void verifySlowCalculatorIsGivenTimeoutScore() {
+        final MetricRegistry metrics = new MetricRegistry();
+        final CountDownLatch release = new CountDownLatch(1);
+        final AuthenticationRequestRiskCalculator slow = (a, s, r) -> {
+            try {
+                release.await();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return new AuthenticationRiskScore(BigDecimal.ZERO);
+        };
+        this.evaluator = new DefaultAuthenticationRiskEvaluator(calculators(slow,
+                (a, s, r) -> new AuthenticationRiskScore(BigDecimal.ZERO)), 2, 10, 100, BigDecimal.ONE, metrics);
+        try {
+            final AuthenticationRiskScore score = this.evaluator.eval(null, null, new MockHttpServletRequest());
+            assertEquals(0, new BigDecimal("0.50").compareTo(score.getScore()));
+            assertEquals(1, metrics.getMeters().values().stream().mapToLong(m -> m.getCount()).sum());
+            assertEquals(2, metrics.getTimers().size());
+        } finally {
+            release.countDown();
+        }
+    }
+
+    private static Set<AuthenticationRequestRiskCalculator> calculators(final AuthenticationRequestRiskCalculator... calculators) {
+        final Set<AuthenticationRequestRiskCalculator> set = new LinkedHashSet<>();
+        for (final AuthenticationRequestRiskCalculator calculator : calculators) {
+            set.add(calculator);
+        }
+        return set;
+    }
+}
@@ -1,41 +1,499 @@
 package org.apereo.cas.support.events.dao;
 
-import com.google.common.cache.LoadingCache;
+import org.apache.commons.lang3.StringUtils;
 
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.UUID;
-import java.util.stream.Collectors;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
 
 /**
- * This is {@link InMemoryCasEventRepository}.
+ * This is {@link InMemoryCasEventRepository} that keeps events in memory, grouped into partitions
+ * that each cover a fixed period of time by event creation time. Each partition indexes its events
+ * by principal and by type, so that the queries issued during risk-based authentication only look
+ * at the events of the principal or type in question, and only in the partitions that cover the requested period.
+ * <p>
+ * Events are kept up to the configured maximum number of events; when there are too many, the oldest partition
+ * is dropped as a whole. Partitions are also dropped once nothing was added to them for the configured retention period. Events are held in a compact form,
+ * with addresses, coordinates and repeated values such as user agents encoded as numbers,
+ * and turned back into {@link CasEvent}s when read. Repeated values are only remembered for as long as
+ * events that carry them are kept.
  *
  * @author Misagh Moayyed
  * @since 5.1.0
  */
 public class InMemoryCasEventRepository extends AbstractCasEventRepository {
-    private final LoadingCache<String, CasEvent> cache;
+    private static final int IPV4_OCTETS = 4;
+    private static final int OCTET_BITS = 8;
+    private static final int OCTET_MASK = 0xFF;
 
-    public InMemoryCasEventRepository(final LoadingCache<String, CasEvent> cache) {
-        this.cache = cache;
+    private static final String PROPERTY_CLIENT_IP = "clientip";
+    private static final String PROPERTY_SERVER_IP = "serverip";
+    private static final String PROPERTY_AGENT = "agent";
+    private static final String PROPERTY_TIMESTAMP = "timestamp";
+    private static final String PROPERTY_GEO_LATITUDE = "geoLatitude";
+    private static final String PROPERTY_GEO_LONGITUDE = "geoLongitude";
+
+    private static final String[] NO_PROPERTIES = new String[0];
+
+    private final long maxEvents;
+    private final long partitionDuration;
+    private final long retention;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NavigableMap<Long, Partition> partitions = new TreeMap<>();
+    private final Dictionary<String> values = new Dictionary<>();
+    private final Dictionary<ZoneId> zones = new Dictionary<>();
+    private long size;
+    private long lastExpiration;
+
+    /**
+     * Instantiates a new repository.
+     *
+     * @param maxEvents         the maximum number of events kept
+     * @param partitionDuration the period of time covered by each partition, in milliseconds
+     * @param retention         the time for which partitions are kept after an event was last added to them, in milliseconds
+     */
+    public InMemoryCasEventRepository(final long maxEvents, final long partitionDuration, final long retention) {
+        this.maxEvents = maxEvents;
+        this.partitionDuration = partitionDuration;
+        this.retention = retention;
     }
 
     @Override
     public void save(final CasEvent event) {
-        cache.put(UUID.randomUUID().toString(), event);
+        final ZonedDateTime creationTime = event.getCreationTime();
+        final long time = creationTime.toInstant().toEpochMilli();
+        this.lock.writeLock().lock();
+        try {
+            final long now = System.currentTimeMillis();
+            if (now - this.lastExpiration >= this.partitionDuration) {
+                expire(now - this.retention);
+                this.lastExpiration = now;
+            }
+            final StoredEvent stored = encode(event, creationTime);
+            this.partitions.computeIfAbsent(partitionOf(time), Partition::new).add(stored, now);
+            this.size++;
+            evict();
+        } finally {
+            this.lock.writeLock().unlock();
+        }
     }
 
     @Override
     public Collection<CasEvent> load() {
-        return cache.asMap().values();
+        return find(null, p -> p.events, e -> true);
+    }
+
+    @Override
+    public Collection<CasEvent> load(final ZonedDateTime dateTime) {
+        return find(dateTime, p -> p.events, e -> true);
+    }
+
+    @Override
+    public Collection<CasEvent> getEventsOfType(final String type) {
+        return getEventsOfType(type, null);
+    }
+
+    @Override
+    public Collection<CasEvent> getEventsOfType(final String type, final ZonedDateTime dateTime) {
+        this.lock.readLock().lock();
+        try {
+            final int typeId = this.values.find(type);
+            return find(dateTime, p -> p.byType.get(typeId), e -> true);
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Collection<CasEvent> getEventsOfTypeForPrincipal(final String type, final String principal) {
+        return getEventsOfTypeForPrincipal(type, principal, null);
+    }
+
+    @Override
+    public Collection<CasEvent> getEventsOfTypeForPrincipal(final String type, final String principal, final ZonedDateTime dateTime) {
+        final String key = principalKey(principal);
+        this.lock.readLock().lock();
+        try {
+            final int typeId = this.values.find(type);
+            return find(dateTime, p -> p.byPrincipal.get(key), e -> e.type == typeId);
+        } finally {
+            this.lock.readLock().unlock();
+        }
     }
 
     @Override
     public Collection<CasEvent> getEventsForPrincipal(final String id) {
-        return cache
-                .asMap()
-                .values()
-                .stream()
-                .filter(e -> e.getPrincipalId().equalsIgnoreCase(id))
-                .collect(Collectors.toSet());
+        return getEventsForPrincipal(id, null);
+    }
+
+    @Override
+    public Collection<CasEvent> getEventsForPrincipal(final String id, final ZonedDateTime dateTime) {
+        final String key = principalKey(id);
+        return find(dateTime, p -> p.byPrincipal.get(key), e -> true);
+    }
+
+    /**
+     * Gets the number of events kept.
+     *
+     * @return the number of events
+     */
+    public long size() {
+        this.lock.readLock().lock();
+        try {
+            return this.size;
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Find events created at or after the given time, across the partitions that cover it.
+     *
+     * @param dateTime the earliest creation time, or null for all events
+     * @param index    the events of a partition to look at, or null if there are none
+     * @param filter   the filter on the events found
+     * @return the events
+     */
+    private Collection<CasEvent> find(final ZonedDateTime dateTime, final Function<Partition, Deque<StoredEvent>> index,
+                                      final Predicate<StoredEvent> filter) {
+        this.lock.readLock().lock();
+        try {
+            final long cutoff = System.currentTimeMillis() - this.retention;
+            final Instant from = dateTime == null ? null : dateTime.toInstant();
+            final Collection<Partition> candidates = from == null ? this.partitions.values()
+                    : this.partitions.tailMap(partitionOf(from.toEpochMilli()), true).values();
+            final List<CasEvent> results = new ArrayList<>();
+            for (final Partition partition : candidates) {
+                final Deque<StoredEvent> events = partition.lastAdded < cutoff ? null : index.apply(partition);
+                if (events != null) {
+                    events.stream()
+                            .filter(e -> (from == null || e.isAtOrAfter(from)) && filter.test(e))
+                            .map(this::decode)
+                            .forEach(results::add);
+                }
+            }
+            return results;
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    private void expire(final long cutoff) {
+        final Iterator<Partition> it = this.partitions.values().iterator();
+        while (it.hasNext()) {
+            final Partition partition = it.next();
+            if (partition.lastAdded < cutoff) {
+                LOGGER.debug("Expiring [{}] events created from [{}]", partition.events.size(), Instant.ofEpochMilli(partition.start));
+                this.size -= partition.events.size();
+                release(partition);
+                it.remove();
+            }
+        }
+    }
+
+    private void evict() {
+        while (this.size > this.maxEvents && !this.partitions.isEmpty()) {
+            final Partition oldest = this.partitions.firstEntry().getValue();
+            if (this.partitions.size() > 1) {
+                LOGGER.debug("Evicting [{}] events created before [{}]", oldest.events.size(),
+                        Instant.ofEpochMilli(oldest.start + this.partitionDuration));
+                this.partitions.pollFirstEntry();
+                this.size -= oldest.events.size();
+                release(oldest);
+            } else {
+                release(oldest.removeFirst());
+                this.size--;
+                if (oldest.events.isEmpty()) {
+                    this.partitions.pollFirstEntry();
+                }
+            }
+        }
+    }
+
+    private void release(final Partition partition) {
+        partition.events.forEach(this::release);
+    }
+
+    private void release(final StoredEvent stored) {
+        this.zones.release(stored.zone);
+        this.values.release(stored.type);
+        this.values.release(stored.serverIp);
+        this.values.release(stored.agent);
+        for (int i = 0; i < stored.properties.length; i += 2) {
+            this.values.release(this.values.find(stored.properties[i]));
+        }
+    }
+
+    private long partitionOf(final long time) {
+        return Math.floorDiv(time, this.partitionDuration) * this.partitionDuration;
+    }
+
+    private static String principalKey(final String principal) {
+        return StringUtils.defaultString(principal).toLowerCase(Locale.ENGLISH);
+    }
+
+    private StoredEvent encode(final CasEvent event, final ZonedDateTime creationTime) {
+        final StoredEvent stored = new StoredEvent();
+        final Instant instant = creationTime.toInstant();
+        stored.seconds = instant.getEpochSecond();
+        stored.nanos = instant.getNano();
+        stored.zone = this.zones.add(creationTime.getZone());
+        stored.type = this.values.add(event.getType());
+        stored.principalId = event.getPrincipalId();
+
+        final Map<String, String> properties = new HashMap<>(event.getProperties());
+        stored.clientIp = encodeAddress(properties.get(PROPERTY_CLIENT_IP));
+        if (stored.clientIp != null) {
+            properties.remove(PROPERTY_CLIENT_IP);
+        }
+        stored.serverIp = this.values.add(properties.remove(PROPERTY_SERVER_IP));
+        stored.agent = this.values.add(properties.remove(PROPERTY_AGENT));
+        stored.latitude = encodeNumber(properties, PROPERTY_GEO_LATITUDE);
+        stored.longitude = encodeNumber(properties, PROPERTY_GEO_LONGITUDE);
+        final String timestamp = properties.get(PROPERTY_TIMESTAMP);
+        if (timestamp != null && timestamp.equals(Long.toString(toLong(timestamp)))) {
+            stored.timestamp = Long.parseLong(properties.remove(PROPERTY_TIMESTAMP));
+            stored.hasTimestamp = true;
+        }
+        if (!properties.isEmpty()) {
+            stored.properties = new String[properties.size() * 2];
+            int i = 0;
+            for (final Map.Entry<String, String> entry : properties.entrySet()) {
+                stored.properties[i++] = this.values.get(this.values.add(entry.getKey()));
+                stored.properties[i++] = entry.getValue();
+            }
+        }
+        return stored;
+    }
+
+    private CasEvent decode(final StoredEvent stored) {
+        final CasEvent event = new CasEvent();
+        event.setType(this.values.get(stored.type));
+        event.setPrincipalId(stored.principalId);
+        event.setCreationTime(ZonedDateTime.ofInstant(Instant.ofEpochSecond(stored.seconds, stored.nanos), this.zones.get(stored.zone)));
+        if (stored.clientIp != null) {
+            event.putClientIpAddress(decodeAddress(stored.clientIp));
+        }
+        if (stored.serverIp >= 0) {
+            event.putServerIpAddress(this.values.get(stored.serverIp));
+        }
+        if (stored.agent >= 0) {
+            event.putAgent(this.values.get(stored.agent));
+        }
+        if (!Double.isNaN(stored.latitude)) {
+            event.put(PROPERTY_GEO_LATITUDE, Double.toString(stored.latitude));
+        }
+        if (!Double.isNaN(stored.longitude)) {
+            event.put(PROPERTY_GEO_LONGITUDE, Double.toString(stored.longitude));
+        }
+        if (stored.hasTimestamp) {
+            event.putTimestamp(stored.timestamp);
+        }
+        for (int i = 0; i < stored.properties.length; i += 2) {
+            event.put(stored.properties[i], stored.properties[i + 1]);
+        }
+        return event;
+    }
+
+    /**
+     * Encode a dotted IPv4 address as a number, if it is written in its usual form.
+     *
+     * @return the address, or null if it is absent or cannot be encoded without loss
+     */
+    private static Integer encodeAddress(final String address) {
+        if (address == null) {
+            return null;
+        }
+        final String[] octets = address.split("\\.", -1);
+        if (octets.length != IPV4_OCTETS) {
+            return null;
+        }
+        int value = 0;
+        for (final String octet : octets) {
+            final long number = toLong(octet);
+            if (number < 0 || number > OCTET_MASK || !octet.equals(Long.toString(number))) {
+                return null;
+            }
+            value = value << OCTET_BITS | (int) number;
+        }
+        return value;
+    }
+
+    private static String decodeAddress(final int address) {
+        final StringBuilder builder = new StringBuilder();
+        for (int i = IPV4_OCTETS - 1; i >= 0; i--) {
+            builder.append(address >>> (i * OCTET_BITS) & OCTET_MASK);
+            if (i > 0) {
+                builder.append('.');
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Remove the property and encode it as a number, if doing so does not change how it is written.
+     *
+     * @return the number, or {@link Double#NaN} if the property is absent or kept as is
+     */
+    private static double encodeNumber(final Map<String, String> properties, final String name) {
+        final String value = properties.get(name);
+        if (value != null) {
+            try {
+                final double number = Double.parseDouble(value);
+                if (!Double.isNaN(number) && Double.toString(number).equals(value)) {
+                    properties.remove(name);
+                    return number;
+                }
+            } catch (final NumberFormatException e) {
+                LOGGER.trace("Property [{}] with value [{}] is not a number", name, value);
+            }
+        }
+        return Double.NaN;
+    }
+
+    private static long toLong(final String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (final NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Events created within the same period of time, indexed by principal and type.
+     */
+    private static class Partition {
+        private final long start;
+        private final Deque<StoredEvent> events = new ArrayDeque<>();
+        private final Map<String, Deque<StoredEvent>> byPrincipal = new HashMap<>();
+        private final Map<Integer, Deque<StoredEvent>> byType = new HashMap<>();
+        private long lastAdded;
+
+        Partition(final long start) {
+            this.start = start;
+        }
+
+        void add(final StoredEvent event, final long now) {
+            this.lastAdded = now;
+            this.events.addLast(event);
+            this.byPrincipal.computeIfAbsent(principalKey(event.principalId), k -> new ArrayDeque<>()).addLast(event);
+            this.byType.computeIfAbsent(event.type, k -> new ArrayDeque<>()).addLast(event);
+        }
+
+        /**
+         * Remove the earliest added event. Indexes keep events in the order they are added,
+         * so the event is also the first of its principal and type.
+         *
+         * @return the event removed
+         */
+        StoredEvent removeFirst() {
+            final StoredEvent event = this.events.removeFirst();
+            removeFirst(this.byPrincipal, principalKey(event.principalId));
+            removeFirst(this.byType, event.type);
+            return event;
+        }
+
+        private static <K> void removeFirst(final Map<K, Deque<StoredEvent>> index, final K key) {
+            final Deque<StoredEvent> events = index.get(key);
+            events.removeFirst();
+            if (events.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+
+    /**
+     * An event in its compact form.
+     */
+    private static class StoredEvent {
+        private long seconds;
+        private int nanos;
+        private int zone;
+        private int type;
+        private String principalId;
+        private Integer clientIp;
+        private int serverIp;
+        private int agent;
+        private double latitude;
+        private double longitude;
+        private long timestamp;
+        private boolean hasTimestamp;
+        private String[] properties = NO_PROPERTIES;
+
+        boolean isAtOrAfter(final Instant instant) {
+            return this.seconds > instant.getEpochSecond() || this.seconds == instant.getEpochSecond() && this.nanos >= instant.getNano();
+        }
+    }
+
+    /**
+     * Assigns numbers to values that repeat across events. A null value is numbered -1.
+     * Each value is counted every time it is added, and forgotten once it was released as many times,
+     * after which its number may be assigned to another value. Values are added and released while holding
+     * the write lock, and looked up while holding the read lock.
+     */
+    private static class Dictionary<T> {
+        private static final int INITIAL_CAPACITY = 16;
+
+        private final Map<T, Integer> numbers = new HashMap<>();
+        private final List<T> entries = new ArrayList<>();
+        private final Deque<Integer> unused = new ArrayDeque<>();
+        private int[] references = new int[INITIAL_CAPACITY];
+
+        int add(final T value) {
+            if (value == null) {
+                return -1;
+            }
+            final Integer existing = this.numbers.get(value);
+            if (existing != null) {
+                this.references[existing]++;
+                return existing;
+            }
+            final int number;
+            if (this.unused.isEmpty()) {
+                number = this.entries.size();
+                this.entries.add(value);
+                if (number == this.references.length) {
+                    this.references = Arrays.copyOf(this.references, number * 2);
+                }
+            } else {
+                number = this.unused.pop();
+                this.entries.set(number, value);
+            }
+            this.references[number] = 1;
+            this.numbers.put(value, number);
+            return number;
+        }
+
+        void release(final int number) {
+            if (number >= 0 && --this.references[number] == 0) {
+                this.numbers.remove(this.entries.set(number, null));
+                this.unused.push(number);
+            }
+        }
+
+        int find(final T value) {
+            return value == null ? -1 : this.numbers.getOrDefault(value, -2);
+        }
+
+        T get(final int number) {
+            return number < 0 ? null : this.entries.get(number);
+        }
     }
 }
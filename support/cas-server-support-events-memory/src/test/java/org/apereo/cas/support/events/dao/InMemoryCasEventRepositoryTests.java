@@ -0,0 +1,145 @@
+package org.apereo.cas.support.events.dao;
+
+import org.apereo.cas.authentication.adaptive.geo.GeoLocationRequest;
+import org.apereo.cas.support.events.AbstractCasEventRepositoryTests;
+import org.apereo.cas.support.events.CasEventRepository;
+import org.junit.Test;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test cases for {@link InMemoryCasEventRepository}.
+ *
+ * @author Misagh Moayyed
+ * @since 5.1.0
+ */
+public class InMemoryCasEventRepositoryTests extends AbstractCasEventRepositoryTests {
+    private static final String TYPE_LOGIN = "LoginEvent";
+    private static final String TYPE_LOGOUT = "LogoutEvent";
+
+    private final InMemoryCasEventRepository repository = new InMemoryCasEventRepository(1000,
+            TimeUnit.MINUTES.toMillis(5), TimeUnit.HOURS.toMillis(2));
+
+    @Override
+    public CasEventRepository getRepositoryInstance() {
+        return this.repository;
+    }
+
+    @Test
+    public void verifyEventsAreFoundByPrincipalAndType() {
+        final ZonedDateTime now = ZonedDateTime.now(ZoneOffset.UTC);
+        this.repository.save(newEvent(TYPE_LOGIN, "casuser", now.minusMinutes(30)));
+        this.repository.save(newEvent(TYPE_LOGIN, "CASUSER", now.minusMinutes(10)));
+        this.repository.save(newEvent(TYPE_LOGOUT, "casuser", now.minusMinutes(5)));
+        this.repository.save(newEvent(TYPE_LOGIN, "other", now));
+
+        assertEquals(2, this.repository.getEventsOfTypeForPrincipal(TYPE_LOGIN, "casuser").size());
+        assertEquals(1, this.repository.getEventsOfTypeForPrincipal(TYPE_LOGIN, "casuser", now.minusMinutes(20)).size());
+        assertEquals(1, this.repository.getEventsOfTypeForPrincipal(TYPE_LOGIN, "casuser", now.minusMinutes(10)).size());
+        assertEquals(3, this.repository.getEventsForPrincipal("casuser").size());
+        assertEquals(3, this.repository.getEventsOfType(TYPE_LOGIN).size());
+        assertEquals(2, this.repository.getEventsOfType(TYPE_LOGIN, now.minusMinutes(10)).size());
+        assertEquals(2, this.repository.load(now.minusMinutes(5)).size());
+        assertTrue(this.repository.getEventsOfTypeForPrincipal("UnknownEvent", "casuser").isEmpty());
+        assertTrue(this.repository.getEventsForPrincipal("unknown").isEmpty());
+    }
+
+    @Test
+    public void verifyEventPropertiesAreKept() {
+        final ZonedDateTime now = ZonedDateTime.now(ZoneOffset.UTC);
+        final CasEvent event = newEvent(TYPE_LOGIN, "casuser", now);
+        event.putClientIpAddress("10.0.0.1");
+        event.putServerIpAddress("::1");
+        event.putAgent("Mozilla/5.0");
+        event.putId("TGT-1");
+        event.putTimestamp(now.toInstant().toEpochMilli());
+        final GeoLocationRequest location = new GeoLocationRequest();
+        location.setLatitude("40.7128");
+        location.setLongitude("-74");
+        location.setAccuracy("50");
+        location.setTimestamp("12345");
+        event.putGeoLocation(location);
+        event.put("custom", "value");
+        this.repository.save(event);
+
+        final Collection<CasEvent> events = this.repository.getEventsForPrincipal("casuser");
+        assertEquals(1, events.size());
+        final CasEvent found = events.iterator().next();
+        assertEquals(event.getProperties(), found.getProperties());
+        assertEquals(event.getGeoLocation(), found.getGeoLocation());
+        assertEquals(event.getCreationTime(), found.getCreationTime());
+        assertEquals(TYPE_LOGIN, found.getType());
+        assertEquals("casuser", found.getPrincipalId());
+    }
+
+    @Test
+    public void verifyOldestPartitionIsEvicted() {
+        final InMemoryCasEventRepository repo = new InMemoryCasEventRepository(4, TimeUnit.MINUTES.toMillis(1), TimeUnit.HOURS.toMillis(2));
+        final ZonedDateTime now = ZonedDateTime.now(ZoneOffset.UTC);
+        repo.save(newEvent(TYPE_LOGIN, "casuser", now.minusMinutes(10)));
+        repo.save(newEvent(TYPE_LOGIN, "casuser", now.minusMinutes(10)));
+        repo.save(newEvent(TYPE_LOGIN, "casuser", now.minusMinutes(5)));
+        repo.save(newEvent(TYPE_LOGIN, "casuser", now));
+        assertEquals(4, repo.size());
+
+        repo.save(newEvent(TYPE_LOGIN, "casuser", now));
+        assertEquals(3, repo.size());
+        assertTrue(repo.load().stream().allMatch(e -> e.getCreationTime().isAfter(now.minusMinutes(6))));
+    }
+
+    @Test
+    public void verifyValuesOfEvictedEventsAreNotMixedUp() {
+        final InMemoryCasEventRepository repo = new InMemoryCasEventRepository(2, TimeUnit.MINUTES.toMillis(1), TimeUnit.HOURS.toMillis(2));
+        final ZonedDateTime now = ZonedDateTime.now(ZoneOffset.UTC);
+        for (int i = 0; i < 10; i++) {
+            final CasEvent event = newEvent(TYPE_LOGIN + i, "casuser", now.minusMinutes(10 - i));
+            event.putAgent("Agent/" + i);
+            repo.save(event);
+        }
+        assertEquals(2, repo.size());
+        assertTrue(repo.getEventsOfType(TYPE_LOGIN + 7).isEmpty());
+        for (int i = 8; i < 10; i++) {
+            final Collection<CasEvent> events = repo.getEventsOfType(TYPE_LOGIN + i);
+            assertEquals(1, events.size());
+            assertEquals("Agent/" + i, events.iterator().next().getAgent());
+        }
+
+        final CasEvent event = newEvent(TYPE_LOGOUT, "casuser", now);
+        repo.save(event);
+        final CasEvent found = repo.getEventsOfType(TYPE_LOGOUT).iterator().next();
+        assertTrue(found.getProperties().isEmpty());
+    }
+
+    @Test
+    public void verifyEventsAreKeptByTimeOfStorage() {
+        final ZonedDateTime now = ZonedDateTime.now(ZoneOffset.UTC);
+        this.repository.save(newEvent(TYPE_LOGIN, "casuser", now.minusDays(20)));
+        this.repository.save(newEvent(TYPE_LOGIN, "casuser", now));
+        assertEquals(2, this.repository.size());
+        assertEquals(1, this.repository.getEventsForPrincipal("casuser", now.minusDays(1)).size());
+    }
+
+    @Test
+    public void verifyExpiredEventsAreNotKept() throws Exception {
+        final InMemoryCasEventRepository repo = new InMemoryCasEventRepository(1000, 10, 50);
+        repo.save(newEvent(TYPE_LOGIN, "casuser", ZonedDateTime.now(ZoneOffset.UTC)));
+        Thread.sleep(100);
+        assertTrue(repo.load().isEmpty());
+
+        repo.save(newEvent(TYPE_LOGIN, "casuser", ZonedDateTime.now(ZoneOffset.UTC)));
+        assertEquals(1, repo.size());
+    }
+
+    private static CasEvent newEvent(final String type, final String principal, final ZonedDateTime creationTime) {
+        final CasEvent event = new CasEvent();
+        event.setType(type);
+        event.setPrincipalId(principal);
+        event.setCreationTime(creationTime);
+        return event;
+    }
+}
@@ -2,11 +2,14 @@ package org.apereo.cas.hz;
 
 import com.google.common.base.Throwables;
 import com.hazelcast.config.Config;
+import com.hazelcast.config.EvictionConfig;
 import com.hazelcast.config.EvictionPolicy;
+import com.hazelcast.config.InMemoryFormat;
 import com.hazelcast.config.JoinConfig;
 import com.hazelcast.config.MapConfig;
 import com.hazelcast.config.MaxSizeConfig;
 import com.hazelcast.config.MulticastConfig;
+import com.hazelcast.config.NearCacheConfig;
 import com.hazelcast.config.NetworkConfig;
 import com.hazelcast.config.TcpIpConfig;
 import com.hazelcast.config.XmlConfigBuilder;
@@ -29,7 +32,8 @@ public class HazelcastConfigurationFactory {
     private static final Logger LOGGER = LoggerFactory.getLogger(HazelcastConfigurationFactory.class);
 
     /**
-     * Build map config map config.
+     * Build map config map config. The map is near-cached only if the near cache is enabled
+     * and the storage name is among the near-cached storage names.
      *
      * @param hz          the hz
      * @param storageName the storage name
@@ -45,7 +49,7 @@ public class HazelcastConfigurationFactory {
         LOGGER.debug("Creating Hazelcast map configuration for [{}] with idle timeout [{}] second(s)",
                 storageName, timeout);
 
-        return new MapConfig()
+        final MapConfig mapConfig = new MapConfig()
                 .setName(storageName)
                 .setMaxIdleSeconds((int) timeout)
                 .setBackupCount(cluster.getBackupCount())
@@ -54,6 +58,52 @@ public class HazelcastConfigurationFactory {
                 .setMaxSizeConfig(new MaxSizeConfig()
                         .setMaxSizePolicy(MaxSizeConfig.MaxSizePolicy.valueOf(cluster.getMaxSizePolicy()))
                         .setSize(cluster.getMaxHeapSizePercentage()));
+        if (isNearCached(hz, storageName)) {
+            mapConfig.setNearCacheConfig(buildNearCacheConfig(hz, storageName, timeout));
+        }
+        return mapConfig;
+    }
+
+    /**
+     * Whether the map of the given storage name is near-cached.
+     *
+     * @param hz          the hz
+     * @param storageName the storage name
+     * @return true if the map is near-cached
+     */
+    public boolean isNearCached(final HazelcastProperties hz, final String storageName) {
+        return hz.getNearCache().isEnabled() && hz.getNearCache().getStorageNames().contains(storageName);
+    }
+
+    /**
+     * Build near cache config, invalidated whenever an entry changes anywhere in the cluster.
+     * Entries live no longer than the timeout of the map, and no longer than the configured time to live if any.
+     * Entries are kept in serialized form, so that each read yields its own copy of the ticket.
+     *
+     * @param hz          the hz
+     * @param storageName the storage name
+     * @param timeout     the timeout
+     * @return the near cache config
+     */
+    public NearCacheConfig buildNearCacheConfig(final HazelcastProperties hz,
+                                                final String storageName,
+                                                final long timeout) {
+        final HazelcastProperties.NearCache nearCache = hz.getNearCache();
+        long timeToLive = nearCache.getTimeToLiveSeconds();
+        if (timeout > 0 && (timeToLive <= 0 || timeToLive > timeout)) {
+            timeToLive = timeout;
+        }
+        LOGGER.debug("Creating Hazelcast near cache configuration for [{}] with time to live [{}] second(s)",
+                storageName, timeToLive);
+
+        return new NearCacheConfig(storageName)
+                .setInMemoryFormat(InMemoryFormat.BINARY)
+                .setInvalidateOnChange(true)
+                .setCacheLocalEntries(false)
+                .setTimeToLiveSeconds((int) timeToLive)
+                .setMaxIdleSeconds(nearCache.getMaxIdleSeconds())
+                .setEvictionConfig(new EvictionConfig(nearCache.getMaxSize(), EvictionConfig.MaxSizePolicy.ENTRY_COUNT,
+                        EvictionPolicy.valueOf(nearCache.getEvictionPolicy())));
     }
 
     /**
@@ -67,6 +117,10 @@ public class HazelcastConfigurationFactory {
         final Config cfg = build(hz);
         if (hz.getConfigLocation() == null) {
             cfg.setMapConfigs(mapConfigs);
+            if (hz.getNearCache().isEnabled()) {
+                // send invalidations as soon as entries change, rather than in periodic batches
+                cfg.setProperty(HazelcastProperties.MAP_INVALIDATION_BATCH_ENABLED_PROP, Boolean.FALSE.toString());
+            }
         }
         return cfg;
     }
@@ -1,9 +1,13 @@
 package org.apereo.cas.config;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
 import com.hazelcast.config.Config;
 import com.hazelcast.config.MapConfig;
 import com.hazelcast.core.Hazelcast;
 import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+import com.hazelcast.monitor.NearCacheStats;
 import org.apereo.cas.configuration.CasConfigurationProperties;
 import org.apereo.cas.configuration.model.support.hazelcast.HazelcastProperties;
 import org.apereo.cas.configuration.support.Beans;
@@ -14,6 +18,7 @@ import org.apereo.cas.ticket.registry.HazelcastTicketRegistry;
 import org.apereo.cas.ticket.registry.NoOpTicketRegistryCleaner;
 import org.apereo.cas.ticket.registry.TicketRegistry;
 import org.apereo.cas.ticket.registry.TicketRegistryCleaner;
+import org.apereo.cas.ticket.serialization.TicketSerializationCodecFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -25,6 +30,7 @@ import org.springframework.context.annotation.Configuration;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.ToLongFunction;
 
 /**
  * Spring's Java configuration component for {@code HazelcastInstance} that is consumed and used by
@@ -47,14 +53,23 @@ public class HazelcastTicketRegistryConfiguration {
     @Autowired
     private CasConfigurationProperties casProperties;
 
+    @Autowired(required = false)
+    @Qualifier("metrics")
+    private MetricRegistry metricRegistry;
+
     @Autowired
     @Bean
     public TicketRegistry ticketRegistry(@Qualifier("ticketCatalog") final TicketCatalog ticketCatalog) {
         final HazelcastProperties hz = casProperties.getTicket().getRegistry().getHazelcast();
-        final HazelcastTicketRegistry r = new HazelcastTicketRegistry(hazelcast(ticketCatalog),
+        final HazelcastInstance instance = hazelcast(ticketCatalog);
+        final HazelcastTicketRegistry r = new HazelcastTicketRegistry(instance,
                 ticketCatalog,
                 hz.getPageSize());
         r.setCipherExecutor(Beans.newTicketRegistryCipherExecutor(hz.getCrypto()));
+        r.setTicketSerializationCodec(TicketSerializationCodecFactory.newTicketSerializationCodec(casProperties.getTicket().getRegistry(), ticketCatalog));
+        if (hz.getNearCache().isEnabled() && this.metricRegistry != null) {
+            registerNearCacheMetrics(instance, ticketCatalog);
+        }
         return r;
     }
 
@@ -91,4 +106,28 @@ public class HazelcastTicketRegistryConfiguration {
         });
         return mapConfigs;
     }
+
+    private void registerNearCacheMetrics(final HazelcastInstance instance, final TicketCatalog ticketCatalog) {
+        final HazelcastProperties hz = casProperties.getTicket().getRegistry().getHazelcast();
+        final HazelcastConfigurationFactory factory = new HazelcastConfigurationFactory();
+        ticketCatalog.findAll()
+                .stream()
+                .map(t -> t.getProperties().getStorageName())
+                .distinct()
+                .filter(storageName -> factory.isNearCached(hz, storageName))
+                .forEach(storageName -> {
+                    final IMap<String, ?> map = instance.getMap(storageName);
+                    registerNearCacheGauge(map, "hits", NearCacheStats::getHits);
+                    registerNearCacheGauge(map, "misses", NearCacheStats::getMisses);
+                });
+    }
+
+    private void registerNearCacheGauge(final IMap<String, ?> map, final String statistic, final ToLongFunction<NearCacheStats> value) {
+        final String name = MetricRegistry.name(HazelcastTicketRegistry.class, map.getName(), "nearCache", statistic);
+        this.metricRegistry.remove(name);
+        this.metricRegistry.register(name, (Gauge<Long>) () -> {
+            final NearCacheStats stats = map.getLocalMapStats().getNearCacheStats();
+            return stats == null ? 0L : value.applyAsLong(stats);
+        });
+    }
 }
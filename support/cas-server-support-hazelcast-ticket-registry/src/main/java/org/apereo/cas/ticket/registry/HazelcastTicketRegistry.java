@@ -1,21 +1,28 @@
 package org.apereo.cas.ticket.registry;
 
+import com.google.common.collect.Lists;
 import com.hazelcast.core.HazelcastInstance;
 import com.hazelcast.core.IMap;
 import org.apache.commons.lang3.StringUtils;
+import org.apereo.cas.ticket.ServiceTicket;
 import org.apereo.cas.ticket.Ticket;
 import org.apereo.cas.ticket.TicketCatalog;
 import org.apereo.cas.ticket.TicketDefinition;
+import org.apereo.cas.ticket.TicketGrantingTicket;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.PreDestroy;
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Hazelcast-based implementation of a {@link TicketRegistry}.
@@ -124,6 +131,69 @@ public class HazelcastTicketRegistry extends AbstractTicketRegistry implements C
                 .collect(Collectors.toSet());
     }
 
+    @Override
+    public Stream<Ticket> getTicketsStream() {
+        return getTicketsStream(new TicketQuery(null, null));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Only the maps that may hold tickets of the queried type are visited. The keys of each map are
+     * listed first, and tickets are then fetched and decoded in batches of the page size as the stream is consumed.
+     * Tickets removed in the meantime are skipped.</p>
+     */
+    @Override
+    public Stream<Ticket> getTicketsStream(final TicketQuery query) {
+        return this.ticketCatalog.findAll().stream()
+                .filter(query::matches)
+                .map(metadata -> metadata.getProperties().getStorageName())
+                .distinct()
+                .map(this::getTicketMapInstance)
+                .filter(Objects::nonNull)
+                .flatMap(this::streamTickets)
+                .filter(query);
+    }
+
+    private Stream<Ticket> streamTickets(final IMap<String, Ticket> map) {
+        final List<String> keys = new ArrayList<>(map.keySet());
+        LOGGER.debug("Streaming [{}] ticket(s) from map [{}] in batches of [{}]", keys.size(), map.getName(), this.pageSize);
+        return Lists.partition(keys, this.pageSize).stream()
+                .flatMap(batch -> map.getAll(new HashSet<>(batch)).values().stream())
+                .filter(Objects::nonNull)
+                .map(this::decodeTicket);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Counts the entries of the maps holding ticket-granting tickets, as reported by the cluster,
+     * rather than pulling every ticket across the network. Entries that expire concurrently
+     * may or may not be included.</p>
+     */
+    @Override
+    public long sessionCount() {
+        return countTickets(TicketGrantingTicket.class);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Counts the entries of the maps holding service tickets, as reported by the cluster.</p>
+     */
+    @Override
+    public long serviceTicketCount() {
+        return countTickets(ServiceTicket.class);
+    }
+
+    private long countTickets(final Class<? extends Ticket> ticketType) {
+        return this.ticketCatalog.findAll().stream()
+                .filter(metadata -> ticketType.isAssignableFrom(metadata.getImplementationClass()))
+                .map(metadata -> metadata.getProperties().getStorageName())
+                .distinct()
+                .map(this::getTicketMapInstance)
+                .filter(Objects::nonNull)
+                .mapToLong(IMap::size)
+                .sum();
+    }
+
     /**
      * Make sure we shutdown HazelCast when the context is destroyed.
      */
@@ -0,0 +1,64 @@
+package org.apereo.cas.hz;
+
+import com.hazelcast.config.Config;
+import com.hazelcast.config.InMemoryFormat;
+import com.hazelcast.config.MapConfig;
+import com.hazelcast.config.NearCacheConfig;
+import org.apereo.cas.configuration.model.support.hazelcast.HazelcastProperties;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * This is {@link HazelcastConfigurationFactoryTests}.
+ *
+ * @author Misagh Moayyed
+ * @since 5.2.0
+ */
+public class HazelcastConfigurationFactoryTests {
+    private static final String STORAGE_NAME = "ticketGrantingTicketsCache";
+
+    private final HazelcastConfigurationFactory factory = new HazelcastConfigurationFactory();
+
+    @Test
+    public void verifyNearCacheIsDisabledByDefault() {
+        final HazelcastProperties hz = new HazelcastProperties();
+        assertNull(factory.buildMapConfig(hz, STORAGE_NAME, 300).getNearCacheConfig());
+        final Config config = factory.build(hz, Collections.emptyMap());
+        assertNull(config.getProperty(HazelcastProperties.MAP_INVALIDATION_BATCH_ENABLED_PROP));
+    }
+
+    @Test
+    public void verifyNearCacheLivesNoLongerThanTickets() {
+        final HazelcastProperties hz = new HazelcastProperties();
+        hz.getNearCache().setEnabled(true);
+        hz.getNearCache().setMaxSize(500);
+
+        final MapConfig mapConfig = factory.buildMapConfig(hz, STORAGE_NAME, 300);
+        final NearCacheConfig nearCache = mapConfig.getNearCacheConfig();
+        assertNotNull(nearCache);
+        assertTrue(nearCache.isInvalidateOnChange());
+        assertEquals(InMemoryFormat.BINARY, nearCache.getInMemoryFormat());
+        assertEquals(300, nearCache.getTimeToLiveSeconds());
+        assertEquals(500, nearCache.getEvictionConfig().getSize());
+
+        hz.getNearCache().setTimeToLiveSeconds(60);
+        assertEquals(60, factory.buildNearCacheConfig(hz, STORAGE_NAME, 300).getTimeToLiveSeconds());
+        assertEquals(60, factory.buildNearCacheConfig(hz, STORAGE_NAME, 0).getTimeToLiveSeconds());
+        hz.getNearCache().setTimeToLiveSeconds(600);
+        assertEquals(300, factory.buildNearCacheConfig(hz, STORAGE_NAME, 300).getTimeToLiveSeconds());
+
+        final Config config = factory.build(hz, Collections.singletonMap(STORAGE_NAME, mapConfig));
+        assertEquals("false", config.getProperty(HazelcastProperties.MAP_INVALIDATION_BATCH_ENABLED_PROP));
+    }
+
+    @Test
+    public void verifyServiceTicketsAreNotNearCached() {
+        final HazelcastProperties hz = new HazelcastProperties();
+        hz.getNearCache().setEnabled(true);
+        assertNotNull(factory.buildMapConfig(hz, STORAGE_NAME, 300).getNearCacheConfig());
+        assertNull(factory.buildMapConfig(hz, "serviceTicketsCache", 10).getNearCacheConfig());
+    }
+}
@@ -57,6 +57,13 @@ public class JpaTicketRegistry extends AbstractTicketRegistry {
         LOGGER.debug("Added ticket [{}] to registry.", ticket);
     }
 
+    // Overridden so the class-level @Transactional proxy runs the update and the add in one transaction.
+    @Override
+    public void updateAndAddTicket(final Ticket grantingTicket, final Ticket grantedTicket) {
+        updateTicket(grantingTicket);
+        addTicket(grantedTicket);
+    }
+
     @Override
     public long deleteAll() {
         return this.ticketCatalog.findAll().stream()
@@ -9,11 +9,13 @@ import net.spy.memcached.spring.MemcachedClientFactoryBean;
 import org.apereo.cas.configuration.CasConfigurationProperties;
 import org.apereo.cas.configuration.support.Beans;
 import org.apereo.cas.logout.LogoutManager;
+import org.apereo.cas.ticket.TicketCatalog;
 import org.apereo.cas.ticket.registry.MemCacheTicketRegistry;
 import org.apereo.cas.ticket.registry.NoOpTicketRegistryCleaner;
 import org.apereo.cas.ticket.registry.TicketRegistry;
 import org.apereo.cas.ticket.registry.TicketRegistryCleaner;
 import org.apereo.cas.ticket.registry.support.kryo.KryoTranscoder;
+import org.apereo.cas.ticket.serialization.TicketSerializationCodecFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
@@ -38,6 +40,10 @@ public class MemcachedTicketRegistryConfiguration {
     @Qualifier("logoutManager")
     private LogoutManager logoutManager;
 
+    @Autowired
+    @Qualifier("ticketCatalog")
+    private TicketCatalog ticketCatalog;
+
     @Lazy
     @Bean
     public MemcachedClientFactoryBean memcachedClient() {
@@ -56,7 +62,7 @@ public class MemcachedTicketRegistryConfiguration {
 
     @Bean
     public KryoTranscoder kryoTranscoder() {
-        return new KryoTranscoder();
+        return new KryoTranscoder(ticketCatalog, casProperties.getTicket().getRegistry().getMemcached().getKryoPoolSize());
     }
 
     @Autowired
@@ -64,6 +70,7 @@ public class MemcachedTicketRegistryConfiguration {
     public TicketRegistry ticketRegistry(@Qualifier("memcachedClient") final MemcachedClientIF memcachedClientIF) {
         final MemCacheTicketRegistry registry = new MemCacheTicketRegistry(memcachedClientIF);
         registry.setCipherExecutor(Beans.newTicketRegistryCipherExecutor(casProperties.getTicket().getRegistry().getMemcached().getCrypto()));
+        registry.setTicketSerializationCodec(TicketSerializationCodecFactory.newTicketSerializationCodec(casProperties.getTicket().getRegistry(), ticketCatalog));
         return registry;
     }
 
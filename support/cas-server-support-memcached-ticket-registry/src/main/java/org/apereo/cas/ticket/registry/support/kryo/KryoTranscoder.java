@@ -23,11 +23,17 @@ import net.spy.memcached.CachedData;
 import net.spy.memcached.transcoders.Transcoder;
 import org.apereo.cas.authentication.BasicCredentialMetaData;
 import org.apereo.cas.authentication.DefaultHandlerResult;
+import org.apereo.cas.authentication.HttpBasedServiceCredential;
+import org.apereo.cas.authentication.RememberMeUsernamePasswordCredential;
 import org.apereo.cas.authentication.UsernamePasswordCredential;
 import org.apereo.cas.authentication.principal.SimplePrincipal;
 import org.apereo.cas.authentication.principal.SimpleWebApplicationServiceImpl;
 import org.apereo.cas.services.RegexRegisteredService;
+import org.apereo.cas.ticket.ProxyGrantingTicketImpl;
+import org.apereo.cas.ticket.ProxyTicketImpl;
 import org.apereo.cas.ticket.ServiceTicketImpl;
+import org.apereo.cas.ticket.TicketCatalog;
+import org.apereo.cas.ticket.TicketDefinition;
 import org.apereo.cas.ticket.TicketGrantingTicketImpl;
 import org.apereo.cas.ticket.registry.EncodedTicket;
 import org.apereo.cas.ticket.registry.support.kryo.serial.RegisteredServiceSerializer;
@@ -42,38 +48,69 @@ import org.apereo.cas.ticket.support.ThrottledUseAndTimeoutExpirationPolicy;
 import org.apereo.cas.ticket.support.TicketGrantingTicketExpirationPolicy;
 import org.apereo.cas.ticket.support.TimeoutExpirationPolicy;
 import org.apereo.cas.authentication.DefaultAuthentication;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.annotation.PostConstruct;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.net.URI;
 import java.net.URL;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.EnumMap;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
 import java.util.Map;
+import java.util.TreeMap;
 import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.regex.Pattern;
 
 /**
  * {@link net.spy.memcached.MemcachedClient} transcoder implementation based on Kryo fast serialization framework
  * suited for efficient serialization of tickets.
+ * <p>
+ * Kryo instances are not thread-safe, so each encode and decode operation borrows its own instance,
+ * along with reusable input and output buffers, from a bounded pool. Instances are created on demand when the pool
+ * is exhausted, and only up to the size of the pool are kept once released. Every instance registers the same types
+ * in the same order, so that registration ids match across instances and across nodes: well-known ticket, principal and
+ * authentication types first, then the implementations of all ticket definitions in the catalog and finally the
+ * additional types of the serializer map, both sorted by class name. The serializers of the serializer map are
+ * registered as is with every pooled instance, and so may be used by several instances at once.
  *
  * @author Marvin S. Addison
  * @since 3.0.0
  */
 @SuppressWarnings("rawtypes")
 public class KryoTranscoder implements Transcoder<Object> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(KryoTranscoder.class);
+
+    private static final int DEFAULT_POOL_SIZE = 32;
+    private static final int BUFFER_SIZE = 4096;
+    private static final int MAX_RETAINED_BUFFER_SIZE = 64 * 1024;
+    private static final byte[] EMPTY_BUFFER = new byte[0];
+
+    /**
+     * Kryo instance with the settings of the pooled instances, but none of their registrations;
+     * used to build serializers for additional types, never to encode or decode.
+     */
+    private final Kryo kryo = newKryoInstance();
 
     /**
-     * Kryo serializer.
+     * Kryo instances ready to encode and decode, along with their buffers.
      */
-    private final Kryo kryo = new KryoReflectionFactorySupport();
+    private final BlockingQueue<KryoContext> pool;
+
+    /**
+     * Catalog whose ticket definitions have their implementations registered, if any.
+     */
+    private final TicketCatalog ticketCatalog;
 
     /**
      * Map of class to serializer that handles it.
@@ -84,11 +121,25 @@ public class KryoTranscoder implements Transcoder<Object> {
      * Creates a Kryo-based transcoder.
      */
     public KryoTranscoder() {
+        this(null, DEFAULT_POOL_SIZE);
+    }
+
+    /**
+     * Creates a Kryo-based transcoder.
+     *
+     * @param ticketCatalog the ticket catalog whose ticket implementations should be registered
+     * @param poolSize      the number of kryo instances kept for reuse
+     */
+    public KryoTranscoder(final TicketCatalog ticketCatalog, final int poolSize) {
+        this.ticketCatalog = ticketCatalog;
+        this.pool = new ArrayBlockingQueue<>(Math.max(1, poolSize));
     }
 
     /**
      * Sets a map of additional types that should be registered with Kryo,
      * for example GoogleAccountsService and OpenIdService.
+     * Serializer instances are shared by all pooled Kryo instances, which may use them concurrently,
+     * so they must be safe for concurrent use: they must not keep any state while writing or reading.
      *
      * @param map Map of class to the serializer instance that handles it.
      */
@@ -97,65 +148,12 @@ public class KryoTranscoder implements Transcoder<Object> {
     }
 
     /**
-     * Initialize and register classes with kryo.
+     * Initialize the first kryo instance, so that registration problems surface at startup.
      */
     @PostConstruct
     public void initialize() {
-        // Register types we know about and do not require external configuration
-        this.kryo.register(EncodedTicket.class);
-        this.kryo.register(ArrayList.class);
-        this.kryo.register(BasicCredentialMetaData.class);
-        this.kryo.register(Class.class, new DefaultSerializers.ClassSerializer());
-        this.kryo.register(ZonedDateTime.class, new ZonedDateTimeTranscoder());
-        this.kryo.register(HardTimeoutExpirationPolicy.class);
-        this.kryo.register(HashMap.class);
-        this.kryo.register(LinkedHashMap.class);
-        this.kryo.register(HashSet.class);
-        this.kryo.register(DefaultHandlerResult.class);
-        this.kryo.register(DefaultAuthentication.class);
-        this.kryo.register(MultiTimeUseOrTimeoutExpirationPolicy.class);
-        this.kryo.register(NeverExpiresExpirationPolicy.class);
-        this.kryo.register(RememberMeDelegatingExpirationPolicy.class);
-        this.kryo.register(ServiceTicketImpl.class);
-        this.kryo.register(SimpleWebApplicationServiceImpl.class, new SimpleWebApplicationServiceSerializer());
-        this.kryo.register(ThrottledUseAndTimeoutExpirationPolicy.class);
-        this.kryo.register(TicketGrantingTicketExpirationPolicy.class);
-        this.kryo.register(TicketGrantingTicketImpl.class);
-        this.kryo.register(TimeoutExpirationPolicy.class);
-        this.kryo.register(UsernamePasswordCredential.class);
-        this.kryo.register(SimplePrincipal.class);
-        this.kryo.register(URL.class, new URLSerializer());
-        this.kryo.register(URI.class, new URISerializer());
-        this.kryo.register(Pattern.class, new RegexSerializer());
-        this.kryo.register(UUID.class, new UUIDSerializer());
-        this.kryo.register(EnumMap.class, new EnumMapSerializer());
-        this.kryo.register(EnumSet.class, new EnumSetSerializer());
-
-        // we add these ones for tests only
-        this.kryo.register(RegexRegisteredService.class, new RegisteredServiceSerializer());
-        
-        // from the kryo-serializers library (https://github.com/magro/kryo-serializers)
-        UnmodifiableCollectionsSerializer.registerSerializers(this.kryo);
-        ImmutableListSerializer.registerSerializers(this.kryo);
-        ImmutableSetSerializer.registerSerializers(this.kryo);
-        ImmutableMapSerializer.registerSerializers(this.kryo);
-        ImmutableMultimapSerializer.registerSerializers(this.kryo);
-
-        this.kryo.register(Collections.EMPTY_LIST.getClass(), new CollectionsEmptyListSerializer());
-        this.kryo.register(Collections.EMPTY_MAP.getClass(), new CollectionsEmptyMapSerializer());
-        this.kryo.register(Collections.EMPTY_SET.getClass(), new CollectionsEmptySetSerializer());
-
-        // Register other types
-        if (this.serializerMap != null) {
-            this.serializerMap.forEach(this.kryo::register);
-        }
-
-        // don't reinit the registered classes after every write or read
-        this.kryo.setAutoReset(false);
-        // don't replace objects by references
-        this.kryo.setReferences(false);
-        // Catchall for any classes not explicitly registered
-        this.kryo.setRegistrationRequired(false);
+        this.pool.clear();
+        this.pool.offer(new KryoContext(newKryo()));
     }
 
     /**
@@ -171,21 +169,27 @@ public class KryoTranscoder implements Transcoder<Object> {
 
     @Override
     public CachedData encode(final Object obj) {
-        final ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
-        try (Output output = new Output(byteStream)) {
-            this.kryo.writeClassAndObject(output, obj);
-            output.flush();
-            final byte[] bytes = byteStream.toByteArray();
+        final KryoContext context = borrow();
+        try {
+            final Output output = context.output;
+            output.clear();
+            context.kryo.writeClassAndObject(output, obj);
+            final byte[] bytes = output.toBytes();
             return new CachedData(0, bytes, bytes.length);
+        } finally {
+            release(context);
         }
     }
 
     @Override
     public Object decode(final CachedData d) {
-        final byte[] bytes = d.getData();
-        try (Input input = new Input(new ByteArrayInputStream(bytes))) {
-            final Object obj = this.kryo.readClassAndObject(input);
-            return obj;
+        final KryoContext context = borrow();
+        try {
+            context.input.setBuffer(d.getData());
+            return context.kryo.readClassAndObject(context.input);
+        } finally {
+            context.input.setBuffer(EMPTY_BUFFER);
+            release(context);
         }
     }
 
@@ -200,11 +204,130 @@ public class KryoTranscoder implements Transcoder<Object> {
     }
 
     /**
-     * Gets the kryo object that provides encoding and decoding services for this instance.
+     * Gets a kryo object with the same settings as the ones that provide encoding and decoding services
+     * for this instance, but without any registered types, for example to build serializers for additional types.
+     * This instance is itself never used to encode or decode.
      *
-     * @return Underlying Kryo instance.
+     * @return Kryo instance.
      */
     public Kryo getKryo() {
         return this.kryo;
     }
+
+    private KryoContext borrow() {
+        final KryoContext context = this.pool.poll();
+        return context != null ? context : new KryoContext(newKryo());
+    }
+
+    private void release(final KryoContext context) {
+        if (context.output.getBuffer().length > MAX_RETAINED_BUFFER_SIZE) {
+            context.output.setBuffer(new byte[BUFFER_SIZE], CachedData.MAX_SIZE);
+        }
+        if (!this.pool.offer(context)) {
+            LOGGER.trace("Kryo pool is full; discarding kryo instance");
+        }
+    }
+
+    /**
+     * Create a kryo instance with all types registered.
+     *
+     * @return the kryo
+     */
+    protected Kryo newKryo() {
+        final Kryo instance = newKryoInstance();
+
+        // Register types we know about and do not require external configuration
+        instance.register(EncodedTicket.class);
+        instance.register(ArrayList.class);
+        instance.register(BasicCredentialMetaData.class);
+        instance.register(Class.class, new DefaultSerializers.ClassSerializer());
+        instance.register(ZonedDateTime.class, new ZonedDateTimeTranscoder());
+        instance.register(HardTimeoutExpirationPolicy.class);
+        instance.register(HashMap.class);
+        instance.register(LinkedHashMap.class);
+        instance.register(HashSet.class);
+        instance.register(DefaultHandlerResult.class);
+        instance.register(DefaultAuthentication.class);
+        instance.register(MultiTimeUseOrTimeoutExpirationPolicy.class);
+        instance.register(NeverExpiresExpirationPolicy.class);
+        instance.register(RememberMeDelegatingExpirationPolicy.class);
+        instance.register(ServiceTicketImpl.class);
+        instance.register(SimpleWebApplicationServiceImpl.class, new SimpleWebApplicationServiceSerializer());
+        instance.register(ThrottledUseAndTimeoutExpirationPolicy.class);
+        instance.register(TicketGrantingTicketExpirationPolicy.class);
+        instance.register(TicketGrantingTicketImpl.class);
+        instance.register(TimeoutExpirationPolicy.class);
+        instance.register(UsernamePasswordCredential.class);
+        instance.register(SimplePrincipal.class);
+        instance.register(URL.class, new URLSerializer());
+        instance.register(URI.class, new URISerializer());
+        instance.register(Pattern.class, new RegexSerializer());
+        instance.register(UUID.class, new UUIDSerializer());
+        instance.register(EnumMap.class, new EnumMapSerializer());
+        instance.register(EnumSet.class, new EnumSetSerializer());
+
+        // we add these ones for tests only
+        instance.register(RegexRegisteredService.class, new RegisteredServiceSerializer());
+
+        // from the kryo-serializers library (https://github.com/magro/kryo-serializers)
+        UnmodifiableCollectionsSerializer.registerSerializers(instance);
+        ImmutableListSerializer.registerSerializers(instance);
+        ImmutableSetSerializer.registerSerializers(instance);
+        ImmutableMapSerializer.registerSerializers(instance);
+        ImmutableMultimapSerializer.registerSerializers(instance);
+
+        instance.register(Collections.EMPTY_LIST.getClass(), new CollectionsEmptyListSerializer());
+        instance.register(Collections.EMPTY_MAP.getClass(), new CollectionsEmptyMapSerializer());
+        instance.register(Collections.EMPTY_SET.getClass(), new CollectionsEmptySetSerializer());
+
+        instance.register(LinkedHashSet.class);
+        instance.register(LinkedList.class);
+        instance.register(TreeMap.class);
+        instance.register(ProxyGrantingTicketImpl.class);
+        instance.register(ProxyTicketImpl.class);
+        instance.register(RememberMeUsernamePasswordCredential.class);
+        instance.register(HttpBasedServiceCredential.class);
+
+        // Register the implementations of all known tickets
+        if (this.ticketCatalog != null) {
+            this.ticketCatalog.findAll()
+                    .stream()
+                    .map(TicketDefinition::getImplementationClass)
+                    .filter(type -> instance.getClassResolver().getRegistration(type) == null)
+                    .distinct()
+                    .sorted(Comparator.comparing(Class::getName))
+                    .forEach(instance::register);
+        }
+
+        // Register other types
+        if (this.serializerMap != null) {
+            this.serializerMap.entrySet()
+                    .stream()
+                    .sorted(Comparator.comparing(entry -> entry.getKey().getName()))
+                    .forEach(entry -> instance.register(entry.getKey(), entry.getValue()));
+        }
+        return instance;
+    }
+
+    private static Kryo newKryoInstance() {
+        final Kryo kryo = new KryoReflectionFactorySupport();
+        // don't replace objects by references
+        kryo.setReferences(false);
+        // Catchall for any classes not explicitly registered
+        kryo.setRegistrationRequired(false);
+        return kryo;
+    }
+
+    /**
+     * A kryo instance along with its buffers.
+     */
+    private static class KryoContext {
+        private final Kryo kryo;
+        private final Output output = new Output(BUFFER_SIZE, CachedData.MAX_SIZE);
+        private final Input input = new Input();
+
+        KryoContext(final Kryo kryo) {
+            this.kryo = kryo;
+        }
+    }
 }
@@ -0,0 +1,107 @@
+package org.apereo.cas.ticket.registry.support.kryo;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import net.spy.memcached.CachedData;
+import org.apereo.cas.authentication.CoreAuthenticationTestUtils;
+import org.apereo.cas.services.RegisteredServiceTestUtils;
+import org.apereo.cas.ticket.Ticket;
+import org.apereo.cas.ticket.TicketGrantingTicket;
+import org.apereo.cas.ticket.TicketGrantingTicketImpl;
+import org.apereo.cas.ticket.support.HardTimeoutExpirationPolicy;
+import org.apereo.cas.ticket.support.TicketGrantingTicketExpirationPolicy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of encoding and decoding a ticket-granting ticket with a few granted service tickets
+ * from several threads, using the pooled {@link KryoTranscoder} ({@code POOLED}) or a single Kryo instance
+ * that works through fresh streams on every call ({@code SHARED}), as the transcoder previously did, guarded
+ * by a lock so that it is safe to share. Run via {@link #main(String[])} from the test classpath.
+ *
+ * @author Misagh Moayyed
+ * @since 5.2.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+@Fork(1)
+public class KryoTranscoderBenchmark {
+    private static final int SERVICE_TICKET_COUNT = 3;
+
+    @Param({"POOLED", "SHARED"})
+    private String transcoderType;
+
+    private KryoTranscoder transcoder;
+    private Kryo sharedKryo;
+    private Ticket ticket;
+    private CachedData payload;
+
+    @Setup
+    public void setup() {
+        this.transcoder = new KryoTranscoder();
+        this.transcoder.initialize();
+        this.sharedKryo = this.transcoder.newKryo();
+
+        final TicketGrantingTicket tgt = new TicketGrantingTicketImpl(TicketGrantingTicket.PREFIX + "-BENCHMARK",
+                CoreAuthenticationTestUtils.getAuthentication(), new TicketGrantingTicketExpirationPolicy(28_800, 7_200));
+        for (int i = 0; i < SERVICE_TICKET_COUNT; i++) {
+            tgt.grantServiceTicket("ST-BENCHMARK-" + i, RegisteredServiceTestUtils.getService("https://app" + i + ".example.org"),
+                    new HardTimeoutExpirationPolicy(10), false, false);
+        }
+        this.ticket = tgt;
+        this.payload = this.transcoder.encode(tgt);
+    }
+
+    @Benchmark
+    public CachedData encode() {
+        if ("POOLED".equals(transcoderType)) {
+            return this.transcoder.encode(this.ticket);
+        }
+        final ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
+        try (Output output = new Output(byteStream)) {
+            synchronized (this.sharedKryo) {
+                this.sharedKryo.writeClassAndObject(output, this.ticket);
+            }
+            output.flush();
+            final byte[] bytes = byteStream.toByteArray();
+            return new CachedData(0, bytes, bytes.length);
+        }
+    }
+
+    @Benchmark
+    public Object decode() {
+        if ("POOLED".equals(transcoderType)) {
+            return this.transcoder.decode(this.payload);
+        }
+        try (Input input = new Input(new ByteArrayInputStream(this.payload.getData()))) {
+            synchronized (this.sharedKryo) {
+                return this.sharedKryo.readClassAndObject(input);
+            }
+        }
+    }
+
+    public static void main(final String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(KryoTranscoderBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -1,5 +1,6 @@
 package org.apereo.cas.ticket.registry.support.kryo;
 
+import com.esotericsoftware.kryo.Registration;
 import com.esotericsoftware.kryo.Serializer;
 import com.esotericsoftware.kryo.serializers.FieldSerializer;
 import net.spy.memcached.CachedData;
@@ -9,6 +10,8 @@ import org.apereo.cas.authentication.DefaultAuthenticationBuilder;
 import org.apereo.cas.mock.MockTicketGrantingTicket;
 import org.apereo.cas.services.RegisteredService;
 import org.apereo.cas.services.RegisteredServiceTestUtils;
+import org.apereo.cas.ticket.DefaultTicketCatalog;
+import org.apereo.cas.ticket.DefaultTicketDefinition;
 import org.apereo.cas.ticket.ServiceTicket;
 import org.apereo.cas.ticket.TicketGrantingTicket;
 import org.apereo.cas.authentication.AuthenticationBuilder;
@@ -34,6 +37,12 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.junit.Assert.*;
 
@@ -207,4 +216,42 @@ public class KryoTranscoderTests {
         final RegisteredService service = RegisteredServiceTestUtils.getRegisteredService("helloworld");
         assertEquals(service, transcoder.decode(transcoder.encode(service)));
     }
+
+    @Test
+    public void verifyEncodeDecodeConcurrently() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final List<Callable<Boolean>> tasks = IntStream.range(0, 200)
+                    .mapToObj(i -> (Callable<Boolean>) () -> {
+                        final Credential credential = new UsernamePasswordCredential(USERNAME + i, PASSWORD);
+                        final TicketGrantingTicket expectedTGT = new MockTicketGrantingTicket(TGT_ID + i, credential,
+                                new HashMap<>(this.principalAttributes));
+                        expectedTGT.grantServiceTicket(ST_ID + i, null, null, false, true);
+                        return expectedTGT.equals(transcoder.decode(transcoder.encode(expectedTGT)));
+                    })
+                    .collect(Collectors.toList());
+            for (final Future<Boolean> result : executor.invokeAll(tasks)) {
+                assertTrue(result.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void verifyTicketCatalogTypesAreRegisteredConsistently() throws Exception {
+        final DefaultTicketCatalog catalog = new DefaultTicketCatalog();
+        catalog.register(new DefaultTicketDefinition(MockTicketGrantingTicket.class, "MOCK"));
+        final KryoTranscoder encoder = new KryoTranscoder(catalog, 1);
+        encoder.initialize();
+        final KryoTranscoder decoder = new KryoTranscoder(catalog, 1);
+        decoder.initialize();
+
+        final Registration registration = encoder.newKryo().getClassResolver().getRegistration(MockTicketGrantingTicket.class);
+        assertNotNull(registration);
+        assertEquals(registration.getId(), decoder.newKryo().getClassResolver().getRegistration(MockTicketGrantingTicket.class).getId());
+
+        final TicketGrantingTicket expectedTGT = new MockTicketGrantingTicket(USERNAME);
+        assertEquals(expectedTGT, decoder.decode(encoder.encode(expectedTGT)));
+    }
 }
@@ -16,11 +16,15 @@ import org.springframework.data.mongodb.core.MongoOperations;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.util.CloseableIterator;
 
 import java.util.Collection;
 import java.util.Date;
-import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * A Ticket Registry storage backend based on MongoDB.
@@ -158,12 +162,38 @@ public class MongoDbTicketRegistry extends AbstractTicketRegistry {
 
     @Override
     public Collection<Ticket> getTickets() {
+        try (Stream<Ticket> tickets = getTicketsStream()) {
+            return tickets.collect(Collectors.toSet());
+        }
+    }
+
+    @Override
+    public Stream<Ticket> getTicketsStream() {
+        return getTicketsStream(new TicketQuery(null, null));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Only the collections that may hold tickets of the queried type are read, each through a cursor
+     * that fetches documents in batches as the stream is consumed. The stream should be closed
+     * so that open cursors are released.</p>
+     */
+    @Override
+    public Stream<Ticket> getTicketsStream(final TicketQuery query) {
         return this.ticketCatalog.findAll().stream()
+                .filter(query::matches)
                 .map(this::getTicketCollectionInstanceByMetadata)
-                .map(map -> mongoTemplate.findAll(TicketHolder.class, map))
-                .flatMap(List::stream)
-                .map(ticket -> decodeTicket(deserializeTicketFromMongoDocument(ticket)))
-                .collect(Collectors.toSet());
+                .distinct()
+                .flatMap(this::streamTicketDocuments)
+                .map(holder -> decodeTicket(deserializeTicketFromMongoDocument(holder)))
+                .filter(query);
+    }
+
+    private Stream<TicketHolder> streamTicketDocuments(final String collectionName) {
+        LOGGER.debug("Streaming tickets from collection [{}]", collectionName);
+        final CloseableIterator<TicketHolder> cursor = this.mongoTemplate.stream(new Query(), TicketHolder.class, collectionName);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(cursor, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(cursor::close);
     }
 
     @Override
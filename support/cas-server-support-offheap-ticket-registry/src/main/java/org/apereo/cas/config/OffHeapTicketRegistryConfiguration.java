@@ -0,0 +1,51 @@
+package org.apereo.cas.config;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apereo.cas.configuration.CasConfigurationProperties;
+import org.apereo.cas.configuration.model.support.offheap.OffHeapTicketRegistryProperties;
+import org.apereo.cas.configuration.support.Beans;
+import org.apereo.cas.ticket.TicketCatalog;
+import org.apereo.cas.ticket.registry.OffHeapTicketRegistry;
+import org.apereo.cas.ticket.registry.OffHeapTicketStore;
+import org.apereo.cas.ticket.registry.TicketRegistry;
+import org.apereo.cas.ticket.serialization.TicketSerializationCodecFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * This is {@link OffHeapTicketRegistryConfiguration}.
+ *
+ * @author Misagh Moayyed
+ * @since 5.2.0
+ */
+@Configuration("offHeapTicketRegistryConfiguration")
+@EnableConfigurationProperties(CasConfigurationProperties.class)
+public class OffHeapTicketRegistryConfiguration {
+    private static final long BYTES_PER_MEGABYTE = 1024L * 1024L;
+
+    @Autowired
+    private CasConfigurationProperties casProperties;
+
+    @Bean
+    public OffHeapTicketStore offHeapTicketStore() throws IOException {
+        final OffHeapTicketRegistryProperties offHeap = casProperties.getTicket().getRegistry().getOffHeap();
+        final File location = StringUtils.isNotBlank(offHeap.getLocation()) ? new File(offHeap.getLocation()) : null;
+        return new OffHeapTicketStore(location, offHeap.getCapacityInMegabytes() * BYTES_PER_MEGABYTE, offHeap.isPersistent());
+    }
+
+    @Autowired
+    @Bean
+    public TicketRegistry ticketRegistry(@Qualifier("ticketCatalog") final TicketCatalog ticketCatalog) throws IOException {
+        final OffHeapTicketRegistryProperties offHeap = casProperties.getTicket().getRegistry().getOffHeap();
+        final OffHeapTicketRegistry r = new OffHeapTicketRegistry(offHeapTicketStore());
+        r.setCipherExecutor(Beans.newTicketRegistryCipherExecutor(offHeap.getCrypto()));
+        r.setTicketSerializationCodec(TicketSerializationCodecFactory.newTicketSerializationCodec(casProperties.getTicket().getRegistry(), ticketCatalog));
+        return r;
+    }
+}
@@ -0,0 +1,130 @@
+package org.apereo.cas.ticket.registry;
+
+import com.google.common.io.ByteSource;
+import org.apache.commons.lang3.StringUtils;
+import org.apereo.cas.ticket.Ticket;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+
+import javax.annotation.PreDestroy;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Ticket registry implementation that keeps serialized tickets outside of the java heap
+ * in an {@link OffHeapTicketStore}, keyed by the (encoded) ticket id. When a cipher is
+ * configured, the encoded representation produced by the registry is stored as is;
+ * otherwise tickets are stored in the form produced by the ticket serialization codec.
+ *
+ * @author Misagh Moayyed
+ * @since 5.2.0
+ */
+public class OffHeapTicketRegistry extends AbstractTicketRegistry implements Closeable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(OffHeapTicketRegistry.class);
+
+    private final OffHeapTicketStore store;
+
+    public OffHeapTicketRegistry(final OffHeapTicketStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public void addTicket(final Ticket ticket) {
+        Assert.notNull(ticket, "ticket cannot be null");
+        final Ticket encTicket = encodeTicket(ticket);
+        LOGGER.debug("Adding ticket [{}] to the off-heap ticket store", ticket.getId());
+        this.store.put(encTicket.getId(), serializeTicket(encTicket));
+    }
+
+    @Override
+    public Ticket getTicket(final String ticketId) {
+        if (StringUtils.isBlank(ticketId)) {
+            return null;
+        }
+        return readTicket(encodeTicketId(ticketId));
+    }
+
+    @Override
+    public boolean deleteSingleTicket(final String ticketId) {
+        final String encTicketId = encodeTicketId(ticketId);
+        if (encTicketId == null) {
+            return false;
+        }
+        return this.store.remove(encTicketId);
+    }
+
+    @Override
+    public long deleteAll() {
+        return this.store.clear();
+    }
+
+    @Override
+    public Collection<Ticket> getTickets() {
+        return getTicketsStream().collect(Collectors.toSet());
+    }
+
+    @Override
+    public Stream<Ticket> getTicketsStream() {
+        return this.store.keys().stream()
+                .map(this::readTicket)
+                .filter(Objects::nonNull);
+    }
+
+    @Override
+    public Ticket updateTicket(final Ticket ticket) {
+        addTicket(ticket);
+        return ticket;
+    }
+
+    /**
+     * Release the underlying store and flush any memory-mapped contents when the context is destroyed.
+     */
+    @PreDestroy
+    public void shutdown() {
+        try {
+            LOGGER.info("Shutting down off-heap ticket store");
+            this.store.close();
+        } catch (final Exception e) {
+            LOGGER.debug(e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        shutdown();
+    }
+
+    private byte[] serializeTicket(final Ticket encTicket) {
+        if (encTicket instanceof EncodedTicket) {
+            return ((EncodedTicket) encTicket).getEncoded();
+        }
+        return this.ticketSerializationCodec.encode(encTicket);
+    }
+
+    /**
+     * Read and decode the ticket stored under the encoded id. Entries that can no longer
+     * be decoded, for example after a restart with a different cipher or incompatible
+     * ticket classes, are removed from the store.
+     */
+    private Ticket readTicket(final String encTicketId) {
+        final byte[] payload = this.store.get(encTicketId);
+        if (payload == null) {
+            return null;
+        }
+        try {
+            if (isCipherExecutorEnabled()) {
+                return decodeTicket(new EncodedTicket(ByteSource.wrap(payload), encTicketId));
+            }
+            return this.ticketSerializationCodec.decode(payload);
+        } catch (final Exception e) {
+            LOGGER.error("Unable to decode ticket [{}] from the off-heap ticket store; removing it", encTicketId, e);
+            this.store.remove(encTicketId);
+            return null;
+        }
+    }
+}
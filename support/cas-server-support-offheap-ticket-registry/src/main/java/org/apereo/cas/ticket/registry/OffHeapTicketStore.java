@@ -0,0 +1,500 @@
+package org.apereo.cas.ticket.registry;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * This is {@link OffHeapTicketStore}. Stores serialized ticket payloads outside of the java heap,
+ * either in direct memory or in a memory-mapped file, keyed by the (encoded) ticket id.
+ * <p>
+ * Storage is divided into fixed-size pages. On first use, each page is assigned to a single
+ * slot size class (powers of two) and carved into equally sized slots, so that a payload is
+ * always written into the smallest slot class that can hold it and freed slots are reused by
+ * payloads of the same class. Only the key-to-slot index lives on the heap.
+ * <p>
+ * When backed by a file, the layout is self-describing: every used slot carries its key and a
+ * sequence number, so the index can be rebuilt by scanning the assigned pages after a restart,
+ * keeping the most recently written slot of each key.
+ * <p>
+ * Operations on a key are serialized by one of a fixed set of lock stripes chosen by the hash of the key,
+ * so that writes of different tickets proceed in parallel. Each slot class guards its own free list, and
+ * only the assignment of new pages is serialized across the store.
+ *
+ * @author Misagh Moayyed
+ * @since 5.2.0
+ */
+public class OffHeapTicketStore implements Closeable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(OffHeapTicketStore.class);
+
+    private static final int MAGIC = 0x43415354;
+    private static final int VERSION = 2;
+
+    private static final int PAGE_SIZE = 1024 * 1024;
+    private static final int PAGE_HEADER_SIZE = 8;
+    private static final int SLOT_HEADER_SIZE = 16;
+    private static final int MIN_SLOT_SIZE = 256;
+    private static final int MAX_SLOT_SIZE = PAGE_SIZE / 2;
+    private static final int MAX_PAGES_PER_SEGMENT = 64;
+    private static final int LOCK_STRIPES = 64;
+
+    private static final int HEADER_MAGIC_OFFSET = 0;
+    private static final int HEADER_VERSION_OFFSET = 4;
+    private static final int HEADER_PAGE_SIZE_OFFSET = 8;
+    private static final int HEADER_PAGES_PER_SEGMENT_OFFSET = 12;
+    private static final int HEADER_ALLOCATED_PAGES_OFFSET = 16;
+
+    private final Map<String, Long> index = new ConcurrentHashMap<>();
+    private final List<ByteBuffer> segments = new CopyOnWriteArrayList<>();
+    private final ReadWriteLock[] locks = new ReadWriteLock[LOCK_STRIPES];
+    private final Object pageLock = new Object();
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final int[] slotSizes;
+    private final SlotStack[] freeSlots;
+    private final int maxPages;
+    private final int pagesPerSegment;
+
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+
+    /**
+     * Page zero holds the store header; data pages are assigned sequentially after it.
+     * Guarded by {@link #pageLock}.
+     */
+    private int allocatedPages = 1;
+
+    /**
+     * Instantiates a new off-heap ticket store.
+     *
+     * @param location        the file to memory-map, or null to use direct memory
+     * @param capacityInBytes the maximum number of bytes the store may occupy
+     * @param persistent      whether existing contents of the file should be recovered
+     * @throws IOException if the file cannot be opened or mapped
+     */
+    public OffHeapTicketStore(final File location, final long capacityInBytes, final boolean persistent) throws IOException {
+        this.maxPages = (int) Math.min(Integer.MAX_VALUE, Math.max(2, capacityInBytes / PAGE_SIZE));
+        this.pagesPerSegment = Math.min(MAX_PAGES_PER_SEGMENT, this.maxPages);
+        this.slotSizes = buildSlotSizes();
+        this.freeSlots = new SlotStack[this.slotSizes.length];
+        for (int i = 0; i < this.freeSlots.length; i++) {
+            this.freeSlots[i] = new SlotStack();
+        }
+        for (int i = 0; i < this.locks.length; i++) {
+            this.locks[i] = new ReentrantReadWriteLock();
+        }
+
+        if (location == null) {
+            this.file = null;
+            this.channel = null;
+            LOGGER.debug("Allocating off-heap ticket store in direct memory with a capacity of [{}] pages", this.maxPages);
+            initialize();
+            return;
+        }
+
+        if (!persistent && location.exists() && !location.delete()) {
+            LOGGER.warn("Unable to delete existing ticket store file [{}]; its contents will be discarded", location);
+        }
+        this.file = new RandomAccessFile(location, "rw");
+        this.channel = this.file.getChannel();
+        final boolean existing = this.channel.size() > 0;
+        if (persistent && existing && recover()) {
+            LOGGER.info("Recovered [{}] tickets from off-heap ticket store file [{}]", this.index.size(), location);
+        } else {
+            LOGGER.debug("Initializing off-heap ticket store file [{}] with a capacity of [{}] pages", location, this.maxPages);
+            initialize();
+        }
+    }
+
+    /**
+     * Store the payload under the given key, replacing any previous payload.
+     *
+     * @param key   the key
+     * @param value the payload
+     */
+    public void put(final String key, final byte[] value) {
+        final byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        final int required = SLOT_HEADER_SIZE + keyBytes.length + value.length;
+        final int slotClass = findSlotClass(required);
+        if (slotClass < 0) {
+            throw new IllegalArgumentException("Payload for " + key + " of " + required
+                    + " bytes exceeds the maximum slot size of " + MAX_SLOT_SIZE + " bytes");
+        }
+
+        final Lock writeLock = lockFor(key).writeLock();
+        writeLock.lock();
+        try {
+            final long handle = allocate(slotClass);
+            writeSlot(handle, keyBytes, value, this.sequence.incrementAndGet());
+            final Long previous = this.index.put(key, handle);
+            if (previous != null) {
+                release(previous);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Read the payload stored under the given key.
+     *
+     * @param key the key
+     * @return the payload, or null if none is stored
+     */
+    public byte[] get(final String key) {
+        final Lock readLock = lockFor(key).readLock();
+        readLock.lock();
+        try {
+            final Long handle = this.index.get(key);
+            if (handle == null) {
+                return null;
+            }
+            final ByteBuffer buffer = slotBuffer(handle);
+            final int keyLength = buffer.getInt();
+            final int valueLength = buffer.getInt();
+            buffer.position(buffer.position() + Long.BYTES + keyLength);
+            final byte[] value = new byte[valueLength];
+            buffer.get(value);
+            return value;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Remove the payload stored under the given key.
+     *
+     * @param key the key
+     * @return true if a payload was removed
+     */
+    public boolean remove(final String key) {
+        final Lock writeLock = lockFor(key).writeLock();
+        writeLock.lock();
+        try {
+            final Long handle = this.index.remove(key);
+            if (handle == null) {
+                return false;
+            }
+            release(handle);
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Remove all payloads from the store.
+     *
+     * @return the number of payloads removed
+     */
+    public int clear() {
+        lockAll();
+        try {
+            final int size = this.index.size();
+            this.index.values().forEach(this::release);
+            this.index.clear();
+            return size;
+        } finally {
+            unlockAll();
+        }
+    }
+
+    /**
+     * The keys currently stored. The returned view is weakly consistent.
+     *
+     * @return the keys
+     */
+    public Set<String> keys() {
+        return Collections.unmodifiableSet(this.index.keySet());
+    }
+
+    /**
+     * The number of payloads currently stored.
+     *
+     * @return the size
+     */
+    public int size() {
+        return this.index.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        lockAll();
+        try {
+            if (this.channel != null) {
+                this.segments.stream()
+                        .filter(MappedByteBuffer.class::isInstance)
+                        .forEach(segment -> MappedByteBuffer.class.cast(segment).force());
+                this.channel.close();
+                this.file.close();
+            }
+            this.segments.clear();
+            this.index.clear();
+        } finally {
+            unlockAll();
+        }
+    }
+
+    private ReadWriteLock lockFor(final String key) {
+        final int hash = key.hashCode();
+        return this.locks[(hash ^ (hash >>> 16)) & (LOCK_STRIPES - 1)];
+    }
+
+    private void lockAll() {
+        for (final ReadWriteLock stripe : this.locks) {
+            stripe.writeLock().lock();
+        }
+    }
+
+    private void unlockAll() {
+        for (int i = this.locks.length - 1; i >= 0; i--) {
+            this.locks[i].writeLock().unlock();
+        }
+    }
+
+    private static int[] buildSlotSizes() {
+        final List<Integer> sizes = new ArrayList<>();
+        for (int size = MIN_SLOT_SIZE; size <= MAX_SLOT_SIZE; size <<= 1) {
+            sizes.add(size);
+        }
+        return sizes.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private int findSlotClass(final int required) {
+        for (int i = 0; i < this.slotSizes.length; i++) {
+            if (this.slotSizes[i] >= required) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void initialize() throws IOException {
+        this.segments.clear();
+        this.index.clear();
+        for (final SlotStack slots : this.freeSlots) {
+            slots.clear();
+        }
+        this.allocatedPages = 1;
+        this.sequence.set(0);
+        ensureSegment(0);
+        final ByteBuffer header = this.segments.get(0);
+        header.putInt(HEADER_MAGIC_OFFSET, MAGIC);
+        header.putInt(HEADER_VERSION_OFFSET, VERSION);
+        header.putInt(HEADER_PAGE_SIZE_OFFSET, PAGE_SIZE);
+        header.putInt(HEADER_PAGES_PER_SEGMENT_OFFSET, this.pagesPerSegment);
+        header.putInt(HEADER_ALLOCATED_PAGES_OFFSET, this.allocatedPages);
+    }
+
+    /**
+     * Rebuild the index and free lists by scanning pages recorded in the file.
+     * Should a key be found in more than one slot, because the store was interrupted between
+     * writing a new slot and releasing the old one, the slot with the highest sequence number wins.
+     *
+     * @return true if the file could be recovered
+     */
+    private boolean recover() throws IOException {
+        ensureSegment(0);
+        final ByteBuffer header = this.segments.get(0);
+        if (header.getInt(HEADER_MAGIC_OFFSET) != MAGIC
+                || header.getInt(HEADER_VERSION_OFFSET) != VERSION
+                || header.getInt(HEADER_PAGE_SIZE_OFFSET) != PAGE_SIZE
+                || header.getInt(HEADER_PAGES_PER_SEGMENT_OFFSET) != this.pagesPerSegment) {
+            LOGGER.warn("Off-heap ticket store file has an incompatible layout and will be reinitialized");
+            return false;
+        }
+        final int pages = header.getInt(HEADER_ALLOCATED_PAGES_OFFSET);
+        if (pages < 1 || pages > this.maxPages) {
+            LOGGER.warn("Off-heap ticket store file records [{}] pages which exceeds the configured capacity; "
+                    + "it will be reinitialized", pages);
+            return false;
+        }
+        long maxSequence = 0;
+        for (int page = 1; page < pages; page++) {
+            ensureSegment(page / this.pagesPerSegment);
+            final int slotSize = pageBuffer(page).getInt();
+            final int slotClass = findSlotClass(slotSize);
+            if (slotClass < 0 || this.slotSizes[slotClass] != slotSize) {
+                LOGGER.warn("Page [{}] of the off-heap ticket store file is corrupt; the store will be reinitialized", page);
+                return false;
+            }
+            final int slots = (PAGE_SIZE - PAGE_HEADER_SIZE) / slotSize;
+            for (int slot = 0; slot < slots; slot++) {
+                final long handle = (long) page * PAGE_SIZE + PAGE_HEADER_SIZE + (long) slot * slotSize;
+                final ByteBuffer buffer = slotBuffer(handle);
+                final int keyLength = buffer.getInt();
+                if (keyLength > 0) {
+                    buffer.getInt();
+                    final long slotSequence = buffer.getLong();
+                    final byte[] keyBytes = new byte[keyLength];
+                    buffer.get(keyBytes);
+                    maxSequence = Math.max(maxSequence, slotSequence);
+                    final String key = new String(keyBytes, StandardCharsets.UTF_8);
+                    final Long previous = this.index.get(key);
+                    if (previous == null) {
+                        this.index.put(key, handle);
+                    } else if (readSequence(previous) < slotSequence) {
+                        this.index.put(key, handle);
+                        release(previous);
+                    } else {
+                        release(handle);
+                    }
+                } else {
+                    this.freeSlots[slotClass].push(handle);
+                }
+            }
+        }
+        this.allocatedPages = pages;
+        this.sequence.set(maxSequence);
+        return true;
+    }
+
+    private long readSequence(final long handle) {
+        final ByteBuffer buffer = slotBuffer(handle);
+        return buffer.getLong(buffer.position() + 2 * Integer.BYTES);
+    }
+
+    /**
+     * Take a free slot of the given class, assigning a new page to the class if it has none left.
+     * The free list of each class is guarded by the list itself; the page lock is only ever taken
+     * while holding it, never the other way around.
+     */
+    private long allocate(final int slotClass) {
+        final SlotStack slots = this.freeSlots[slotClass];
+        synchronized (slots) {
+            if (slots.isEmpty()) {
+                assignPage(slotClass, slots);
+            }
+            return slots.pop();
+        }
+    }
+
+    private void assignPage(final int slotClass, final SlotStack slots) {
+        final int page;
+        synchronized (this.pageLock) {
+            if (this.allocatedPages >= this.maxPages) {
+                throw new IllegalStateException("Off-heap ticket store has reached its capacity of " + this.maxPages + " pages");
+            }
+            page = this.allocatedPages;
+            try {
+                ensureSegment(page / this.pagesPerSegment);
+            } catch (final IOException e) {
+                throw new IllegalStateException("Unable to map segment for page " + page, e);
+            }
+            pageBuffer(page).putInt(this.slotSizes[slotClass]);
+            this.allocatedPages++;
+            this.segments.get(0).putInt(HEADER_ALLOCATED_PAGES_OFFSET, this.allocatedPages);
+        }
+        final int slotSize = this.slotSizes[slotClass];
+        final int count = (PAGE_SIZE - PAGE_HEADER_SIZE) / slotSize;
+        for (int slot = count - 1; slot >= 0; slot--) {
+            final long handle = (long) page * PAGE_SIZE + PAGE_HEADER_SIZE + (long) slot * slotSize;
+            slotBuffer(handle).putInt(0);
+            slots.push(handle);
+        }
+        LOGGER.trace("Assigned page [{}] to slot size [{}]", page, slotSize);
+    }
+
+    private void release(final long handle) {
+        final ByteBuffer page = pageBuffer((int) (handle / PAGE_SIZE));
+        final int slotSize = page.getInt();
+        slotBuffer(handle).putInt(0);
+        final SlotStack slots = this.freeSlots[findSlotClass(slotSize)];
+        synchronized (slots) {
+            slots.push(handle);
+        }
+    }
+
+    /**
+     * Write the header and contents first and the key length last, so that a slot only
+     * appears used in the file once its contents are complete.
+     */
+    private void writeSlot(final long handle, final byte[] key, final byte[] value, final long slotSequence) {
+        final ByteBuffer buffer = slotBuffer(handle);
+        final int start = buffer.position();
+        buffer.position(start + Integer.BYTES);
+        buffer.putInt(value.length);
+        buffer.putLong(slotSequence);
+        buffer.put(key);
+        buffer.put(value);
+        buffer.putInt(start, key.length);
+    }
+
+    private void ensureSegment(final int segment) throws IOException {
+        final long segmentSize = (long) this.pagesPerSegment * PAGE_SIZE;
+        while (this.segments.size() <= segment) {
+            final int next = this.segments.size();
+            if (this.channel != null) {
+                this.segments.add(this.channel.map(FileChannel.MapMode.READ_WRITE, next * segmentSize, segmentSize));
+            } else {
+                this.segments.add(ByteBuffer.allocateDirect((int) segmentSize));
+            }
+        }
+    }
+
+    private ByteBuffer pageBuffer(final int page) {
+        final ByteBuffer buffer = this.segments.get(page / this.pagesPerSegment).duplicate();
+        buffer.position((page % this.pagesPerSegment) * PAGE_SIZE);
+        return buffer;
+    }
+
+    private ByteBuffer slotBuffer(final long handle) {
+        final int page = (int) (handle / PAGE_SIZE);
+        final ByteBuffer buffer = pageBuffer(page);
+        buffer.position(buffer.position() + (int) (handle % PAGE_SIZE));
+        return buffer;
+    }
+
+    /**
+     * Stack of free slot handles kept in a growable array of primitives, so that freeing
+     * a slot does not allocate on the heap once the array is large enough.
+     */
+    private static class SlotStack {
+        private static final int INITIAL_CAPACITY = 64;
+
+        private long[] handles = new long[INITIAL_CAPACITY];
+        private int size;
+
+        void push(final long handle) {
+            if (this.size == this.handles.length) {
+                this.handles = Arrays.copyOf(this.handles, this.size * 2);
+            }
+            this.handles[this.size++] = handle;
+        }
+
+        long pop() {
+            if (this.size == 0) {
+                throw new IllegalStateException("No free slot is left");
+            }
+            return this.handles[--this.size];
+        }
+
+        boolean isEmpty() {
+            return this.size == 0;
+        }
+
+        void clear() {
+            this.size = 0;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package org.apereo.cas.ticket.registry;
+
+import org.apereo.cas.authentication.CoreAuthenticationTestUtils;
+import org.apereo.cas.ticket.TicketGrantingTicket;
+import org.apereo.cas.ticket.TicketGrantingTicketImpl;
+import org.apereo.cas.ticket.support.NeverExpiresExpirationPolicy;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collection;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit test for {@link OffHeapTicketRegistry}.
+ *
+ * @author Misagh Moayyed
+ * @since 5.2.0
+ */
+@RunWith(Parameterized.class)
+public class OffHeapTicketRegistryTests extends AbstractTicketRegistryTests {
+    private static final long CAPACITY = 16 * 1024 * 1024;
+
+    public OffHeapTicketRegistryTests(final boolean useEncryption) {
+        super(useEncryption);
+    }
+
+    @Parameterized.Parameters
+    public static Collection<Object> getTestParameters() throws Exception {
+        return Arrays.asList(false, true);
+    }
+
+    @Override
+    public TicketRegistry getNewTicketRegistry() throws Exception {
+        return new OffHeapTicketRegistry(new OffHeapTicketStore(null, CAPACITY, false));
+    }
+
+    @Test
+    public void verifyTicketsSurviveRestart() throws Exception {
+        final File location = File.createTempFile("cas-tickets", ".dat");
+        location.deleteOnExit();
+
+        final OffHeapTicketRegistry registry = new OffHeapTicketRegistry(new OffHeapTicketStore(location, CAPACITY, false));
+        registry.addTicket(new TicketGrantingTicketImpl("TGT-RESTART", CoreAuthenticationTestUtils.getAuthentication(),
+                new NeverExpiresExpirationPolicy()));
+        registry.close();
+
+        final OffHeapTicketRegistry restarted = new OffHeapTicketRegistry(new OffHeapTicketStore(location, CAPACITY, true));
+        assertNotNull(restarted.getTicket("TGT-RESTART", TicketGrantingTicket.class));
+        assertEquals(1, restarted.getTickets().size());
+        restarted.close();
+    }
+}
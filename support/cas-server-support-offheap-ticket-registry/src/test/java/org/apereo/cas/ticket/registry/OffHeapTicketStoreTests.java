@@ -0,0 +1,94 @@
+package org.apereo.cas.ticket.registry;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit test for {@link OffHeapTicketStore}.
+ *
+ * @author Misagh Moayyed
+ * @since 5.2.0
+ */
+public class OffHeapTicketStoreTests {
+    private static final long CAPACITY = 16 * 1024 * 1024;
+    private static final int THREADS = 8;
+    private static final int KEYS_PER_THREAD = 500;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void verifyConcurrentWritesAndRemovals() throws Exception {
+        try (OffHeapTicketStore store = new OffHeapTicketStore(null, CAPACITY, false)) {
+            final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+            try {
+                final List<Future<?>> results = new ArrayList<>();
+                for (int t = 0; t < THREADS; t++) {
+                    final int thread = t;
+                    results.add(executor.submit(() -> {
+                        for (int i = 0; i < KEYS_PER_THREAD; i++) {
+                            final String key = "TGT-" + thread + '-' + i;
+                            store.put(key, payload(key, i));
+                            store.put(key, payload(key, i * 7));
+                            if (i % 2 == 0) {
+                                assertTrue(store.remove(key));
+                            }
+                        }
+                        return null;
+                    }));
+                }
+                for (final Future<?> result : results) {
+                    result.get();
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+
+            assertEquals(THREADS * KEYS_PER_THREAD / 2, store.size());
+            for (int t = 0; t < THREADS; t++) {
+                for (int i = 1; i < KEYS_PER_THREAD; i += 2) {
+                    final String key = "TGT-" + t + '-' + i;
+                    assertArrayEquals(payload(key, i * 7), store.get(key));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void verifyLatestPayloadIsRecovered() throws Exception {
+        final File location = new File(this.folder.getRoot(), "tickets.dat");
+        try (OffHeapTicketStore store = new OffHeapTicketStore(location, CAPACITY, true)) {
+            store.put("TGT-1", payload("TGT-1", 1));
+            store.put("TGT-1", payload("TGT-1", 2));
+            store.put("ST-1", payload("ST-1", 1));
+            store.remove("ST-1");
+        }
+        try (OffHeapTicketStore store = new OffHeapTicketStore(location, CAPACITY, true)) {
+            assertEquals(1, store.size());
+            assertArrayEquals(payload("TGT-1", 2), store.get("TGT-1"));
+            store.put("TGT-1", payload("TGT-1", 3));
+        }
+        try (OffHeapTicketStore store = new OffHeapTicketStore(location, CAPACITY, true)) {
+            assertArrayEquals(payload("TGT-1", 3), store.get("TGT-1"));
+        }
+    }
+
+    private static byte[] payload(final String key, final int version) {
+        final StringBuilder builder = new StringBuilder(key).append(':').append(version);
+        for (int i = 0; i < version % 5; i++) {
+            builder.append("-padding-to-vary-the-slot-size-of-the-payload-".concat(String.valueOf(i)));
+        }
+        return builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
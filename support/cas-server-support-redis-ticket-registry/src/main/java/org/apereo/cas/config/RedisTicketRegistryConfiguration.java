@@ -3,10 +3,13 @@ package org.apereo.cas.config;
 import org.apereo.cas.configuration.CasConfigurationProperties;
 import org.apereo.cas.configuration.model.support.redis.RedisTicketRegistryProperties;
 import org.apereo.cas.configuration.support.Beans;
+import org.apereo.cas.ticket.TicketCatalog;
 import org.apereo.cas.ticket.registry.RedisTicketRegistry;
 import org.apereo.cas.ticket.registry.TicketRedisTemplate;
 import org.apereo.cas.ticket.registry.TicketRegistry;
+import org.apereo.cas.ticket.serialization.TicketSerializationCodecFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cloud.context.config.annotation.RefreshScope;
 import org.springframework.context.annotation.Bean;
@@ -66,12 +69,14 @@ public class RedisTicketRegistryConfiguration {
         return new TicketRedisTemplate(redisConnectionFactory());
     }
 
+    @Autowired
     @Bean
     @RefreshScope
-    public TicketRegistry ticketRegistry() {
+    public TicketRegistry ticketRegistry(@Qualifier("ticketCatalog") final TicketCatalog ticketCatalog) {
         final RedisTicketRegistryProperties redis = casProperties.getTicket().getRegistry().getRedis();
-        final RedisTicketRegistry r = new RedisTicketRegistry(ticketRedisTemplate());
+        final RedisTicketRegistry r = new RedisTicketRegistry(ticketRedisTemplate(), redis.getBatchSize());
         r.setCipherExecutor(Beans.newTicketRegistryCipherExecutor(redis.getCrypto()));
+        r.setTicketSerializationCodec(TicketSerializationCodecFactory.newTicketSerializationCodec(casProperties.getTicket().getRegistry(), ticketCatalog));
         return r;
     }
 }
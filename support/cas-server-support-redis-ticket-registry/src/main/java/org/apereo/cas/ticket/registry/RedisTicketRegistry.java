@@ -1,19 +1,42 @@
 package org.apereo.cas.ticket.registry;
 
+import org.apereo.cas.ticket.ServiceTicket;
 import org.apereo.cas.ticket.Ticket;
+import org.apereo.cas.ticket.TicketGrantingTicket;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.util.Assert;
 
 import javax.validation.constraints.NotNull;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Objects;
-import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Key-value ticket registry implementation that stores tickets in redis keyed on the ticket ID.
+ * Iterating or removing all tickets walks the keyspace incrementally using {@code SCAN}
+ * rather than {@code KEYS}, fetching and deleting tickets in batches, so the redis server
+ * is never blocked for the duration of a full keyspace traversal.
+ * <p>
+ * Along with each ticket-granting and service ticket, the registry records the ticket ID in a sorted set
+ * of its kind, scored by the time at which the ticket expires in redis. Entries past their score are trimmed
+ * from these sets, so that sessions and service tickets are counted without walking the keyspace.
  *
  * @author serv
  * @since 5.1.0
@@ -21,31 +44,54 @@ import java.util.stream.Collectors;
 public class RedisTicketRegistry extends AbstractTicketRegistry {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(RedisTicketRegistry.class);
-    
+
     private static final String CAS_TICKET_PREFIX = "CAS_TICKET:";
+    private static final String CAS_SESSIONS_KEY = "CAS_TICKET_COUNT:SESSIONS";
+    private static final String CAS_SERVICE_TICKETS_KEY = "CAS_TICKET_COUNT:SERVICE_TICKETS";
     private static final String NO_REDIS_CLIENT_IS_DEFINED = "No redis client is defined.";
+    private static final int DEFAULT_BATCH_SIZE = 1000;
 
     @NotNull
     private final TicketRedisTemplate client;
 
+    private final int batchSize;
+
     public RedisTicketRegistry(final TicketRedisTemplate client) {
+        this(client, DEFAULT_BATCH_SIZE);
+    }
+
+    public RedisTicketRegistry(final TicketRedisTemplate client, final int batchSize) {
+        Assert.isTrue(batchSize > 0, "Batch size must be a positive number");
         this.client = client;
+        this.batchSize = batchSize;
     }
 
     @Override
     public long deleteAll() {
-        final Set<String> redisKeys = this.client.keys(getPatternTicketRedisKey());
-        final int size = redisKeys.size();
-        this.client.delete(redisKeys);
-        return size;
+        Assert.notNull(this.client, NO_REDIS_CLIENT_IS_DEFINED);
+        this.client.delete(Arrays.asList(CAS_SESSIONS_KEY, CAS_SERVICE_TICKETS_KEY));
+        try (Stream<List<String>> batches = streamTicketRedisKeys()) {
+            return batches
+                    .mapToLong(redisKeys -> {
+                        this.client.delete(redisKeys);
+                        return redisKeys.size();
+                    })
+                    .sum();
+        }
     }
-    
+
     @Override
     public boolean deleteSingleTicket(final String ticketId) {
         Assert.notNull(this.client, NO_REDIS_CLIENT_IS_DEFINED);
         try {
             final String redisKey = getTicketRedisKey(ticketId);
-            this.client.delete(redisKey);
+            final RedisSerializer<String> keySerializer = getKeySerializer();
+            this.client.executePipelined((RedisCallback<Object>) connection -> {
+                connection.del(keySerializer.serialize(redisKey));
+                connection.zRem(keySerializer.serialize(CAS_SESSIONS_KEY), keySerializer.serialize(ticketId));
+                connection.zRem(keySerializer.serialize(CAS_SERVICE_TICKETS_KEY), keySerializer.serialize(ticketId));
+                return null;
+            });
             return true;
         } catch (final Exception e) {
             LOGGER.error("Ticket not found or is already removed. Failed deleting [{}]", ticketId, e);
@@ -58,16 +104,27 @@ public class RedisTicketRegistry extends AbstractTicketRegistry {
         Assert.notNull(this.client, NO_REDIS_CLIENT_IS_DEFINED);
         try {
             LOGGER.debug("Adding ticket [{}]", ticket);
-            final String redisKey = RedisTicketRegistry.getTicketRedisKey(ticket.getId());
-            // Encode first, then add
-            final Ticket encodeTicket = this.encodeTicket(ticket);
-            this.client.boundValueOps(redisKey)
-                    .set(encodeTicket, getTimeout(ticket), TimeUnit.SECONDS);
+            setTickets(Collections.singletonList(ticket));
         } catch (final Exception e) {
             LOGGER.error("Failed to add [{}]", ticket);
         }
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>Both tickets are written in a single pipelined round-trip.</p>
+     */
+    @Override
+    public void updateAndAddTicket(final Ticket grantingTicket, final Ticket grantedTicket) {
+        Assert.notNull(this.client, NO_REDIS_CLIENT_IS_DEFINED);
+        try {
+            LOGGER.debug("Updating ticket [{}] and adding ticket [{}]", grantingTicket, grantedTicket);
+            setTickets(Arrays.asList(grantingTicket, grantedTicket));
+        } catch (final Exception e) {
+            LOGGER.error("Failed to update [{}] and add [{}]", grantingTicket, grantedTicket);
+        }
+    }
+
     @Override
     public Ticket getTicket(final String ticketId) {
         Assert.notNull(this.client, NO_REDIS_CLIENT_IS_DEFINED);
@@ -86,20 +143,42 @@ public class RedisTicketRegistry extends AbstractTicketRegistry {
 
     @Override
     public Collection<Ticket> getTickets() {
-        Assert.notNull(this.client, NO_REDIS_CLIENT_IS_DEFINED);
+        try (Stream<Ticket> tickets = getTicketsStream()) {
+            return tickets.collect(Collectors.toSet());
+        }
+    }
 
-        return this.client.keys(RedisTicketRegistry.getPatternTicketRedisKey()).stream()
-                .map(redisKey -> {
-                    final Ticket ticket = this.client.boundValueOps(redisKey).get();
-                    if (ticket == null) {
-                        this.client.delete(redisKey);
-                        return null;
-                    }
-                    return ticket;
-                })
+    /**
+     * {@inheritDoc}
+     * <p>Keys are located via {@code SCAN} and their tickets are fetched with {@code MGET},
+     * one batch at a time, as the stream is consumed. Tickets that expire between both
+     * operations are skipped. Close the stream if it is not fully consumed.</p>
+     */
+    @Override
+    public Stream<Ticket> getTicketsStream() {
+        Assert.notNull(this.client, NO_REDIS_CLIENT_IS_DEFINED);
+        return streamTicketRedisKeys()
+                .flatMap(redisKeys -> this.client.opsForValue().multiGet(redisKeys).stream())
                 .filter(Objects::nonNull)
-                .map(this::decodeTicket)
-                .collect(Collectors.toSet());
+                .map(this::decodeTicket);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Ticket-granting tickets are counted from their sorted set; no key is walked and no ticket is fetched.</p>
+     */
+    @Override
+    public long sessionCount() {
+        return countTickets(CAS_SESSIONS_KEY);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Service tickets are counted from their sorted set; no key is walked and no ticket is fetched.</p>
+     */
+    @Override
+    public long serviceTicketCount() {
+        return countTickets(CAS_SERVICE_TICKETS_KEY);
     }
 
     @Override
@@ -107,16 +186,127 @@ public class RedisTicketRegistry extends AbstractTicketRegistry {
         Assert.notNull(this.client, NO_REDIS_CLIENT_IS_DEFINED);
         try {
             LOGGER.debug("Updating ticket [{}]", ticket);
-            final Ticket encodeTicket = this.encodeTicket(ticket);
-            final String redisKey = RedisTicketRegistry.getTicketRedisKey(ticket.getId());
-            this.client.boundValueOps(redisKey).set(encodeTicket, getTimeout(ticket), TimeUnit.SECONDS);
-            return encodeTicket;
+            return setTickets(Collections.singletonList(ticket)).get(0);
         } catch (final Exception e) {
             LOGGER.error("Failed to update [{}]", ticket);
         }
         return null;
     }
 
+    /**
+     * Write the given tickets using a single pipeline, recording ticket-granting and service tickets
+     * in the sorted set of their kind and trimming the entries of tickets that have since expired.
+     *
+     * @param tickets the tickets
+     * @return the tickets as encoded and written
+     */
+    @SuppressWarnings("unchecked")
+    private List<Ticket> setTickets(final Collection<Ticket> tickets) {
+        final RedisSerializer<String> keySerializer = getKeySerializer();
+        final RedisSerializer<Object> valueSerializer = (RedisSerializer<Object>) this.client.getValueSerializer();
+        final List<Ticket> encodedTickets = new ArrayList<>(tickets.size());
+        this.client.executePipelined((RedisCallback<Object>) connection -> {
+            final long now = System.currentTimeMillis();
+            tickets.forEach(ticket -> {
+                final byte[] key = keySerializer.serialize(getTicketRedisKey(ticket.getId()));
+                final Ticket encodedTicket = encodeTicket(ticket);
+                final int timeout = getTimeout(ticket);
+                connection.setEx(key, timeout, valueSerializer.serialize(encodedTicket));
+                encodedTickets.add(encodedTicket);
+
+                final String countKey = getCountRedisKey(ticket);
+                if (countKey != null) {
+                    final byte[] countRedisKey = keySerializer.serialize(countKey);
+                    connection.zRemRangeByScore(countRedisKey, Double.NEGATIVE_INFINITY, now);
+                    connection.zAdd(countRedisKey, now + TimeUnit.SECONDS.toMillis(timeout), keySerializer.serialize(ticket.getId()));
+                }
+            });
+            return null;
+        });
+        return encodedTickets;
+    }
+
+    /**
+     * Count the tickets recorded in the given sorted set, once the entries of expired tickets are trimmed.
+     *
+     * @param countKey the key of the sorted set
+     * @return the number of tickets
+     */
+    private long countTickets(final String countKey) {
+        Assert.notNull(this.client, NO_REDIS_CLIENT_IS_DEFINED);
+        final byte[] countRedisKey = getKeySerializer().serialize(countKey);
+        final Long count = this.client.execute((RedisCallback<Long>) connection -> {
+            connection.zRemRangeByScore(countRedisKey, Double.NEGATIVE_INFINITY, System.currentTimeMillis());
+            return connection.zCard(countRedisKey);
+        });
+        return count == null ? 0 : count;
+    }
+
+    @SuppressWarnings("unchecked")
+    private RedisSerializer<String> getKeySerializer() {
+        return (RedisSerializer<String>) this.client.getKeySerializer();
+    }
+
+    private Stream<List<String>> streamTicketRedisKeys() {
+        return streamTicketRedisKeys(getPatternTicketRedisKey());
+    }
+
+    /**
+     * Stream the redis keys of tickets that match the pattern, in batches of up to the configured size.
+     * The keyspace is walked incrementally via {@code SCAN} on a dedicated connection,
+     * which is released once the stream is exhausted or closed.
+     *
+     * @param pattern the key pattern
+     * @return the stream of key batches
+     */
+    private Stream<List<String>> streamTicketRedisKeys(final String pattern) {
+        final RedisSerializer<String> keySerializer = getKeySerializer();
+        final ScanOptions options = ScanOptions.scanOptions()
+                .match(pattern)
+                .count(this.batchSize)
+                .build();
+        final Cursor<byte[]> cursor = this.client.executeWithStickyConnection(
+                (RedisCallback<Cursor<byte[]>>) connection -> connection.scan(options));
+
+        final Iterator<List<String>> batches = new Iterator<List<String>>() {
+            @Override
+            public boolean hasNext() {
+                if (cursor.isClosed()) {
+                    return false;
+                }
+                if (!cursor.hasNext()) {
+                    closeCursor(cursor);
+                    return false;
+                }
+                return true;
+            }
+
+            @Override
+            public List<String> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                final List<String> keys = new ArrayList<>(batchSize);
+                while (keys.size() < batchSize && cursor.hasNext()) {
+                    keys.add(keySerializer.deserialize(cursor.next()));
+                }
+                return keys;
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(batches, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(() -> closeCursor(cursor));
+    }
+
+    private static void closeCursor(final Cursor<byte[]> cursor) {
+        try {
+            if (!cursor.isClosed()) {
+                cursor.close();
+            }
+        } catch (final IOException e) {
+            LOGGER.warn("Unable to close redis scan cursor: [{}]", e.getMessage());
+        }
+    }
+
     /**
      * If not time out value is specified, expire the ticket immediately.
      *
@@ -140,4 +330,15 @@ public class RedisTicketRegistry extends AbstractTicketRegistry {
     private static String getPatternTicketRedisKey() {
         return CAS_TICKET_PREFIX + "*";
     }
+
+    // the key of the sorted set that counts tickets of the same kind, if any
+    private static String getCountRedisKey(final Ticket ticket) {
+        if (ticket instanceof TicketGrantingTicket) {
+            return CAS_SESSIONS_KEY;
+        }
+        if (ticket instanceof ServiceTicket) {
+            return CAS_SERVICE_TICKETS_KEY;
+        }
+        return null;
+    }
 }
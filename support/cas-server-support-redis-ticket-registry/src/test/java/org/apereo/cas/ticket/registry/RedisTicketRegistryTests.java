@@ -3,9 +3,17 @@ package org.apereo.cas.ticket.registry;
 import java.util.Arrays;
 import java.util.Collection;
 
+import org.apereo.cas.authentication.CoreAuthenticationTestUtils;
 import org.apereo.cas.config.RedisTicketRegistryConfiguration;
+import org.apereo.cas.services.RegisteredServiceTestUtils;
+import org.apereo.cas.ticket.ServiceTicket;
+import org.apereo.cas.ticket.TicketGrantingTicket;
+import org.apereo.cas.ticket.TicketGrantingTicketImpl;
+import org.apereo.cas.ticket.support.HardTimeoutExpirationPolicy;
+import org.apereo.cas.ticket.support.NeverExpiresExpirationPolicy;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
+import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -15,6 +23,8 @@ import org.springframework.cloud.autoconfigure.RefreshAutoConfiguration;
 import org.springframework.test.context.TestPropertySource;
 import redis.embedded.RedisServer;
 
+import static org.junit.Assert.*;
+
 /**
  * Unit test for {@link RedisTicketRegistry}.
  *
@@ -32,6 +42,10 @@ public class RedisTicketRegistryTests extends AbstractTicketRegistryTests {
     @Qualifier("ticketRegistry")
     private TicketRegistry ticketRegistry;
 
+    @Autowired
+    @Qualifier("ticketRedisTemplate")
+    private TicketRedisTemplate ticketRedisTemplate;
+
     public RedisTicketRegistryTests(final boolean useEncryption) {
         super(useEncryption);
     }
@@ -56,4 +70,43 @@ public class RedisTicketRegistryTests extends AbstractTicketRegistryTests {
     public TicketRegistry getNewTicketRegistry() throws Exception {
         return this.ticketRegistry;
     }
+
+    @Test
+    public void verifyTicketsAreScannedInBatches() {
+        final RedisTicketRegistry registry = new RedisTicketRegistry(this.ticketRedisTemplate, 2);
+        for (int i = 0; i < 5; i++) {
+            registry.addTicket(new TicketGrantingTicketImpl(TicketGrantingTicket.PREFIX + "-BATCH-" + i,
+                    CoreAuthenticationTestUtils.getAuthentication(), new NeverExpiresExpirationPolicy()));
+        }
+        assertEquals(5, registry.getTickets().size());
+        assertEquals(5, registry.getTicketsStream().count());
+        assertEquals(5, registry.deleteAll());
+        assertTrue(registry.getTickets().isEmpty());
+    }
+
+    @Test
+    public void verifyTicketsAreCountedByKind() throws Exception {
+        final RedisTicketRegistry registry = new RedisTicketRegistry(this.ticketRedisTemplate);
+        registry.deleteAll();
+        final TicketGrantingTicket tgt = new TicketGrantingTicketImpl(TicketGrantingTicket.PREFIX + "-COUNT",
+                CoreAuthenticationTestUtils.getAuthentication(), new NeverExpiresExpirationPolicy());
+        registry.addTicket(tgt);
+        registry.updateTicket(tgt);
+        final ServiceTicket st = tgt.grantServiceTicket(ServiceTicket.PREFIX + "-COUNT", RegisteredServiceTestUtils.getService(),
+                new NeverExpiresExpirationPolicy(), false, true);
+        registry.updateAndAddTicket(tgt, st);
+        final ServiceTicket expiring = tgt.grantServiceTicket(ServiceTicket.PREFIX + "-EXPIRING", RegisteredServiceTestUtils.getService(),
+                new HardTimeoutExpirationPolicy(1), false, true);
+        registry.addTicket(expiring);
+
+        assertEquals(1, registry.sessionCount());
+        assertEquals(2, registry.serviceTicketCount());
+        registry.deleteSingleTicket(st.getId());
+        assertEquals(1, registry.serviceTicketCount());
+
+        Thread.sleep(1500);
+        assertEquals(0, registry.serviceTicketCount());
+        registry.deleteAll();
+        assertEquals(0, registry.sessionCount());
+    }
 }
@@ -1,10 +1,10 @@
 package org.apereo.cas.web.report;
 
+import org.apache.commons.lang3.StringUtils;
 import org.apereo.cas.CentralAuthenticationService;
 import org.apereo.cas.authentication.Authentication;
 import org.apereo.cas.authentication.principal.Principal;
 import org.apereo.cas.configuration.CasConfigurationProperties;
-import org.apereo.cas.ticket.Ticket;
 import org.apereo.cas.ticket.TicketGrantingTicket;
 import org.apereo.cas.util.DateTimeUtils;
 import org.apereo.cas.util.ISOStandardDateFormat;
@@ -23,6 +23,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
@@ -113,14 +114,17 @@ public class SingleSignOnSessionsReportController extends BaseCasMvcEndpoint {
     /**
      * Gets sso sessions.
      *
-     * @param option the option
+     * @param option  the option
+     * @param tickets the ticket-granting tickets of the sessions
      * @return the sso sessions
      */
-    private Collection<Map<String, Object>> getActiveSsoSessions(final SsoSessionReportOptions option) {
+    private Collection<Map<String, Object>> getActiveSsoSessions(final SsoSessionReportOptions option,
+                                                                 final Collection<TicketGrantingTicket> tickets) {
         final Collection<Map<String, Object>> activeSessions = new ArrayList<>();
         final ISOStandardDateFormat dateFormat = new ISOStandardDateFormat();
 
-        getNonExpiredTicketGrantingTickets().stream().map(TicketGrantingTicket.class::cast)
+        tickets.stream()
+                .filter(tgt -> !tgt.isExpired())
                 .filter(tgt -> !(option == SsoSessionReportOptions.DIRECT && tgt.getProxiedBy() != null))
                 .forEach(tgt -> {
                     final Authentication authentication = tgt.getAuthentication();
@@ -149,18 +153,27 @@ public class SingleSignOnSessionsReportController extends BaseCasMvcEndpoint {
     }
 
     /**
-     * Gets non expired ticket granting tickets.
+     * Gets the ticket granting tickets of the principal if any, or else of every principal.
      *
-     * @return the non expired ticket granting tickets
+     * @param username the principal id, if any
+     * @return the ticket granting tickets
      */
-    private Collection<Ticket> getNonExpiredTicketGrantingTickets() {
-        return this.centralAuthenticationService.getTickets(ticket -> ticket instanceof TicketGrantingTicket && !ticket.isExpired());
+    private Collection<TicketGrantingTicket> getTicketGrantingTickets(final String username) {
+        if (StringUtils.isNotBlank(username)) {
+            return this.centralAuthenticationService.getTicketGrantingTickets(username);
+        }
+        return this.centralAuthenticationService.getTicketGrantingTickets(null, Integer.MAX_VALUE);
     }
 
     /**
      * Endpoint for getting SSO Sessions in JSON format.
+     * Sessions may be restricted to those of a principal, or paged through by passing a count
+     * along with the cursor returned with the previous page, if any. Totals describe the sessions returned.
      *
      * @param type     the type
+     * @param username the principal whose sessions are returned, if any
+     * @param cursor   the cursor returned with the previous page, if any
+     * @param count    the maximum number of sessions to return, or 0 to return all sessions
      * @param request  the request
      * @param response the response
      * @return the sso sessions
@@ -168,15 +181,29 @@ public class SingleSignOnSessionsReportController extends BaseCasMvcEndpoint {
     @GetMapping(value = "/getSsoSessions")
     @ResponseBody
     public WebAsyncTask<Map<String, Object>> getSsoSessions(@RequestParam(defaultValue = "ALL") final String type,
+                                                            @RequestParam(required = false) final String username,
+                                                            @RequestParam(required = false) final String cursor,
+                                                            @RequestParam(defaultValue = "0") final int count,
                                                             final HttpServletRequest request,
                                                             final HttpServletResponse response) {
         ensureEndpointAccessIsAuthorized(request, response);
 
         final Callable<Map<String, Object>> asyncTask = () -> {
-            final Map<String, Object> sessionsMap = new HashMap<>(1);
+            final Map<String, Object> sessionsMap = new HashMap<>();
             final SsoSessionReportOptions option = SsoSessionReportOptions.valueOf(type);
 
-            final Collection<Map<String, Object>> activeSsoSessions = getActiveSsoSessions(option);
+            final Collection<TicketGrantingTicket> tickets;
+            if (count > 0 && StringUtils.isBlank(username)) {
+                final List<TicketGrantingTicket> page = this.centralAuthenticationService.getTicketGrantingTickets(cursor, count);
+                if (page.size() == count) {
+                    sessionsMap.put("nextCursor", page.get(page.size() - 1).getId());
+                }
+                tickets = page;
+            } else {
+                tickets = getTicketGrantingTickets(username);
+            }
+
+            final Collection<Map<String, Object>> activeSsoSessions = getActiveSsoSessions(option, tickets);
             sessionsMap.put("activeSsoSessions", activeSsoSessions);
 
             long totalTicketGrantingTickets = 0;
@@ -248,6 +275,7 @@ public class SingleSignOnSessionsReportController extends BaseCasMvcEndpoint {
      * Endpoint for destroying SSO Sessions.
      *
      * @param type     the type
+     * @param username the principal whose sessions are destroyed, if any
      * @param request  the request
      * @param response the response
      * @return result map
@@ -255,6 +283,7 @@ public class SingleSignOnSessionsReportController extends BaseCasMvcEndpoint {
     @PostMapping(value = "/destroySsoSessions")
     @ResponseBody
     public Map<String, Object> destroySsoSessions(@RequestParam(defaultValue = "ALL") final String type,
+                                                  @RequestParam(required = false) final String username,
                                                   final HttpServletRequest request,
                                                   final HttpServletResponse response) {
         ensureEndpointAccessIsAuthorized(request, response);
@@ -263,7 +292,7 @@ public class SingleSignOnSessionsReportController extends BaseCasMvcEndpoint {
         final Map<String, String> failedTickets = new HashMap<>();
 
         final SsoSessionReportOptions option = SsoSessionReportOptions.valueOf(type);
-        final Collection<Map<String, Object>> collection = getActiveSsoSessions(option);
+        final Collection<Map<String, Object>> collection = getActiveSsoSessions(option, getTicketGrantingTickets(username));
         collection.stream().map(sso -> sso.get(SsoSessionAttributeKeys.TICKET_GRANTING_TICKET.toString()).toString()).forEach(ticketGrantingTicket -> {
             try {
                 this.centralAuthenticationService.destroyTicketGrantingTicket(ticketGrantingTicket);
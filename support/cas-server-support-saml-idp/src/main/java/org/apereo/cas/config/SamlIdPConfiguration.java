@@ -1,5 +1,6 @@
 package org.apereo.cas.config;
 
+import com.codahale.metrics.MetricRegistry;
 import net.shibboleth.ext.spring.resource.ResourceHelper;
 import org.apereo.cas.authentication.AuthenticationSystemSupport;
 import org.apereo.cas.authentication.principal.PersistentIdGenerator;
@@ -13,7 +14,10 @@ import org.apereo.cas.support.saml.OpenSamlConfigBean;
 import org.apereo.cas.support.saml.services.SamlIdPSingleLogoutServiceLogoutUrlBuilder;
 import org.apereo.cas.support.saml.services.idp.metadata.cache.ChainingMetadataResolverCacheLoader;
 import org.apereo.cas.support.saml.services.idp.metadata.cache.DefaultSamlRegisteredServiceCachingMetadataResolver;
+import org.apereo.cas.support.saml.services.idp.metadata.cache.SamlMetadataSnapshotStore;
 import org.apereo.cas.support.saml.services.idp.metadata.cache.SamlRegisteredServiceCachingMetadataResolver;
+import org.apereo.cas.support.saml.services.idp.metadata.cache.SamlRegisteredServiceMetadataWarmingEventListener;
+import org.apereo.cas.support.saml.services.idp.metadata.cache.SharedMetadataResolverCache;
 import org.apereo.cas.support.saml.web.idp.metadata.SamlIdpMetadataAndCertificatesGenerationService;
 import org.apereo.cas.support.saml.web.idp.metadata.SamlMetadataController;
 import org.apereo.cas.support.saml.web.idp.metadata.TemplatedMetadataAndCertificatesGenerationService;
@@ -54,13 +58,19 @@ import org.springframework.beans.factory.BeanCreationException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cloud.context.config.annotation.RefreshScope;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.core.io.FileSystemResource;
+import org.springframework.scheduling.concurrent.ThreadPoolExecutorFactoryBean;
 import org.springframework.ui.velocity.VelocityEngineFactory;
 
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
 /**
  * The {@link SamlIdPConfiguration}.
  *
@@ -74,6 +84,10 @@ public class SamlIdPConfiguration {
     @Autowired
     private CasConfigurationProperties casProperties;
 
+    @Autowired(required = false)
+    @Qualifier("metrics")
+    private MetricRegistry metricRegistry;
+
     @Autowired
     @Qualifier("shibbolethCompatiblePersistentIdGenerator")
     private PersistentIdGenerator shibbolethCompatiblePersistentIdGenerator;
@@ -115,21 +129,64 @@ public class SamlIdPConfiguration {
     @Bean
     @RefreshScope
     public ChainingMetadataResolverCacheLoader chainingMetadataResolverCacheLoader() {
+        final boolean snapshotEnabled = casProperties.getAuthn().getSamlIdp().getMetadata().isSnapshotEnabled();
         return new ChainingMetadataResolverCacheLoader(
-                openSamlConfigBean, httpClient
+                openSamlConfigBean, httpClient, sharedMetadataResolverCache(), snapshotEnabled ? samlMetadataSnapshotStore() : null
         );
     }
 
+    @ConditionalOnMissingBean(name = "samlMetadataSnapshotStore")
+    @ConditionalOnProperty(prefix = "cas.authn.samlIdp.metadata", name = "snapshotEnabled", havingValue = "true")
+    @Bean
+    public SamlMetadataSnapshotStore samlMetadataSnapshotStore() {
+        final SamlIdPProperties.Metadata md = casProperties.getAuthn().getSamlIdp().getMetadata();
+        try {
+            return new SamlMetadataSnapshotStore(new File(md.getLocation().getFile(), "metadata-snapshots"), md.getSnapshotSigningKey());
+        } catch (final Exception e) {
+            throw new BeanCreationException(e.getMessage(), e);
+        }
+    }
+
+    @Bean
+    public SamlRegisteredServiceMetadataWarmingEventListener samlRegisteredServiceMetadataWarmingEventListener() {
+        return new SamlRegisteredServiceMetadataWarmingEventListener(servicesManager, defaultSamlRegisteredServiceCachingMetadataResolver());
+    }
+
+    @ConditionalOnMissingBean(name = "sharedMetadataResolverCache")
+    @Bean
+    public SharedMetadataResolverCache sharedMetadataResolverCache() {
+        return new SharedMetadataResolverCache(
+                TimeUnit.MINUTES.toMillis(casProperties.getAuthn().getSamlIdp().getMetadata().getCacheExpirationMinutes()));
+    }
+
     @ConditionalOnMissingBean(name = "defaultSamlRegisteredServiceCachingMetadataResolver")
     @Bean
     @RefreshScope
     public SamlRegisteredServiceCachingMetadataResolver defaultSamlRegisteredServiceCachingMetadataResolver() {
+        final SamlIdPProperties.Metadata md = casProperties.getAuthn().getSamlIdp().getMetadata();
+        if (md.isCacheRefreshInBackground()) {
+            return new DefaultSamlRegisteredServiceCachingMetadataResolver(md.getCacheExpirationMinutes(), md.getCacheMaximumSize(),
+                    chainingMetadataResolverCacheLoader(), samlMetadataRefreshExecutor().getObject(), this.metricRegistry);
+        }
         return new DefaultSamlRegisteredServiceCachingMetadataResolver(
-                casProperties.getAuthn().getSamlIdp().getMetadata().getCacheExpirationMinutes(),
+                md.getCacheExpirationMinutes(),
                 chainingMetadataResolverCacheLoader()
         );
     }
 
+    @ConditionalOnMissingBean(name = "samlMetadataRefreshExecutor")
+    @Lazy
+    @Bean
+    public ThreadPoolExecutorFactoryBean samlMetadataRefreshExecutor() {
+        final int poolSize = casProperties.getAuthn().getSamlIdp().getMetadata().getCacheRefreshPoolSize();
+        final ThreadPoolExecutorFactoryBean bean = new ThreadPoolExecutorFactoryBean();
+        bean.setCorePoolSize(poolSize);
+        bean.setMaxPoolSize(poolSize);
+        bean.setThreadNamePrefix("cas-saml-metadata-refresh-");
+        bean.setDaemon(true);
+        return bean;
+    }
+
     @ConditionalOnMissingBean(name = "samlProfileSamlResponseBuilder")
     @Bean
     @RefreshScope
@@ -2,8 +2,12 @@ package org.apereo.cas.support.saml.services.idp.metadata.cache;
 
 import com.google.common.base.Function;
 import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
+import com.google.common.collect.MapMaker;
 import net.shibboleth.ext.spring.resource.ResourceHelper;
+import net.shibboleth.utilities.java.support.xml.SerializeSupport;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.http.auth.UsernamePasswordCredentials;
@@ -18,7 +22,10 @@ import org.apereo.cas.util.RegexUtils;
 import org.apereo.cas.util.ResourceUtils;
 import org.apereo.cas.util.http.HttpClient;
 import org.apereo.cas.util.http.HttpClientMultithreadedDownloader;
+import org.opensaml.core.xml.XMLObject;
 import org.opensaml.core.xml.persist.FilesystemLoadSaveManager;
+import org.opensaml.core.xml.util.XMLObjectSupport;
+import org.opensaml.saml.common.xml.TimeBoundSAMLObject;
 import org.opensaml.saml.metadata.resolver.ChainingMetadataResolver;
 import org.opensaml.saml.metadata.resolver.MetadataResolver;
 import org.opensaml.saml.metadata.resolver.filter.MetadataFilter;
@@ -27,6 +34,7 @@ import org.opensaml.saml.metadata.resolver.filter.impl.EntityRoleFilter;
 import org.opensaml.saml.metadata.resolver.filter.impl.PredicateFilter;
 import org.opensaml.saml.metadata.resolver.filter.impl.RequiredValidUntilFilter;
 import org.opensaml.saml.metadata.resolver.filter.impl.SignatureValidationFilter;
+import org.opensaml.saml.metadata.resolver.impl.AbstractBatchMetadataResolver;
 import org.opensaml.saml.metadata.resolver.impl.AbstractMetadataResolver;
 import org.opensaml.saml.metadata.resolver.impl.DOMMetadataResolver;
 import org.opensaml.saml.metadata.resolver.impl.FileBackedHTTPMetadataResolver;
@@ -47,11 +55,18 @@ import org.w3c.dom.Element;
 
 import javax.annotation.Nullable;
 import javax.xml.namespace.QName;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.InputStream;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.Timer;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -76,15 +91,43 @@ public class ChainingMetadataResolverCacheLoader extends CacheLoader<SamlRegiste
      */
     protected HttpClient httpClient;
 
+    /**
+     * Resolvers shared by services that point at the same metadata source, if any.
+     */
+    protected SharedMetadataResolverCache sharedMetadataResolverCache;
+
+    /**
+     * Snapshots of validated metadata, if any.
+     */
+    protected SamlMetadataSnapshotStore samlMetadataSnapshotStore;
+
     private final transient Object lock = new Object();
 
+    private final Map<ChainingMetadataResolver, Boolean> snapshotChainingMetadataResolvers = new MapMaker().weakKeys().makeMap();
+    private final Cache<String, MetadataResolver> snapshotMetadataResolvers = CacheBuilder.newBuilder().weakValues().build();
+
     @Autowired
     private CasConfigurationProperties casProperties;
 
     public ChainingMetadataResolverCacheLoader(final OpenSamlConfigBean configBean,
                                                final HttpClient httpClient) {
+        this(configBean, httpClient, null);
+    }
+
+    public ChainingMetadataResolverCacheLoader(final OpenSamlConfigBean configBean,
+                                               final HttpClient httpClient,
+                                               final SharedMetadataResolverCache sharedMetadataResolverCache) {
+        this(configBean, httpClient, sharedMetadataResolverCache, null);
+    }
+
+    public ChainingMetadataResolverCacheLoader(final OpenSamlConfigBean configBean,
+                                               final HttpClient httpClient,
+                                               final SharedMetadataResolverCache sharedMetadataResolverCache,
+                                               final SamlMetadataSnapshotStore samlMetadataSnapshotStore) {
         this.configBean = configBean;
         this.httpClient = httpClient;
+        this.sharedMetadataResolverCache = sharedMetadataResolverCache;
+        this.samlMetadataSnapshotStore = samlMetadataSnapshotStore;
     }
 
     @Override
@@ -92,29 +135,117 @@ public class ChainingMetadataResolverCacheLoader extends CacheLoader<SamlRegiste
         try {
             final ChainingMetadataResolver metadataResolver = new ChainingMetadataResolver();
 
-            final List<MetadataResolver> metadataResolvers = new ArrayList<>();
-            if (isDynamicMetadataQueryConfigured(service)) {
-                resolveMetadataDynamically(service, metadataResolvers);
-            } else {
-                resolveMetadataFromResource(service, metadataResolvers);
+            final List<MetadataResolver> metadataResolvers = this.sharedMetadataResolverCache == null
+                    ? buildMetadataResolvers(service)
+                    : this.sharedMetadataResolverCache.acquire(service, () -> buildMetadataResolvers(service));
+
+            try {
+                synchronized (this.lock) {
+                    metadataResolver.setId(ChainingMetadataResolver.class.getCanonicalName());
+                    metadataResolver.setResolvers(metadataResolvers);
+                    metadataResolver.initialize();
+                }
+            } catch (final Exception e) {
+                if (this.sharedMetadataResolverCache != null) {
+                    this.sharedMetadataResolverCache.release(service);
+                }
+                throw e;
             }
+            return metadataResolver;
+        } catch (final Exception e) {
+            throw new SamlException(e.getMessage(), e);
+        }
+    }
 
-            if (metadataResolvers.isEmpty()) {
-                throw new SamlException("No metadata resolvers could be configured for service " + service.getName()
-                        + " with metadata location " + service.getMetadataLocation());
+    /**
+     * Load a new resolver for the service, first refreshing the metadata resolvers it shares with other services
+     * unless they were built or refreshed less than the given time ago, so that a new resolver does not merely
+     * wrap the metadata already held.
+     *
+     * @param service the service
+     * @param maxAge  the time in milliseconds after which shared metadata resolvers are refreshed
+     * @return the resolver
+     * @throws Exception if the metadata could not be refreshed or loaded
+     */
+    public ChainingMetadataResolver refresh(final SamlRegisteredService service, final long maxAge) throws Exception {
+        if (this.sharedMetadataResolverCache != null) {
+            try {
+                this.sharedMetadataResolverCache.refresh(service, maxAge);
+            } catch (final Exception e) {
+                throw new SamlException(e.getMessage(), e);
             }
+        }
+        return load(service);
+    }
 
+    /**
+     * Load a resolver for the service from the snapshot of its metadata, if any.
+     * The resolver serves the metadata as it was when the snapshot was taken and is never refreshed;
+     * it is meant to be used until a resolver is loaded from the metadata source itself.
+     *
+     * @param service the service
+     * @return the resolver, or null if no usable snapshot is available
+     */
+    public ChainingMetadataResolver loadFromSnapshot(final SamlRegisteredService service) {
+        if (this.samlMetadataSnapshotStore == null || isDynamicMetadataQueryConfigured(service)) {
+            return null;
+        }
+        try {
+            final MetadataResolver snapshotResolver = this.snapshotMetadataResolvers.get(new MetadataSourceKey(service).getDigest(),
+                    () -> buildSnapshotMetadataResolver(service));
+            final ChainingMetadataResolver metadataResolver = new ChainingMetadataResolver();
             synchronized (this.lock) {
                 metadataResolver.setId(ChainingMetadataResolver.class.getCanonicalName());
-                metadataResolver.setResolvers(metadataResolvers);
+                metadataResolver.setResolvers(Collections.singletonList(snapshotResolver));
                 metadataResolver.initialize();
             }
+            this.snapshotChainingMetadataResolvers.put(metadataResolver, Boolean.TRUE);
             return metadataResolver;
         } catch (final Exception e) {
-            throw new SamlException(e.getMessage(), e);
+            LOGGER.debug("Metadata of [{}] cannot be loaded from a snapshot: [{}]", service.getName(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Signal that the resolver loaded for the service is no longer cached,
+     * so that the metadata resolvers it was built from may be released.
+     *
+     * @param service  the service
+     * @param resolver the resolver
+     */
+    public void release(final SamlRegisteredService service, final ChainingMetadataResolver resolver) {
+        if (resolver != null && this.snapshotChainingMetadataResolvers.remove(resolver) != null) {
+            LOGGER.debug("Released metadata resolver of [{}] loaded from a snapshot", service.getName());
+            return;
+        }
+        if (this.sharedMetadataResolverCache != null) {
+            this.sharedMetadataResolverCache.release(service);
         }
     }
 
+    /**
+     * Build the metadata resolvers of the service.
+     *
+     * @param service the service
+     * @return the metadata resolvers
+     * @throws Exception the exception
+     */
+    protected List<MetadataResolver> buildMetadataResolvers(final SamlRegisteredService service) throws Exception {
+        final List<MetadataResolver> metadataResolvers = new ArrayList<>();
+        if (isDynamicMetadataQueryConfigured(service)) {
+            resolveMetadataDynamically(service, metadataResolvers);
+        } else {
+            resolveMetadataFromResource(service, metadataResolvers);
+        }
+
+        if (metadataResolvers.isEmpty()) {
+            throw new SamlException("No metadata resolvers could be configured for service " + service.getName()
+                    + " with metadata location " + service.getMetadataLocation());
+        }
+        return metadataResolvers;
+    }
+
     /**
      * Resolve metadata dynamically.
      *
@@ -128,7 +259,7 @@ public class ChainingMetadataResolverCacheLoader extends CacheLoader<SamlRegiste
 
         final SamlIdPProperties.Metadata md = casProperties.getAuthn().getSamlIdp().getMetadata();
         final FunctionDrivenDynamicHTTPMetadataResolver resolver =
-                new FunctionDrivenDynamicHTTPMetadataResolver(this.httpClient.getWrappedHttpClient());
+                new FunctionDrivenDynamicHTTPMetadataResolver(getBackgroundTaskTimer(), this.httpClient.getWrappedHttpClient());
         resolver.setMinCacheDuration(TimeUnit.MILLISECONDS.convert(md.getCacheExpirationMinutes(), TimeUnit.MINUTES));
         resolver.setRequireValidMetadata(md.isRequireValidMetadata());
 
@@ -221,7 +352,7 @@ public class ChainingMetadataResolverCacheLoader extends CacheLoader<SamlRegiste
         final HttpClientMultithreadedDownloader downloader =
                 new HttpClientMultithreadedDownloader(metadataResource, backupFile);
 
-        final FileBackedHTTPMetadataResolver metadataProvider = new FileBackedHTTPMetadataResolver(
+        final FileBackedHTTPMetadataResolver metadataProvider = new FileBackedHTTPMetadataResolver(getBackgroundTaskTimer(),
                 this.httpClient.getWrappedHttpClient(), metadataResource.getURL().toExternalForm(),
                 canonicalPath);
         buildSingleMetadataResolver(metadataProvider, service);
@@ -236,12 +367,64 @@ public class ChainingMetadataResolverCacheLoader extends CacheLoader<SamlRegiste
         if (metadataFile.isDirectory()) {
             metadataResolver = new LocalDynamicMetadataResolver(new FilesystemLoadSaveManager<>(metadataFile, configBean.getParserPool()));
         } else {
-            metadataResolver = new ResourceBackedMetadataResolver(ResourceHelper.of(metadataResource));
+            metadataResolver = new ResourceBackedMetadataResolver(getBackgroundTaskTimer(), ResourceHelper.of(metadataResource));
         }
         buildSingleMetadataResolver(metadataResolver, service);
         metadataResolvers.add(metadataResolver);
     }
 
+    private MetadataResolver buildSnapshotMetadataResolver(final SamlRegisteredService service) throws Exception {
+        final SamlMetadataSnapshotStore.Snapshot snapshot = this.samlMetadataSnapshotStore.load(service);
+        if (snapshot == null) {
+            throw new SamlException("No usable metadata snapshot is available for " + service.getMetadataLocation());
+        }
+        try (InputStream in = snapshot.getMetadataStream()) {
+            final Document document = this.configBean.getParserPool().parse(in);
+            final DOMMetadataResolver metadataProvider = new DOMMetadataResolver(document.getDocumentElement());
+            metadataProvider.setParserPool(this.configBean.getParserPool());
+            metadataProvider.setRequireValidMetadata(casProperties.getAuthn().getSamlIdp().getMetadata().isRequireValidMetadata());
+            metadataProvider.setId(metadataProvider.getClass().getCanonicalName());
+            metadataProvider.initialize();
+            LOGGER.info("Loaded metadata from [{}] as validated at [{}] from a snapshot", service.getMetadataLocation(), snapshot.getValidatedAt());
+            return metadataProvider;
+        }
+    }
+
+    /**
+     * Save a snapshot of the metadata of the service once validated and filtered.
+     *
+     * @param service  the service
+     * @param metadata the metadata
+     * @return the metadata
+     */
+    protected XMLObject saveSnapshot(final SamlRegisteredService service, final XMLObject metadata) {
+        if (metadata != null) {
+            try {
+                final ByteArrayOutputStream out = new ByteArrayOutputStream();
+                SerializeSupport.writeNode(XMLObjectSupport.marshall(metadata), out);
+                ZonedDateTime validUntil = null;
+                if (metadata instanceof TimeBoundSAMLObject && ((TimeBoundSAMLObject) metadata).getValidUntil() != null) {
+                    validUntil = ZonedDateTime.ofInstant(Instant.ofEpochMilli(((TimeBoundSAMLObject) metadata).getValidUntil().getMillis()),
+                            ZoneOffset.UTC);
+                }
+                this.samlMetadataSnapshotStore.save(service, out.toByteArray(), validUntil);
+            } catch (final Exception e) {
+                LOGGER.warn("Unable to take a snapshot of the metadata from [{}]: [{}]", service.getMetadataLocation(), e.getMessage());
+            }
+        }
+        return metadata;
+    }
+
+    /**
+     * Gets the timer shared by resolvers to reload metadata in the background.
+     * When none is shared, each resolver creates its own.
+     *
+     * @return the timer, or null
+     */
+    protected Timer getBackgroundTaskTimer() {
+        return this.sharedMetadataResolverCache == null ? null : this.sharedMetadataResolverCache.getBackgroundTaskTimer();
+    }
+
     /**
      * Is dynamic metadata query configured ?
      *
@@ -291,6 +474,11 @@ public class ChainingMetadataResolverCacheLoader extends CacheLoader<SamlRegiste
         buildEntityRoleFilterIfNeeded(service, metadataFilterList);
         buildPredicateFilterIfNeeded(service, metadataFilterList);
 
+        if (this.samlMetadataSnapshotStore != null && metadataProvider instanceof AbstractBatchMetadataResolver) {
+            metadataFilterList.add(metadata -> saveSnapshot(service, metadata));
+            LOGGER.debug("Metadata from [{}] will be saved to a snapshot once filtered", service.getMetadataLocation());
+        }
+
         if (!metadataFilterList.isEmpty()) {
             final MetadataFilterChain metadataFilterChain = new MetadataFilterChain();
             metadataFilterChain.setFilters(metadataFilterList);
@@ -1,18 +1,37 @@
 package org.apereo.cas.support.saml.services.idp.metadata.cache;
 
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.google.common.base.Ticker;
 import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
+import com.google.common.cache.RemovalListener;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListenableFutureTask;
 import org.apereo.cas.support.saml.services.SamlRegisteredService;
 import org.opensaml.saml.metadata.resolver.ChainingMetadataResolver;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 
 /**
  * An adaptation of metadata resolver which handles the resolution of metadata resources
  * inside a Guava cache. It basically is a fancy wrapper around Guava, and constructs the cache
  * semantics before processing the resolution of metadata for a SAML service.
+ * <p>
+ * When given an executor, cached resolvers are refreshed in the background once they are older
+ * than the expiration time: the request that finds a resolver due for refresh is served with that
+ * resolver while a new one is built, and the previous resolver is kept if the new one cannot be built.
+ * Metadata resolvers shared with other services are refreshed first, at most once per expiration time,
+ * so that the new resolver does not merely wrap the metadata already held.
+ * Resolvers not requested for as long as the expiration time are evicted.
+ * In either case, concurrent requests for the same service wait for a single load.
+ * Resolvers may also be warmed from snapshots of validated metadata, which are then replaced in the background
+ * by resolvers loaded from the metadata source.
  *
  * @author Misagh Moayyed
  * @since 5.0.0
@@ -26,12 +45,66 @@ public class DefaultSamlRegisteredServiceCachingMetadataResolver implements Saml
 
     private final LoadingCache<SamlRegisteredService, ChainingMetadataResolver> cache;
 
+    private final MetricRegistry metricRegistry;
+
+    private final Executor refreshExecutor;
+
     public DefaultSamlRegisteredServiceCachingMetadataResolver(final long metadataCacheExpirationMinutes,
                                                                final ChainingMetadataResolverCacheLoader chainingMetadataResolverCacheLoader) {
         this.metadataCacheExpirationMinutes = metadataCacheExpirationMinutes;
         this.chainingMetadataResolverCacheLoader = chainingMetadataResolverCacheLoader;
+        this.metricRegistry = null;
+        this.refreshExecutor = null;
         this.cache = CacheBuilder.newBuilder().maximumSize(1)
-                .expireAfterWrite(this.metadataCacheExpirationMinutes, TimeUnit.MINUTES).build(this.chainingMetadataResolverCacheLoader);
+                .expireAfterWrite(this.metadataCacheExpirationMinutes, TimeUnit.MINUTES)
+                .removalListener(newRemovalListener())
+                .build(this.chainingMetadataResolverCacheLoader);
+    }
+
+    /**
+     * Instantiates a new resolver that refreshes cached resolvers in the background.
+     *
+     * @param metadataCacheExpirationMinutes     the time after which cached resolvers are refreshed
+     * @param maximumSize                        the maximum number of cached resolvers
+     * @param chainingMetadataResolverCacheLoader the loader building resolvers
+     * @param refreshExecutor                    the executor running refreshes
+     * @param metricRegistry                     the metric registry recording load times and failures, if any
+     */
+    public DefaultSamlRegisteredServiceCachingMetadataResolver(final long metadataCacheExpirationMinutes,
+                                                               final long maximumSize,
+                                                               final ChainingMetadataResolverCacheLoader chainingMetadataResolverCacheLoader,
+                                                               final Executor refreshExecutor,
+                                                               final MetricRegistry metricRegistry) {
+        this(metadataCacheExpirationMinutes, maximumSize, chainingMetadataResolverCacheLoader, refreshExecutor, metricRegistry,
+                Ticker.systemTicker());
+    }
+
+    /**
+     * Instantiates a new resolver that refreshes cached resolvers in the background, reading time from the given ticker.
+     *
+     * @param metadataCacheExpirationMinutes     the time after which cached resolvers are refreshed
+     * @param maximumSize                        the maximum number of cached resolvers
+     * @param chainingMetadataResolverCacheLoader the loader building resolvers
+     * @param refreshExecutor                    the executor running refreshes
+     * @param metricRegistry                     the metric registry recording load times and failures, if any
+     * @param ticker                             the time source of the cache
+     */
+    DefaultSamlRegisteredServiceCachingMetadataResolver(final long metadataCacheExpirationMinutes,
+                                                        final long maximumSize,
+                                                        final ChainingMetadataResolverCacheLoader chainingMetadataResolverCacheLoader,
+                                                        final Executor refreshExecutor,
+                                                        final MetricRegistry metricRegistry,
+                                                        final Ticker ticker) {
+        this.metadataCacheExpirationMinutes = metadataCacheExpirationMinutes;
+        this.chainingMetadataResolverCacheLoader = chainingMetadataResolverCacheLoader;
+        this.metricRegistry = metricRegistry;
+        this.refreshExecutor = refreshExecutor;
+        this.cache = CacheBuilder.newBuilder().maximumSize(maximumSize)
+                .ticker(ticker)
+                .refreshAfterWrite(this.metadataCacheExpirationMinutes, TimeUnit.MINUTES)
+                .expireAfterAccess(this.metadataCacheExpirationMinutes, TimeUnit.MINUTES)
+                .removalListener(newRemovalListener())
+                .build(new RefreshingCacheLoader(refreshExecutor));
     }
 
     @Override
@@ -54,6 +127,34 @@ public class DefaultSamlRegisteredServiceCachingMetadataResolver implements Saml
         }
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Since a resolver loaded from a snapshot never refreshes its metadata, it is only served until a resolver
+     * has been loaded from the metadata source in the background; should that fail, the snapshot keeps being served
+     * until the next refresh. Resolvers are only warmed when they are refreshed in the background.
+     */
+    @Override
+    public boolean warm(final SamlRegisteredService service) {
+        if (this.refreshExecutor == null || this.cache.getIfPresent(service) != null) {
+            return false;
+        }
+        final ChainingMetadataResolver resolver = this.chainingMetadataResolverCacheLoader.loadFromSnapshot(service);
+        if (resolver == null) {
+            return false;
+        }
+        if (this.cache.asMap().putIfAbsent(service, resolver) != null) {
+            this.chainingMetadataResolverCacheLoader.release(service, resolver);
+            return false;
+        }
+        this.refreshExecutor.execute(() -> {
+            LOGGER.debug("Replacing metadata of [{}] warmed from a snapshot with metadata loaded from [{}]",
+                    service.getName(), service.getMetadataLocation());
+            this.cache.refresh(service);
+        });
+        return true;
+    }
+
     public void setChainingMetadataResolverCacheLoader(final ChainingMetadataResolverCacheLoader chainingMetadataResolverCacheLoader) {
         this.chainingMetadataResolverCacheLoader = chainingMetadataResolverCacheLoader;
     }
@@ -61,4 +162,56 @@ public class DefaultSamlRegisteredServiceCachingMetadataResolver implements Saml
     public void setMetadataCacheExpirationMinutes(final long metadataCacheExpirationMinutes) {
         this.metadataCacheExpirationMinutes = metadataCacheExpirationMinutes;
     }
+
+    private RemovalListener<SamlRegisteredService, ChainingMetadataResolver> newRemovalListener() {
+        return notification -> this.chainingMetadataResolverCacheLoader.release(notification.getKey(), notification.getValue());
+    }
+
+    /**
+     * Loader that builds resolvers with the chaining loader, refreshing them on the given executor
+     * and recording how long loads take and how often they fail.
+     */
+    private class RefreshingCacheLoader extends CacheLoader<SamlRegisteredService, ChainingMetadataResolver> {
+        private final Executor refreshExecutor;
+
+        RefreshingCacheLoader(final Executor refreshExecutor) {
+            this.refreshExecutor = refreshExecutor;
+        }
+
+        @Override
+        public ChainingMetadataResolver load(final SamlRegisteredService service) throws Exception {
+            return loadAndRecord(service, "load", () -> chainingMetadataResolverCacheLoader.load(service));
+        }
+
+        @Override
+        public ListenableFuture<ChainingMetadataResolver> reload(final SamlRegisteredService service,
+                                                                 final ChainingMetadataResolver oldValue) {
+            LOGGER.debug("Refreshing metadata for [{}] from [{}] in the background", service.getName(), service.getMetadataLocation());
+            final long maxAge = TimeUnit.MINUTES.toMillis(metadataCacheExpirationMinutes);
+            final ListenableFutureTask<ChainingMetadataResolver> task = ListenableFutureTask.create(() -> loadAndRecord(service, "refresh",
+                    () -> chainingMetadataResolverCacheLoader.refresh(service, maxAge)));
+            this.refreshExecutor.execute(task);
+            return task;
+        }
+
+        private ChainingMetadataResolver loadAndRecord(final SamlRegisteredService service, final String operation,
+                                                       final Callable<ChainingMetadataResolver> loader) throws Exception {
+            final Timer.Context context = metricRegistry == null ? null
+                    : metricRegistry.timer(MetricRegistry.name(SamlRegisteredServiceCachingMetadataResolver.class, operation)).time();
+            try {
+                return loader.call();
+            } catch (final Exception e) {
+                LOGGER.warn("Failed to [{}] metadata for [{}] from [{}]: [{}]", operation, service.getName(),
+                        service.getMetadataLocation(), e.getMessage());
+                if (metricRegistry != null) {
+                    metricRegistry.counter(MetricRegistry.name(SamlRegisteredServiceCachingMetadataResolver.class, operation, "failures")).inc();
+                }
+                throw e;
+            } finally {
+                if (context != null) {
+                    context.stop();
+                }
+            }
+        }
+    }
 }
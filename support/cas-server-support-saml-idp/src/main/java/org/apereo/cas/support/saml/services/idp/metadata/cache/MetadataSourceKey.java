@@ -0,0 +1,90 @@
+package org.apereo.cas.support.saml.services.idp.metadata.cache;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+import org.apereo.cas.support.saml.services.SamlRegisteredService;
+import org.apereo.cas.util.DigestUtils;
+
+import java.util.Objects;
+
+/**
+ * This is {@link MetadataSourceKey}, which identifies the metadata of a SAML service
+ * by its location along with the settings of the filters applied to it.
+ *
+ * @author Misagh Moayyed
+ * @since 5.2.0
+ */
+class MetadataSourceKey {
+    private final String metadataLocation;
+    private final String metadataSignatureLocation;
+    private final long metadataMaxValidity;
+    private final String metadataCriteriaDirection;
+    private final String metadataCriteriaPattern;
+    private final String metadataCriteriaRoles;
+    private final boolean metadataCriteriaRemoveEmptyEntitiesDescriptors;
+    private final boolean metadataCriteriaRemoveRolelessEntityDescriptors;
+
+    MetadataSourceKey(final SamlRegisteredService service) {
+        this.metadataLocation = service.getMetadataLocation();
+        this.metadataSignatureLocation = service.getMetadataSignatureLocation();
+        this.metadataMaxValidity = service.getMetadataMaxValidity();
+        this.metadataCriteriaDirection = service.getMetadataCriteriaDirection();
+        this.metadataCriteriaPattern = service.getMetadataCriteriaPattern();
+        this.metadataCriteriaRoles = service.getMetadataCriteriaRoles();
+        this.metadataCriteriaRemoveEmptyEntitiesDescriptors = service.isMetadataCriteriaRemoveEmptyEntitiesDescriptors();
+        this.metadataCriteriaRemoveRolelessEntityDescriptors = service.isMetadataCriteriaRemoveRolelessEntityDescriptors();
+    }
+
+    public String getMetadataLocation() {
+        return this.metadataLocation;
+    }
+
+    /**
+     * Gets a digest of the key, stable across restarts.
+     *
+     * @return the hex encoded digest
+     */
+    public String getDigest() {
+        return DigestUtils.sha256(toString());
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof MetadataSourceKey)) {
+            return false;
+        }
+        final MetadataSourceKey other = (MetadataSourceKey) obj;
+        return this.metadataMaxValidity == other.metadataMaxValidity
+                && this.metadataCriteriaRemoveEmptyEntitiesDescriptors == other.metadataCriteriaRemoveEmptyEntitiesDescriptors
+                && this.metadataCriteriaRemoveRolelessEntityDescriptors == other.metadataCriteriaRemoveRolelessEntityDescriptors
+                && Objects.equals(this.metadataLocation, other.metadataLocation)
+                && Objects.equals(this.metadataSignatureLocation, other.metadataSignatureLocation)
+                && Objects.equals(this.metadataCriteriaDirection, other.metadataCriteriaDirection)
+                && Objects.equals(this.metadataCriteriaPattern, other.metadataCriteriaPattern)
+                && Objects.equals(this.metadataCriteriaRoles, other.metadataCriteriaRoles);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.metadataLocation, this.metadataSignatureLocation, this.metadataMaxValidity,
+                this.metadataCriteriaDirection, this.metadataCriteriaPattern, this.metadataCriteriaRoles,
+                this.metadataCriteriaRemoveEmptyEntitiesDescriptors, this.metadataCriteriaRemoveRolelessEntityDescriptors);
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
+                .append("metadataLocation", this.metadataLocation)
+                .append("metadataSignatureLocation", this.metadataSignatureLocation)
+                .append("metadataMaxValidity", this.metadataMaxValidity)
+                .append("metadataCriteriaDirection", this.metadataCriteriaDirection)
+                .append("metadataCriteriaPattern", this.metadataCriteriaPattern)
+                .append("metadataCriteriaRoles", this.metadataCriteriaRoles)
+                .append("metadataCriteriaRemoveEmptyEntitiesDescriptors", this.metadataCriteriaRemoveEmptyEntitiesDescriptors)
+                .append("metadataCriteriaRemoveRolelessEntityDescriptors", this.metadataCriteriaRemoveRolelessEntityDescriptors)
+                .toString();
+    }
+}
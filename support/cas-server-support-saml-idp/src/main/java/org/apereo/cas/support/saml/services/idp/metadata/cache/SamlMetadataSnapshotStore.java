@@ -0,0 +1,229 @@
+package org.apereo.cas.support.saml.services.idp.metadata.cache;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apereo.cas.support.saml.services.SamlRegisteredService;
+import org.apereo.cas.util.EncodingUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * This is {@link SamlMetadataSnapshotStore}, which keeps on disk a snapshot of the metadata of each
+ * metadata source once it has been validated and filtered, so that the metadata of SAML services can be
+ * made available at startup without downloading and validating it again.
+ * <p>
+ * Snapshots are compressed binary files named after the metadata location and filter settings of the source.
+ * Along with the metadata, a snapshot records when the metadata was validated and the time until which the
+ * metadata declares itself valid. Snapshots whose metadata is no longer valid are ignored.
+ * <p>
+ * Since the metadata of a snapshot is not validated again, each snapshot is signed with an HMAC
+ * and snapshots whose signature does not match are ignored. When no signing key is given, a key is
+ * generated, so that snapshots saved with another key are never trusted.
+ *
+ * @author Misagh Moayyed
+ * @since 5.2.0
+ */
+public class SamlMetadataSnapshotStore {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SamlMetadataSnapshotStore.class);
+
+    private static final int VERSION = 3;
+    private static final long NO_VALID_UNTIL = -1;
+    private static final String EXTENSION = ".snapshot";
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+    private static final int MAC_LENGTH_IN_BYTES = 32;
+    private static final int SIGNING_KEY_SIZE = 512;
+
+    private final File directory;
+    private final SecretKeySpec signingKey;
+
+    public SamlMetadataSnapshotStore(final File directory, final String signingKey) {
+        this.directory = directory;
+        String signingKeyToUse = signingKey;
+        if (StringUtils.isBlank(signingKeyToUse)) {
+            LOGGER.warn("Signing key for metadata snapshots is not defined under [cas.authn.samlIdp.metadata.snapshotSigningKey]. "
+                    + "CAS will generate a key, and snapshots saved before CAS restarts will be ignored");
+            signingKeyToUse = EncodingUtils.generateJsonWebKey(SIGNING_KEY_SIZE);
+        }
+        this.signingKey = new SecretKeySpec(signingKeyToUse.getBytes(StandardCharsets.UTF_8), MAC_ALGORITHM);
+    }
+
+    /**
+     * Save the metadata of the service, replacing any previous snapshot of the same source.
+     *
+     * @param service    the service
+     * @param metadata   the validated and filtered metadata
+     * @param validUntil the time until which the metadata is valid, if any
+     */
+    public void save(final SamlRegisteredService service, final byte[] metadata, final ZonedDateTime validUntil) {
+        write(service, new Snapshot(service.getMetadataLocation(), ZonedDateTime.now(ZoneOffset.UTC), validUntil, metadata));
+    }
+
+    /**
+     * Gets the snapshot of the metadata of the service.
+     *
+     * @param service the service
+     * @return the snapshot, or null if there is none or its metadata is no longer valid
+     */
+    public Snapshot load(final SamlRegisteredService service) {
+        final File file = getFile(service);
+        if (!file.isFile()) {
+            return null;
+        }
+        try (InputStream stream = new GZIPInputStream(Files.newInputStream(file.toPath()))) {
+            final byte[] content = IOUtils.toByteArray(stream);
+            if (content.length < MAC_LENGTH_IN_BYTES) {
+                LOGGER.warn("Ignoring metadata snapshot [{}] that is truncated", file);
+                return null;
+            }
+            final byte[] payload = Arrays.copyOf(content, content.length - MAC_LENGTH_IN_BYTES);
+            final byte[] signature = Arrays.copyOfRange(content, payload.length, content.length);
+            if (!MessageDigest.isEqual(sign(payload), signature)) {
+                LOGGER.warn("Ignoring metadata snapshot [{}] whose signature does not match", file);
+                return null;
+            }
+            final DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+            if (in.readInt() != VERSION) {
+                LOGGER.debug("Ignoring metadata snapshot [{}] written in another format", file);
+                return null;
+            }
+            final String location = in.readUTF();
+            final ZonedDateTime validatedAt = toDateTime(in.readLong());
+            final long validUntil = in.readLong();
+            final byte[] metadata = new byte[in.readInt()];
+            in.readFully(metadata);
+
+            if (!StringUtils.equals(location, service.getMetadataLocation())) {
+                LOGGER.debug("Ignoring metadata snapshot [{}] of [{}]", file, location);
+                return null;
+            }
+            if (validUntil != NO_VALID_UNTIL && validUntil <= System.currentTimeMillis()) {
+                LOGGER.info("Ignoring metadata snapshot of [{}] that is no longer valid", location);
+                return null;
+            }
+            return new Snapshot(location, validatedAt, validUntil == NO_VALID_UNTIL ? null : toDateTime(validUntil), metadata);
+        } catch (final Exception e) {
+            LOGGER.warn("Unable to read metadata snapshot [{}]: [{}]", file, e.getMessage());
+            return null;
+        }
+    }
+
+    private void write(final SamlRegisteredService service, final Snapshot snapshot) {
+        final File file = getFile(service);
+        Path temp = null;
+        try {
+            Files.createDirectories(this.directory.toPath());
+            temp = Files.createTempFile(this.directory.toPath(), file.getName(), ".tmp");
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                write(snapshot, out);
+            }
+            Files.move(temp, file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            LOGGER.debug("Saved metadata snapshot of [{}] to [{}]", snapshot.getMetadataLocation(), file);
+        } catch (final Exception e) {
+            LOGGER.warn("Unable to save metadata snapshot of [{}] to [{}]: [{}]", snapshot.getMetadataLocation(), file, e.getMessage());
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (final IOException ex) {
+                    LOGGER.trace(ex.getMessage(), ex);
+                }
+            }
+        }
+    }
+
+    private void write(final Snapshot snapshot, final OutputStream stream) throws IOException, GeneralSecurityException {
+        final ByteArrayOutputStream payload = new ByteArrayOutputStream(snapshot.getMetadata().length + MAC_LENGTH_IN_BYTES * 2);
+        final DataOutputStream out = new DataOutputStream(payload);
+        out.writeInt(VERSION);
+        out.writeUTF(snapshot.getMetadataLocation());
+        out.writeLong(snapshot.getValidatedAt().toInstant().toEpochMilli());
+        out.writeLong(snapshot.getValidUntil() == null ? NO_VALID_UNTIL : snapshot.getValidUntil().toInstant().toEpochMilli());
+        out.writeInt(snapshot.getMetadata().length);
+        out.write(snapshot.getMetadata());
+        out.flush();
+
+        final GZIPOutputStream gzip = new GZIPOutputStream(stream);
+        payload.writeTo(gzip);
+        gzip.write(sign(payload.toByteArray()));
+        gzip.finish();
+    }
+
+    private byte[] sign(final byte[] payload) throws GeneralSecurityException {
+        final Mac mac = Mac.getInstance(MAC_ALGORITHM);
+        mac.init(this.signingKey);
+        return mac.doFinal(payload);
+    }
+
+    private File getFile(final SamlRegisteredService service) {
+        return new File(this.directory, new MetadataSourceKey(service).getDigest() + EXTENSION);
+    }
+
+    private static ZonedDateTime toDateTime(final long millis) {
+        return ZonedDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneOffset.UTC);
+    }
+
+    /**
+     * Snapshot of the metadata of a source.
+     */
+    public static class Snapshot {
+        private final String metadataLocation;
+        private final ZonedDateTime validatedAt;
+        private final ZonedDateTime validUntil;
+        private final byte[] metadata;
+
+        Snapshot(final String metadataLocation, final ZonedDateTime validatedAt, final ZonedDateTime validUntil,
+                 final byte[] metadata) {
+            this.metadataLocation = metadataLocation;
+            this.validatedAt = validatedAt;
+            this.validUntil = validUntil;
+            this.metadata = metadata;
+        }
+
+        public String getMetadataLocation() {
+            return this.metadataLocation;
+        }
+
+        public ZonedDateTime getValidatedAt() {
+            return this.validatedAt;
+        }
+
+        public ZonedDateTime getValidUntil() {
+            return this.validUntil;
+        }
+
+        public byte[] getMetadata() {
+            return this.metadata;
+        }
+
+        /**
+         * Gets the metadata as a stream.
+         *
+         * @return the stream
+         */
+        public InputStream getMetadataStream() {
+            return new ByteArrayInputStream(this.metadata);
+        }
+    }
+}
@@ -21,4 +21,15 @@ public interface SamlRegisteredServiceCachingMetadataResolver {
      * @return the chaining metadata resolver
      */
     ChainingMetadataResolver resolve(SamlRegisteredService service);
+
+    /**
+     * Make metadata of the service available ahead of its first resolution,
+     * from a snapshot of metadata previously validated.
+     *
+     * @param service the service
+     * @return true if metadata was made available
+     */
+    default boolean warm(final SamlRegisteredService service) {
+        return false;
+    }
 }
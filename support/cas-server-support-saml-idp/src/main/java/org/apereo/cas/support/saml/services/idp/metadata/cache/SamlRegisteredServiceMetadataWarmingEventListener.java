@@ -0,0 +1,45 @@
+package org.apereo.cas.support.saml.services.idp.metadata.cache;
+
+import org.apereo.cas.services.ServicesManager;
+import org.apereo.cas.support.saml.services.SamlRegisteredService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+
+/**
+ * This is {@link SamlRegisteredServiceMetadataWarmingEventListener}.
+ * Warms the metadata of SAML services from snapshots once CAS is ready,
+ * so that services can be served without waiting for their metadata to be fetched and validated.
+ *
+ * @author Misagh Moayyed
+ * @since 5.2.0
+ */
+public class SamlRegisteredServiceMetadataWarmingEventListener {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SamlRegisteredServiceMetadataWarmingEventListener.class);
+
+    private final ServicesManager servicesManager;
+    private final SamlRegisteredServiceCachingMetadataResolver cachingMetadataResolver;
+
+    public SamlRegisteredServiceMetadataWarmingEventListener(final ServicesManager servicesManager,
+                                                             final SamlRegisteredServiceCachingMetadataResolver cachingMetadataResolver) {
+        this.servicesManager = servicesManager;
+        this.cachingMetadataResolver = cachingMetadataResolver;
+    }
+
+    /**
+     * Handle application ready event.
+     *
+     * @param event the event
+     */
+    @EventListener
+    public void handleApplicationReadyEvent(final ApplicationReadyEvent event) {
+        final long warmed = this.servicesManager.getAllServices()
+                .stream()
+                .filter(SamlRegisteredService.class::isInstance)
+                .map(SamlRegisteredService.class::cast)
+                .filter(this.cachingMetadataResolver::warm)
+                .count();
+        LOGGER.info("Warmed metadata of [{}] SAML service(s) from snapshots", warmed);
+    }
+}
@@ -0,0 +1,204 @@
+package org.apereo.cas.support.saml.services.idp.metadata.cache;
+
+import net.shibboleth.utilities.java.support.component.ComponentSupport;
+import net.shibboleth.utilities.java.support.resolver.ResolverException;
+import org.apereo.cas.support.saml.services.SamlRegisteredService;
+import org.opensaml.saml.metadata.resolver.MetadataResolver;
+import org.opensaml.saml.metadata.resolver.impl.AbstractReloadingMetadataResolver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Timer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * This is {@link SharedMetadataResolverCache}, which lets SAML services that point at the same
+ * metadata source share the resolvers built for it, so that a large aggregate referenced by many
+ * services is only downloaded, parsed, validated and held in memory once.
+ * <p>
+ * Sources are keyed by their metadata location and the settings of the filters applied to them.
+ * Each source counts the services that use it; a source that is no longer used is destroyed
+ * once it has been left idle for a while, so that a service reloaded in the meantime finds it again.
+ * Resolvers that reload their metadata in the background share a single timer, and swap the
+ * metadata they hold only once a refreshed copy has been fully parsed and filtered. They may also be
+ * refreshed on demand, at most once per period for all the services that share them.
+ *
+ * @author Misagh Moayyed
+ * @since 5.2.0
+ */
+public class SharedMetadataResolverCache implements DisposableBean {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SharedMetadataResolverCache.class);
+
+    private final Map<MetadataSourceKey, Source> sources = new HashMap<>();
+    private final Timer backgroundTaskTimer = new Timer("cas-saml-metadata-refresh", true);
+    private final long idleTimeout;
+
+    /**
+     * Instantiates a new cache.
+     *
+     * @param idleTimeout the time in milliseconds after which a source no longer used is destroyed
+     */
+    public SharedMetadataResolverCache(final long idleTimeout) {
+        this.idleTimeout = idleTimeout;
+    }
+
+    /**
+     * Gets the resolvers of the metadata source of the service, building them with the given loader
+     * if no other service uses that source. Every call must be matched by a call to {@link #release(SamlRegisteredService)}.
+     *
+     * @param service the service
+     * @param loader  the loader building the resolvers of the source
+     * @return the resolvers
+     * @throws Exception if the resolvers could not be built
+     */
+    public List<MetadataResolver> acquire(final SamlRegisteredService service,
+                                          final Callable<List<MetadataResolver>> loader) throws Exception {
+        final MetadataSourceKey key = new MetadataSourceKey(service);
+        final Source source;
+        final boolean owner;
+        synchronized (this) {
+            destroyIdleSources();
+            final Source existing = this.sources.get(key);
+            owner = existing == null;
+            source = owner ? new Source() : existing;
+            if (owner) {
+                this.sources.put(key, source);
+            }
+            source.references++;
+        }
+
+        if (owner) {
+            LOGGER.debug("Building metadata resolvers for [{}]", service.getMetadataLocation());
+            try {
+                source.resolvers.complete(loader.call());
+            } catch (final Exception e) {
+                synchronized (this) {
+                    this.sources.remove(key, source);
+                }
+                source.resolvers.completeExceptionally(e);
+                throw e;
+            }
+        } else {
+            LOGGER.debug("Sharing metadata resolvers for [{}] with [{}] other service(s)", service.getMetadataLocation(), source.references - 1);
+        }
+        try {
+            return source.resolvers.get();
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Signal that the service no longer uses the resolvers of its metadata source.
+     *
+     * @param service the service
+     */
+    public synchronized void release(final SamlRegisteredService service) {
+        final Source source = this.sources.get(new MetadataSourceKey(service));
+        if (source != null && source.references > 0) {
+            source.references--;
+            if (source.references == 0) {
+                source.idleSince = System.currentTimeMillis();
+            }
+        }
+        destroyIdleSources();
+    }
+
+    /**
+     * Refresh the resolvers of the metadata source of the service that reload their metadata,
+     * unless the source was built or refreshed less than the given time ago. Every service that shares
+     * the source sees the refreshed metadata. Resolvers that fail to refresh keep their previous metadata.
+     *
+     * @param service the service
+     * @param maxAge  the time in milliseconds after which the source is refreshed
+     * @throws ResolverException if a resolver could not be refreshed
+     */
+    public void refresh(final SamlRegisteredService service, final long maxAge) throws ResolverException {
+        final Source source;
+        synchronized (this) {
+            source = this.sources.get(new MetadataSourceKey(service));
+        }
+        final List<MetadataResolver> resolvers = source == null ? null : source.resolvers.getNow(null);
+        if (resolvers == null) {
+            return;
+        }
+        synchronized (source) {
+            if (System.currentTimeMillis() - source.refreshedAt < maxAge) {
+                LOGGER.debug("Metadata resolvers for [{}] were refreshed recently", service.getMetadataLocation());
+                return;
+            }
+            LOGGER.debug("Refreshing metadata resolvers for [{}]", service.getMetadataLocation());
+            for (final MetadataResolver resolver : resolvers) {
+                if (resolver instanceof AbstractReloadingMetadataResolver) {
+                    ((AbstractReloadingMetadataResolver) resolver).refresh();
+                }
+            }
+            source.refreshedAt = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Gets the timer used by resolvers to reload metadata in the background.
+     *
+     * @return the timer
+     */
+    public Timer getBackgroundTaskTimer() {
+        return this.backgroundTaskTimer;
+    }
+
+    /**
+     * Gets the number of metadata sources held.
+     *
+     * @return the number of sources
+     */
+    public synchronized int getSourceCount() {
+        return this.sources.size();
+    }
+
+    @Override
+    public synchronized void destroy() {
+        this.sources.values().forEach(SharedMetadataResolverCache::destroy);
+        this.sources.clear();
+        this.backgroundTaskTimer.cancel();
+    }
+
+    private void destroyIdleSources() {
+        final long now = System.currentTimeMillis();
+        final Iterator<Source> it = this.sources.values().iterator();
+        while (it.hasNext()) {
+            final Source source = it.next();
+            if (source.references == 0 && now - source.idleSince >= this.idleTimeout) {
+                it.remove();
+                destroy(source);
+            }
+        }
+    }
+
+    private static void destroy(final Source source) {
+        final List<MetadataResolver> resolvers = source.resolvers.getNow(null);
+        if (resolvers != null) {
+            LOGGER.debug("Destroying [{}] metadata resolver(s) no longer in use", resolvers.size());
+            resolvers.forEach(ComponentSupport::destroy);
+        }
+    }
+
+    /**
+     * Resolvers built for a metadata source, and the number of services using them.
+     */
+    private static class Source {
+        private final CompletableFuture<List<MetadataResolver>> resolvers = new CompletableFuture<>();
+        private int references;
+        private long idleSince;
+        private long refreshedAt = System.currentTimeMillis();
+    }
+}
@@ -3,6 +3,9 @@ package org.apereo.cas;
 import org.apereo.cas.support.saml.SamlAttributeEncoderTests;
 import org.apereo.cas.support.saml.SamlIdPConfigurationTests;
 import org.apereo.cas.support.saml.SamlRegisteredServiceTests;
+import org.apereo.cas.support.saml.services.idp.metadata.cache.DefaultSamlRegisteredServiceCachingMetadataResolverTests;
+import org.apereo.cas.support.saml.services.idp.metadata.cache.SamlMetadataSnapshotStoreTests;
+import org.apereo.cas.support.saml.services.idp.metadata.cache.SharedMetadataResolverCacheTests;
 import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 
@@ -15,7 +18,8 @@ import org.junit.runners.Suite;
 @RunWith(Suite.class)
 @Suite.SuiteClasses({
         SamlRegisteredServiceTests.class, SamlIdPConfigurationTests.class,
-        SamlAttributeEncoderTests.class
+        SamlAttributeEncoderTests.class, SharedMetadataResolverCacheTests.class,
+        DefaultSamlRegisteredServiceCachingMetadataResolverTests.class, SamlMetadataSnapshotStoreTests.class
 })
 public class AllTestsSuite {
 }
@@ -0,0 +1,172 @@
+package org.apereo.cas.support.saml.services.idp.metadata.cache;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.base.Ticker;
+import org.apereo.cas.support.saml.services.SamlRegisteredService;
+import org.junit.Test;
+import org.opensaml.saml.metadata.resolver.ChainingMetadataResolver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * This is {@link DefaultSamlRegisteredServiceCachingMetadataResolverTests}.
+ *
+ * @author Misagh Moayyed
+ * @since 5.2.0
+ */
+public class DefaultSamlRegisteredServiceCachingMetadataResolverTests {
+
+    @Test
+    public void verifyConcurrentRequestsShareSingleLoad() throws Exception {
+        final AtomicInteger loads = new AtomicInteger();
+        final CountDownLatch release = new CountDownLatch(1);
+        final ChainingMetadataResolverCacheLoader loader = new ChainingMetadataResolverCacheLoader(null, null) {
+            @Override
+            public ChainingMetadataResolver load(final SamlRegisteredService service) throws Exception {
+                loads.incrementAndGet();
+                release.await(5, TimeUnit.SECONDS);
+                return new ChainingMetadataResolver();
+            }
+        };
+        final DefaultSamlRegisteredServiceCachingMetadataResolver resolver =
+                new DefaultSamlRegisteredServiceCachingMetadataResolver(30, 100, loader, Runnable::run, null);
+        final SamlRegisteredService service = newService();
+
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<ChainingMetadataResolver>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                results.add(executor.submit(() -> resolver.resolve(service)));
+            }
+            Thread.sleep(100);
+            release.countDown();
+            final ChainingMetadataResolver first = results.get(0).get();
+            for (final Future<ChainingMetadataResolver> result : results) {
+                assertSame(first, result.get());
+            }
+            assertEquals(1, loads.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void verifyLoadFailuresAreRecorded() throws Exception {
+        final ChainingMetadataResolverCacheLoader loader = mock(ChainingMetadataResolverCacheLoader.class);
+        when(loader.load(any(SamlRegisteredService.class))).thenThrow(new IllegalStateException("Metadata cannot be loaded"));
+        final MetricRegistry metrics = new MetricRegistry();
+        final DefaultSamlRegisteredServiceCachingMetadataResolver resolver =
+                new DefaultSamlRegisteredServiceCachingMetadataResolver(30, 100, loader, Runnable::run, metrics);
+        try {
+            resolver.resolve(newService());
+            fail("Expected metadata resolution to fail");
+        } catch (final IllegalArgumentException e) {
+            assertEquals(1, metrics.getCounters().values().iterator().next().getCount());
+            assertEquals(1, metrics.getTimers().values().iterator().next().getCount());
+        }
+    }
+
+    @Test
+    public void verifyExpiredResolverIsServedWhileRefreshing() throws Exception {
+        final AtomicInteger loads = new AtomicInteger();
+        final CountDownLatch refreshing = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final ChainingMetadataResolverCacheLoader loader = new ChainingMetadataResolverCacheLoader(null, null) {
+            @Override
+            public ChainingMetadataResolver load(final SamlRegisteredService service) throws Exception {
+                if (loads.incrementAndGet() > 1) {
+                    refreshing.countDown();
+                    release.await(5, TimeUnit.SECONDS);
+                }
+                return new ChainingMetadataResolver();
+            }
+        };
+        final ManualTicker ticker = new ManualTicker();
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final DefaultSamlRegisteredServiceCachingMetadataResolver resolver =
+                    new DefaultSamlRegisteredServiceCachingMetadataResolver(30, 100, loader, executor, null, ticker);
+            final SamlRegisteredService service = newService();
+            final ChainingMetadataResolver first = resolver.resolve(service);
+
+            ticker.advance(20);
+            assertSame(first, resolver.resolve(service));
+            ticker.advance(11);
+            assertSame(first, resolver.resolve(service));
+            assertTrue(refreshing.await(5, TimeUnit.SECONDS));
+            assertSame(first, resolver.resolve(service));
+
+            release.countDown();
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+            assertNotSame(first, resolver.resolve(service));
+            assertEquals(2, loads.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void verifyFailedRefreshKeepsPreviousResolver() throws Exception {
+        final AtomicInteger loads = new AtomicInteger();
+        final ChainingMetadataResolverCacheLoader loader = new ChainingMetadataResolverCacheLoader(null, null) {
+            @Override
+            public ChainingMetadataResolver load(final SamlRegisteredService service) throws Exception {
+                if (loads.incrementAndGet() > 1) {
+                    throw new IllegalStateException("Metadata cannot be reloaded");
+                }
+                return new ChainingMetadataResolver();
+            }
+        };
+        final ManualTicker ticker = new ManualTicker();
+        final MetricRegistry metrics = new MetricRegistry();
+        final DefaultSamlRegisteredServiceCachingMetadataResolver resolver =
+                new DefaultSamlRegisteredServiceCachingMetadataResolver(30, 100, loader, Runnable::run, metrics, ticker);
+        final SamlRegisteredService service = newService();
+        final ChainingMetadataResolver first = resolver.resolve(service);
+
+        ticker.advance(20);
+        resolver.resolve(service);
+        ticker.advance(11);
+        assertSame(first, resolver.resolve(service));
+        assertEquals(2, loads.get());
+        assertEquals(1, metrics.counter(MetricRegistry.name(SamlRegisteredServiceCachingMetadataResolver.class, "refresh", "failures"))
+                .getCount());
+        assertSame(first, resolver.resolve(service));
+    }
+
+    private static SamlRegisteredService newService() {
+        final SamlRegisteredService service = new SamlRegisteredService();
+        service.setName("SAMLService");
+        service.setServiceId("https://sp.example.org");
+        service.setMetadataLocation("classpath:/metadata/idp-metadata.xml");
+        return service;
+    }
+
+    /**
+     * Ticker whose time only moves when told to.
+     */
+    private static class ManualTicker extends Ticker {
+        private final AtomicLong nanos = new AtomicLong();
+
+        @Override
+        public long read() {
+            return this.nanos.get();
+        }
+
+        void advance(final long minutes) {
+            this.nanos.addAndGet(TimeUnit.MINUTES.toNanos(minutes));
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package org.apereo.cas.support.saml.services.idp.metadata.cache;
+
+import org.apache.commons.io.IOUtils;
+import org.apereo.cas.support.saml.services.SamlRegisteredService;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * This is {@link SamlMetadataSnapshotStoreTests}.
+ *
+ * @author Misagh Moayyed
+ * @since 5.2.0
+ */
+public class SamlMetadataSnapshotStoreTests {
+    private static final String METADATA_LOCATION = "https://md.example.org/aggregate.xml";
+    private static final byte[] METADATA = "<EntitiesDescriptor/>".getBytes(StandardCharsets.UTF_8);
+    private static final String SIGNING_KEY = "0CJ6YgcYxV0V3wCb3nQwVhrBYzNv0R8IbwC6ZOhq7s8";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File directory;
+
+    private SamlMetadataSnapshotStore store;
+
+    @Before
+    public void setUp() throws Exception {
+        this.directory = this.folder.newFolder("metadata-snapshots");
+        this.store = new SamlMetadataSnapshotStore(this.directory, SIGNING_KEY);
+    }
+
+    @Test
+    public void verifySnapshotIsSavedAndLoaded() {
+        final SamlRegisteredService service = newService("sp1", METADATA_LOCATION);
+        assertNull(this.store.load(service));
+
+        final ZonedDateTime validUntil = ZonedDateTime.now(ZoneOffset.UTC).plusDays(1);
+        this.store.save(service, METADATA, validUntil);
+
+        final SamlMetadataSnapshotStore.Snapshot snapshot = this.store.load(newService("sp2", METADATA_LOCATION));
+        assertNotNull(snapshot);
+        assertArrayEquals(METADATA, snapshot.getMetadata());
+        assertEquals(METADATA_LOCATION, snapshot.getMetadataLocation());
+        assertEquals(validUntil.toInstant().toEpochMilli(), snapshot.getValidUntil().toInstant().toEpochMilli());
+    }
+
+    @Test
+    public void verifyExpiredSnapshotIsIgnored() {
+        final SamlRegisteredService service = newService("sp1", METADATA_LOCATION);
+        this.store.save(service, METADATA, ZonedDateTime.now(ZoneOffset.UTC).minusMinutes(1));
+        assertNull(this.store.load(service));
+
+        this.store.save(service, METADATA, null);
+        assertNotNull(this.store.load(service));
+    }
+
+    @Test
+    public void verifySnapshotsAreKeptPerFilterSettings() {
+        final SamlRegisteredService service = newService("sp1", METADATA_LOCATION);
+        this.store.save(service, METADATA, null);
+
+        final SamlRegisteredService filtered = newService("sp2", METADATA_LOCATION);
+        filtered.setMetadataCriteriaRoles("SPSSODescriptor");
+        assertNull(this.store.load(filtered));
+        assertNull(this.store.load(newService("sp3", "https://md.example.org/other.xml")));
+    }
+
+    @Test
+    public void verifyTamperedSnapshotIsIgnored() throws Exception {
+        final SamlRegisteredService service = newService("sp1", METADATA_LOCATION);
+        this.store.save(service, METADATA, null);
+        final File[] files = this.directory.listFiles();
+        assertNotNull(files);
+        assertEquals(1, files.length);
+
+        final byte[] content;
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(files[0].toPath()))) {
+            content = IOUtils.toByteArray(in);
+        }
+        final String original = new String(METADATA, StandardCharsets.UTF_8);
+        final byte[] tampered = new String(content, StandardCharsets.ISO_8859_1)
+                .replace(original, original.replace("Entities", "Entitiez"))
+                .getBytes(StandardCharsets.ISO_8859_1);
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(files[0].toPath()))) {
+            out.write(tampered);
+        }
+        assertNull(this.store.load(service));
+    }
+
+    @Test
+    public void verifySnapshotSignedWithAnotherKeyIsIgnored() {
+        final SamlRegisteredService service = newService("sp1", METADATA_LOCATION);
+        this.store.save(service, METADATA, null);
+        assertNotNull(new SamlMetadataSnapshotStore(this.directory, SIGNING_KEY).load(service));
+        assertNull(new SamlMetadataSnapshotStore(this.directory, null).load(service));
+    }
+
+    private static SamlRegisteredService newService(final String name, final String metadataLocation) {
+        final SamlRegisteredService service = new SamlRegisteredService();
+        service.setName(name);
+        service.setServiceId("https://" + name + ".example.org");
+        service.setMetadataLocation(metadataLocation);
+        return service;
+    }
+}
@@ -0,0 +1,111 @@
+package org.apereo.cas.support.saml.services.idp.metadata.cache;
+
+import net.shibboleth.utilities.java.support.component.DestructableComponent;
+import org.apereo.cas.support.saml.services.SamlRegisteredService;
+import org.junit.After;
+import org.junit.Test;
+import org.opensaml.saml.metadata.resolver.MetadataResolver;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * This is {@link SharedMetadataResolverCacheTests}.
+ *
+ * @author Misagh Moayyed
+ * @since 5.2.0
+ */
+public class SharedMetadataResolverCacheTests {
+    private static final String METADATA_LOCATION = "https://md.example.org/aggregate.xml";
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private SharedMetadataResolverCache cache;
+
+    @After
+    public void tearDown() {
+        if (this.cache != null) {
+            this.cache.destroy();
+        }
+    }
+
+    @Test
+    public void verifySourceIsSharedByServices() throws Exception {
+        this.cache = new SharedMetadataResolverCache(60_000);
+        final List<MetadataResolver> first = this.cache.acquire(newService("sp1", METADATA_LOCATION), this::newResolvers);
+        final List<MetadataResolver> second = this.cache.acquire(newService("sp2", METADATA_LOCATION), this::newResolvers);
+        assertSame(first, second);
+        assertEquals(1, this.loads.get());
+        assertEquals(1, this.cache.getSourceCount());
+    }
+
+    @Test
+    public void verifySourcesAreKeyedByFilters() throws Exception {
+        this.cache = new SharedMetadataResolverCache(60_000);
+        final SamlRegisteredService filtered = newService("sp2", METADATA_LOCATION);
+        filtered.setMetadataCriteriaRoles("SPSSODescriptor");
+        this.cache.acquire(newService("sp1", METADATA_LOCATION), this::newResolvers);
+        this.cache.acquire(filtered, this::newResolvers);
+        assertEquals(2, this.loads.get());
+        assertEquals(2, this.cache.getSourceCount());
+    }
+
+    @Test
+    public void verifyUnusedSourceIsDestroyedOnceIdle() throws Exception {
+        this.cache = new SharedMetadataResolverCache(0);
+        final SamlRegisteredService service = newService("sp1", METADATA_LOCATION);
+        final List<MetadataResolver> resolvers = this.cache.acquire(service, this::newResolvers);
+        this.cache.acquire(newService("sp2", METADATA_LOCATION), this::newResolvers);
+
+        this.cache.release(service);
+        assertEquals(1, this.cache.getSourceCount());
+        verify((DestructableComponent) resolvers.get(0), never()).destroy();
+
+        this.cache.release(newService("sp2", METADATA_LOCATION));
+        assertEquals(0, this.cache.getSourceCount());
+        verify((DestructableComponent) resolvers.get(0)).destroy();
+    }
+
+    @Test
+    public void verifyUnusedSourceIsKeptWhileIdle() throws Exception {
+        this.cache = new SharedMetadataResolverCache(60_000);
+        final SamlRegisteredService service = newService("sp1", METADATA_LOCATION);
+        final List<MetadataResolver> resolvers = this.cache.acquire(service, this::newResolvers);
+        this.cache.release(service);
+        assertSame(resolvers, this.cache.acquire(service, this::newResolvers));
+        assertEquals(1, this.loads.get());
+    }
+
+    @Test
+    public void verifyFailedSourceIsNotKept() throws Exception {
+        this.cache = new SharedMetadataResolverCache(60_000);
+        final SamlRegisteredService service = newService("sp1", METADATA_LOCATION);
+        try {
+            this.cache.acquire(service, () -> {
+                throw new IllegalStateException("Metadata cannot be loaded");
+            });
+            fail("Expected failure to load metadata");
+        } catch (final IllegalStateException e) {
+            assertEquals(0, this.cache.getSourceCount());
+        }
+        this.cache.acquire(service, this::newResolvers);
+        assertEquals(1, this.loads.get());
+    }
+
+    private List<MetadataResolver> newResolvers() {
+        this.loads.incrementAndGet();
+        return Collections.singletonList(mock(MetadataResolver.class, withSettings().extraInterfaces(DestructableComponent.class)));
+    }
+
+    private static SamlRegisteredService newService(final String name, final String metadataLocation) {
+        final SamlRegisteredService service = new SamlRegisteredService();
+        service.setName(name);
+        service.setServiceId("https://" + name + ".example.org");
+        service.setMetadataLocation(metadataLocation);
+        return service;
+    }
+}
@@ -0,0 +1,74 @@
+package org.apereo.cas.web.support;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+import com.hazelcast.map.AbstractEntryProcessor;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This is {@link HazelcastThrottledSubmissionCounterStore}. Counters are kept in a distributed map
+ * of the Hazelcast cluster. Existing counters are incremented in place on the member that owns them,
+ * so concurrent increments from any node are never lost. Missing counters are only ever created,
+ * with their time-to-live, by an atomic {@code putIfAbsent}, so no counter is left without an expiration.
+ *
+ * @author Misagh Moayyed
+ * @since 5.2.0
+ */
+public class HazelcastThrottledSubmissionCounterStore implements ThrottledSubmissionCounterStore {
+
+    /**
+     * Default name of the map that holds the counters.
+     */
+    public static final String DEFAULT_MAP_NAME = "throttledSubmissionsCache";
+
+    private static final IncrementEntryProcessor INCREMENT = new IncrementEntryProcessor();
+
+    private final IMap<String, Long> counters;
+
+    public HazelcastThrottledSubmissionCounterStore(final HazelcastInstance hazelcastInstance) {
+        this(hazelcastInstance, DEFAULT_MAP_NAME);
+    }
+
+    public HazelcastThrottledSubmissionCounterStore(final HazelcastInstance hazelcastInstance, final String mapName) {
+        this.counters = hazelcastInstance.getMap(mapName);
+    }
+
+    @Override
+    public long incrementAndGet(final String key, final long timeToLiveInMillis) {
+        while (true) {
+            final Long value = (Long) this.counters.executeOnKey(key, INCREMENT);
+            if (value != null) {
+                return value;
+            }
+            if (this.counters.putIfAbsent(key, 1L, timeToLiveInMillis, TimeUnit.MILLISECONDS) == null) {
+                return 1;
+            }
+        }
+    }
+
+    @Override
+    public long get(final String key) {
+        final Long value = this.counters.get(key);
+        return value == null ? 0 : value;
+    }
+
+    /**
+     * Increments an existing counter, keeping the time-to-live it was created with.
+     * Missing counters are left alone, since the processor cannot give them a time-to-live.
+     */
+    private static class IncrementEntryProcessor extends AbstractEntryProcessor<String, Long> {
+        private static final long serialVersionUID = -2473658744286578537L;
+
+        @Override
+        public Object process(final Map.Entry<String, Long> entry) {
+            if (entry.getValue() == null) {
+                return null;
+            }
+            final long value = entry.getValue() + 1;
+            entry.setValue(value);
+            return value;
+        }
+    }
+}
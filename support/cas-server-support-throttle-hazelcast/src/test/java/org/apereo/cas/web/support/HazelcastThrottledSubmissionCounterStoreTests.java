@@ -0,0 +1,89 @@
+package org.apereo.cas.web.support;
+
+import com.hazelcast.config.Config;
+import com.hazelcast.config.JoinConfig;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+/**
+ * This is {@link HazelcastThrottledSubmissionCounterStoreTests}.
+ *
+ * @author Misagh Moayyed
+ * @since 5.2.0
+ */
+public class HazelcastThrottledSubmissionCounterStoreTests {
+    private static final long WINDOW = 60_000;
+    private static final int THREADS = 8;
+    private static final int INCREMENTS_PER_THREAD = 100;
+
+    private static HazelcastInstance HAZELCAST;
+
+    private final HazelcastThrottledSubmissionCounterStore store = new HazelcastThrottledSubmissionCounterStore(HAZELCAST);
+
+    @BeforeClass
+    public static void startHazelcast() {
+        final Config config = new Config();
+        config.setInstanceName("throttledSubmissionCounterStore");
+        final JoinConfig join = config.getNetworkConfig().getJoin();
+        join.getMulticastConfig().setEnabled(false);
+        join.getTcpIpConfig().setEnabled(false);
+        HAZELCAST = Hazelcast.newHazelcastInstance(config);
+    }
+
+    @AfterClass
+    public static void stopHazelcast() {
+        HAZELCAST.shutdown();
+    }
+
+    @Test
+    public void verifyCountersAreIncremented() {
+        assertEquals(1, this.store.incrementAndGet("1.2.3.4;casuser", WINDOW));
+        assertEquals(2, this.store.incrementAndGet("1.2.3.4;casuser", WINDOW));
+        assertEquals(2, this.store.get("1.2.3.4;casuser"));
+        assertEquals(0, this.store.get("1.2.3.4;other"));
+    }
+
+    @Test
+    public void verifyCountersExpire() throws Exception {
+        assertEquals(1, this.store.incrementAndGet("1.2.3.4;expiring", 1000));
+        assertEquals(2, this.store.incrementAndGet("1.2.3.4;expiring", 1000));
+        Thread.sleep(2500);
+        assertEquals(0, this.store.get("1.2.3.4;expiring"));
+        assertEquals(1, this.store.incrementAndGet("1.2.3.4;expiring", 1000));
+        Thread.sleep(2500);
+        assertEquals(0, this.store.get("1.2.3.4;expiring"));
+    }
+
+    @Test
+    public void verifyConcurrentIncrementsAreNotLost() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            final List<Future<?>> results = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                results.add(executor.submit(() -> {
+                    for (int i = 0; i < INCREMENTS_PER_THREAD; i++) {
+                        this.store.incrementAndGet("1.2.3.4;concurrent", WINDOW);
+                    }
+                    return null;
+                }));
+            }
+            for (final Future<?> result : results) {
+                result.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(THREADS * INCREMENTS_PER_THREAD, this.store.get("1.2.3.4;concurrent"));
+    }
+}
@@ -0,0 +1,53 @@
+package org.apereo.cas.web.support;
+
+import org.apache.commons.lang3.math.NumberUtils;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.Collections;
+
+/**
+ * This is {@link RedisThrottledSubmissionCounterStore}. Counters are kept as Redis keys that
+ * expire on their own. A counter is incremented and, when created, given its time-to-live by
+ * a single script that Redis runs atomically, so no increment is left without an expiration.
+ *
+ * @author Misagh Moayyed
+ * @since 5.2.0
+ */
+public class RedisThrottledSubmissionCounterStore implements ThrottledSubmissionCounterStore {
+
+    /**
+     * Default prefix of the keys that hold the counters.
+     */
+    public static final String DEFAULT_KEY_PREFIX = "CAS_THROTTLE:";
+
+    private static final RedisScript<Long> INCREMENT_SCRIPT = new DefaultRedisScript<>(
+            "local count = redis.call('INCR', KEYS[1]) "
+                    + "if count == 1 then redis.call('PEXPIRE', KEYS[1], ARGV[1]) end "
+                    + "return count", Long.class);
+
+    private final StringRedisTemplate template;
+    private final String keyPrefix;
+
+    public RedisThrottledSubmissionCounterStore(final StringRedisTemplate template) {
+        this(template, DEFAULT_KEY_PREFIX);
+    }
+
+    public RedisThrottledSubmissionCounterStore(final StringRedisTemplate template, final String keyPrefix) {
+        this.template = template;
+        this.keyPrefix = keyPrefix;
+    }
+
+    @Override
+    public long incrementAndGet(final String key, final long timeToLiveInMillis) {
+        final Long count = this.template.execute(INCREMENT_SCRIPT,
+                Collections.singletonList(this.keyPrefix + key), String.valueOf(timeToLiveInMillis));
+        return count == null ? 0 : count;
+    }
+
+    @Override
+    public long get(final String key) {
+        return NumberUtils.toLong(this.template.opsForValue().get(this.keyPrefix + key));
+    }
+}
@@ -0,0 +1,56 @@
+package org.apereo.cas.web.support.config;
+
+import org.apereo.cas.configuration.CasConfigurationProperties;
+import org.apereo.cas.configuration.model.support.throttle.ThrottleProperties;
+import org.apereo.cas.web.support.DistributedThrottledSubmissionHandlerInterceptorAdapter;
+import org.apereo.cas.web.support.RedisThrottledSubmissionCounterStore;
+import org.apereo.cas.web.support.ThrottledSubmissionCounterStore;
+import org.apereo.cas.web.support.ThrottledSubmissionHandlerInterceptor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.context.config.annotation.RefreshScope;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+/**
+ * This is {@link CasRedisThrottlingConfiguration}. Failures are counted in the
+ * Redis server that backs the ticket registry.
+ *
+ * @author Misagh Moayyed
+ * @since 5.2.0
+ */
+@Configuration("casRedisThrottlingConfiguration")
+@EnableConfigurationProperties(CasConfigurationProperties.class)
+public class CasRedisThrottlingConfiguration {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CasRedisThrottlingConfiguration.class);
+
+    @Autowired
+    private CasConfigurationProperties casProperties;
+
+    @Autowired
+    @Qualifier("redisConnectionFactory")
+    private RedisConnectionFactory redisConnectionFactory;
+
+    @Bean
+    public ThrottledSubmissionCounterStore throttledSubmissionCounterStore() {
+        return new RedisThrottledSubmissionCounterStore(new StringRedisTemplate(this.redisConnectionFactory));
+    }
+
+    @Bean
+    @RefreshScope
+    public ThrottledSubmissionHandlerInterceptor authenticationThrottle() {
+        final ThrottleProperties throttle = casProperties.getAuthn().getThrottle();
+        final ThrottleProperties.Failure failure = throttle.getFailure();
+        if (failure.getThreshold() > 0 && failure.getRangeSeconds() > 0) {
+            return new DistributedThrottledSubmissionHandlerInterceptorAdapter(failure.getThreshold(), failure.getRangeSeconds(),
+                    throttle.getUsernameParameter(), throttledSubmissionCounterStore());
+        }
+        return () -> LOGGER.debug("Throttling is turned off. No cleanup will take place");
+    }
+}
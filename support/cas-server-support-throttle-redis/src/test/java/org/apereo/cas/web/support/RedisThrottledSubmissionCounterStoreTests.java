@@ -0,0 +1,90 @@
+package org.apereo.cas.web.support;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import redis.embedded.RedisServer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+/**
+ * This is {@link RedisThrottledSubmissionCounterStoreTests}.
+ *
+ * @author Misagh Moayyed
+ * @since 5.2.0
+ */
+public class RedisThrottledSubmissionCounterStoreTests {
+    private static final int PORT = 6380;
+    private static final long WINDOW = 60_000;
+    private static final int THREADS = 8;
+    private static final int INCREMENTS_PER_THREAD = 100;
+
+    private static RedisServer REDIS_SERVER;
+    private static JedisConnectionFactory CONNECTION_FACTORY;
+
+    private final RedisThrottledSubmissionCounterStore store =
+            new RedisThrottledSubmissionCounterStore(new StringRedisTemplate(CONNECTION_FACTORY));
+
+    @BeforeClass
+    public static void startRedis() throws Exception {
+        REDIS_SERVER = new RedisServer(PORT);
+        REDIS_SERVER.start();
+        CONNECTION_FACTORY = new JedisConnectionFactory();
+        CONNECTION_FACTORY.setHostName("localhost");
+        CONNECTION_FACTORY.setPort(PORT);
+        CONNECTION_FACTORY.afterPropertiesSet();
+    }
+
+    @AfterClass
+    public static void stopRedis() {
+        CONNECTION_FACTORY.destroy();
+        REDIS_SERVER.stop();
+    }
+
+    @Test
+    public void verifyCountersAreIncremented() {
+        assertEquals(1, this.store.incrementAndGet("1.2.3.4;casuser", WINDOW));
+        assertEquals(2, this.store.incrementAndGet("1.2.3.4;casuser", WINDOW));
+        assertEquals(2, this.store.get("1.2.3.4;casuser"));
+        assertEquals(0, this.store.get("1.2.3.4;other"));
+    }
+
+    @Test
+    public void verifyCountersExpire() throws Exception {
+        assertEquals(1, this.store.incrementAndGet("1.2.3.4;expiring", 200));
+        assertEquals(2, this.store.incrementAndGet("1.2.3.4;expiring", 200));
+        Thread.sleep(500);
+        assertEquals(0, this.store.get("1.2.3.4;expiring"));
+        assertEquals(1, this.store.incrementAndGet("1.2.3.4;expiring", 200));
+    }
+
+    @Test
+    public void verifyConcurrentIncrementsAreNotLost() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            final List<Future<?>> results = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                results.add(executor.submit(() -> {
+                    for (int i = 0; i < INCREMENTS_PER_THREAD; i++) {
+                        this.store.incrementAndGet("1.2.3.4;concurrent", WINDOW);
+                    }
+                    return null;
+                }));
+            }
+            for (final Future<?> result : results) {
+                result.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(THREADS * INCREMENTS_PER_THREAD, this.store.get("1.2.3.4;concurrent"));
+    }
+}
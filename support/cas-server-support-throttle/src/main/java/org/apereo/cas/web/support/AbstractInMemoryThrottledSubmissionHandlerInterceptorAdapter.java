@@ -4,17 +4,16 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.servlet.http.HttpServletRequest;
-import java.time.ZoneOffset;
-import java.time.ZonedDateTime;
-import java.util.Iterator;
-import java.util.Map.Entry;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Implementation of a HandlerInterceptorAdapter that keeps track of a mapping
  * of IP Addresses to number of failures to authenticate.
+ * <p>
+ * Failures are kept in a bounded {@link InMemoryThrottledSubmissionStore}. By default, a submission
+ * is throttled when the rate between the last failure and now exceeds the threshold rate. When
+ * the sliding window is turned on, a submission is instead throttled once the number of failures
+ * recorded within the failure range reaches the failure threshold.
  *
  * @author Scott Battaglia
  * @since 3.0.0
@@ -23,57 +22,62 @@ public abstract class AbstractInMemoryThrottledSubmissionHandlerInterceptorAdapt
         implements InMemoryThrottledSubmissionHandlerInterceptor {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(AbstractInMemoryThrottledSubmissionHandlerInterceptorAdapter.class);
-    
+
     private static final double SUBMISSION_RATE_DIVIDEND = 1000.0;
 
-    private final ConcurrentMap<String, ZonedDateTime> ipMap = new ConcurrentHashMap<>();
+    private final InMemoryThrottledSubmissionStore store;
+    private final boolean slidingWindow;
 
     public AbstractInMemoryThrottledSubmissionHandlerInterceptorAdapter(final int failureThreshold, final int failureRangeInSeconds,
                                                                         final String usernameParameter) {
+        this(failureThreshold, failureRangeInSeconds, usernameParameter,
+                new InMemoryThrottledSubmissionStore(TimeUnit.SECONDS.toMillis(failureRangeInSeconds)), false);
+    }
+
+    public AbstractInMemoryThrottledSubmissionHandlerInterceptorAdapter(final int failureThreshold, final int failureRangeInSeconds,
+                                                                        final String usernameParameter,
+                                                                        final InMemoryThrottledSubmissionStore store,
+                                                                        final boolean slidingWindow) {
         super(failureThreshold, failureRangeInSeconds, usernameParameter);
+        this.store = store;
+        this.slidingWindow = slidingWindow;
     }
 
     @Override
     public boolean exceedsThreshold(final HttpServletRequest request) {
-        final ZonedDateTime last = this.ipMap.get(constructKey(request));
-        return last != null && submissionRate(ZonedDateTime.now(ZoneOffset.UTC), last) > getThresholdRate();
+        final String key = constructKey(request);
+        final long now = System.currentTimeMillis();
+        if (this.slidingWindow) {
+            return this.store.getFailureCount(key, now) >= getFailureThreshold();
+        }
+        final long last = this.store.getLastFailure(key, now);
+        return last >= 0 && submissionRate(now, last) > getThresholdRate();
     }
 
     @Override
     public void recordSubmissionFailure(final HttpServletRequest request) {
-        this.ipMap.put(constructKey(request), ZonedDateTime.now(ZoneOffset.UTC));
+        final long failures = this.store.recordFailure(constructKey(request), System.currentTimeMillis());
+        LOGGER.trace("Recorded [{}] failure(s) within the failure range", failures);
     }
-    
+
     /**
-     * This class relies on an external configuration to clean it up.
-     * It ignores the threshold data in the parent class.
+     * Entries expire on their own once their last failure falls out of the failure range,
+     * and their space is reclaimed as new failures are recorded. This only reports the
+     * number of entries that are still being tracked.
      */
     @Override
     public void decrement() {
-        LOGGER.info("Beginning audit cleanup...");
-
-        final Set<Entry<String, ZonedDateTime>> keys = this.ipMap.entrySet();
-        LOGGER.debug("Decrementing counts for throttler.  Starting key count: [{}]", keys.size());
-
-        final ZonedDateTime now = ZonedDateTime.now(ZoneOffset.UTC);
-        for (final Iterator<Entry<String, ZonedDateTime>> iter = keys.iterator(); iter.hasNext();) {
-            final Entry<String, ZonedDateTime> entry = iter.next();
-            if (submissionRate(now, entry.getValue()) < getThresholdRate()) {
-                LOGGER.trace("Removing entry for key [{}]", entry.getKey());
-                iter.remove();
-            }
-        }
-        LOGGER.debug("Done decrementing count for throttler.");
+        LOGGER.debug("Throttler is tracking [{}] key(s) with failures", this.store.size(System.currentTimeMillis()));
     }
 
     /**
      * Computes the instantaneous rate in between two given dates corresponding to two submissions.
      *
-     * @param a First date.
-     * @param b Second date.
+     * @param a First date in milliseconds.
+     * @param b Second date in milliseconds.
      * @return Instantaneous submission rate in submissions/sec, e.g. {@code a - b}.
      */
-    private static double submissionRate(final ZonedDateTime a, final ZonedDateTime b) {
-        return SUBMISSION_RATE_DIVIDEND / (a.toInstant().toEpochMilli() - b.toInstant().toEpochMilli());
+    private static double submissionRate(final long a, final long b) {
+        return SUBMISSION_RATE_DIVIDEND / (a - b);
     }
 }
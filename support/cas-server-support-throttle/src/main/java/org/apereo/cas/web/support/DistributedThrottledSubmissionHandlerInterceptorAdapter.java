@@ -0,0 +1,113 @@
+package org.apereo.cas.web.support;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apereo.inspektr.common.web.ClientInfoHolder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throttles submissions by IP address, and by username as well when a username parameter is defined,
+ * based on counters kept in a {@link ThrottledSubmissionCounterStore} that is shared by all nodes of
+ * a cluster, so that the cluster as a whole enforces a single failure threshold.
+ * <p>
+ * Failures are counted in fixed windows as long as the failure range, each kept as a separate counter
+ * that expires on its own. The failures within the last failure range are estimated from the counters
+ * of the current and the previous windows, weighing the latter by the portion of it that still falls
+ * within the range. A submission is throttled once that estimate reaches the failure threshold.
+ * Checking a submission reads two counters, and recording a failure increments one, with no further
+ * bookkeeping on any node.
+ *
+ * @author Misagh Moayyed
+ * @since 5.2.0
+ */
+public class DistributedThrottledSubmissionHandlerInterceptorAdapter extends AbstractThrottledSubmissionHandlerInterceptorAdapter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DistributedThrottledSubmissionHandlerInterceptorAdapter.class);
+
+    private final ThrottledSubmissionCounterStore store;
+    private final long windowInMillis;
+
+    public DistributedThrottledSubmissionHandlerInterceptorAdapter(final int failureThreshold, final int failureRangeInSeconds,
+                                                                   final String usernameParameter,
+                                                                   final ThrottledSubmissionCounterStore store) {
+        super(failureThreshold, failureRangeInSeconds, usernameParameter);
+        this.store = store;
+        this.windowInMillis = TimeUnit.SECONDS.toMillis(failureRangeInSeconds);
+    }
+
+    @Override
+    public boolean exceedsThreshold(final HttpServletRequest request) {
+        return getFailureCount(constructKey(request), System.currentTimeMillis()) >= getFailureThreshold();
+    }
+
+    @Override
+    public void recordSubmissionFailure(final HttpServletRequest request) {
+        recordSubmissionFailure(constructKey(request), System.currentTimeMillis());
+    }
+
+    /**
+     * Counters expire on their own; this only removes those the store does not expire itself.
+     */
+    @Override
+    public void decrement() {
+        this.store.clean();
+    }
+
+    /**
+     * Construct the key for the request.
+     *
+     * @param request the request
+     * @return the key
+     */
+    protected String constructKey(final HttpServletRequest request) {
+        final String remoteAddress = ClientInfoHolder.getClientInfo() != null
+                ? ClientInfoHolder.getClientInfo().getClientIpAddress() : request.getRemoteAddr();
+        if (StringUtils.isBlank(getUsernameParameter())) {
+            return remoteAddress;
+        }
+        final String username = request.getParameter(getUsernameParameter());
+        if (StringUtils.isBlank(username)) {
+            return remoteAddress;
+        }
+        return remoteAddress + ';' + username.toLowerCase();
+    }
+
+    /**
+     * Record a failure for the given key.
+     *
+     * @param key the key
+     * @param now the current time in milliseconds
+     */
+    protected void recordSubmissionFailure(final String key, final long now) {
+        final long window = now / this.windowInMillis;
+        final long failures = this.store.incrementAndGet(windowKey(key, window), 2 * this.windowInMillis);
+        LOGGER.trace("Recorded [{}] failure(s) for [{}] in the current window", failures, key);
+    }
+
+    /**
+     * Estimate the number of failures for the given key within the failure range.
+     *
+     * @param key the key
+     * @param now the current time in milliseconds
+     * @return the estimated number of failures
+     */
+    protected double getFailureCount(final String key, final long now) {
+        final long window = now / this.windowInMillis;
+        final long current = this.store.get(windowKey(key, window));
+        final long previous = this.store.get(windowKey(key, window - 1));
+        final double weight = 1 - (double) (now % this.windowInMillis) / this.windowInMillis;
+        return current + previous * weight;
+    }
+
+    private static String windowKey(final String key, final long window) {
+        return key + ':' + window;
+    }
+
+    @Override
+    public String getName() {
+        return "distributedIpAddressUsernameThrottle";
+    }
+}
@@ -20,6 +20,13 @@ public class InMemoryThrottledSubmissionByIpAddressAndUsernameHandlerInterceptor
         super(failureThreshold, failureRangeInSeconds, usernameParameter);
     }
 
+    public InMemoryThrottledSubmissionByIpAddressAndUsernameHandlerInterceptorAdapter(final int failureThreshold, final int failureRangeInSeconds,
+                                                                                      final String usernameParameter,
+                                                                                      final InMemoryThrottledSubmissionStore store,
+                                                                                      final boolean slidingWindow) {
+        super(failureThreshold, failureRangeInSeconds, usernameParameter, store, slidingWindow);
+    }
+
     @Override
     public String constructKey(final HttpServletRequest request) {
         final String username = request.getParameter(getUsernameParameter());
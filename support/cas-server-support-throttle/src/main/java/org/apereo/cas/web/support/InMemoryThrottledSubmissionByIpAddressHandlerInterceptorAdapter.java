@@ -18,6 +18,12 @@ public class InMemoryThrottledSubmissionByIpAddressHandlerInterceptorAdapter ext
         super(failureThreshold, failureRangeInSeconds, usernameParameter);
     }
 
+    public InMemoryThrottledSubmissionByIpAddressHandlerInterceptorAdapter(final int failureThreshold, final int failureRangeInSeconds,
+                                                                           final String usernameParameter, final InMemoryThrottledSubmissionStore store,
+                                                                           final boolean slidingWindow) {
+        super(failureThreshold, failureRangeInSeconds, usernameParameter, store, slidingWindow);
+    }
+
     @Override
     public String constructKey(final HttpServletRequest request) {
         return ClientInfoHolder.getClientInfo().getClientIpAddress();
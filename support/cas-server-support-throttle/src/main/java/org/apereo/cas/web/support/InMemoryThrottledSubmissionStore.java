@@ -0,0 +1,291 @@
+package org.apereo.cas.web.support;
+
+import org.springframework.util.Assert;
+
+/**
+ * This is {@link InMemoryThrottledSubmissionStore}. It keeps track of failed submissions per key,
+ * such as an IP address or an IP address and username, within a sliding time window.
+ * <p>
+ * The store is made of a fixed number of shards, each guarded by its own lock. Each shard is a
+ * set-associative table of primitive arrays, allocated up front: a key is hashed to 64 bits and
+ * may only live in a small, fixed group of slots. Each slot records the time of the last failure
+ * and the number of failures in each of a number of buckets that divide the window, from which the
+ * failures within the window are counted. Recording or reading a key therefore allocates nothing
+ * and examines a bounded number of slots. Entries whose last failure is older than the window are
+ * expired and their slots reused as new keys arrive, so no periodic sweep is required. When all
+ * slots of a group are in use, the entry with the oldest failure is evicted, which caps the memory
+ * used by the store regardless of the number of distinct keys.
+ *
+ * @author Misagh Moayyed
+ * @since 5.2.0
+ */
+public class InMemoryThrottledSubmissionStore {
+
+    /**
+     * Default number of keys tracked by the store.
+     */
+    public static final int DEFAULT_CAPACITY = 100_000;
+
+    /**
+     * Default number of shards.
+     */
+    public static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+
+    /**
+     * Default number of buckets that divide the window.
+     */
+    public static final int DEFAULT_BUCKETS = 10;
+
+    private static final int SLOTS_PER_GROUP = 8;
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final int HASH_MIX_SHIFT = 29;
+    private static final int SHARD_HASH_SHIFT = 32;
+
+    private final long windowInMillis;
+    private final long bucketInMillis;
+    private final int buckets;
+    private final Shard[] shards;
+    private final int shardMask;
+
+    /**
+     * Instantiates a new store with default settings.
+     *
+     * @param windowInMillis the window within which failures are counted
+     */
+    public InMemoryThrottledSubmissionStore(final long windowInMillis) {
+        this(windowInMillis, DEFAULT_CAPACITY, DEFAULT_CONCURRENCY_LEVEL, DEFAULT_BUCKETS);
+    }
+
+    /**
+     * Instantiates a new store.
+     *
+     * @param windowInMillis   the window within which failures are counted
+     * @param capacity         the maximum number of keys tracked, rounded up to a power of two
+     * @param concurrencyLevel the number of shards, rounded up to a power of two
+     * @param buckets          the number of buckets that divide the window; more buckets count
+     *                         failures more precisely at the expense of memory
+     */
+    public InMemoryThrottledSubmissionStore(final long windowInMillis, final int capacity,
+                                            final int concurrencyLevel, final int buckets) {
+        Assert.isTrue(windowInMillis > 0, "Window must be a positive duration");
+        Assert.isTrue(capacity > 0, "Capacity must be a positive number");
+        Assert.isTrue(concurrencyLevel > 0, "Concurrency level must be a positive number");
+        Assert.isTrue(buckets > 0, "Number of buckets must be a positive number");
+
+        this.windowInMillis = windowInMillis;
+        this.buckets = buckets;
+        this.bucketInMillis = Math.max(1, (windowInMillis + buckets - 1) / buckets);
+
+        final int shardCount = roundUpToPowerOfTwo(concurrencyLevel);
+        final int groupsPerShard = roundUpToPowerOfTwo((capacity + shardCount * SLOTS_PER_GROUP - 1) / (shardCount * SLOTS_PER_GROUP));
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            this.shards[i] = new Shard(groupsPerShard * SLOTS_PER_GROUP);
+        }
+        this.shardMask = shardCount - 1;
+    }
+
+    /**
+     * Record a failure for the given key.
+     *
+     * @param key the key
+     * @param now the current time in milliseconds
+     * @return the number of failures for the key within the window, including this one
+     */
+    public long recordFailure(final String key, final long now) {
+        final long hash = hash(key);
+        final Shard shard = shardFor(hash);
+        synchronized (shard) {
+            int slot = shard.find(hash, now);
+            if (slot < 0) {
+                slot = shard.claim(hash, now);
+            }
+            shard.increment(slot, now);
+            return shard.count(slot, now);
+        }
+    }
+
+    /**
+     * Gets the number of failures for the given key within the window.
+     *
+     * @param key the key
+     * @param now the current time in milliseconds
+     * @return the number of failures
+     */
+    public long getFailureCount(final String key, final long now) {
+        final long hash = hash(key);
+        final Shard shard = shardFor(hash);
+        synchronized (shard) {
+            final int slot = shard.find(hash, now);
+            return slot < 0 ? 0 : shard.count(slot, now);
+        }
+    }
+
+    /**
+     * Gets the time of the last failure for the given key within the window.
+     *
+     * @param key the key
+     * @param now the current time in milliseconds
+     * @return the time of the last failure in milliseconds, or a negative value if there is none
+     */
+    public long getLastFailure(final String key, final long now) {
+        final long hash = hash(key);
+        final Shard shard = shardFor(hash);
+        synchronized (shard) {
+            final int slot = shard.find(hash, now);
+            return slot < 0 ? -1 : shard.lastFailures[slot];
+        }
+    }
+
+    /**
+     * Number of keys with failures within the window. Expired entries are not counted,
+     * and the result is a snapshot that may change while it is being computed.
+     *
+     * @param now the current time in milliseconds
+     * @return the number of keys
+     */
+    public int size(final long now) {
+        int size = 0;
+        for (final Shard shard : this.shards) {
+            synchronized (shard) {
+                for (int slot = 0; slot < shard.hashes.length; slot++) {
+                    if (shard.isLive(slot, now)) {
+                        size++;
+                    }
+                }
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Remove all entries from the store.
+     */
+    public void clear() {
+        for (final Shard shard : this.shards) {
+            synchronized (shard) {
+                shard.clear();
+            }
+        }
+    }
+
+    private Shard shardFor(final long hash) {
+        return this.shards[(int) (hash >>> SHARD_HASH_SHIFT) & this.shardMask];
+    }
+
+    private static int roundUpToPowerOfTwo(final int value) {
+        return value <= 1 ? 1 : Integer.highestOneBit(value - 1) << 1;
+    }
+
+    /**
+     * Compute a 64-bit FNV-1a hash of the key; zero is reserved for unused slots.
+     */
+    private static long hash(final String key) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= FNV_PRIME;
+        }
+        hash ^= hash >>> HASH_MIX_SHIFT;
+        return hash == 0 ? 1 : hash;
+    }
+
+    /**
+     * Table of slots, in groups of {@link #SLOTS_PER_GROUP}. A key may only occupy
+     * a slot in the group its hash maps to.
+     */
+    private class Shard {
+        private final long[] hashes;
+        private final long[] lastFailures;
+        private final long[] lastBuckets;
+        private final int[] counts;
+        private final int groupMask;
+
+        Shard(final int slots) {
+            this.hashes = new long[slots];
+            this.lastFailures = new long[slots];
+            this.lastBuckets = new long[slots];
+            this.counts = new int[slots * buckets];
+            this.groupMask = slots / SLOTS_PER_GROUP - 1;
+        }
+
+        int find(final long hash, final long now) {
+            final int start = firstSlot(hash);
+            for (int slot = start; slot < start + SLOTS_PER_GROUP; slot++) {
+                if (this.hashes[slot] == hash) {
+                    return isLive(slot, now) ? slot : -1;
+                }
+            }
+            return -1;
+        }
+
+        int claim(final long hash, final long now) {
+            final int start = firstSlot(hash);
+            int victim = start;
+            for (int slot = start; slot < start + SLOTS_PER_GROUP; slot++) {
+                if (this.hashes[slot] == hash || !isLive(slot, now)) {
+                    victim = slot;
+                    break;
+                }
+                if (this.lastFailures[slot] < this.lastFailures[victim]) {
+                    victim = slot;
+                }
+            }
+            this.hashes[victim] = hash;
+            this.lastFailures[victim] = now;
+            this.lastBuckets[victim] = Long.MIN_VALUE;
+            return victim;
+        }
+
+        /**
+         * Count a failure in the current bucket, first clearing the buckets that
+         * fell out of the window since the last failure.
+         */
+        void increment(final int slot, final long now) {
+            final long bucket = now / bucketInMillis;
+            final long last = this.lastBuckets[slot];
+            if (bucket > last) {
+                final long first = last == Long.MIN_VALUE ? bucket - buckets + 1 : Math.max(last + 1, bucket - buckets + 1);
+                for (long b = first; b <= bucket; b++) {
+                    this.counts[index(slot, b)] = 0;
+                }
+                this.lastBuckets[slot] = bucket;
+            }
+            this.counts[index(slot, this.lastBuckets[slot])]++;
+            this.lastFailures[slot] = Math.max(now, this.lastFailures[slot]);
+        }
+
+        /**
+         * Sum the buckets of the last failure that are still within the window.
+         */
+        long count(final int slot, final long now) {
+            final long bucket = now / bucketInMillis;
+            final long last = this.lastBuckets[slot];
+            long count = 0;
+            for (long b = Math.max(last, bucket) - buckets + 1; b <= last; b++) {
+                count += this.counts[index(slot, b)];
+            }
+            return count;
+        }
+
+        boolean isLive(final int slot, final long now) {
+            return this.hashes[slot] != 0 && now - this.lastFailures[slot] < windowInMillis;
+        }
+
+        void clear() {
+            for (int slot = 0; slot < this.hashes.length; slot++) {
+                this.hashes[slot] = 0;
+                this.lastFailures[slot] = 0;
+            }
+        }
+
+        private int index(final int slot, final long bucket) {
+            return slot * buckets + (int) Math.floorMod(bucket, (long) buckets);
+        }
+
+        private int firstSlot(final long hash) {
+            return ((int) hash & this.groupMask) * SLOTS_PER_GROUP;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package org.apereo.cas.web.support;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This is {@link LocalThrottledSubmissionCounterStore}. It keeps counters within this JVM,
+ * and stands in for a distributed store on a single node or in tests.
+ *
+ * @author Misagh Moayyed
+ * @since 5.2.0
+ */
+public class LocalThrottledSubmissionCounterStore implements ThrottledSubmissionCounterStore {
+
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    @Override
+    public long incrementAndGet(final String key, final long timeToLiveInMillis) {
+        final long now = System.currentTimeMillis();
+        return this.counters.compute(key, (k, counter) -> counter == null || counter.isExpired(now)
+                ? new Counter(1, now + timeToLiveInMillis)
+                : new Counter(counter.value + 1, counter.expiresAt)).value;
+    }
+
+    @Override
+    public long get(final String key) {
+        final Counter counter = this.counters.get(key);
+        return counter == null || counter.isExpired(System.currentTimeMillis()) ? 0 : counter.value;
+    }
+
+    @Override
+    public void clean() {
+        final long now = System.currentTimeMillis();
+        this.counters.values().removeIf(counter -> counter.isExpired(now));
+    }
+
+    /**
+     * Number of counters kept, including those that expired and have not been removed yet.
+     *
+     * @return the number of counters
+     */
+    public int size() {
+        return this.counters.size();
+    }
+
+    private static class Counter {
+        private final long value;
+        private final long expiresAt;
+
+        Counter(final long value, final long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isExpired(final long now) {
+            return now >= this.expiresAt;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package org.apereo.cas.web.support;
+
+/**
+ * This is {@link ThrottledSubmissionCounterStore}. It keeps counters of failed submissions
+ * that may be shared by all nodes of a cluster. Counters are created on their first increment
+ * and expire once their time-to-live elapses, at which point they read as zero.
+ *
+ * @author Misagh Moayyed
+ * @since 5.2.0
+ */
+public interface ThrottledSubmissionCounterStore {
+
+    /**
+     * Atomically increment the counter for the given key, creating it with the given
+     * time-to-live if it does not exist. The time-to-live of an existing counter is not extended.
+     *
+     * @param key                the key
+     * @param timeToLiveInMillis the time-to-live of the counter, if created
+     * @return the value of the counter after the increment
+     */
+    long incrementAndGet(String key, long timeToLiveInMillis);
+
+    /**
+     * Gets the value of the counter for the given key.
+     *
+     * @param key the key
+     * @return the value of the counter, or zero if there is none or it has expired
+     */
+    long get(String key);
+
+    /**
+     * Remove expired counters. Stores that expire counters on their own need not do anything.
+     */
+    default void clean() {
+    }
+}
@@ -7,6 +7,7 @@ import org.apereo.cas.configuration.model.support.throttle.ThrottleProperties;
 import org.apereo.cas.web.support.InMemoryThrottledSubmissionByIpAddressAndUsernameHandlerInterceptorAdapter;
 import org.apereo.cas.web.support.InMemoryThrottledSubmissionByIpAddressHandlerInterceptorAdapter;
 import org.apereo.cas.web.support.InMemoryThrottledSubmissionCleaner;
+import org.apereo.cas.web.support.InMemoryThrottledSubmissionStore;
 import org.apereo.cas.web.support.ThrottledSubmissionHandlerInterceptor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -20,6 +21,8 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Lazy;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * This is {@link CasThrottlingConfiguration}.
  *
@@ -43,12 +46,16 @@ public class CasThrottlingConfiguration {
         final ThrottleProperties throttle = casProperties.getAuthn().getThrottle();
         if (throttle.getFailure().getThreshold() > 0
                 && throttle.getFailure().getRangeSeconds() > 0) {
+            final ThrottleProperties.InMemory inMemory = throttle.getInMemory();
+            final InMemoryThrottledSubmissionStore store = new InMemoryThrottledSubmissionStore(
+                    TimeUnit.SECONDS.toMillis(throttle.getFailure().getRangeSeconds()),
+                    inMemory.getCapacity(), inMemory.getConcurrencyLevel(), inMemory.getBuckets());
             if (StringUtils.isNotBlank(throttle.getUsernameParameter())) {
                 return new InMemoryThrottledSubmissionByIpAddressAndUsernameHandlerInterceptorAdapter(throttle.getFailure().getThreshold(),
-                        throttle.getFailure().getRangeSeconds(), throttle.getUsernameParameter());
+                        throttle.getFailure().getRangeSeconds(), throttle.getUsernameParameter(), store, inMemory.isSlidingWindow());
             }
             return new InMemoryThrottledSubmissionByIpAddressHandlerInterceptorAdapter(throttle.getFailure().getThreshold(),
-                    throttle.getFailure().getRangeSeconds(), throttle.getUsernameParameter());
+                    throttle.getFailure().getRangeSeconds(), throttle.getUsernameParameter(), store, inMemory.isSlidingWindow());
         }
         return neverThrottle();
     }
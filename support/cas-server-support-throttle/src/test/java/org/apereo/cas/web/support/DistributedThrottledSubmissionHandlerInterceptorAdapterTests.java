@@ -0,0 +1,84 @@
+package org.apereo.cas.web.support;
+
+import org.apereo.inspektr.common.web.ClientInfo;
+import org.apereo.inspektr.common.web.ClientInfoHolder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * This is {@link DistributedThrottledSubmissionHandlerInterceptorAdapterTests}.
+ *
+ * @author Misagh Moayyed
+ * @since 5.2.0
+ */
+public class DistributedThrottledSubmissionHandlerInterceptorAdapterTests {
+    private static final String KEY = "1.2.3.4;casuser";
+    private static final long WINDOW = 60_000;
+
+    private MockHttpServletRequest request;
+
+    @Before
+    public void setUp() {
+        this.request = new MockHttpServletRequest();
+        this.request.setRemoteAddr("1.2.3.4");
+        this.request.setLocalAddr("1.2.3.4");
+        this.request.setParameter("username", "CASuser");
+        ClientInfoHolder.setClientInfo(new ClientInfo(this.request));
+    }
+
+    @After
+    public void tearDown() {
+        ClientInfoHolder.setClientInfo(null);
+    }
+
+    @Test
+    public void verifyLocalStoreCountersExpire() throws Exception {
+        final LocalThrottledSubmissionCounterStore store = new LocalThrottledSubmissionCounterStore();
+        assertEquals(1, store.incrementAndGet(KEY, 100));
+        assertEquals(2, store.incrementAndGet(KEY, 100));
+        assertEquals(2, store.get(KEY));
+        assertEquals(0, store.get("other"));
+        Thread.sleep(200);
+        assertEquals(0, store.get(KEY));
+        store.clean();
+        assertEquals(0, store.size());
+        assertEquals(1, store.incrementAndGet(KEY, 100));
+    }
+
+    @Test
+    public void verifyFailuresAreWeighedAcrossWindows() {
+        final DistributedThrottledSubmissionHandlerInterceptorAdapter throttle =
+                new DistributedThrottledSubmissionHandlerInterceptorAdapter(3, 60, "username", new LocalThrottledSubmissionCounterStore());
+        final long start = WINDOW * 1_000;
+        IntStream.range(0, 4).forEach(i -> throttle.recordSubmissionFailure(KEY, start + i));
+        assertEquals(4, throttle.getFailureCount(KEY, start + 10), 0);
+        assertEquals(2, throttle.getFailureCount(KEY, start + WINDOW + WINDOW / 2), 0);
+        assertEquals(0, throttle.getFailureCount(KEY, start + 2 * WINDOW), 0);
+        assertEquals(0, throttle.getFailureCount("other", start), 0);
+    }
+
+    @Test
+    public void verifyNodesSharingStoreEnforceSingleThreshold() {
+        final ThrottledSubmissionCounterStore store = new LocalThrottledSubmissionCounterStore();
+        final DistributedThrottledSubmissionHandlerInterceptorAdapter node1 =
+                new DistributedThrottledSubmissionHandlerInterceptorAdapter(3, 60, "username", store);
+        final DistributedThrottledSubmissionHandlerInterceptorAdapter node2 =
+                new DistributedThrottledSubmissionHandlerInterceptorAdapter(3, 60, "username", store);
+
+        node1.recordSubmissionFailure(this.request);
+        node2.recordSubmissionFailure(this.request);
+        assertFalse(node1.exceedsThreshold(this.request));
+        node2.recordSubmissionFailure(this.request);
+        assertTrue(node1.exceedsThreshold(this.request));
+        assertTrue(node2.exceedsThreshold(this.request));
+
+        this.request.setParameter("username", "other");
+        assertFalse(node1.exceedsThreshold(this.request));
+    }
+}
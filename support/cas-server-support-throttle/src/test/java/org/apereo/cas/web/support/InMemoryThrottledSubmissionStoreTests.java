@@ -0,0 +1,74 @@
+package org.apereo.cas.web.support;
+
+import org.apereo.inspektr.common.web.ClientInfo;
+import org.apereo.inspektr.common.web.ClientInfoHolder;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * This is {@link InMemoryThrottledSubmissionStoreTests}.
+ *
+ * @author Misagh Moayyed
+ * @since 5.2.0
+ */
+public class InMemoryThrottledSubmissionStoreTests {
+    private static final String KEY = "1.2.3.4;casuser";
+    private static final long WINDOW = 10_000;
+
+    @After
+    public void tearDown() {
+        ClientInfoHolder.setClientInfo(null);
+    }
+
+    @Test
+    public void verifyFailuresAreCountedWithinWindow() {
+        final InMemoryThrottledSubmissionStore store = new InMemoryThrottledSubmissionStore(WINDOW, 100, 4, 10);
+        final long start = 1_000_000;
+        assertEquals(1, store.recordFailure(KEY, start));
+        assertEquals(2, store.recordFailure(KEY, start + 1_000));
+        assertEquals(3, store.recordFailure(KEY, start + 5_000));
+        assertEquals(start + 5_000, store.getLastFailure(KEY, start + 5_000));
+        assertEquals(0, store.getFailureCount("other", start + 5_000));
+
+        assertEquals(2, store.getFailureCount(KEY, start + WINDOW + 500));
+        assertEquals(1, store.getFailureCount(KEY, start + WINDOW + 1_500));
+        assertEquals(1, store.size(start + WINDOW + 1_500));
+
+        assertEquals(0, store.getFailureCount(KEY, start + 5_000 + WINDOW));
+        assertTrue(store.getLastFailure(KEY, start + 5_000 + WINDOW) < 0);
+        assertEquals(0, store.size(start + 5_000 + WINDOW));
+        assertEquals(1, store.recordFailure(KEY, start + 5_000 + WINDOW));
+    }
+
+    @Test
+    public void verifyCapacityIsBounded() {
+        final InMemoryThrottledSubmissionStore store = new InMemoryThrottledSubmissionStore(WINDOW, 64, 1, 10);
+        final long start = 1_000_000;
+        IntStream.range(0, 10_000).forEach(i -> store.recordFailure("10.0.0." + i, start + i));
+        assertTrue(store.size(start + 10_000) <= 64);
+        assertEquals(1, store.getFailureCount("10.0.0.9999", start + 10_000));
+    }
+
+    @Test
+    public void verifySlidingWindowThrottlesOnFailureCount() {
+        final InMemoryThrottledSubmissionStore store = new InMemoryThrottledSubmissionStore(60_000);
+        final InMemoryThrottledSubmissionByIpAddressHandlerInterceptorAdapter throttle =
+                new InMemoryThrottledSubmissionByIpAddressHandlerInterceptorAdapter(3, 60, null, store, true);
+        throttle.afterPropertiesSet();
+
+        final MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr("1.2.3.4");
+        request.setLocalAddr("1.2.3.4");
+        ClientInfoHolder.setClientInfo(new ClientInfo(request));
+
+        IntStream.range(0, 2).forEach(i -> throttle.recordSubmissionFailure(request));
+        assertFalse(throttle.exceedsThreshold(request));
+        throttle.recordSubmissionFailure(request);
+        assertTrue(throttle.exceedsThreshold(request));
+    }
+}